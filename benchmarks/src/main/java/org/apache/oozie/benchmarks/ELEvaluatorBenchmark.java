@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.benchmarks;
+
+import org.apache.oozie.coord.CoordELFunctions;
+import org.apache.oozie.coord.SyncCoordAction;
+import org.apache.oozie.coord.SyncCoordDataset;
+import org.apache.oozie.coord.TimeUnit;
+import org.apache.oozie.util.DateUtils;
+import org.apache.oozie.util.ELConstantsFunctions;
+import org.apache.oozie.util.ELEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Evaluation cost of workflow style EL expressions and of the coordinator EL functions used during action
+ * materialization.
+ * <p/>
+ * The evaluators are configured directly, without the EL service, the same way the EL service configures them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+public class ELEvaluatorBenchmark {
+
+    private ELEvaluator wfEvaluator;
+    private ELEvaluator coordFrequencyEvaluator;
+    private ELEvaluator coordInstanceEvaluator;
+
+    @Setup
+    public void setUp() throws Exception {
+        ELEvaluator.Context context = new ELEvaluator.Context();
+        context.addFunction("", "concat", ELConstantsFunctions.class.getMethod("concat", String.class, String.class));
+        context.addFunction("", "trim", ELConstantsFunctions.class.getMethod("trim", String.class));
+        context.setVariable("nameNode", "hdfs://localhost:8020");
+        context.setVariable("outputDir", " /user/oozie/output ");
+        context.setVariable("reducers", 10);
+        wfEvaluator = new ELEvaluator(context);
+
+        context = new ELEvaluator.Context();
+        context.addFunction("coord", "days", CoordELFunctions.class.getMethod("ph1_coord_days", int.class));
+        context.addFunction("coord", "hours", CoordELFunctions.class.getMethod("ph1_coord_hours", int.class));
+        coordFrequencyEvaluator = new ELEvaluator(context);
+
+        context = new ELEvaluator.Context();
+        context.addFunction("coord", "current", CoordELFunctions.class.getMethod("ph2_coord_current", int.class));
+        coordInstanceEvaluator = new ELEvaluator(context);
+        SyncCoordDataset ds = new SyncCoordDataset();
+        ds.setFrequency(1);
+        ds.setTimeUnit(TimeUnit.DAY);
+        ds.setInitInstance(DateUtils.parseDateUTC("2009-01-01T08:00Z"));
+        ds.setTimeZone(DateUtils.getTimeZone("America/Los_Angeles"));
+        ds.setName("logs");
+        ds.setType("SYNC");
+        ds.setEndOfDuration(TimeUnit.NONE);
+        SyncCoordAction appInst = new SyncCoordAction();
+        appInst.setNominalTime(DateUtils.parseDateUTC("2010-03-08T08:00Z"));
+        appInst.setActualTime(DateUtils.parseDateUTC("2010-03-08T08:10Z"));
+        appInst.setTimeZone(DateUtils.getTimeZone("UTC"));
+        appInst.setFrequency(1);
+        appInst.setTimeUnit(TimeUnit.DAY);
+        CoordELFunctions.configureEvaluator(coordInstanceEvaluator, ds, appInst);
+    }
+
+    @Benchmark
+    public String workflowExpression() throws Exception {
+        return wfEvaluator.evaluate("${concat(nameNode, trim(outputDir))}", String.class);
+    }
+
+    @Benchmark
+    public Boolean workflowPredicate() throws Exception {
+        return wfEvaluator.evaluate("${reducers * 2 > 15 and nameNode ne ''}", Boolean.class);
+    }
+
+    @Benchmark
+    public Integer coordFrequency() throws Exception {
+        return coordFrequencyEvaluator.evaluate("${coord:days(1) * 24 + coord:hours(2)}", Integer.class);
+    }
+
+    @Benchmark
+    public String coordCurrent() throws Exception {
+        return coordInstanceEvaluator.evaluate("${coord:current(-1)}", String.class);
+    }
+
+}
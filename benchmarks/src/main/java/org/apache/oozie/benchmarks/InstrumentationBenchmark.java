@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.benchmarks;
+
+import org.apache.oozie.util.Instrumentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of updating {@link Instrumentation} counters and timers, done by every command and web service request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InstrumentationBenchmark {
+
+    private Instrumentation instrumentation;
+
+    @Setup
+    public void setUp() {
+        instrumentation = new Instrumentation();
+        instrumentation.incr("commands", "signal.executions", 0);
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        cron.stop();
+        instrumentation.addCron("commands", "signal.call", cron);
+    }
+
+    @Benchmark
+    public void incr() {
+        instrumentation.incr("commands", "signal.executions", 1);
+    }
+
+    @Benchmark
+    public void addCron() {
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        cron.stop();
+        instrumentation.addCron("commands", "signal.call", cron);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void incrContended() {
+        incr();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void addCronContended() {
+        addCron();
+    }
+
+}
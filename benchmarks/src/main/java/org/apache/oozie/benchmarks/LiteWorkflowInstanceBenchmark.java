@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.benchmarks;
+
+import org.apache.oozie.util.WritableUtils;
+import org.apache.oozie.util.XConfiguration;
+import org.apache.oozie.workflow.WorkflowException;
+import org.apache.oozie.workflow.WorkflowInstance;
+import org.apache.oozie.workflow.lite.ActionNodeDef;
+import org.apache.oozie.workflow.lite.ActionNodeHandler;
+import org.apache.oozie.workflow.lite.EndNodeDef;
+import org.apache.oozie.workflow.lite.ForkNodeDef;
+import org.apache.oozie.workflow.lite.JoinNodeDef;
+import org.apache.oozie.workflow.lite.KillNodeDef;
+import org.apache.oozie.workflow.lite.LiteWorkflowApp;
+import org.apache.oozie.workflow.lite.LiteWorkflowInstance;
+import org.apache.oozie.workflow.lite.StartNodeDef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of running a fork/join workflow through {@link LiteWorkflowInstance#signal(String, String)} and of the
+ * {@link WritableUtils} round-trip done every time a workflow instance is stored and loaded, for increasing fork
+ * widths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LiteWorkflowInstanceBenchmark {
+
+    /**
+     * Action node handler that does nothing, actions complete when signaled.
+     */
+    public static class NoopActionNodeHandler extends ActionNodeHandler {
+
+        @Override
+        public void start(Context context) {
+        }
+
+        @Override
+        public void end(Context context) {
+        }
+    }
+
+    @Param({"10", "100", "500", "1000"})
+    public int width;
+
+    private LiteWorkflowApp app;
+    private LiteWorkflowInstance running;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<String> branches = new ArrayList<String>();
+        for (int i = 0; i < width; i++) {
+            branches.add("a" + i);
+        }
+        app = new LiteWorkflowApp("bench-wf", "<workflow-app/>", new StartNodeDef("f"));
+        app.addNode(new ForkNodeDef("f", branches));
+        for (String branch : branches) {
+            app.addNode(new ActionNodeDef(branch, "<action/>", NoopActionNodeHandler.class, "j", "kill"));
+        }
+        app.addNode(new JoinNodeDef("j", "end"));
+        app.addNode(new KillNodeDef("kill", "killed"));
+        app.addNode(new EndNodeDef("end"));
+
+        // instance with all fork branches running, the most expensive state to serialize
+        running = new LiteWorkflowInstance(app, new XConfiguration(), "bench");
+        running.start();
+        serialized = WritableUtils.toByteArray(running);
+    }
+
+    @Benchmark
+    public LiteWorkflowInstance signalForkJoin() throws WorkflowException {
+        LiteWorkflowInstance instance = new LiteWorkflowInstance(app, new XConfiguration(), "bench");
+        instance.start();
+        for (int i = 0; i < width; i++) {
+            instance.signal("/a" + i + "/", ActionNodeHandler.OK);
+        }
+        if (instance.getStatus() != WorkflowInstance.Status.SUCCEEDED) {
+            throw new IllegalStateException("workflow did not complete, status " + instance.getStatus());
+        }
+        return instance;
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return WritableUtils.toByteArray(running);
+    }
+
+    @Benchmark
+    public LiteWorkflowInstance read() {
+        return WritableUtils.fromByteArray(serialized, LiteWorkflowInstance.class);
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.benchmarks;
+
+import org.apache.oozie.util.MemoryLocks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acquire/release cost of {@link MemoryLocks} read and write locks, the job locks used by the commands.
+ * <p/>
+ * With a single resource all threads contend for the same lock, with many resources they mostly contend on the lock
+ * map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class MemoryLocksBenchmark {
+
+    @Param({"1", "1000"})
+    public int resources;
+
+    private MemoryLocks locks;
+    private String[] names;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = (int) Thread.currentThread().getId();
+    }
+
+    @Setup
+    public void setUp() {
+        locks = new MemoryLocks();
+        names = new String[resources];
+        for (int i = 0; i < resources; i++) {
+            names[i] = "0000" + i + "-oozie-W";
+        }
+    }
+
+    private String nextResource(Cursor cursor) {
+        cursor.next = (cursor.next + 1) % resources;
+        return names[cursor.next];
+    }
+
+    @Benchmark
+    public void writeLock(Cursor cursor) throws InterruptedException {
+        locks.getWriteLock(nextResource(cursor), -1).release();
+    }
+
+    @Benchmark
+    public void readLock(Cursor cursor) throws InterruptedException {
+        locks.getReadLock(nextResource(cursor), -1).release();
+    }
+
+}
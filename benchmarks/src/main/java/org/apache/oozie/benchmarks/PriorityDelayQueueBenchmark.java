@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.benchmarks;
+
+import org.apache.oozie.util.PriorityDelayQueue;
+import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offer/poll throughput of the {@link PriorityDelayQueue} used by the callable queue service, with producers and
+ * consumers contending on the same queue.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PriorityDelayQueueBenchmark {
+    private static final int PRIORITIES = 3;
+    private static final int MAX_SIZE = 10000;
+
+    private PriorityDelayQueue<Integer> queue;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = new PriorityDelayQueue<Integer>(PRIORITIES, 500, TimeUnit.MILLISECONDS, MAX_SIZE);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public boolean offer() {
+        int priority = (int) (Thread.currentThread().getId() % PRIORITIES);
+        return queue.offer(new QueueElement<Integer>(priority, priority, 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public QueueElement<Integer> poll() {
+        return queue.poll();
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public QueueElement<Integer> offerPoll() {
+        queue.offer(new QueueElement<Integer>(1, 1, 0, TimeUnit.MILLISECONDS));
+        return queue.poll();
+    }
+
+}
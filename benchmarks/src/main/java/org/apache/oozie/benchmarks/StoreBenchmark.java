@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.benchmarks;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.WorkflowJobBean;
+import org.apache.oozie.WorkflowsInfo;
+import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.service.WorkflowStoreService;
+import org.apache.oozie.store.WorkflowStore;
+import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.XConfiguration;
+import org.apache.oozie.util.XmlUtils;
+import org.apache.oozie.workflow.WorkflowApp;
+import org.apache.oozie.workflow.WorkflowInstance;
+import org.apache.oozie.workflow.WorkflowLib;
+import org.apache.oozie.workflow.lite.EndNodeDef;
+import org.apache.oozie.workflow.lite.LiteWorkflowApp;
+import org.apache.oozie.workflow.lite.StartNodeDef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the workflow store lookups done by the commands and of the filtered (dynamic JPQL) listings done by the
+ * jobs web service, against an in-memory HSQLDB database.
+ * <p/>
+ * Each operation runs in its own store transaction, the same way a command does. The listings exercise the OpenJPA
+ * query compilation and SQL caches, the lookups the build-time enhanced entity beans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StoreBenchmark {
+
+    private static final int WORKFLOWS = 100;
+
+    private File home;
+    private Services services;
+    private WorkflowStoreService storeService;
+    private String[] ids;
+    private Map<String, List<String>> userFilter;
+    private Map<String, List<String>> noFilter;
+
+    @Setup
+    public void setUp() throws Exception {
+        home = File.createTempFile("oozie-benchmark", ".dir");
+        home.delete();
+        new File(home, "conf").mkdirs();
+        System.setProperty(Services.OOZIE_HOME_DIR, home.getAbsolutePath());
+        System.setProperty(Services.CONF_SERVICE_CLASSES,
+                           "org.apache.oozie.service.SchedulerService,org.apache.oozie.service.InstrumentationService,"
+                           + "org.apache.oozie.service.UUIDService,org.apache.oozie.service.SchemaService,"
+                           + "org.apache.oozie.service.StoreService,org.apache.oozie.service.DBLiteWorkflowStoreService");
+        System.setProperty("oozie.service.StoreService.jdbc.driver", "org.hsqldb.jdbcDriver");
+        System.setProperty("oozie.service.StoreService.jdbc.url", "jdbc:hsqldb:mem:oozie-benchmark;create=true");
+        services = new Services();
+        services.init();
+        storeService = services.get(WorkflowStoreService.class);
+
+        WorkflowApp app = new LiteWorkflowApp("bench-wf", "<workflow-app/>", new StartNodeDef("end"))
+                .addNode(new EndNodeDef("end"));
+        WorkflowLib workflowLib = storeService.getWorkflowLibWithNoDB();
+        ids = new String[WORKFLOWS];
+        WorkflowStore store = storeService.create();
+        store.beginTrx();
+        for (int i = 0; i < WORKFLOWS; i++) {
+            Configuration conf = new XConfiguration();
+            conf.set(OozieClient.APP_PATH, "hdfs://localhost:8020/user/bench/wf");
+            conf.set(OozieClient.USER_NAME, "user" + (i % 10));
+            conf.set(OozieClient.GROUP_NAME, "users");
+            WorkflowInstance instance = workflowLib.createInstance(app, conf);
+            WorkflowJobBean workflow = new WorkflowJobBean();
+            workflow.setId(instance.getId());
+            workflow.setAppName(app.getName());
+            workflow.setAppPath(conf.get(OozieClient.APP_PATH));
+            workflow.setConf(XmlUtils.prettyPrint(conf).toString());
+            workflow.setProtoActionConf(XmlUtils.prettyPrint(conf).toString());
+            workflow.setCreatedTime(new Date());
+            workflow.setLastModifiedTime(new Date());
+            workflow.setStatus(WorkflowJob.Status.RUNNING);
+            workflow.setRun(0);
+            workflow.setUser(conf.get(OozieClient.USER_NAME));
+            workflow.setGroup(conf.get(OozieClient.GROUP_NAME));
+            workflow.setAuthToken("");
+            workflow.setWorkflowInstance(instance);
+            store.insertWorkflow(workflow);
+            ids[i] = workflow.getId();
+        }
+        store.commitTrx();
+        store.closeTrx();
+
+        userFilter = new HashMap<String, List<String>>();
+        userFilter.put(OozieClient.FILTER_USER, Arrays.asList("user1"));
+        userFilter.put(OozieClient.FILTER_STATUS, Arrays.asList(WorkflowJob.Status.RUNNING.toString()));
+        noFilter = new HashMap<String, List<String>>();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        services.destroy();
+        IOUtils.delete(home);
+    }
+
+    @Benchmark
+    public WorkflowJobBean getWorkflow() throws Exception {
+        WorkflowStore store = storeService.create();
+        try {
+            store.beginTrx();
+            WorkflowJobBean workflow = store.getWorkflow(ids[WORKFLOWS / 2], false);
+            store.commitTrx();
+            return workflow;
+        }
+        finally {
+            store.closeTrx();
+        }
+    }
+
+    @Benchmark
+    public WorkflowsInfo getWorkflowsInfoFiltered() throws Exception {
+        return getWorkflowsInfo(userFilter);
+    }
+
+    @Benchmark
+    public WorkflowsInfo getWorkflowsInfoUnfiltered() throws Exception {
+        return getWorkflowsInfo(noFilter);
+    }
+
+    private WorkflowsInfo getWorkflowsInfo(Map<String, List<String>> filter) throws Exception {
+        WorkflowStore store = storeService.create();
+        try {
+            store.beginTrx();
+            WorkflowsInfo info = store.getWorkflowsInfo(filter, 1, 50);
+            store.commitTrx();
+            return info;
+        }
+        finally {
+            store.closeTrx();
+        }
+    }
+
+}
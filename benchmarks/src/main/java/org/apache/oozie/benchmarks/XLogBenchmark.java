@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.benchmarks;
+
+import org.apache.oozie.util.XLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of formatting a log message with {@link XLog#format(String, Object...)} compared to {@link MessageFormat}, done
+ * by every log statement of the commands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class XLogBenchmark {
+
+    private String template =
+            "STARTED CoordActionInputCheckCommand for actionId [{0}], nominal time [{1}], count [{2}]";
+    private Object[] params = {"0000001-100101000000000-oozie-C@1", "2010-01-01T00:00Z", 10};
+
+    @Benchmark
+    public String messageFormat() {
+        return MessageFormat.format(template, params);
+    }
+
+    @Benchmark
+    public String xlogFormat() {
+        return XLog.format(template, params);
+    }
+
+}
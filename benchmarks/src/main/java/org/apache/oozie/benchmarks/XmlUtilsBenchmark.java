@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.benchmarks;
+
+import org.apache.oozie.util.XmlUtils;
+import org.jdom.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link XmlUtils#parseXml(String)} and {@link XmlUtils#prettyPrint(Element)} on workflow definitions of
+ * increasing size. Action configurations are parsed and printed on every action start.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XmlUtilsBenchmark {
+
+    @Param({"1", "50"})
+    public int actions;
+
+    private String xml;
+    private Element element;
+
+    @Setup
+    public void setUp() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<workflow-app xmlns='uri:oozie:workflow:0.1' name='bench-wf'>");
+        sb.append("<start to='a0'/>");
+        for (int i = 0; i < actions; i++) {
+            String next = (i + 1 < actions) ? "a" + (i + 1) : "end";
+            sb.append("<action name='a").append(i).append("'>");
+            sb.append("<map-reduce><job-tracker>localhost:8021</job-tracker><name-node>hdfs://localhost:8020</name-node>");
+            sb.append("<configuration>");
+            for (int j = 0; j < 10; j++) {
+                sb.append("<property><name>mapred.property.").append(j).append("</name>");
+                sb.append("<value>${wf:conf('value").append(j).append("')}</value></property>");
+            }
+            sb.append("</configuration></map-reduce>");
+            sb.append("<ok to='").append(next).append("'/><error to='kill'/></action>");
+        }
+        sb.append("<kill name='kill'><message>failed</message></kill>");
+        sb.append("<end name='end'/></workflow-app>");
+        xml = sb.toString();
+        element = XmlUtils.parseXml(xml);
+    }
+
+    @Benchmark
+    public Element parseXml() throws Exception {
+        return XmlUtils.parseXml(xml);
+    }
+
+    @Benchmark
+    public String prettyPrint() {
+        return XmlUtils.prettyPrint(element).toString();
+    }
+
+}
@@ -46,6 +46,7 @@ import org.apache.commons.cli.ParseException;
 import org.apache.oozie.BuildInfo;
 import org.apache.oozie.client.CoordinatorAction;
 import org.apache.oozie.client.CoordinatorJob;
+import org.apache.oozie.client.JobsInfo;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.OozieClientException;
 import org.apache.oozie.client.WorkflowAction;
@@ -98,6 +99,8 @@ public class OozieCLI {
     public static final String LEN_OPTION = "len";
     public static final String FILTER_OPTION = "filter";
     public static final String JOBTYPE_OPTION = "jobtype";
+    public static final String IDS_OPTION = "ids";
+    public static final String SINCE_OPTION = "since";
     public static final String SYSTEM_MODE_OPTION = "systemmode";
     public static final String VERSION_OPTION = "version";
     public static final String STATUS_OPTION = "status";
@@ -246,8 +249,13 @@ public class OozieCLI {
         Option filter = new Option(FILTER_OPTION, true, "user=<U>;name=<N>;group=<G>;status=<S>;...");
         Option localtime = new Option(LOCAL_TIME_OPTION, false, "use local time (default GMT)");
         Option verbose = new Option(VERBOSE_OPTION, false, "verbose mode");
+        Option ids = new Option(IDS_OPTION, true, "comma separated job and action IDs, returns their status");
+        Option since = new Option(SINCE_OPTION, true,
+                "watch time returned by a previous '-" + IDS_OPTION + "' call, returns the jobs and actions modified "
+                        + "since then (requires -" + IDS_OPTION + ")");
         start.setType(Integer.class);
         len.setType(Integer.class);
+        since.setType(Long.class);
         Options jobsOptions = new Options();
         jobsOptions.addOption(oozie);
         jobsOptions.addOption(localtime);
@@ -256,6 +264,8 @@ public class OozieCLI {
         jobsOptions.addOption(oozie);
         jobsOptions.addOption(filter);
         jobsOptions.addOption(jobtype);
+        jobsOptions.addOption(ids);
+        jobsOptions.addOption(since);
         jobsOptions.addOption(verbose);
         return jobsOptions;
     }
@@ -820,6 +830,11 @@ public class OozieCLI {
     private void jobsCommand(CommandLine commandLine) throws IOException, OozieCLIException {
         XOozieClient wc = createXOozieClient(commandLine);
 
+        if (commandLine.hasOption(IDS_OPTION)) {
+            jobsInfoCommand(wc, commandLine);
+            return;
+        }
+
         String filter = commandLine.getOptionValue(FILTER_OPTION);
         String s = commandLine.getOptionValue(OFFSET_OPTION);
         int start = Integer.parseInt((s != null) ? s : "0");
@@ -843,6 +858,61 @@ public class OozieCLI {
         }
     }
 
+    private void jobsInfoCommand(XOozieClient wc, CommandLine commandLine) throws IOException, OozieCLIException {
+        List<String> ids = new ArrayList<String>();
+        for (String id : commandLine.getOptionValue(IDS_OPTION).split(",")) {
+            if (id.trim().length() > 0) {
+                ids.add(id.trim());
+            }
+        }
+        String s = commandLine.getOptionValue(SINCE_OPTION);
+        boolean localtime = commandLine.hasOption(LOCAL_TIME_OPTION);
+        boolean verbose = commandLine.hasOption(VERBOSE_OPTION);
+        try {
+            JobsInfo info = (s != null) ? wc.watchJobs(ids, Long.parseLong(s)) : wc.getJobsInfoForIds(ids);
+            if (info.getWorkflowJobs().isEmpty() && info.getWorkflowActions().isEmpty()
+                    && info.getCoordinatorJobs().isEmpty() && info.getCoordinatorActions().isEmpty()) {
+                System.out.println("No Jobs match your criteria!");
+            }
+            if (!info.getWorkflowJobs().isEmpty()) {
+                printJobs(info.getWorkflowJobs(), localtime, verbose);
+            }
+            if (!info.getCoordinatorJobs().isEmpty()) {
+                printCoordJobs(info.getCoordinatorJobs(), localtime, verbose);
+            }
+            if (!info.getWorkflowActions().isEmpty()) {
+                System.out.println(String.format(WORKFLOW_ACTION_FORMATTER, "ID", "Status", "Ext ID", "Ext Status",
+                        "Err Code"));
+                System.out.println(RULER);
+                for (WorkflowAction action : info.getWorkflowActions()) {
+                    System.out.println(String.format(WORKFLOW_ACTION_FORMATTER, maskIfNull(action.getId()), action
+                            .getStatus(), maskIfNull(action.getExternalId()), maskIfNull(action.getExternalStatus()),
+                            maskIfNull(action.getErrorCode())));
+                    System.out.println(RULER);
+                }
+            }
+            if (!info.getCoordinatorActions().isEmpty()) {
+                System.out.println(String.format(COORD_ACTION_FORMATTER, "ID", "Status", "Ext ID", "Err Code",
+                        "Created", "Nominal Time", "Last Mod"));
+                System.out.println(RULER);
+                for (CoordinatorAction action : info.getCoordinatorActions()) {
+                    System.out.println(String.format(COORD_ACTION_FORMATTER, maskIfNull(action.getId()), action
+                            .getStatus(), maskIfNull(action.getExternalId()), maskIfNull(action.getErrorCode()),
+                            maskDate(action.getCreatedTime(), localtime), maskDate(action.getNominalTime(), localtime),
+                            maskDate(action.getLastModifiedTime(), localtime)));
+                    System.out.println(RULER);
+                }
+            }
+            System.out.println("Watch time : " + info.getWatchTime());
+        }
+        catch (NumberFormatException ex) {
+            throw new OozieCLIException("Invalid -" + SINCE_OPTION + " value [" + s + "]", ex);
+        }
+        catch (OozieClientException ex) {
+            throw new OozieCLIException(ex.toString(), ex);
+        }
+    }
+
     private void printCoordJobs(List<CoordinatorJob> jobs, boolean localtime, boolean verbose) throws IOException {
         if (jobs != null && jobs.size() > 0) {
             if (verbose) {
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.client;
+
+import java.util.List;
+
+/**
+ * Info of workflow jobs, workflow actions, coordinator jobs and coordinator actions obtained by ID with the
+ * {@link OozieClient#getJobsInfo(java.util.Collection)} and {@link OozieClient#watchJobs(java.util.Collection, long)}
+ * methods.
+ */
+public class JobsInfo {
+    private List<WorkflowJob> workflowJobs;
+    private List<WorkflowAction> workflowActions;
+    private List<CoordinatorJob> coordinatorJobs;
+    private List<CoordinatorAction> coordinatorActions;
+    private long watchTime;
+
+    /**
+     * Create a jobs info.
+     *
+     * @param workflowJobs workflow jobs info, without actions.
+     * @param workflowActions workflow actions info.
+     * @param coordinatorJobs coordinator jobs info, without actions.
+     * @param coordinatorActions coordinator actions info.
+     * @param watchTime server time to watch the jobs from.
+     */
+    public JobsInfo(List<WorkflowJob> workflowJobs, List<WorkflowAction> workflowActions,
+                    List<CoordinatorJob> coordinatorJobs, List<CoordinatorAction> coordinatorActions, long watchTime) {
+        this.workflowJobs = workflowJobs;
+        this.workflowActions = workflowActions;
+        this.coordinatorJobs = coordinatorJobs;
+        this.coordinatorActions = coordinatorActions;
+        this.watchTime = watchTime;
+    }
+
+    /**
+     * Return the workflow jobs info, without actions.
+     *
+     * @return the workflow jobs info.
+     */
+    public List<WorkflowJob> getWorkflowJobs() {
+        return workflowJobs;
+    }
+
+    /**
+     * Return the workflow actions info.
+     *
+     * @return the workflow actions info.
+     */
+    public List<WorkflowAction> getWorkflowActions() {
+        return workflowActions;
+    }
+
+    /**
+     * Return the coordinator jobs info, without actions.
+     *
+     * @return the coordinator jobs info.
+     */
+    public List<CoordinatorJob> getCoordinatorJobs() {
+        return coordinatorJobs;
+    }
+
+    /**
+     * Return the coordinator actions info.
+     *
+     * @return the coordinator actions info.
+     */
+    public List<CoordinatorAction> getCoordinatorActions() {
+        return coordinatorActions;
+    }
+
+    /**
+     * Return the server time to watch the jobs from.
+     * <p/>
+     * Passing it to {@link OozieClient#watchJobs(java.util.Collection, long)} returns the jobs and actions modified
+     * after this info was obtained. The time is set a few seconds before the request was served, a change may be
+     * reported twice but it is not missed.
+     *
+     * @return the server time to watch the jobs from, in milliseconds.
+     */
+    public long getWatchTime() {
+        return watchTime;
+    }
+
+}
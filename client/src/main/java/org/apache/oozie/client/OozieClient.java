@@ -15,7 +15,10 @@
 package org.apache.oozie.client;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
@@ -23,14 +26,20 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.Properties;
+import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Transformer;
@@ -119,15 +128,60 @@ public class OozieClient {
 
     public static final String USE_SYSTEM_LIBPATH = "oozie.use.system.libpath";
 
+    public static final String SCHEDULING_CLASS = "oozie.scheduling.class";
+
     public static enum SYSTEM_MODE {
         NORMAL, NOWEBSERVICE, SAFEMODE
     };
 
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+
+    /**
+     * Maximum number of GET responses kept by the client to revalidate with conditional requests.
+     */
+    private static final int RESPONSE_CACHE_SIZE = 100;
+
+    /**
+     * GET responses bigger than this size, in bytes, are not kept by the client.
+     */
+    private static final int MAX_CACHED_RESPONSE_SIZE = 1024 * 1024;
+
+    /**
+     * Maximum number of IDs sent in one jobs info request, more IDs are sent in several requests.
+     */
+    public static final int JOBS_INFO_BATCH_SIZE = 100;
+
     private String baseUrl;
     private String protocolUrl;
     private boolean validatedVersion = false;
     private Map<String, String> headers = new HashMap<String, String>();
 
+    /**
+     * A GET response body and its ETag, used to revalidate the response with a conditional request.
+     */
+    private static class CachedResponse {
+        private final String etag;
+        private final byte[] body;
+
+        private CachedResponse(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final Map<String, CachedResponse> responseCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                    return size() > RESPONSE_CACHE_SIZE;
+                }
+            });
+
+    private final Map<HttpURLConnection, CachedResponse> revalidating = Collections.synchronizedMap(
+            new WeakHashMap<HttpURLConnection, CachedResponse>());
+
 
 
     protected OozieClient() {
@@ -179,8 +233,8 @@ public class OozieClient {
             try {
                 URL url = new URL(baseUrl + RestConstants.VERSIONS);
                 HttpURLConnection conn = createConnection(url, "GET");
-                if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    JSONArray array = (JSONArray) JSONValue.parse(new InputStreamReader(conn.getInputStream()));
+                if (getResponseCode(conn) == HttpURLConnection.HTTP_OK) {
+                    JSONArray array = (JSONArray) JSONValue.parse(new InputStreamReader(getInputStream(conn)));
                     if (array == null) {
                         throw new OozieClientException("HTTP error", "no response message");
                     }
@@ -307,6 +361,9 @@ public class OozieClient {
 
     /**
      * Create http connection to oozie server.
+     * <p/>
+     * The connection accepts compressed responses, GET connections for a previously received response with an ETag
+     * are conditional requests.
      *
      * @param url
      * @param method
@@ -320,12 +377,101 @@ public class OozieClient {
         if (method.equals("POST") || method.equals("PUT")) {
             conn.setDoOutput(true);
         }
+        conn.setRequestProperty(ACCEPT_ENCODING, "gzip, deflate");
         for (Map.Entry<String, String> header : headers.entrySet()) {
             conn.setRequestProperty(header.getKey(), header.getValue());
         }
+        if (method.equals("GET")) {
+            CachedResponse cached = responseCache.get(getResponseCacheKey(url));
+            if (cached != null) {
+                conn.setRequestProperty(IF_NONE_MATCH, cached.etag);
+                revalidating.put(conn, cached);
+            }
+        }
         return conn;
     }
 
+    /**
+     * Return the key of a kept GET response.
+     * <p/>
+     * Responses depend on the user the request is authenticated as, the key is the URL, the JVM user and the headers
+     * set in the client. Subclasses that authenticate requests by other means must add the authenticated user to the
+     * key.
+     *
+     * @param url request URL.
+     * @return the key of the kept response.
+     */
+    protected String getResponseCacheKey(URL url) {
+        StringBuilder sb = new StringBuilder(url.toString());
+        sb.append(" ").append(System.getProperty("user.name"));
+        for (Map.Entry<String, String> header : new TreeMap<String, String>(headers).entrySet()) {
+            sb.append(" ").append(header.getKey()).append("=").append(header.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return the HTTP status code of a connection, a not modified response for a conditional request is reported as
+     * OK.
+     *
+     * @param conn connection.
+     * @return the HTTP status code.
+     * @throws IOException thrown if the response could not be read.
+     */
+    protected int getResponseCode(HttpURLConnection conn) throws IOException {
+        int status = conn.getResponseCode();
+        if (status == HttpURLConnection.HTTP_NOT_MODIFIED && revalidating.containsKey(conn)) {
+            status = HttpURLConnection.HTTP_OK;
+        }
+        return status;
+    }
+
+    /**
+     * Return the response body of a connection.
+     * <p/>
+     * Compressed responses are decompressed. For a not modified response to a conditional request the previously
+     * received body is returned. Responses with an ETag are fully read and kept to revalidate them on the next
+     * request, which also releases the connection for reuse.
+     *
+     * @param conn connection.
+     * @return the response body.
+     * @throws IOException thrown if the response could not be read.
+     */
+    protected InputStream getInputStream(HttpURLConnection conn) throws IOException {
+        CachedResponse cached = revalidating.remove(conn);
+        if (getResponseCode(conn) == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            return new ByteArrayInputStream(cached.body);
+        }
+        InputStream is = conn.getInputStream();
+        String encoding = conn.getContentEncoding();
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            is = new GZIPInputStream(is);
+        }
+        else if ("deflate".equalsIgnoreCase(encoding)) {
+            is = new InflaterInputStream(is);
+        }
+        String etag = conn.getHeaderField(ETAG);
+        if (etag != null && conn.getRequestMethod().equals("GET")) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try {
+                byte[] buffer = new byte[4096];
+                int len;
+                while ((len = is.read(buffer)) != -1) {
+                    baos.write(buffer, 0, len);
+                }
+            }
+            finally {
+                is.close();
+            }
+            byte[] body = baos.toByteArray();
+            if (body.length <= MAX_CACHED_RESPONSE_SIZE) {
+                responseCache.put(getResponseCacheKey(conn.getURL()), new CachedResponse(etag, body));
+            }
+            is = new ByteArrayInputStream(body);
+        }
+        return is;
+    }
+
     protected abstract class ClientCallable<T> implements Callable<T> {
         private String method;
         private String collection;
@@ -373,6 +519,18 @@ public class OozieClient {
         if (message == null) {
             message = conn.getResponseMessage();
         }
+
+        // consume the error response so the connection can be reused
+        InputStream es = conn.getErrorStream();
+        if (es != null) {
+            try {
+                while (es.read() != -1) {
+                }
+            }
+            finally {
+                es.close();
+            }
+        }
         throw new OozieClientException(error, message);
     }
 
@@ -450,11 +608,11 @@ public class OozieClient {
         protected String call(HttpURLConnection conn) throws IOException, OozieClientException {
             conn.setRequestProperty("content-type", RestConstants.XML_CONTENT_TYPE);
             writeToXml(conf, conn.getOutputStream());
-            if (conn.getResponseCode() == HttpURLConnection.HTTP_CREATED) {
-                JSONObject json = (JSONObject) JSONValue.parse(new InputStreamReader(conn.getInputStream()));
+            if (getResponseCode(conn) == HttpURLConnection.HTTP_CREATED) {
+                JSONObject json = (JSONObject) JSONValue.parse(new InputStreamReader(getInputStream(conn)));
                 return (String) json.get(JsonTags.JOB_ID);
             }
-            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            if (getResponseCode(conn) != HttpURLConnection.HTTP_OK) {
                 handleError(conn);
             }
             return null;
@@ -485,7 +643,7 @@ public class OozieClient {
 
         @Override
         protected Void call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if (!(conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
+            if (!(getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
                 handleError(conn);
             }
             return null;
@@ -584,8 +742,8 @@ public class OozieClient {
 
         @Override
         protected WorkflowJob call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 return new JsonWorkflowJob(json);
             }
@@ -604,8 +762,8 @@ public class OozieClient {
 
         @Override
         protected WorkflowAction call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 return new JsonWorkflowAction(json);
             }
@@ -696,9 +854,9 @@ public class OozieClient {
 
         @Override
         protected String call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
 
-                String output = getReaderAsString(new InputStreamReader(conn.getInputStream()), -1);
+                String output = getReaderAsString(new InputStreamReader(getInputStream(conn)), -1);
                 return output;
             }
             else {
@@ -749,8 +907,8 @@ public class OozieClient {
 
         @Override
         protected CoordinatorJob call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 return new JsonCoordinatorJob(json);
             }
@@ -769,8 +927,8 @@ public class OozieClient {
 
         @Override
         protected CoordinatorAction call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 return new JsonCoordinatorAction(json);
             }
@@ -828,8 +986,8 @@ public class OozieClient {
         @SuppressWarnings("unchecked")
         protected List<WorkflowJob> call(HttpURLConnection conn) throws IOException, OozieClientException {
             conn.setRequestProperty("content-type", RestConstants.XML_CONTENT_TYPE);
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 JSONArray workflows = (JSONArray) json.get(JsonTags.WORKFLOWS_JOBS);
                 if (workflows == null) {
@@ -856,8 +1014,8 @@ public class OozieClient {
         @SuppressWarnings("unchecked")
         protected List<CoordinatorJob> call(HttpURLConnection conn) throws IOException, OozieClientException {
             conn.setRequestProperty("content-type", RestConstants.XML_CONTENT_TYPE);
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 JSONArray jobs = (JSONArray) json.get(JsonTags.COORDINATOR_JOBS);
                 if (jobs == null) {
@@ -885,8 +1043,8 @@ public class OozieClient {
         @Override
         protected List<JsonCoordinatorAction> call(HttpURLConnection conn) throws IOException, OozieClientException {
             conn.setRequestProperty("content-type", RestConstants.XML_CONTENT_TYPE);
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 JSONArray coordActions = (JSONArray) json.get(JsonTags.COORDINATOR_ACTIONS);
                 return JsonCoordinatorAction.fromJSONArray(coordActions);
@@ -939,6 +1097,96 @@ public class OozieClient {
         return getJobsInfo(filter, 1, 50);
     }
 
+    private class JobsInfoByIds extends ClientCallable<JobsInfo> {
+
+        JobsInfoByIds(String ids, String since) {
+            super("GET", RestConstants.JOBS, "", (since == null)
+                    ? prepareParams(RestConstants.JOBS_IDS_PARAM, ids)
+                    : prepareParams(RestConstants.JOBS_IDS_PARAM, ids, RestConstants.JOBS_SINCE_PARAM, since));
+        }
+
+        @Override
+        protected JobsInfo call(HttpURLConnection conn) throws IOException, OozieClientException {
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
+                JSONObject json = (JSONObject) JSONValue.parse(reader);
+                List<WorkflowJob> workflowJobs = JsonWorkflowJob.fromJSONArray(getArray(json,
+                        JsonTags.WORKFLOWS_JOBS));
+                List<WorkflowAction> workflowActions = new ArrayList<WorkflowAction>(
+                        JsonWorkflowAction.fromJSONArray(getArray(json, JsonTags.WORKFLOW_ACTIONS_INFO)));
+                List<CoordinatorJob> coordinatorJobs = JsonCoordinatorJob.fromJSONArray(getArray(json,
+                        JsonTags.COORDINATOR_JOBS));
+                List<CoordinatorAction> coordinatorActions = new ArrayList<CoordinatorAction>(
+                        JsonCoordinatorAction.fromJSONArray(getArray(json, JsonTags.COORDINATOR_ACTIONS_INFO)));
+                long watchTime = (Long) json.get(JsonTags.JOBS_WATCH_TIME);
+                return new JobsInfo(workflowJobs, workflowActions, coordinatorJobs, coordinatorActions, watchTime);
+            }
+            else {
+                handleError(conn);
+            }
+            return null;
+        }
+
+        private JSONArray getArray(JSONObject json, Object tag) {
+            JSONArray array = (JSONArray) json.get(tag);
+            return (array != null) ? array : new JSONArray();
+        }
+    }
+
+    /**
+     * Return the info of the jobs and actions with the given IDs.
+     * <p/>
+     * The IDs can be workflow job, workflow action, coordinator job and coordinator action IDs, unknown IDs are
+     * ignored. Jobs are returned without actions. The IDs are sent {@link #JOBS_INFO_BATCH_SIZE} per request, the
+     * server reads each kind of job or action of a request with one query.
+     *
+     * @param ids job and action IDs.
+     * @return the info of the jobs and actions found.
+     * @throws OozieClientException thrown if the jobs info could not be retrieved.
+     */
+    public JobsInfo getJobsInfoForIds(Collection<String> ids) throws OozieClientException {
+        return getJobsInfoInBatches(ids, null);
+    }
+
+    /**
+     * Return the info of the jobs and actions with the given IDs that were modified after the given time.
+     * <p/>
+     * The time must be a watch time returned by the server, {@link JobsInfo#getWatchTime()}, to watch jobs call this
+     * method in a loop passing the watch time of the previous call.
+     *
+     * @param ids job and action IDs.
+     * @param since watch time returned by a previous call.
+     * @return the info of the jobs and actions modified after the given time.
+     * @throws OozieClientException thrown if the jobs info could not be retrieved.
+     */
+    public JobsInfo watchJobs(Collection<String> ids, long since) throws OozieClientException {
+        return getJobsInfoInBatches(ids, since);
+    }
+
+    private JobsInfo getJobsInfoInBatches(Collection<String> ids, Long since) throws OozieClientException {
+        List<String> idList = new ArrayList<String>(notNull(ids, "ids"));
+        List<WorkflowJob> workflowJobs = new ArrayList<WorkflowJob>();
+        List<WorkflowAction> workflowActions = new ArrayList<WorkflowAction>();
+        List<CoordinatorJob> coordinatorJobs = new ArrayList<CoordinatorJob>();
+        List<CoordinatorAction> coordinatorActions = new ArrayList<CoordinatorAction>();
+        long watchTime = Long.MAX_VALUE;
+        int start = 0;
+        do {
+            StringBuilder sb = new StringBuilder();
+            for (String id : idList.subList(start, Math.min(idList.size(), start + JOBS_INFO_BATCH_SIZE))) {
+                sb.append((sb.length() == 0) ? "" : ",").append(id);
+            }
+            JobsInfo info = new JobsInfoByIds(sb.toString(), (since != null) ? since.toString() : null).call();
+            workflowJobs.addAll(info.getWorkflowJobs());
+            workflowActions.addAll(info.getWorkflowActions());
+            coordinatorJobs.addAll(info.getCoordinatorJobs());
+            coordinatorActions.addAll(info.getCoordinatorActions());
+            watchTime = Math.min(watchTime, info.getWatchTime());
+            start += JOBS_INFO_BATCH_SIZE;
+        } while (start < idList.size());
+        return new JobsInfo(workflowJobs, workflowActions, coordinatorJobs, coordinatorActions, watchTime);
+    }
+
     /**
      * Print sla info about coordinator and workflow jobs and actions.
      *
@@ -962,8 +1210,8 @@ public class OozieClient {
         @SuppressWarnings("unchecked")
         protected Void call(HttpURLConnection conn) throws IOException, OozieClientException {
             conn.setRequestProperty("content-type", RestConstants.XML_CONTENT_TYPE);
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream()));
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                BufferedReader br = new BufferedReader(new InputStreamReader(getInputStream(conn)));
                 String line = null;
                 while ((line = br.readLine()) != null) {
                     System.out.println(line);
@@ -986,8 +1234,8 @@ public class OozieClient {
         @Override
         @SuppressWarnings("unchecked")
         protected String call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 return (String) json.get(JsonTags.JOB_ID);
             }
@@ -1020,7 +1268,7 @@ public class OozieClient {
 
         @Override
         public Void call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            if (getResponseCode(conn) != HttpURLConnection.HTTP_OK) {
                 handleError(conn);
             }
             return null;
@@ -1046,8 +1294,8 @@ public class OozieClient {
 
         @Override
         protected SYSTEM_MODE call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 return SYSTEM_MODE.valueOf((String) json.get(JsonTags.OOZIE_SYSTEM_MODE));
             }
@@ -1080,8 +1328,8 @@ public class OozieClient {
 
         @Override
         protected String call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 return (String) json.get(JsonTags.BUILD_VERSION);
             }
@@ -1131,8 +1379,8 @@ public class OozieClient {
 
         @Override
         protected List<String> call(HttpURLConnection conn) throws IOException, OozieClientException {
-            if ((conn.getResponseCode() == HttpURLConnection.HTTP_OK)) {
-                Reader reader = new InputStreamReader(conn.getInputStream());
+            if ((getResponseCode(conn) == HttpURLConnection.HTTP_OK)) {
+                Reader reader = new InputStreamReader(getInputStream(conn));
                 JSONObject json = (JSONObject) JSONValue.parse(reader);
                 JSONArray array = (JSONArray) json.get(JsonTags.QUEUE_DUMP);
 
@@ -141,4 +141,8 @@ public interface JsonTags {
     public static final Object COORD_JOB_OFFSET = "offset";
     public static final Object COORD_JOB_LEN = "len";
 
+    public static final String WORKFLOW_ACTIONS_INFO = "workflowactions";
+    public static final String COORDINATOR_ACTIONS_INFO = "coordinatoractions";
+    public static final String JOBS_WATCH_TIME = "watchTime";
+
 }
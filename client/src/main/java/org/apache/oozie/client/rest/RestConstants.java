@@ -86,6 +86,10 @@ public interface RestConstants {
 
     public static final String JOBS_EXTERNAL_ID_PARAM = "external-id";
 
+    public static final String JOBS_IDS_PARAM = "ids";
+
+    public static final String JOBS_SINCE_PARAM = "since";
+
     public static final String ADMIN_STATUS_RESOURCE = "status";
 
     public static final String ADMIN_SAFE_MODE_PARAM = "safemode";
@@ -116,5 +120,7 @@ public interface RestConstants {
 
     public static final String MAX_EVENTS = "max-events";
 
+    public static final String SLA_WAIT = "wait";
+
     public static final String SLA = "sla";
 }
@@ -37,6 +37,10 @@
 #
 # export OOZIE_LOG4J_RELOAD=10
 
+# Write log messages asynchronously, from a background thread
+#
+# export OOZIE_LOG4J_ASYNC=false
+
 # The port Oozie server runs
 #
 # export OOZIE_HTTP_PORT=11000
@@ -50,6 +50,8 @@ import org.apache.openjpa.persistence.jdbc.Index;
 
     @NamedQuery(name = "UPDATE_COORD_ACTION_MIN", query = "update CoordinatorActionBean w set w.actionXml = :actionXml, w.missingDependencies = :missingDependencies, w.lastModifiedTimestamp = :lastModifiedTime, w.status = :status where w.id = :id"),
     
+    @NamedQuery(name = "UPDATE_ACTIVE_COORD_ACTIONS_STATUS_FOR_JOB", query = "update CoordinatorActionBean a set a.status = :status, a.lastModifiedTimestamp = :lastModifiedTime where a.jobId = :jobId AND a.status <> 'FAILED' AND a.status <> 'TIMEDOUT' AND a.status <> 'SUCCEEDED' AND a.status <> 'KILLED'"),
+
     @NamedQuery(name = "DELETE_COMPLETED_ACTIONS_FOR_COORDINATOR", query = "delete from CoordinatorActionBean a where a.jobId = :jobId and (a.status = 'SUCCEEDED' OR a.status = 'FAILED' OR a.status= 'KILLED')"),
 
     @NamedQuery(name = "GET_COORD_ACTIONS", query = "select OBJECT(w) from CoordinatorActionBean w"),
@@ -72,6 +74,10 @@ import org.apache.openjpa.persistence.jdbc.Index;
 
     @NamedQuery(name = "GET_RUNNING_ACTIONS_FOR_COORD_JOB", query = "select OBJECT(a) from CoordinatorActionBean a where a.jobId = :jobId AND a.status = 'RUNNING'"),
 
+    @NamedQuery(name = "GET_ACTIVE_ACTIONS_EXTERNAL_IDS_FOR_COORD_JOB", query = "select a.externalId from CoordinatorActionBean a where a.jobId = :jobId AND a.externalId IS NOT NULL AND a.status <> 'FAILED' AND a.status <> 'TIMEDOUT' AND a.status <> 'SUCCEEDED' AND a.status <> 'KILLED'"),
+
+    @NamedQuery(name = "GET_RUNNING_ACTIONS_EXTERNAL_IDS_FOR_COORD_JOB", query = "select a.externalId from CoordinatorActionBean a where a.jobId = :jobId AND a.externalId IS NOT NULL AND a.status = 'RUNNING'"),
+
     @NamedQuery(name = "GET_RUNNING_ACTIONS_OLDER_THAN", query = "select OBJECT(a) from CoordinatorActionBean a where a.status = 'RUNNING' AND a.lastModifiedTimestamp <= :lastModifiedTime"),
 
     @NamedQuery(name = "GET_WAITING_SUBMITTED_ACTIONS_OLDER_THAN", query = "select OBJECT(a) from CoordinatorActionBean a where (a.status = 'WAITING' OR a.status = 'SUBMITTED') AND a.lastModifiedTimestamp <= :lastModifiedTime"),
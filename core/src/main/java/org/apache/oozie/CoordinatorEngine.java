@@ -17,6 +17,7 @@ package org.apache.oozie;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,8 +32,10 @@ import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.WorkflowJob;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.coord.CoordActionInfoCommand;
+import org.apache.oozie.command.coord.CoordActionsInfoCommand;
 import org.apache.oozie.command.coord.CoordJobCommand;
 import org.apache.oozie.command.coord.CoordJobsCommand;
+import org.apache.oozie.command.coord.CoordJobsInfoCommand;
 import org.apache.oozie.command.coord.CoordKillCommand;
 import org.apache.oozie.command.coord.CoordRerunCommand;
 import org.apache.oozie.command.coord.CoordChangeCommand;
@@ -338,6 +341,42 @@ public class CoordinatorEngine extends BaseEngine {
         }
     }
 
+    /**
+     * Return the info about the coordinator jobs with the given IDs, without actions.
+     *
+     * @param ids coordinator job IDs, unknown IDs are ignored.
+     * @param since if not <code>null</code>, only the jobs modified after this time are returned.
+     * @return the coordinator jobs info.
+     * @throws CoordinatorEngineException thrown if the jobs info could not be obtained.
+     */
+    public List<CoordinatorJobBean> getCoordJobsInfo(Collection<String> ids, Date since)
+            throws CoordinatorEngineException {
+        try {
+            return new CoordJobsInfoCommand(ids, since).call();
+        }
+        catch (CommandException ex) {
+            throw new CoordinatorEngineException(ex);
+        }
+    }
+
+    /**
+     * Return the info about the coordinator actions with the given IDs.
+     *
+     * @param ids coordinator action IDs, unknown IDs are ignored.
+     * @param since if not <code>null</code>, only the actions modified after this time are returned.
+     * @return the coordinator actions info.
+     * @throws CoordinatorEngineException thrown if the actions info could not be obtained.
+     */
+    public List<CoordinatorActionBean> getCoordActionsInfo(Collection<String> ids, Date since)
+            throws CoordinatorEngineException {
+        try {
+            return new CoordActionsInfoCommand(ids, since).call();
+        }
+        catch (CommandException ex) {
+            throw new CoordinatorEngineException(ex);
+        }
+    }
+
     /**
      * @param filter
      * @return Map<String, List<String>>
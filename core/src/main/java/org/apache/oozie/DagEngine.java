@@ -26,6 +26,7 @@ import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.Command;
 import org.apache.oozie.command.wf.JobCommand;
 import org.apache.oozie.command.wf.JobsCommand;
+import org.apache.oozie.command.wf.JobsInfoCommand;
 import org.apache.oozie.command.wf.KillCommand;
 import org.apache.oozie.command.wf.ReRunCommand;
 import org.apache.oozie.command.wf.ResumeCommand;
@@ -38,6 +39,7 @@ import org.apache.oozie.command.wf.SuspendCommand;
 import org.apache.oozie.command.wf.DefinitionCommand;
 import org.apache.oozie.command.wf.ExternalIdCommand;
 import org.apache.oozie.command.wf.WorkflowActionInfoCommand;
+import org.apache.oozie.command.wf.WorkflowActionsInfoCommand;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.CallableQueueService;
 import org.apache.oozie.util.ParamChecker;
@@ -45,6 +47,8 @@ import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 
 import java.io.Writer;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
@@ -480,6 +484,41 @@ public class DagEngine extends BaseEngine {
         }
     }
 
+    /**
+     * Return the info about the workflow jobs with the given IDs, without actions.
+     *
+     * @param ids workflow job IDs, unknown IDs are ignored.
+     * @param since if not <code>null</code>, only the jobs modified after this time are returned.
+     * @return the workflow jobs info.
+     * @throws DagEngineException thrown if the jobs info could not be obtained.
+     */
+    public List<WorkflowJobBean> getJobsInfo(Collection<String> ids, Date since) throws DagEngineException {
+        try {
+            return new JobsInfoCommand(ids, since).call();
+        }
+        catch (CommandException ex) {
+            throw new DagEngineException(ex);
+        }
+    }
+
+    /**
+     * Return the info about the workflow actions with the given IDs.
+     *
+     * @param ids workflow action IDs, unknown IDs are ignored.
+     * @param since if not <code>null</code>, only the actions modified after this time are returned.
+     * @return the workflow actions info.
+     * @throws DagEngineException thrown if the actions info could not be obtained.
+     */
+    public List<WorkflowActionBean> getWorkflowActionsInfo(Collection<String> ids, Date since)
+            throws DagEngineException {
+        try {
+            return new WorkflowActionsInfoCommand(ids, since).call();
+        }
+        catch (CommandException ex) {
+            throw new DagEngineException(ex);
+        }
+    }
+
     @Override
     public String dryrunSubmit(Configuration conf, boolean startJob) throws BaseEngineException {
         return null;
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import org.apache.oozie.util.DateUtils;
+import org.apache.openjpa.persistence.jdbc.Index;
+
+/**
+ * Bean that contains the runtime history of the actions with the same name in the workflow applications with the same
+ * name.
+ * <p/>
+ * The duration of the actions is kept as an exponentially weighted moving average and variance, recent runs weigh
+ * more than old ones.
+ */
+@Entity
+@Table(name = "WF_ACTION_STATS")
+@NamedQueries({
+
+    @NamedQuery(name = "GET_ACTION_STATS", query = "select OBJECT(s) from WorkflowActionStatsBean s"),
+
+    @NamedQuery(name = "GET_ACTION_STATS_MODIFIED_SINCE", query = "select OBJECT(s) from WorkflowActionStatsBean s "
+            + "where s.lastModifiedTimestamp >= :since") })
+
+public class WorkflowActionStatsBean {
+
+    @Id
+    private String id;
+
+    @Basic
+    @Column(name = "app_name")
+    private String appName;
+
+    @Basic
+    @Column(name = "action_name")
+    private String actionName;
+
+    @Basic
+    @Column(name = "samples")
+    private int samples;
+
+    @Basic
+    @Column(name = "mean_duration")
+    private double meanDuration;
+
+    @Basic
+    @Column(name = "duration_variance")
+    private double durationVariance;
+
+    @Basic
+    @Index
+    @Column(name = "last_modified_time")
+    private Timestamp lastModifiedTimestamp;
+
+    /**
+     * Default constructor.
+     */
+    public WorkflowActionStatsBean() {
+    }
+
+    /**
+     * Create the runtime history of an action.
+     *
+     * @param appName workflow application name.
+     * @param actionName action name.
+     */
+    public WorkflowActionStatsBean(String appName, String actionName) {
+        this.id = createId(appName, actionName);
+        this.appName = appName;
+        this.actionName = actionName;
+    }
+
+    /**
+     * Return the ID of the runtime history of an action.
+     *
+     * @param appName workflow application name.
+     * @param actionName action name.
+     * @return the ID of the runtime history.
+     */
+    public static String createId(String appName, String actionName) {
+        return appName + "@" + actionName;
+    }
+
+    /**
+     * Add the duration of a successful run of the action to the history.
+     *
+     * @param duration duration of the run, in milliseconds.
+     * @param weight weight of the run, between 0 and 1, in the moving average and variance.
+     */
+    public void addDuration(long duration, double weight) {
+        if (samples == 0) {
+            meanDuration = duration;
+            durationVariance = 0;
+        }
+        else {
+            double diff = duration - meanDuration;
+            meanDuration += weight * diff;
+            durationVariance = (1 - weight) * (durationVariance + weight * diff * diff);
+        }
+        samples++;
+        lastModifiedTimestamp = DateUtils.convertDateToTimestamp(new Date());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getActionName() {
+        return actionName;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Return the weighted mean duration of the action.
+     *
+     * @return the mean duration, in milliseconds.
+     */
+    public double getMeanDuration() {
+        return meanDuration;
+    }
+
+    /**
+     * Return the weighted standard deviation of the duration of the action.
+     *
+     * @return the standard deviation, in milliseconds.
+     */
+    public double getDurationStdDev() {
+        return Math.sqrt(durationVariance);
+    }
+
+    public Date getLastModifiedTime() {
+        return DateUtils.toDate(lastModifiedTimestamp);
+    }
+
+}
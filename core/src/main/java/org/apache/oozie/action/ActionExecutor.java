@@ -464,4 +464,17 @@ public abstract class ActionExecutor {
      */
     public abstract boolean isCompleted(String externalStatus);
 
+    /**
+     * Return if the action executor operations are synchronous and cheap. <p/> The start and end of the actions of
+     * synchronous and cheap action executors can be run inline by the command signaling the workflow, within its
+     * transaction, instead of being queued. <p/> If the transaction is rolled back the operations are executed again,
+     * inline action executors must not have side effects outside of the store (i.e. in HDFS or in Hadoop). <p/> The
+     * default implementation returns <code>false</code>.
+     *
+     * @return if the action executor operations are synchronous and cheap.
+     */
+    public boolean isInline() {
+        return false;
+    }
+
 }
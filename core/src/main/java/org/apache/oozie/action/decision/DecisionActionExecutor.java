@@ -92,4 +92,9 @@ public class DecisionActionExecutor extends ActionExecutor {
         return true;
     }
 
+    @Override
+    public boolean isInline() {
+        return true;
+    }
+
 }
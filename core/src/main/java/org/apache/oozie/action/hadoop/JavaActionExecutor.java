@@ -26,6 +26,7 @@ import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -47,6 +48,7 @@ import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.service.HadoopAccessorException;
 import org.apache.oozie.service.HadoopAccessorService;
+import org.apache.oozie.service.LauncherCacheService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.WorkflowAppService;
 import org.apache.oozie.servlet.CallbackServlet;
@@ -61,6 +63,11 @@ import org.jdom.Namespace;
 
 public class JavaActionExecutor extends ActionExecutor {
 
+    /**
+     * Maximum number of parsed action definitions cached by the server.
+     */
+    public static final String CONF_DEFINITION_CACHE_SIZE = CONF_PREFIX + "hadoop.definition.cache.size";
+
     private static final String HADOOP_USER = "user.name";
     private static final String HADOOP_UGI = "hadoop.job.ugi";
     private static final String HADOOP_JOB_TRACKER = "mapred.job.tracker";
@@ -70,6 +77,16 @@ public class JavaActionExecutor extends ActionExecutor {
 
     private static int maxActionOutputLen;
 
+    private static volatile int maxDefinitions = 1000;
+
+    private static final Map<String, ActionDefinition> DEFINITIONS =
+            new LinkedHashMap<String, ActionDefinition>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ActionDefinition> eldest) {
+                    return size() > maxDefinitions;
+                }
+            };
+
     private static final String SUCCEEDED = "SUCCEEDED";
     private static final String KILLED = "KILLED";
     private static final String FAILED = "FAILED";
@@ -77,6 +94,98 @@ public class JavaActionExecutor extends ActionExecutor {
     private static final String RUNNING = "RUNNING";
     private XLog log = XLog.getLog(getClass());
 
+    // executors are created for every command, the action definition is parsed once for all the executor calls
+    private ActionDefinition definition;
+
+    /**
+     * Parsed action definition, the action XML and its inline configuration and launcher configuration.
+     * <p/>
+     * Definitions are shared by all the commands of actions with the same definition, retries and checks included,
+     * they must not be modified.
+     */
+    static class ActionDefinition {
+        private final String conf;
+        private final Element actionXml;
+        private XConfiguration inlineConf;
+        private XConfiguration launcherConf;
+
+        private ActionDefinition(String conf) throws JDOMException {
+            this.conf = conf;
+            actionXml = XmlUtils.parseXml(conf);
+        }
+
+        /**
+         * Return the definition of an action XML, parsing it if it is not in the server cache.
+         *
+         * @param conf action XML.
+         * @return the action definition.
+         * @throws JDOMException thrown if the action XML could not be parsed.
+         */
+        static ActionDefinition get(String conf) throws JDOMException {
+            ActionDefinition definition;
+            synchronized (DEFINITIONS) {
+                definition = DEFINITIONS.get(conf);
+            }
+            if (definition == null) {
+                definition = new ActionDefinition(conf);
+                synchronized (DEFINITIONS) {
+                    DEFINITIONS.put(conf, definition);
+                }
+            }
+            return definition;
+        }
+
+        Element getActionXml() {
+            return actionXml;
+        }
+
+        synchronized XConfiguration getInlineConf() throws IOException {
+            if (inlineConf == null) {
+                inlineConf = parseInlineConf(actionXml);
+            }
+            return inlineConf;
+        }
+
+        synchronized XConfiguration getLauncherConf() throws IOException {
+            if (launcherConf == null) {
+                launcherConf = parseLauncherConf(getInlineConf());
+            }
+            return launcherConf;
+        }
+
+        /**
+         * Return the inline <code>configuration</code> of an action XML, an empty configuration if it has none.
+         */
+        static XConfiguration parseInlineConf(Element actionXml) throws IOException {
+            Element e = actionXml.getChild("configuration", actionXml.getNamespace());
+            if (e == null) {
+                return new XConfiguration();
+            }
+            String strConf = XmlUtils.prettyPrint(e).toString();
+            return new XConfiguration(new StringReader(strConf));
+        }
+
+        /**
+         * Return the <code>oozie.launcher.</code> properties of an inline configuration, with and without the
+         * prefix.
+         */
+        static XConfiguration parseLauncherConf(XConfiguration inlineConf) {
+            XConfiguration launcherConf = new XConfiguration();
+            for (Map.Entry<String, String> entry : inlineConf) {
+                if (entry.getKey().startsWith("oozie.launcher.")) {
+                    String name = entry.getKey().substring("oozie.launcher.".length());
+                    String value = entry.getValue();
+                    // setting original KEY
+                    launcherConf.set(entry.getKey(), value);
+                    // setting un-prefixed key (to allow Hadoop job config
+                    // for the launcher job
+                    launcherConf.set(name, value);
+                }
+            }
+            return launcherConf;
+        }
+    }
+
     static {
         DISALLOWED_PROPERTIES.add(HADOOP_USER);
         DISALLOWED_PROPERTIES.add(HADOOP_UGI);
@@ -110,6 +219,7 @@ public class JavaActionExecutor extends ActionExecutor {
     public void initActionType() {
         super.initActionType();
         maxActionOutputLen = getOozieConf().getInt(CallbackServlet.CONF_MAX_DATA_LEN, 2 * 1024);
+        maxDefinitions = getOozieConf().getInt(CONF_DEFINITION_CACHE_SIZE, 1000);
         try {
             List<Class> classes = getLauncherClasses();
             Class[] launcherClasses = classes.toArray(new Class[classes.size()]);
@@ -134,6 +244,35 @@ public class JavaActionExecutor extends ActionExecutor {
         }
     }
 
+    /**
+     * Return the parsed action XML of an action.
+     * <p/>
+     * The action XML is parsed once per executor and definition, the returned element must not be modified.
+     *
+     * @param action action.
+     * @return the parsed action XML.
+     * @throws JDOMException thrown if the action XML could not be parsed.
+     */
+    protected Element parseActionXml(WorkflowAction action) throws JDOMException {
+        String conf = action.getConf();
+        if (definition == null || !definition.conf.equals(conf)) {
+            definition = ActionDefinition.get(conf);
+        }
+        return definition.getActionXml();
+    }
+
+    private XConfiguration getInlineConf(Element actionXml) throws IOException {
+        ActionDefinition def = definition;
+        return (def != null && def.getActionXml() == actionXml) ? def.getInlineConf()
+                                                                 : ActionDefinition.parseInlineConf(actionXml);
+    }
+
+    private XConfiguration getInlineLauncherConf(Element actionXml) throws IOException {
+        ActionDefinition def = definition;
+        return (def != null && def.getActionXml() == actionXml) ? def.getLauncherConf()
+               : ActionDefinition.parseLauncherConf(ActionDefinition.parseInlineConf(actionXml));
+    }
+
     void checkForDisallowedProps(Configuration conf, String confName) throws ActionExecutorException {
         for (String prop : DISALLOWED_PROPERTIES) {
             if (conf.get(prop) != null) {
@@ -170,21 +309,7 @@ public class JavaActionExecutor extends ActionExecutor {
             Namespace ns = actionXml.getNamespace();
             Element e = actionXml.getChild("configuration", ns);
             if (e != null) {
-                String strConf = XmlUtils.prettyPrint(e).toString();
-                XConfiguration inlineConf = new XConfiguration(new StringReader(strConf));
-
-                XConfiguration launcherConf = new XConfiguration();
-                for (Map.Entry<String, String> entry : inlineConf) {
-                    if (entry.getKey().startsWith("oozie.launcher.")) {
-                        String name = entry.getKey().substring("oozie.launcher.".length());
-                        String value = entry.getValue();
-                        // setting original KEY
-                        launcherConf.set(entry.getKey(), value);
-                        // setting un-prefixed key (to allow Hadoop job config
-                        // for the launcher job
-                        launcherConf.set(name, value);
-                    }
-                }
+                XConfiguration launcherConf = getInlineLauncherConf(actionXml);
                 checkForDisallowedProps(launcherConf, "inline launcher configuration");
                 XConfiguration.copy(launcherConf, conf);
             }
@@ -197,7 +322,7 @@ public class JavaActionExecutor extends ActionExecutor {
 
     protected FileSystem getActionFileSystem(Context context, WorkflowAction action) throws ActionExecutorException {
         try {
-            Element actionXml = XmlUtils.parseXml(action.getConf());
+            Element actionXml = parseActionXml(action);
             return getActionFileSystem(context, actionXml);
         }
         catch (JDOMException ex) {
@@ -229,8 +354,7 @@ public class JavaActionExecutor extends ActionExecutor {
             }
             e = actionXml.getChild("configuration", ns);
             if (e != null) {
-                String strConf = XmlUtils.prettyPrint(e).toString();
-                XConfiguration inlineConf = new XConfiguration(new StringReader(strConf));
+                XConfiguration inlineConf = getInlineConf(actionXml);
                 checkForDisallowedProps(inlineConf, "inline configuration");
                 XConfiguration.copy(inlineConf, actionConf);
             }
@@ -297,8 +421,26 @@ public class JavaActionExecutor extends ActionExecutor {
         }
     }
 
+    /**
+     * Return the launcher cache service if the launcher JAR is shared by all actions.
+     *
+     * @return the launcher cache service, <code>null</code> if the launcher JAR is copied to every action directory.
+     */
+    LauncherCacheService getLauncherCache() {
+        LauncherCacheService cache = Services.get().get(LauncherCacheService.class);
+        return (cache != null && cache.isEnabled()) ? cache : null;
+    }
+
+    private File getLocalLauncherJar() {
+        return new File(getOozieRuntimeDir(), getLauncherJarName());
+    }
+
     String getOozieLauncherJar(Context context) throws ActionExecutorException {
         try {
+            LauncherCacheService cache = getLauncherCache();
+            if (cache != null) {
+                return cache.getLauncherJarPath(getLocalLauncherJar()).toString();
+            }
             return new Path(context.getActionDir(), getLauncherJarName()).toString();
         }
         catch (Exception ex) {
@@ -310,10 +452,19 @@ public class JavaActionExecutor extends ActionExecutor {
         try {
             Path actionDir = context.getActionDir();
             Path tempActionDir = new Path(actionDir.getParent(), actionDir.getName() + ".tmp");
+            LauncherCacheService cache = getLauncherCache();
+            if (cache != null) {
+                cache.uploadLauncherJar(actionFs, getLocalLauncherJar());
+            }
             if (!actionFs.exists(actionDir)) {
                 try {
-                    actionFs.copyFromLocalFile(new Path(getOozieRuntimeDir(), getLauncherJarName()), new Path(
-                            tempActionDir, getLauncherJarName()));
+                    if (cache != null) {
+                        actionFs.mkdirs(tempActionDir);
+                    }
+                    else {
+                        actionFs.copyFromLocalFile(new Path(getLocalLauncherJar().getAbsolutePath()), new Path(
+                                tempActionDir, getLauncherJarName()));
+                    }
                     actionFs.rename(tempActionDir, actionDir);
                 }
                 catch (IOException ex) {
@@ -476,7 +627,7 @@ public class JavaActionExecutor extends ActionExecutor {
         boolean exception = false;
         try {
             Path appPathRoot = new Path(context.getWorkflow().getAppPath()).getParent();
-            Element actionXml = XmlUtils.parseXml(action.getConf());
+            Element actionXml = parseActionXml(action);
 
             // action job configuration
             Configuration actionConf = createBaseHadoopConf(context, actionXml);
@@ -622,7 +773,7 @@ public class JavaActionExecutor extends ActionExecutor {
         JobClient jobClient = null;
         boolean exception = false;
         try {
-            Element actionXml = XmlUtils.parseXml(action.getConf());
+            Element actionXml = parseActionXml(action);
             FileSystem actionFs = getActionFileSystem(context, actionXml);
             Configuration conf = createBaseHadoopConf(context, actionXml);
             JobConf jobConf = new JobConf();
@@ -741,7 +892,7 @@ public class JavaActionExecutor extends ActionExecutor {
     }
 
     protected boolean getCaptureOutput(WorkflowAction action) throws JDOMException {
-        Element eConf = XmlUtils.parseXml(action.getConf());
+        Element eConf = parseActionXml(action);
         Namespace ns = eConf.getNamespace();
         Element captureOutput = eConf.getChild("capture-output", ns);
         return captureOutput != null;
@@ -752,7 +903,7 @@ public class JavaActionExecutor extends ActionExecutor {
         JobClient jobClient = null;
         boolean exception = false;
         try {
-            Element actionXml = XmlUtils.parseXml(action.getConf());
+            Element actionXml = parseActionXml(action);
             Configuration conf = createBaseHadoopConf(context, actionXml);
             JobConf jobConf = new JobConf();
             XConfiguration.copy(conf, jobConf);
@@ -27,7 +27,6 @@ import org.apache.oozie.action.ActionExecutorException;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
-import org.apache.oozie.util.XmlUtils;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.json.simple.JSONObject;
@@ -118,7 +117,7 @@ public class MapReduceActionExecutor extends JavaActionExecutor {
         boolean exception = false;
         try {
             if (action.getStatus() == WorkflowAction.Status.OK) {
-                Element actionXml = XmlUtils.parseXml(action.getConf());
+                Element actionXml = parseActionXml(action);
                 Configuration conf = createBaseHadoopConf(context, actionXml);
                 JobConf jobConf = new JobConf();
                 XConfiguration.copy(conf, jobConf);
@@ -19,8 +19,12 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.security.MessageDigest;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
 
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.client.OozieClient;
@@ -28,9 +32,11 @@ import org.apache.oozie.client.WorkflowAction.Status;
 import org.apache.oozie.action.ActionExecutor;
 import org.apache.oozie.action.ActionExecutorException;
 import org.apache.oozie.service.CallbackService;
+import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.servlet.CallbackServlet;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.PropertiesUtils;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.XmlUtils;
@@ -42,6 +48,12 @@ import org.jdom.Namespace;
  * Ssh action executor. <p/> <ul> <li>Execute the shell commands on the remote host</li> <li>Copies the base and wrapper
  * scripts on to the remote location</li> <li>Base script is used to run the command on the remote host</li> <li>Wrapper
  * script is used to check the status of the submitted command</li> <li>handles the submission failures</li> </ul>
+ * <p/>
+ * If {@link #CONF_MULTIPLEXING} is enabled (it requires OpenSSH 5.6 or newer), all the ssh and scp invocations to a
+ * USER@HOST share a multiplexed master connection that is kept open while idle for
+ * {@link #CONF_MULTIPLEXING_IDLE_TIMEOUT} seconds, only the first invocation pays the SSH handshake. The status of all
+ * the ssh actions running on a USER@HOST is probed with a single ssh invocation, and the number of concurrent ssh and
+ * scp processes is bounded by {@link #CONF_MAX_PROCESSES}.
  */
 public class SshActionExecutor extends ActionExecutor {
     public static final String ACTION_TYPE = "ssh";
@@ -51,6 +63,37 @@ public class SshActionExecutor extends ActionExecutor {
      */
     public static final String CONF_SSH_ALLOW_USER_AT_HOST = CONF_PREFIX + "ssh.allow.user.at.host";
 
+    /**
+     * Configuration parameter which specifies the ssh command.
+     */
+    public static final String CONF_SSH_COMMAND = CONF_PREFIX + "ssh.command";
+
+    /**
+     * Configuration parameter which specifies the scp command.
+     */
+    public static final String CONF_SCP_COMMAND = CONF_PREFIX + "ssh.scp.command";
+
+    /**
+     * Configuration parameter which specifies whether ssh invocations to the same USER@HOST share a master connection.
+     */
+    public static final String CONF_MULTIPLEXING = CONF_PREFIX + "ssh.multiplexing";
+
+    /**
+     * Configuration parameter which specifies how long, in seconds, an idle master connection is kept open.
+     */
+    public static final String CONF_MULTIPLEXING_IDLE_TIMEOUT = CONF_PREFIX + "ssh.multiplexing.idle.timeout";
+
+    /**
+     * Configuration parameter which specifies the max number of concurrent ssh and scp processes.
+     */
+    public static final String CONF_MAX_PROCESSES = CONF_PREFIX + "ssh.max.processes";
+
+    /**
+     * Configuration parameter which specifies how long, in seconds, the status of an action probed by the check of
+     * another action running on the same USER@HOST can be used.
+     */
+    public static final String CONF_STATUS_MAX_AGE = CONF_PREFIX + "ssh.status.max.age";
+
     protected static final String SSH_COMMAND_OPTIONS =
             "-o PasswordAuthentication=no -o KbdInteractiveDevices=no -o StrictHostKeyChecking=no -o ConnectTimeout=20 ";
 
@@ -76,8 +119,35 @@ public class SshActionExecutor extends ActionExecutor {
 
     private static final String EXT_STATUS_VAR = "#status";
 
+    private static final String INSTRUMENTATION_GROUP = "action.executors";
+
+    // length of a control socket name (hex MD5) and max length of a Unix socket path, the lowest among platforms
+    private static final int CONTROL_PATH_NAME_LENGTH = 32;
+    private static final int MAX_CONTROL_PATH_LENGTH = 100;
+    private static final String INSTR_HANDSHAKES_COUNTER = ACTION_TYPE + "#handshakes";
+    private static final String INSTR_HANDSHAKES_AVOIDED_COUNTER = ACTION_TYPE + "#handshakes.avoided";
+    private static final String INSTR_STATUS_PROBES_COUNTER = ACTION_TYPE + "#status.probes";
+    private static final String INSTR_STATUS_BATCHED_COUNTER = ACTION_TYPE + "#status.batched";
+
     private static int maxLen;
     private static boolean allowSshUserAtHost;
+    private static String sshCommandBase;
+    private static String scpCommandBase;
+    private static boolean multiplexing;
+    private static long idleTimeout;
+    private static long statusMaxAge;
+    private static Semaphore processes;
+    private static final Map<String, Long> lastConnections = new HashMap<String, Long>();
+    private static final Map<String, HostStatus> hostStatuses = new HashMap<String, HostStatus>();
+
+    /**
+     * Status of the ssh actions running on a USER@HOST, all of them are probed by a single ssh invocation.
+     */
+    private static class HostStatus {
+        private final Map<String, String> running = new HashMap<String, String>();
+        private Map<String, Status> statuses = new HashMap<String, Status>();
+        private long probeTime;
+    }
 
     protected SshActionExecutor() {
         super(ACTION_TYPE);
@@ -91,6 +161,21 @@ public class SshActionExecutor extends ActionExecutor {
         super.initActionType();
         maxLen = getOozieConf().getInt(CallbackServlet.CONF_MAX_DATA_LEN, 2 * 1024);
         allowSshUserAtHost = getOozieConf().getBoolean(CONF_SSH_ALLOW_USER_AT_HOST, true);
+        multiplexing = getOozieConf().getBoolean(CONF_MULTIPLEXING, false);
+        idleTimeout = getOozieConf().getLong(CONF_MULTIPLEXING_IDLE_TIMEOUT, 300);
+        statusMaxAge = getOozieConf().getLong(CONF_STATUS_MAX_AGE, 30) * 1000;
+        processes = new Semaphore(getOozieConf().getInt(CONF_MAX_PROCESSES, 20), true);
+        if (multiplexing && getControlDir().length() + 1 + CONTROL_PATH_NAME_LENGTH > MAX_CONTROL_PATH_LENGTH) {
+            XLog.getLog(getClass()).warn(XLog.OPS, "ssh multiplexing disabled, control path in [{0}] would exceed the"
+                    + " Unix socket path limit of [{1}] characters", getControlDir(), MAX_CONTROL_PATH_LENGTH);
+            multiplexing = false;
+        }
+        sshCommandBase = getOozieConf().get(CONF_SSH_COMMAND, "ssh").trim() + " " + SSH_COMMAND_OPTIONS;
+        scpCommandBase = getOozieConf().get(CONF_SCP_COMMAND, "scp").trim() + " " + SSH_COMMAND_OPTIONS;
+        synchronized (hostStatuses) {
+            lastConnections.clear();
+            hostStatuses.clear();
+        }
         registerError(InterruptedException.class.getName(), ActionExecutorException.ErrorType.ERROR, "SH001");
         registerError(JDOMException.class.getName(), ActionExecutorException.ErrorType.ERROR, "SH002");
         initSshScripts();
@@ -120,13 +205,13 @@ public class SshActionExecutor extends ActionExecutor {
         if (status == Status.OK) {
             if (captureOutput) {
                 String outFile = getRemoteFileName(context, action, "stdout", false, true);
-                String dataCommand = SSH_COMMAND_BASE + action.getTrackerUri() + " cat " + outFile;
+                String dataCommand = getSshCommandBase(action.getTrackerUri()) + action.getTrackerUri() + " cat "
+                        + outFile;
                 log.debug("Ssh command [{0}]", dataCommand);
                 try {
-                    Process process = Runtime.getRuntime().exec(dataCommand.split("\\s"));
                     StringBuffer buffer = new StringBuffer();
                     boolean overflow = false;
-                    drainBuffers(process, buffer, null, maxLen);
+                    runCommand(action.getTrackerUri(), dataCommand, buffer, null, maxLen);
                     if (buffer.length() > maxLen) {
                         overflow = true;
                     }
@@ -163,12 +248,14 @@ public class SshActionExecutor extends ActionExecutor {
      */
     @Override
     public void kill(Context context, WorkflowAction action) throws ActionExecutorException {
-        String command = "ssh " + action.getTrackerUri() + " kill  -KILL " + action.getExternalId();
-        int returnValue = getReturnValue(command);
+        String command = getSshCommandBase(action.getTrackerUri()) + action.getTrackerUri() + " kill  -KILL "
+                + action.getExternalId();
+        int returnValue = getReturnValue(action.getTrackerUri(), command);
         if (returnValue != 0) {
             throw new ActionExecutorException(ActionExecutorException.ErrorType.ERROR, "FAILED_TO_KILL", XLog.format(
                     "Unable to kill process {0} on {1}", action.getExternalId(), action.getTrackerUri()));
         }
+        removeRunning(action.getTrackerUri(), action.getExternalId());
         context.setEndData(WorkflowAction.Status.KILLED, "ERROR");
     }
 
@@ -248,11 +335,10 @@ public class SshActionExecutor extends ActionExecutor {
     private String checkIfRunning(String host, final Context context, final WorkflowAction action) {
         String pid = null;
         String outFile = getRemoteFileName(context, action, "pid", false, false);
-        String getOutputCmd = SSH_COMMAND_BASE + host + " cat " + outFile;
+        String getOutputCmd = getSshCommandBase(host) + host + " cat " + outFile;
         try {
-            Process process = Runtime.getRuntime().exec(getOutputCmd.split("\\s"));
             StringBuffer buffer = new StringBuffer();
-            drainBuffers(process, buffer, null, maxLen);
+            runCommand(host, getOutputCmd, buffer, null, maxLen);
             pid = getFirstLine(buffer);
 
             if (Long.valueOf(pid) > 0) {
@@ -299,11 +385,12 @@ public class SshActionExecutor extends ActionExecutor {
      * @throws InterruptedException if process does not run properly.
      */
     public int executeCommand(String command) throws IOException, InterruptedException {
-        Runtime runtime = Runtime.getRuntime();
-        Process p = runtime.exec(command.split("\\s"));
+        return executeCommand(null, command);
+    }
 
+    private int executeCommand(String host, String command) throws IOException, InterruptedException {
         StringBuffer errorBuffer = new StringBuffer();
-        int exitValue = drainBuffers(p, null, errorBuffer, maxLen);
+        int exitValue = runCommand(host, command, null, errorBuffer, maxLen);
 
         String error = null;
         if (exitValue != 0) {
@@ -340,14 +427,16 @@ public class SshActionExecutor extends ActionExecutor {
             throw new IOException("Required Local file " + file.getAbsolutePath() + " not present.");
         }
         String remoteDirLocation = getRemoteFileName(context, action, null, true, true);
-        String command = XLog.format("{0}{1}  mkdir -p {2} ", SSH_COMMAND_BASE, host, remoteDirLocation).toString();
-        executeCommand(command);
-        command = XLog.format("{0}{1}/ssh-base.sh {2}/ssh-wrapper.sh {3}:{4}", SCP_COMMAND_BASE, localDirLocation,
+        String command = XLog.format("{0}{1}  mkdir -p {2} ", getSshCommandBase(host), host, remoteDirLocation).toString();
+        executeCommand(host, command);
+        command = XLog.format("{0}{1}/ssh-base.sh {2}/ssh-wrapper.sh {3}:{4}", getScpCommandBase(host),
+                              localDirLocation,
                               localDirLocation, host, remoteDirLocation);
-        executeCommand(command);
-        command = XLog.format("{0}{1}  chmod +x {2}ssh-base.sh {3}ssh-wrapper.sh ", SSH_COMMAND_BASE, host,
+        executeCommand(host, command);
+        command = XLog.format("{0}{1}  chmod +x {2}ssh-base.sh {3}ssh-wrapper.sh ", getSshCommandBase(host),
+                              host,
                               remoteDirLocation, remoteDirLocation);
-        executeCommand(command);
+        executeCommand(host, command);
         return remoteDirLocation;
     }
 
@@ -368,21 +457,20 @@ public class SshActionExecutor extends ActionExecutor {
     protected String doExecute(String host, String dirLocation, String cmnd, String args, boolean ignoreOutput,
                                WorkflowAction action, String recoveryId) throws IOException, InterruptedException {
         XLog log = XLog.getLog(getClass());
-        Runtime runtime = Runtime.getRuntime();
         String callbackPost = ignoreOutput ? "_" : getOozieConf().get(HTTP_COMMAND_OPTIONS).replace(" ", "%%%");
         // TODO check
         String callBackUrl = Services.get().get(CallbackService.class)
                 .createCallBackUrl(action.getId(), EXT_STATUS_VAR);
-        String command = XLog.format("{0}{1} {2}ssh-base.sh {3} \"{4}\" \"{5}\" {6} {7} {8} ", SSH_COMMAND_BASE, host,
+        String command = XLog.format("{0}{1} {2}ssh-base.sh {3} \"{4}\" \"{5}\" {6} {7} {8} ",
+                                     getSshCommandBase(host), host,
                                      dirLocation, getOozieConf().get(HTTP_COMMAND), callBackUrl, callbackPost, recoveryId, cmnd, args)
                 .toString();
         log.trace("Executing ssh command [{0}]", command);
-        Process p = runtime.exec(command.split("\\s"));
         String pid = "";
 
         StringBuffer inputBuffer = new StringBuffer();
         StringBuffer errorBuffer = new StringBuffer();
-        int exitValue = drainBuffers(p, inputBuffer, errorBuffer, maxLen);
+        int exitValue = runCommand(host, command, inputBuffer, errorBuffer, maxLen);
 
         pid = getFirstLine(inputBuffer);
 
@@ -412,8 +500,9 @@ public class SshActionExecutor extends ActionExecutor {
         boolean deleteTmpDir = getOozieConf().getBoolean(DELETE_TMP_DIR, true);
         if (deleteTmpDir) {
             String tmpDir = getRemoteFileName(context, action, null, true, false);
-            String removeTmpDirCmd = SSH_COMMAND_BASE + action.getTrackerUri() + " rm -rf " + tmpDir;
-            int retVal = getReturnValue(removeTmpDirCmd);
+            String removeTmpDirCmd = getSshCommandBase(action.getTrackerUri()) + action.getTrackerUri() + " rm -rf "
+                    + tmpDir;
+            int retVal = getReturnValue(action.getTrackerUri(), removeTmpDirCmd);
             if (retVal != 0) {
                 XLog.getLog(getClass()).warn("Cannot delete temp dir {0}", tmpDir);
             }
@@ -423,25 +512,118 @@ public class SshActionExecutor extends ActionExecutor {
     /**
      * Get the return value of a process.
      *
+     * @param host USER@HOST the command connects to.
      * @param command command to be executed.
      * @return zero if execution is successful and any non zero value for failure.
      * @throws ActionExecutorException
      */
-    private int getReturnValue(String command) throws ActionExecutorException {
-        int returnValue;
-        Process ps = null;
+    private int getReturnValue(String host, String command) throws ActionExecutorException {
         try {
-            ps = Runtime.getRuntime().exec(command.split("\\s"));
-            returnValue = drainBuffers(ps, null, null, 0);
+            return runCommand(host, command, null, null, 0);
         }
         catch (IOException e) {
             throw new ActionExecutorException(ActionExecutorException.ErrorType.ERROR, "FAILED_OPERATION", XLog.format(
                     "Not able to perform operation {0}", command), e);
         }
+        catch (InterruptedException e) {
+            throw new ActionExecutorException(ActionExecutorException.ErrorType.ERROR, "FAILED_OPERATION", XLog.format(
+                    "Not able to perform operation {0}", command), e);
+        }
+    }
+
+    /**
+     * Run an ssh or scp command, waiting for a process slot if the max number of concurrent processes is running.
+     *
+     * @param host USER@HOST the command connects to, <code>null</code> if unknown.
+     * @param command command to be executed.
+     * @param inputBuffer The buffer into which STDOUT is to be read. Can be null if only draining is required.
+     * @param errorBuffer The buffer into which STDERR is to be read. Can be null if only draining is required.
+     * @param maxLength The maximum data length to be stored in these buffers.
+     * @return the exit value of the process.
+     * @throws IOException thrown if the process could not be run.
+     * @throws InterruptedException thrown if interrupted while waiting for a process slot.
+     */
+    private int runCommand(String host, String command, StringBuffer inputBuffer, StringBuffer errorBuffer,
+                           int maxLength) throws IOException, InterruptedException {
+        processes.acquire();
+        Process p = null;
+        try {
+            if (host != null) {
+                countConnection(host);
+            }
+            p = Runtime.getRuntime().exec(command.split("\\s"));
+            return drainBuffers(p, inputBuffer, errorBuffer, maxLength);
+        }
         finally {
-            ps.destroy();
+            if (p != null) {
+                p.destroy();
+            }
+            processes.release();
+        }
+    }
+
+    /**
+     * Count an ssh connection to a USER@HOST as a handshake, or as a handshake avoided if it reuses an open master
+     * connection.
+     */
+    private void countConnection(String host) {
+        boolean reused;
+        long now = System.currentTimeMillis();
+        synchronized (hostStatuses) {
+            Long last = lastConnections.put(host, now);
+            reused = multiplexing && last != null && now - last < idleTimeout * 1000;
+        }
+        incrCounter(reused ? INSTR_HANDSHAKES_AVOIDED_COUNTER : INSTR_HANDSHAKES_COUNTER, 1);
+    }
+
+    private static void incrCounter(String name, int count) {
+        InstrumentationService instrumentationService = Services.get().get(InstrumentationService.class);
+        if (instrumentationService != null) {
+            Instrumentation instrumentation = instrumentationService.get();
+            if (instrumentation != null) {
+                instrumentation.incr(INSTRUMENTATION_GROUP, name, count);
+            }
+        }
+    }
+
+    private static String getControlDir() {
+        return Services.get().getRuntimeDir() + "/ssh/ctl";
+    }
+
+    /**
+     * Return the ssh command and options to connect to a USER@HOST, with the multiplexing options if enabled.
+     */
+    private static String getSshCommandBase(String host) {
+        return sshCommandBase + getMultiplexingOptions(host);
+    }
+
+    /**
+     * Return the scp command and options to copy to a USER@HOST, with the multiplexing options if enabled.
+     */
+    private static String getScpCommandBase(String host) {
+        return scpCommandBase + getMultiplexingOptions(host);
+    }
+
+    /**
+     * Return the multiplexing options for a USER@HOST, the control socket is named with the MD5 of the USER@HOST so
+     * its path length does not depend on the user and host names (Unix socket paths are limited to ~100 bytes).
+     */
+    private static String getMultiplexingOptions(String host) {
+        if (!multiplexing) {
+            return "";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(host.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder("-o ControlMaster=auto -o ControlPath=").append(getControlDir())
+                    .append("/");
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.append(" -o ControlPersist=").append(idleTimeout).append(" ").toString();
+        }
+        catch (Exception ex) {
+            throw new RuntimeException(ex);
         }
-        return returnValue;
     }
 
     /**
@@ -453,6 +635,9 @@ public class SshActionExecutor extends ActionExecutor {
         if (!path.mkdirs()) {
             throw new RuntimeException(XLog.format("Not able to create required directory {0}", dirLocation));
         }
+        if (multiplexing && !new File(getControlDir()).mkdirs()) {
+            throw new RuntimeException(XLog.format("Not able to create required directory {0}", getControlDir()));
+        }
         try {
             IOUtils.copyCharStream(IOUtils.getResourceAsReader("ssh-base.sh", -1), new FileWriter(dirLocation
                     + "/ssh-base.sh"));
@@ -467,30 +652,102 @@ public class SshActionExecutor extends ActionExecutor {
 
     /**
      * Get action status.
+     * <p/>
+     * The status of all the actions running on the USER@HOST of the action is probed with a single ssh invocation, the
+     * checks of the other actions use the probed status if it is not older than {@link #CONF_STATUS_MAX_AGE}.
      *
      * @param action action object.
      * @return status of the action(RUNNING/OK/ERROR).
      * @throws ActionExecutorException thrown if there is any error in getting status.
      */
     protected Status getActionStatus(Context context, WorkflowAction action) throws ActionExecutorException {
-        String command = SSH_COMMAND_BASE + action.getTrackerUri() + " ps -p " + action.getExternalId();
-        Status aStatus;
-        int returnValue = getReturnValue(command);
-        if (returnValue == 0) {
-            aStatus = Status.RUNNING;
+        String host = action.getTrackerUri();
+        String pid = action.getExternalId();
+        HostStatus hostStatus;
+        synchronized (hostStatuses) {
+            hostStatus = hostStatuses.get(host);
+            if (hostStatus == null) {
+                hostStatus = new HostStatus();
+                hostStatuses.put(host, hostStatus);
+            }
         }
-        else {
-            String outFile = getRemoteFileName(context, action, "error", false, true);
-            String checkErrorCmd = SSH_COMMAND_BASE + action.getTrackerUri() + " ls " + outFile;
-            int retVal = getReturnValue(checkErrorCmd);
-            if (retVal == 0) {
-                aStatus = Status.ERROR;
+        // checks of the actions running on the same host wait for the probe in progress and use its result
+        synchronized (hostStatus) {
+            hostStatus.running.put(pid, getRemoteFileName(context, action, "error", false, true));
+            Status aStatus = hostStatus.statuses.remove(pid);
+            if (aStatus != null && System.currentTimeMillis() - hostStatus.probeTime <= statusMaxAge) {
+                incrCounter(INSTR_STATUS_BATCHED_COUNTER, 1);
+                incrCounter(INSTR_HANDSHAKES_AVOIDED_COUNTER, 1);
             }
             else {
-                aStatus = Status.OK;
+                hostStatus.statuses = probeStatus(host, hostStatus.running);
+                hostStatus.probeTime = System.currentTimeMillis();
+                aStatus = hostStatus.statuses.remove(pid);
+                if (aStatus == null) {
+                    throw new ActionExecutorException(ActionExecutorException.ErrorType.TRANSIENT,
+                                                      ERR_COULD_NOT_CONNECT, XLog.format(
+                            "Could not get status of process {0} on {1}", pid, host));
+                }
+            }
+            if (aStatus != Status.RUNNING) {
+                hostStatus.running.remove(pid);
+            }
+            return aStatus;
+        }
+    }
+
+    /**
+     * Probe the status of processes running on a USER@HOST with a single ssh invocation.
+     *
+     * @param host USER@HOST.
+     * @param running error file of the processes to probe, by process ID.
+     * @return status of the processes, by process ID.
+     * @throws ActionExecutorException thrown if the host could not be probed.
+     */
+    private Map<String, Status> probeStatus(String host, Map<String, String> running) throws ActionExecutorException {
+        StringBuilder command = new StringBuilder(getSshCommandBase(host)).append(host).append(" for e in");
+        for (Map.Entry<String, String> entry : running.entrySet()) {
+            command.append(" ").append(entry.getKey()).append(":").append(entry.getValue());
+        }
+        command.append(" ; do p=${e%%:*} ; f=${e#*:} ; if ps -p $p >/dev/null 2>&1 ; then echo $p RUNNING ;")
+                .append(" elif [ -f $f ] ; then echo $p ERROR ; else echo $p OK ; fi ; done");
+        XLog.getLog(getClass()).debug("Probing status of [{0}] processes on [{1}]", running.size(), host);
+        incrCounter(INSTR_STATUS_PROBES_COUNTER, 1);
+        StringBuffer buffer = new StringBuffer();
+        StringBuffer errorBuffer = new StringBuffer();
+        int exitValue;
+        try {
+            exitValue = runCommand(host, command.toString(), buffer, errorBuffer, Integer.MAX_VALUE);
+        }
+        catch (Exception ex) {
+            throw convertException(ex);
+        }
+        if (exitValue != 0) {
+            throw new ActionExecutorException(ActionExecutorException.ErrorType.TRANSIENT, ERR_COULD_NOT_CONNECT,
+                                              XLog.format("Could not probe processes on {0} | ErrorStream: {1}", host,
+                                                          getTruncatedString(errorBuffer)));
+        }
+        Map<String, Status> statuses = new HashMap<String, Status>();
+        for (String line : buffer.toString().split("\n")) {
+            String[] tokens = line.trim().split(" ");
+            if (tokens.length == 2 && running.containsKey(tokens[0])) {
+                statuses.put(tokens[0], Status.valueOf(tokens[1]));
+            }
+        }
+        return statuses;
+    }
+
+    private void removeRunning(String host, String pid) {
+        HostStatus hostStatus;
+        synchronized (hostStatuses) {
+            hostStatus = hostStatuses.get(host);
+        }
+        if (hostStatus != null) {
+            synchronized (hostStatus) {
+                hostStatus.running.remove(pid);
+                hostStatus.statuses.remove(pid);
             }
         }
-        return aStatus;
     }
 
     /**
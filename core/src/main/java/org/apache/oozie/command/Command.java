@@ -14,6 +14,8 @@
  */
 package org.apache.oozie.command;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,13 +39,14 @@ import org.apache.oozie.store.WorkflowStore;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.XCallable;
+import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.MemoryLocks.LockToken;
 
 /**
  * Base class for all synchronous and asynchronous DagEngine commands.
  */
-public abstract class Command<T, S extends Store> implements XCallable<T> {
+public abstract class Command<T, S extends Store> implements XCallable<T>, CallableQueueService.ClassifiedCallable {
     /**
      * The instrumentation group used for Commands.
      */
@@ -63,7 +66,11 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
     private List<XCallable<Void>> callables;
     private List<XCallable<Void>> delayedCallables;
     private long delay = 0;
+    private List<XCallable<Void>> batchedCallables;
+    private int batchSize;
+    private long batchInterval;
     private List<XCallable<Void>> exceptionCallables;
+    private List<Runnable> commitRunnables;
     private String name;
     private int priority;
     private int logMask;
@@ -168,6 +175,60 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
         return createdTime;
     }
 
+    /**
+     * Return the user of the job the command works on, from the log info at instance creation time.
+     *
+     * @return the user, <code>null</code> if not known.
+     */
+    @Override
+    public String getUser() {
+        return logInfo.getParameter(XLogService.USER);
+    }
+
+    /**
+     * Return the ID of the job the command works on, from the log info at instance creation time.
+     * <p/>
+     * Commands created while executing a command for a job inherit its log info, they are queued in the scheduling
+     * class of the job.
+     *
+     * @return the job ID, <code>null</code> if not known.
+     */
+    @Override
+    public String getJobId() {
+        return logInfo.getParameter(DagXLogInfoService.JOB);
+    }
+
+    /**
+     * Return if the command only reads from the store, read-only commands use a read-only store, without a
+     * transaction and reading from the read replica if one is configured.
+     *
+     * @return <code>false</code>, the command uses a regular store.
+     */
+    protected boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Return if the command is background work, background commands use the background connection pool of the {@link
+     * StoreService} and do not compete for connections with the scheduling commands.
+     *
+     * @return <code>false</code>, the command uses the default connection pool.
+     */
+    protected boolean isBackground() {
+        return false;
+    }
+
+    /**
+     * Return the uniqueness key of the command, idempotent commands override it to be coalesced in the {@link
+     * org.apache.oozie.service.CallableQueueService}.
+     *
+     * @return <code>null</code>, the command is not coalesced.
+     */
+    @Override
+    public String getKey() {
+        return null;
+    }
+
     /**
      * Execute the command {@link #call(WorkflowStore)} setting all the necessary context. <p/> The {@link XLog.Info} is
      * set to the values at instance creation time. <p/> The command execution is logged and instrumented. <p/> If a
@@ -185,18 +246,24 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
         XLog.Info.get().setParameters(logInfo);
         XLog log = XLog.getLog(getClass());
         log.trace(logMask, "Start");
+        StoreService.Workload previousWorkload = StoreService.setWorkload(new StoreService.Workload(name,
+                                                                                                   isBackground()));
         Instrumentation.Cron cron = new Instrumentation.Cron();
         cron.start();
         callables = new ArrayList<XCallable<Void>>();
         delayedCallables = new ArrayList<XCallable<Void>>();
+        batchedCallables = new ArrayList<XCallable<Void>>();
         exceptionCallables = new ArrayList<XCallable<Void>>();
+        commitRunnables = new ArrayList<Runnable>();
         delay = 0;
         S store = null;
         boolean exception = false;
 
         try {
             if (withStore) {
-                store = (S) Services.get().get(StoreService.class).getStore(getStoreClass());
+                store = (isReadOnly())
+                        ? (S) Services.get().get(StoreService.class).getReadOnlyStore(getStoreClass())
+                        : (S) Services.get().get(StoreService.class).getStore(getStoreClass());
                 store.beginTrx();
             }
             T result = execute(store);
@@ -216,6 +283,15 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
                 store.commitTrx();
             }
 
+            for (Runnable runnable : commitRunnables) {
+                try {
+                    runnable.run();
+                }
+                catch (RuntimeException ex) {
+                    log.warn(logMask | XLog.OPS, "Error running commit runnable, {0}, {1}", name, ex.getMessage(), ex);
+                }
+            }
+
             // TODO figure out the reject due to concurrency problems and remove
             // the delayed queuing for callables.
             boolean ret = Services.get().get(CallableQueueService.class).queueSerial(callables, 10);
@@ -228,6 +304,14 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
                 logQueueCallableFalse(delayedCallables);
             }
 
+            if (batchedCallables.size() > 0) {
+                ret = Services.get().get(CallableQueueService.class).queueSerialBatches(batchedCallables, batchSize,
+                                                                                        batchInterval);
+                if (ret == false) {
+                    logQueueCallableFalse(batchedCallables);
+                }
+            }
+
             return result;
         }
         catch (XException ex) {
@@ -286,6 +370,7 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
             throw er;
         }
         finally {
+            StoreService.setWorkload(previousWorkload);
             FaultInjection.deactivate("org.apache.oozie.command.SkipCommitFaultInjection");
             cron.stop();
             instrumentation.addCron(INSTRUMENTATION_GROUP, name, cron);
@@ -357,6 +442,87 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
         this.delay = Math.max(this.delay, delay);
     }
 
+    /**
+     * Queue a list of callables for batched execution after the current callable call invocation completes and the
+     * {@link WorkflowStore} transaction commits. <p/> The callables are queued in batches of up to
+     * <code>batchSize</code> callables for serial execution, each batch delayed <code>batchInterval</code>
+     * milliseconds more than the previous one. If invoked more than once, the batch size and interval of the last
+     * invocation are used for all the batched callables. <p/> If the call invocation throws an exception all queued
+     * callables are discarded, they are not queued for execution.
+     *
+     * @param callables list of callables to queue for batched execution.
+     * @param batchSize maximum number of callables per batch.
+     * @param batchInterval time, in milliseconds, between consecutive batches.
+     */
+    protected void queueCallableInBatches(List<? extends XCallable<Void>> callables, int batchSize,
+                                          long batchInterval) {
+        this.batchedCallables.addAll(callables);
+        this.batchSize = batchSize;
+        this.batchInterval = batchInterval;
+    }
+
+    /**
+     * Return the callables queued for execution after the current callable call invocation completes. <p/> Callables
+     * removed from the returned list are not queued for execution.
+     *
+     * @return the callables queued for execution.
+     */
+    protected List<XCallable<Void>> getQueuedCallables() {
+        return callables;
+    }
+
+    /**
+     * Execute another command within the current call invocation, using the same store transaction. <p/> The callables
+     * queued by the command are queued with the callables of this command and the locks it obtains are released when it
+     * ends, the locks it needs must be already held by this command. <p/> The command execution is instrumented as an
+     * inline execution of the command.
+     *
+     * @param command command to execute.
+     * @param store store of the current call invocation.
+     * @return the result of the command.
+     * @throws CommandException thrown if the command could not be executed.
+     * @throws StoreException thrown if the command could not access the store.
+     */
+    protected <V> V executeInline(Command<V, S> command, S store) throws CommandException, StoreException {
+        command.callables = callables;
+        command.delayedCallables = delayedCallables;
+        command.batchedCallables = batchedCallables;
+        command.exceptionCallables = exceptionCallables;
+        command.commitRunnables = commitRunnables;
+        command.delay = 0;
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        try {
+            return command.execute(store);
+        }
+        finally {
+            cron.stop();
+            instrumentation.addCron(INSTRUMENTATION_GROUP, command.name + ".inline", cron);
+            delay = Math.max(delay, command.delay);
+            if (command.batchSize > 0) {
+                batchSize = command.batchSize;
+                batchInterval = command.batchInterval;
+            }
+            for (LockToken lock : command.locks) {
+                lock.release();
+            }
+            command.locks.clear();
+            XLog.Info.get().setParameters(logInfo);
+        }
+    }
+
+    /**
+     * Run a runnable after the current callable call invocation completes and the {@link WorkflowStore} transaction
+     * commits, before the queued callables are queued and while the locks of the command are held. <p/> It is meant to
+     * update in-memory state derived from the committed data. If the call invocation throws an exception the runnables
+     * are discarded, they are not run.
+     *
+     * @param runnable runnable to run after the commit.
+     */
+    protected void runAfterCommit(Runnable runnable) {
+        commitRunnables.add(runnable);
+    }
+
     /**
      * Queue a callable for execution only in the event of an exception being thrown during the call invocation. <p/> If
      * an exception does not happen, all the callables queued by this method are discarded, they are not queued for
@@ -433,6 +599,7 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
         logInfo.setParameter(DagXLogInfoService.TOKEN, "");
         logInfo.setParameter(DagXLogInfoService.APP, cBean.getAppName());
         XLog.Info.get().setParameters(logInfo);
+        setSchedulingClass(cBean.getId(), cBean.getConf());
     }
 
     /**
@@ -463,6 +630,26 @@ public abstract class Command<T, S extends Store> implements XCallable<T> {
         logInfo.setParameter(DagXLogInfoService.TOKEN, workflow.getLogToken());
         logInfo.setParameter(DagXLogInfoService.APP, workflow.getAppName());
         XLog.Info.get().setParameters(logInfo);
+        setSchedulingClass(workflow.getId(), workflow.getConf());
+    }
+
+    /**
+     * Set the scheduling class of a job in the {@link CallableQueueService} if not known yet, the job configuration is
+     * parsed once per job.
+     *
+     * @param jobId job ID.
+     * @param conf job configuration XML.
+     */
+    private void setSchedulingClass(String jobId, String conf) {
+        CallableQueueService queueService = Services.get().get(CallableQueueService.class);
+        if (queueService != null && jobId != null && conf != null && queueService.isJobSchedulingClassNeeded(jobId)) {
+            try {
+                queueService.setJobSchedulingClass(jobId, new XConfiguration(new StringReader(conf)));
+            }
+            catch (IOException ex) {
+                XLog.getLog(getClass()).warn("Could not parse job [{0}] configuration, {1}", jobId, ex.getMessage());
+            }
+        }
     }
 
     /**
@@ -138,6 +138,17 @@ public abstract class XCommand<T> implements XCallable<T> {
         return createdTime;
     }
 
+    /**
+     * Return the uniqueness key of the command, idempotent commands override it to be coalesced in the {@link
+     * CallableQueueService}.
+     *
+     * @return <code>null</code>, the command is not coalesced.
+     */
+    @Override
+    public String getKey() {
+        return null;
+    }
+
     /**
      * Queue a command for execution after the current command execution completes.
      * <p/>
@@ -31,6 +31,11 @@ public class CoordActionInfoCommand extends CoordinatorCommand<CoordinatorAction
         this.id = ParamChecker.notEmpty(id, "id");
     }
 
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     protected CoordinatorActionBean call(CoordinatorStore store) throws StoreException, CommandException {
         CoordinatorActionBean action = store.getCoordinatorAction(id, false);
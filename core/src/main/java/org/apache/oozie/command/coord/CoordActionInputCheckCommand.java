@@ -28,6 +28,7 @@ import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.coord.CoordELEvaluator;
 import org.apache.oozie.coord.CoordELFunctions;
+import org.apache.oozie.service.CallableQueueService;
 import org.apache.oozie.service.HadoopAccessorException;
 import org.apache.oozie.service.HadoopAccessorService;
 import org.apache.oozie.service.Services;
@@ -42,7 +43,8 @@ import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.XmlUtils;
 import org.jdom.Element;
 
-public class CoordActionInputCheckCommand extends CoordinatorCommand<Void> {
+public class CoordActionInputCheckCommand extends CoordinatorCommand<Void>
+        implements CallableQueueService.CompactCallable {
 
     private String actionId;
     private final XLog log = XLog.getLog(getClass());
@@ -54,6 +56,21 @@ public class CoordActionInputCheckCommand extends CoordinatorCommand<Void> {
         this.actionId = actionId;
     }
 
+    @Override
+    public String getKey() {
+        return getName() + "_" + actionId;
+    }
+
+    /**
+     * Return the coordinator action ID, while waiting for its inputs the command is kept in compact form in the
+     * {@link CallableQueueService}.
+     *
+     * @return the coordinator action ID.
+     */
+    public String getEntityId() {
+        return actionId;
+    }
+
     @Override
     protected Void call(CoordinatorStore store) throws StoreException, CommandException {
         log.debug("After store.get() for action ID " + actionId + " : " + coordAction.getStatus());
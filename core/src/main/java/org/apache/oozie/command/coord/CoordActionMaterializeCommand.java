@@ -86,6 +86,7 @@ public class CoordActionMaterializeCommand extends CoordinatorCommand<Void> {
                 job.setStatus(CoordinatorJob.Status.RUNNING);
             }
             store.updateCoordinatorJob(job);
+            scheduleMaterialization(job);
             return null;
         }
 
@@ -113,6 +114,7 @@ public class CoordActionMaterializeCommand extends CoordinatorCommand<Void> {
                 log.warn("Exception occurs:" + ex + " Making the job failed ");
                 job.setStatus(CoordinatorJobBean.Status.FAILED);
                 store.updateCoordinatorJob(job);
+                scheduleMaterialization(job);
             }
             catch (Exception e) {
                 log.error("Excepion thrown :", e);
@@ -271,6 +273,7 @@ public class CoordActionMaterializeCommand extends CoordinatorCommand<Void> {
         }
         job.setNextMaterializedTime(endTime);
         store.updateCoordinatorJob(job);
+        scheduleMaterialization(job);
     }
 
     @Override
@@ -16,14 +16,14 @@ package org.apache.oozie.command.coord;
 
 import java.io.IOException;
 import java.io.StringReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.command.CommandException;
+import org.apache.oozie.service.NotificationService;
+import org.apache.oozie.service.Services;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.util.XConfiguration;
@@ -35,7 +35,6 @@ public class CoordActionNotification extends CoordinatorCommand<Void> {
     private static final String STATUS_PATTERN = "\\$status";
     private static final String ACTION_ID_PATTERN = "\\$actionId";
 
-    private int retries = 0;
     private final XLog log = XLog.getLog(getClass());
 
 	public CoordActionNotification(CoordinatorActionBean actionBean) {
@@ -65,16 +64,12 @@ public class CoordActionNotification extends CoordinatorCommand<Void> {
             url = url.replaceAll(STATUS_PATTERN, actionBean.getStatus()
                     .toString());
             log.debug("Notification URL :" + url);
-            try {
-                URL urlObj = new URL(url);
-                HttpURLConnection urlConn = (HttpURLConnection) urlObj
-                        .openConnection();
-                if (urlConn.getResponseCode() != HttpURLConnection.HTTP_OK) {
-                    handleRetry(url);
-                }
+            NotificationService notificationService = Services.get().get(NotificationService.class);
+            if (notificationService != null) {
+                notificationService.queueNotification(actionBean.getId(), url);
             }
-            catch (IOException ex) {
-                handleRetry(url);
+            else {
+                log.warn(XLog.OPS, "NotificationService not available, could not send notification [{0}]", url);
             }
         }
         else {
@@ -90,15 +85,4 @@ public class CoordActionNotification extends CoordinatorCommand<Void> {
         return null;
     }
 
-    private void handleRetry(String url) {
-        if (retries < 3) {
-            retries++;
-            queueCallable(this, 60 * 1000);
-        }
-        else {
-            XLog.getLog(getClass()).warn(XLog.OPS,
-                                         "could not send notification [{0}]", url);
-        }
-    }
-
 }
@@ -33,6 +33,11 @@ public class CoordActionReadyCommand extends CoordinatorCommand<Void> {
         this.jobId = id;
     }
 
+    @Override
+    public String getKey() {
+        return getName() + "_" + jobId;
+    }
+
     @Override
     /**
      * Check for READY actions and change state to SUBMITTED by a command to submit the job to WF engine.
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.command.coord;
+
+import org.apache.oozie.store.CoordinatorStore;
+import org.apache.oozie.store.StoreException;
+import org.apache.oozie.util.XLog;
+import org.apache.oozie.command.CommandException;
+
+import java.util.Date;
+
+/**
+ * Command that moves a chunk of completed coordinator jobs and their actions to the history tables.
+ */
+public class CoordArchiveCommand extends CoordinatorCommand<Integer> {
+    private static XLog LOG = XLog.getLog(CoordArchiveCommand.class);
+    private Date lastModifiedTime;
+    private int limit;
+
+    /**
+     * @param lastModifiedTime coordinator jobs completed and last modified before this time are archived.
+     * @param limit maximum number of coordinator jobs to archive.
+     */
+    public CoordArchiveCommand(Date lastModifiedTime, int limit) {
+        super("coord_archive", "coord_archive", 0, XLog.OPS);
+        this.lastModifiedTime = lastModifiedTime;
+        this.limit = limit;
+    }
+
+    /**
+     * Return if the command is background work.
+     *
+     * @return <code>true</code>, archiving uses the background connection pool.
+     */
+    @Override
+    protected boolean isBackground() {
+        return true;
+    }
+
+    protected Integer call(CoordinatorStore store) throws StoreException, CommandException {
+        int archived = store.archive(lastModifiedTime, limit);
+        LOG.debug("Archived [{0}] coordinator jobs completed before [{1}]", archived, lastModifiedTime);
+        return archived;
+    }
+
+}
@@ -228,6 +228,7 @@ public class CoordChangeCommand extends CoordinatorCommand<Void> {
 
             incrJobCounter(1);
             store.updateCoordinatorJob(coordJob);
+            scheduleMaterialization(coordJob);
 
             return null;
         }
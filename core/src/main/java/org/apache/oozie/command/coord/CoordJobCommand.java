@@ -60,6 +60,11 @@ public class CoordJobCommand extends CoordinatorCommand<CoordinatorJobBean> {
         this.getActionInfo = getActionInfo;
     }
 
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     protected CoordinatorJobBean call(CoordinatorStore store) throws StoreException, CommandException {
         CoordinatorJobBean coord = store.getCoordinatorJob(id, false);
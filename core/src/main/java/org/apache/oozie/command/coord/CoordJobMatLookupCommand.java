@@ -19,13 +19,15 @@ import java.sql.Timestamp;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.client.CoordinatorJob;
 import org.apache.oozie.command.CommandException;
+import org.apache.oozie.service.CoordJobMatLookupTriggerService;
+import org.apache.oozie.service.Services;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.util.DateUtils;
 import org.apache.oozie.util.XLog;
 
 public class CoordJobMatLookupCommand extends CoordinatorCommand<Void> {
-    private static final int LOOKAHEAD_WINDOW = 300; // We look ahead 5 minutes for materialization;
+    public static final int LOOKAHEAD_WINDOW = 300; // We look ahead 5 minutes for materialization;
     
     private final XLog log = XLog.getLog(getClass());
     private int materializationWindow;
@@ -37,28 +39,47 @@ public class CoordJobMatLookupCommand extends CoordinatorCommand<Void> {
         this.materializationWindow = materializationWindow;
     }
 
+    @Override
+    public String getKey() {
+        return getName() + "_" + jobId;
+    }
+
     @Override
     protected Void call(CoordinatorStore store) throws StoreException, CommandException {
         //CoordinatorJobBean coordJob = store.getCoordinatorJob(jobId, true);
         CoordinatorJobBean coordJob = store.getEntityManager().find(CoordinatorJobBean.class, jobId);
+        if (coordJob == null) {
+            log.debug("CoordJobMatLookupCommand for jobId=" + jobId + " job does not exist");
+            CoordJobMatLookupTriggerService service = Services.get().get(CoordJobMatLookupTriggerService.class);
+            if (service != null) {
+                service.unschedule(jobId);
+            }
+            return null;
+        }
         setLogInfo(coordJob);
+        lookup(store, coordJob);
+        // every outcome of the lookup sets the next materialization time of the job
+        scheduleMaterialization(coordJob);
+        return null;
+    }
 
+    private void lookup(CoordinatorStore store, CoordinatorJobBean coordJob) throws StoreException {
         if (!(coordJob.getStatus() == CoordinatorJobBean.Status.PREP || coordJob.getStatus() == CoordinatorJobBean.Status.RUNNING)) {
             log.debug("CoordJobMatLookupCommand for jobId=" + jobId + " job is not in PREP or RUNNING but in "
                     + coordJob.getStatus());
-            return null;
+            return;
         }
 
         if (coordJob.getNextMaterializedTimestamp() != null
                 && coordJob.getNextMaterializedTimestamp().compareTo(coordJob.getEndTimestamp()) >= 0) {
             log.debug("CoordJobMatLookupCommand for jobId=" + jobId + " job is already materialized");
-            return null;
+            return;
         }
 
         if (coordJob.getNextMaterializedTimestamp() != null
                 && coordJob.getNextMaterializedTimestamp().compareTo(new Timestamp(System.currentTimeMillis())) >= 0) {
             log.debug("CoordJobMatLookupCommand for jobId=" + jobId + " job is already materialized");
-            return null;
+            return;
         }
 
         Timestamp startTime = coordJob.getNextMaterializedTimestamp();
@@ -67,7 +88,7 @@ public class CoordJobMatLookupCommand extends CoordinatorCommand<Void> {
             
             if (startTime.after(new Timestamp(System.currentTimeMillis() + LOOKAHEAD_WINDOW * 1000))) {
                 log.debug("CoordJobMatLookupCommand for jobId=" + jobId + " job's start time is not reached yet - nothing to materialize");
-                return null;
+                return;
             }
         }
         // calculate end time by adding materializationWindow to start time.
@@ -89,7 +110,6 @@ public class CoordJobMatLookupCommand extends CoordinatorCommand<Void> {
                 + ", window=" + materializationWindow + ", status=PREMATER");
         queueCallable(new CoordActionMaterializeCommand(jobId, DateUtils.toDate(startTime), DateUtils.toDate(endTime)),
                 100);
-        return null;
     }
 
     @Override
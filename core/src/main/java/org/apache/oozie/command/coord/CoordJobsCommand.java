@@ -39,6 +39,11 @@ public class CoordJobsCommand extends CoordinatorCommand<CoordinatorJobInfo> {
         this.len = length;
     }
 
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     protected CoordinatorJobInfo call(CoordinatorStore store) throws StoreException, CommandException {
         CoordinatorJobInfo coord = store.getCoordinatorInfo(filter, start, len);
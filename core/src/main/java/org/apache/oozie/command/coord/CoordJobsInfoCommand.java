@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.command.coord;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.oozie.CoordinatorJobBean;
+import org.apache.oozie.command.CommandException;
+import org.apache.oozie.store.CoordinatorStore;
+import org.apache.oozie.store.StoreException;
+import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.XLog;
+
+/**
+ * Command for loading the coordinator jobs with the given IDs, without actions.
+ */
+public class CoordJobsInfoCommand extends CoordinatorCommand<List<CoordinatorJobBean>> {
+    private Collection<String> ids;
+    private Date since;
+
+    /**
+     * Constructor taking the coordinator job IDs.
+     *
+     * @param ids coordinator job IDs, unknown IDs are ignored.
+     * @param since if not <code>null</code>, only the jobs modified after this time are returned.
+     */
+    public CoordJobsInfoCommand(Collection<String> ids, Date since) {
+        super("job.info", "job.info", 1, XLog.OPS);
+        this.ids = ParamChecker.notNull(ids, "ids");
+        this.since = since;
+    }
+
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    protected List<CoordinatorJobBean> call(CoordinatorStore store) throws StoreException, CommandException {
+        return store.getCoordinatorJobsInfo(ids, since);
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.oozie.store.StoreException;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.XLog;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -49,21 +50,16 @@ public class CoordKillCommand extends CoordinatorCommand<Void> {
                 coordJob.setEndTime(new Date());
                 incrJobCounter(1);
                 coordJob.setStatus(CoordinatorJob.Status.KILLED);
-                List<CoordinatorActionBean> actionList = store.getActionsForCoordinatorJob(jobId, false);
-                for (CoordinatorActionBean action : actionList) {
-                    if (action.getStatus() != CoordinatorActionBean.Status.FAILED
-                            && action.getStatus() != CoordinatorActionBean.Status.TIMEDOUT
-                            && action.getStatus() != CoordinatorActionBean.Status.SUCCEEDED
-                            && action.getStatus() != CoordinatorActionBean.Status.KILLED) {
-                        // queue a KillCommand to delete the workflow job
-                        if (action.getExternalId() != null) {
-                            queueCallable(new KillCommand(action.getExternalId()));
-                        }
-                        action.setStatus(CoordinatorActionBean.Status.KILLED);
-                        store.updateCoordinatorAction(action);
-                    }
+                // queue a KillCommand to delete the workflow job of every non terminated action
+                List<String> externalIds = store.getActiveActionsExternalIdsForCoordinatorJob(jobId);
+                List<KillCommand> killCommands = new ArrayList<KillCommand>(externalIds.size());
+                for (String externalId : externalIds) {
+                    killCommands.add(new KillCommand(externalId));
                 }
+                int killed = store.updateActiveCoordinatorActionsStatus(jobId, CoordinatorActionBean.Status.KILLED);
                 store.updateCoordinatorJob(coordJob);
+                scheduleMaterialization(coordJob);
+                queueFanOut(killCommands, killed);
                 // TODO queueCallable(new NotificationCommand(coordJob));
             }
             else {
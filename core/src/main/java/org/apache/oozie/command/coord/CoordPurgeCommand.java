@@ -30,6 +30,16 @@ public class CoordPurgeCommand extends CoordinatorCommand<Void> {
         this.limit = limit;
     }
 
+    /**
+     * Return if the command is background work.
+     *
+     * @return <code>true</code>, purge uses the background connection pool.
+     */
+    @Override
+    protected boolean isBackground() {
+        return true;
+    }
+
     protected Void call(CoordinatorStore store) throws StoreException, CommandException {
         LOG.debug("STARTED Coord Purge to purge Jobs older than [{0}] days.", olderThan);
         store.purge(olderThan, limit);
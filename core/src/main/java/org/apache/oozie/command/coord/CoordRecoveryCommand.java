@@ -39,6 +39,7 @@ public class CoordRecoveryCommand extends CoordinatorCommand<Void> {
             // update status of job from PREMATER to RUNNING in coordJob
             coordJob.setStatus(CoordinatorJob.Status.RUNNING);
             store.updateCoordinatorJob(coordJob);
+            scheduleMaterialization(coordJob);
             log.debug("[" + jobId + "]: Recover status from PREMATER to RUNNING");
         }
         else {
@@ -18,9 +18,17 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -40,11 +48,13 @@ import org.apache.oozie.command.CommandException;
 import org.apache.oozie.coord.CoordELFunctions;
 import org.apache.oozie.service.HadoopAccessorException;
 import org.apache.oozie.service.HadoopAccessorService;
+import org.apache.oozie.service.Service;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.util.DateUtils;
 import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.XmlUtils;
@@ -54,6 +64,13 @@ import org.jdom.JDOMException;
 
 public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo> {
 
+    /**
+     * Maximum number of threads deleting the output directories of the actions of a rerun.
+     */
+    public static final String CONF_CLEANUP_THREADS = Service.CONF_PREFIX + "coord.rerun.cleanup.threads";
+
+    private static final int PROGRESS_INTERVAL = 100;
+
     private String jobId;
     private String rerunType;
     private String scope;
@@ -73,6 +90,8 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
     @Override
     protected CoordinatorActionInfo call(CoordinatorStore store) throws StoreException, CommandException {
         try {
+            // an archived coordinator job is moved back to the hot tables to be rerun
+            store.restoreCoordinatorJob(jobId);
             CoordinatorJobBean coordJob = store.getCoordinatorJob(jobId, false);
             CoordinatorActionInfo coordInfo = null;
             setLogInfo(coordJob);
@@ -91,22 +110,31 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
                     throw new CommandException(ErrorCode.E1018, "date or action expected.");
                 }
                 if (checkAllActionsRunnable(coordActions)) {
+                    log.info("Rerun of [{0}] actions, cleanup [{1}], refresh [{2}]", coordActions.size(), !noCleanup,
+                             refresh);
                     Configuration conf = new XConfiguration(new StringReader(coordJob.getConf()));
+                    if (!noCleanup) {
+                        cleanupOutputEvents(coordActions, coordJob.getUser(), coordJob.getGroup(), conf);
+                    }
+                    Element eJob = (refresh) ? XmlUtils.parseXml(coordJob.getJobXml()) : null;
+                    Date rerunTime = new Date();
+                    List<String> actionIds = new ArrayList<String>();
+                    List<XCallable<Void>> callables = new ArrayList<XCallable<Void>>();
                     for (CoordinatorActionBean coordAction : coordActions) {
-                        String actionXml = coordAction.getActionXml();
-                        if (!noCleanup) {
-                            Element eAction = XmlUtils.parseXml(actionXml);
-                            cleanupOutputEvents(eAction, coordJob.getUser(), coordJob.getGroup(), conf);
-                        }
                         if (refresh) {
-                            refreshAction(coordJob, coordAction, store);
+                            refreshAction(eJob, conf, coordAction);
+                        }
+                        updateAction(coordJob, coordAction, rerunTime, store);
+                        actionIds.add(coordAction.getId());
+                        callables.add(new CoordActionNotification(coordAction));
+                        callables.add(new CoordActionInputCheckCommand(coordAction.getId()));
+                        if (actionIds.size() % PROGRESS_INTERVAL == 0) {
+                            log.info("Rerun progress, [{0}] of [{1}] actions updated", actionIds.size(),
+                                     coordActions.size());
                         }
-                        updateAction(coordJob, coordAction, actionXml, store);
-
-                        // TODO: time 100s should be configurable
-                        queueCallable(new CoordActionNotification(coordAction), 100);
-                        queueCallable(new CoordActionInputCheckCommand(coordAction.getId()), 100);
                     }
+                    int updated = store.updateCoordActionsForRerun(actionIds, rerunTime);
+                    queueFanOut(callables, updated);
                 }
                 else {
                     throw new CommandException(ErrorCode.E1018, "part or all actions are not eligible to rerun!");
@@ -147,7 +175,7 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
         ParamChecker.notEmpty(jobId, "jobId");
         ParamChecker.notEmpty(scope, "scope");
 
-        Set<String> actions = new HashSet<String>();
+        Set<String> actions = new LinkedHashSet<String>();
         String[] list = scope.split(",");
         for (String s : list) {
             s = s.trim();
@@ -184,11 +212,9 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
             }
         }
 
-        List<CoordinatorActionBean> coordActions = new ArrayList<CoordinatorActionBean>();
-        for (String id : actions) {
-            CoordinatorActionBean coordAction = store.getCoordinatorAction(id, false);
-            coordActions.add(coordAction);
-            log.debug("Rerun coordinator for actionId='" + id + "'");
+        List<CoordinatorActionBean> coordActions = store.getCoordActionsForIds(jobId, actions);
+        for (CoordinatorActionBean coordAction : coordActions) {
+            log.debug("Rerun coordinator for actionId='" + coordAction.getId() + "'");
         }
         return coordActions;
     }
@@ -208,7 +234,8 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
         ParamChecker.notEmpty(jobId, "jobId");
         ParamChecker.notEmpty(scope, "scope");
 
-        Set<CoordinatorActionBean> actionSet = new HashSet<CoordinatorActionBean>();
+        Map<String, CoordinatorActionBean> actionMap = new LinkedHashMap<String, CoordinatorActionBean>();
+        Set<Date> dates = new LinkedHashSet<Date>();
         String[] list = scope.split(",");
         for (String s : list) {
             s = s.trim();
@@ -230,8 +257,9 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
                     throw new CommandException(ErrorCode.E0302, e);
                 }
 
-                List<CoordinatorActionBean> listOfActions = getActionIdsFromDateRange(jobId, start, end, store);
-                actionSet.addAll(listOfActions);
+                for (CoordinatorActionBean coordAction : getActionIdsFromDateRange(jobId, start, end, store)) {
+                    actionMap.put(coordAction.getId(), coordAction);
+                }
             }
             else {
                 Date date;
@@ -241,15 +269,17 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
                 catch (Exception e) {
                     throw new CommandException(ErrorCode.E0302, e);
                 }
-
-                CoordinatorActionBean coordAction = store.getCoordActionForNominalTime(jobId, date);
-                actionSet.add(coordAction);
+                dates.add(date);
+            }
+        }
+        if (!dates.isEmpty()) {
+            for (CoordinatorActionBean coordAction : store.getCoordActionsForNominalTimes(jobId, dates)) {
+                actionMap.put(coordAction.getId(), coordAction);
             }
         }
 
-        List<CoordinatorActionBean> coordActions = new ArrayList<CoordinatorActionBean>();
-        for (CoordinatorActionBean coordAction : actionSet) {
-            coordActions.add(coordAction);
+        List<CoordinatorActionBean> coordActions = new ArrayList<CoordinatorActionBean>(actionMap.values());
+        for (CoordinatorActionBean coordAction : coordActions) {
             log.debug("Rerun coordinator for actionId='" + coordAction.getId() + "'");
         }
         return coordActions;
@@ -278,67 +308,141 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
     }
 
     /**
-     * Cleanup output-events directories
+     * Delete the output-events directories of the actions.
+     * <p/>
+     * The directories are deleted concurrently by up to {@link #CONF_CLEANUP_THREADS} threads, a file system instance
+     * is created once per file system URI. Directories that could not be deleted are logged and skipped.
+     *
+     * @param coordActions actions to rerun.
+     * @param user coordinator job user.
+     * @param group coordinator job group.
+     * @param conf coordinator job configuration.
+     * @throws JDOMException thrown if an action XML could not be parsed.
+     * @throws InterruptedException thrown if interrupted while waiting for the deletions.
+     */
+    private void cleanupOutputEvents(List<CoordinatorActionBean> coordActions, String user, String group,
+                                     Configuration conf) throws JDOMException, InterruptedException {
+        List<Path> paths = new ArrayList<Path>();
+        for (CoordinatorActionBean coordAction : coordActions) {
+            paths.addAll(getOutputPaths(XmlUtils.parseXml(coordAction.getActionXml())));
+        }
+        if (paths.isEmpty()) {
+            log.info("No output-events defined in coordinator xml. Therefore nothing to cleanup");
+            return;
+        }
+
+        Map<String, FileSystem> fileSystems = new HashMap<String, FileSystem>();
+        List<Callable<Boolean>> deletes = new ArrayList<Callable<Boolean>>();
+        for (Path path : paths) {
+            String fsUri = path.toUri().getScheme() + "://" + path.toUri().getAuthority();
+            if (!fileSystems.containsKey(fsUri)) {
+                FileSystem fs = null;
+                try {
+                    fs = Services.get().get(HadoopAccessorService.class).createFileSystem(user, group, path.toUri(),
+                                                                                        conf);
+                }
+                catch (Exception ex) {
+                    log.warn("Failed to access the file system of the output dir " + path, ex);
+                }
+                fileSystems.put(fsUri, fs);
+            }
+            FileSystem fs = fileSystems.get(fsUri);
+            if (fs != null) {
+                deletes.add(new OutputCleanup(fs, path));
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        int threads = Math.max(1, Math.min(Services.get().getConf().getInt(CONF_CLEANUP_THREADS, 10), deletes.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int deleted = 0;
+        int done = 0;
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (Callable<Boolean> delete : deletes) {
+                futures.add(executor.submit(delete));
+            }
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (future.get()) {
+                        deleted++;
+                    }
+                }
+                catch (ExecutionException ex) {
+                    log.warn("Failed to cleanup an output dir", ex.getCause());
+                }
+                done++;
+                if (done % PROGRESS_INTERVAL == 0) {
+                    log.info("Rerun progress, [{0}] of [{1}] output dirs cleaned up", done, futures.size());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        log.info("Cleaned up [{0}] of [{1}] output dirs with [{2}] threads in [{3}]ms", deleted, paths.size(), threads,
+                 System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Return the output-events directories of an action.
      *
-     * @param eAction
-     * @param workflow
-     * @param action
+     * @param eAction action XML.
+     * @return the output-events directories of the action.
      */
     @SuppressWarnings("unchecked")
-    private void cleanupOutputEvents(Element eAction, String user, String group, Configuration conf) {
+    private List<Path> getOutputPaths(Element eAction) {
+        List<Path> paths = new ArrayList<Path>();
         Element outputList = eAction.getChild("output-events", eAction.getNamespace());
         if (outputList != null) {
             for (Element data : (List<Element>) outputList.getChildren("data-out", eAction.getNamespace())) {
                 if (data.getChild("uris", data.getNamespace()) != null) {
                     String uris = data.getChild("uris", data.getNamespace()).getTextTrim();
                     if (uris != null) {
-                        String[] uriArr = uris.split(CoordELFunctions.INSTANCE_SEPARATOR);
-                        for (String uri : uriArr) {
-                            Path path = new Path(uri);
-                            try {
-                                FileSystem fs = Services.get().get(HadoopAccessorService.class).
-                                        createFileSystem(user, group, path.toUri(), conf);
-                                if (fs.exists(path)) {
-                                    if (!fs.delete(path, true)) {
-                                        throw new IOException();
-                                    }
-                                }
-                                log.debug("Cleanup the output dir " + path);
-                            }
-                            catch (Exception ex) {
-                                log.warn("Failed to cleanup the output dir " + uri, ex);
-                            }
+                        for (String uri : uris.split(CoordELFunctions.INSTANCE_SEPARATOR)) {
+                            paths.add(new Path(uri));
                         }
                     }
-
                 }
             }
         }
-        else {
-            log.info("No output-events defined in coordinator xml. Therefore nothing to cleanup");
+        return paths;
+    }
+
+    /**
+     * Deletes one output directory, it returns <code>true</code> if the directory existed and it was deleted.
+     */
+    private class OutputCleanup implements Callable<Boolean> {
+        private final FileSystem fs;
+        private final Path path;
+
+        private OutputCleanup(FileSystem fs, Path path) {
+            this.fs = fs;
+            this.path = path;
+        }
+
+        public Boolean call() throws IOException {
+            if (fs.exists(path)) {
+                if (!fs.delete(path, true)) {
+                    throw new IOException("Failed to cleanup the output dir " + path);
+                }
+                log.debug("Cleanup the output dir " + path);
+                return true;
+            }
+            return false;
         }
     }
 
     /**
      * Refresh an Action
      *
-     * @param coordJob
-     * @param coordAction
-     * @param store
+     * @param eJob coordinator job XML.
+     * @param jobConf coordinator job configuration.
+     * @param coordAction action to refresh.
      * @throws Exception
      */
-    private void refreshAction(CoordinatorJobBean coordJob, CoordinatorActionBean coordAction, CoordinatorStore store)
+    private void refreshAction(Element eJob, Configuration jobConf, CoordinatorActionBean coordAction)
             throws Exception {
-        Configuration jobConf = null;
-        try {
-            jobConf = new XConfiguration(new StringReader(coordJob.getConf()));
-        }
-        catch (IOException ioe) {
-            log.warn("Configuration parse error. read from DB :" + coordJob.getConf(), ioe);
-            throw new CommandException(ErrorCode.E1005, ioe);
-        }
-        String jobXml = coordJob.getJobXml();
-        Element eJob = XmlUtils.parseXml(jobXml);
         String actionXml = CoordCommandUtils.materializeOneInstance(jobId, dryrun, (Element) eJob.clone(), coordAction
                 .getNominalTime(), coordAction.getActionNumber(), jobConf, coordAction);
         log.debug("Refresh Action actionId=" + coordAction.getId() + ", actionXml="
@@ -347,22 +451,27 @@ public class CoordRerunCommand extends CoordinatorCommand<CoordinatorActionInfo>
     }
 
     /**
-     * Update an Action into database table
+     * Reset an Action for the rerun.
+     * <p/>
+     * The status of the action is reset in the database for all the actions of the rerun at once by {@link
+     * CoordinatorStore#updateCoordActionsForRerun}, a refreshed action is written here because its XML changed.
      *
      * @param coordJob
      * @param coordAction
-     * @param actionXml
+     * @param rerunTime
      * @param store
      * @throws Exception
      */
-    private void updateAction(CoordinatorJobBean coordJob, CoordinatorActionBean coordAction, String actionXml,
+    private void updateAction(CoordinatorJobBean coordJob, CoordinatorActionBean coordAction, Date rerunTime,
             CoordinatorStore store) throws Exception {
         log.debug("updateAction for actionId=" + coordAction.getId());
         coordAction.setStatus(CoordinatorAction.Status.WAITING);
         coordAction.setExternalId("");
         coordAction.setExternalStatus("");
-        coordAction.setRerunTime(new Date());
-        store.updateCoordinatorAction(coordAction);
+        coordAction.setRerunTime(rerunTime);
+        if (refresh) {
+            store.updateCoordinatorAction(coordAction);
+        }
         writeActionRegistration(coordAction.getActionXml(), coordAction, store, coordJob.getUser(), coordJob.getGroup());
     }
 
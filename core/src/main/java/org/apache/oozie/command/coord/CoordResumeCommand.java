@@ -15,7 +15,6 @@
 package org.apache.oozie.command.coord;
 
 import org.apache.oozie.client.CoordinatorJob;
-import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.XException;
 import org.apache.oozie.command.CommandException;
@@ -26,7 +25,7 @@ import org.apache.oozie.util.XLog;
 
 import org.apache.oozie.command.wf.ResumeCommand;
 
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
 
 public class CoordResumeCommand extends CoordinatorCommand<Void> {
@@ -48,14 +47,15 @@ public class CoordResumeCommand extends CoordinatorCommand<Void> {
             if (coordJob.getStatus() == CoordinatorJob.Status.SUSPENDED) {
                 incrJobCounter(1);
                 coordJob.setStatus(CoordinatorJob.Status.PREP);
-                List<CoordinatorActionBean> actionList = store.getActionsForCoordinatorJob(jobId, false);
-                for (CoordinatorActionBean action : actionList) {
-                    // queue a ResumeCommand
-                    if (action.getExternalId() != null) {
-                        queueCallable(new ResumeCommand(action.getExternalId()));
-                    }
+                // queue a ResumeCommand for the workflow job of every non terminated action
+                List<String> externalIds = store.getActiveActionsExternalIdsForCoordinatorJob(jobId);
+                List<ResumeCommand> resumeCommands = new ArrayList<ResumeCommand>(externalIds.size());
+                for (String externalId : externalIds) {
+                    resumeCommands.add(new ResumeCommand(externalId));
                 }
                 store.updateCoordinatorJob(coordJob);
+                scheduleMaterialization(coordJob);
+                queueFanOut(resumeCommands, 0);
             }
             // TODO queueCallable(new NotificationCommand(coordJob));
             else {
@@ -15,10 +15,7 @@
 package org.apache.oozie.command.coord;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -46,6 +43,8 @@ import org.apache.oozie.coord.CoordELFunctions;
 import org.apache.oozie.coord.CoordUtils;
 import org.apache.oozie.coord.CoordinatorJobException;
 import org.apache.oozie.coord.TimeUnit;
+import org.apache.oozie.service.CoordDefinitionCacheService;
+import org.apache.oozie.service.CoordJobMatLookupTriggerService;
 import org.apache.oozie.service.DagXLogInfoService;
 import org.apache.oozie.service.HadoopAccessorException;
 import org.apache.oozie.service.SchemaService;
@@ -60,7 +59,6 @@ import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.util.DateUtils;
 import org.apache.oozie.util.ELEvaluator;
-import org.apache.oozie.util.IOUtils;
 import org.apache.oozie.util.ParamChecker;
 import org.apache.oozie.util.PropertiesUtils;
 import org.apache.oozie.util.XConfiguration;
@@ -165,9 +163,11 @@ public class CoordSubmitCommand extends CoordinatorCommand<String> {
             log = XLog.getLog(getClass());
 
             if (!dryrun) {
-                // submit a command to materialize jobs for the next 1 hour (3600 secs)
-                // so we don't wait 10 mins for the Service to run.
-                queueCallable(new CoordJobMatLookupCommand(jobId, 3600), 100);
+                // submit a command to materialize jobs for the next 1 hour (3600 secs), or for the job look-ahead
+                // window, so we don't wait 10 mins for the Service to run.
+                CoordJobMatLookupTriggerService matService = Services.get().get(CoordJobMatLookupTriggerService.class);
+                int window = (matService != null) ? matService.getMaterializationWindow(coordJob) : 3600;
+                queueCallable(new CoordJobMatLookupCommand(jobId, window), 100);
             }
             else {
                 Date startTime = coordJob.getStartTime();
@@ -221,8 +221,12 @@ public class CoordSubmitCommand extends CoordinatorCommand<String> {
     private String readAndValidateXml() throws CoordinatorJobException {
         String appPath = ParamChecker.notEmpty(conf.get(OozieClient.COORDINATOR_APP_PATH),
                                                OozieClient.COORDINATOR_APP_PATH);// TODO: COORDINATOR_APP_PATH
-        String coordXml = readDefinition(appPath);
-        validateXml(coordXml);
+        CoordDefinitionCacheService.Definition definition = getDefinition(appPath);
+        String coordXml = definition.getXml();
+        if (!definition.isValidated()) {
+            validateXml(coordXml);
+            definition.setValidated();
+        }
         return coordXml;
     }
 
@@ -693,9 +697,9 @@ public class CoordSubmitCommand extends CoordinatorCommand<String> {
             throws CoordinatorJobException {
         Element tmpDataSets = null;
         try {
-            String dsXml = readDefinition(incDSFile);
-            log.debug("DSFILE :" + incDSFile + "\n" + dsXml);
-            tmpDataSets = XmlUtils.parseXml(dsXml);
+            CoordDefinitionCacheService.Definition definition = getDefinition(incDSFile);
+            log.debug("DSFILE :" + incDSFile + "\n" + definition.getXml());
+            tmpDataSets = definition.getElement();
         }
         /*
          * catch (IOException iex) {XLog.getLog(getClass()).warn(
@@ -758,6 +762,18 @@ public class CoordSubmitCommand extends CoordinatorCommand<String> {
      * @throws WorkflowException thrown if the definition could not be read.
      */
     protected String readDefinition(String appPath) throws CoordinatorJobException {
+        return getDefinition(appPath).getXml();
+    }
+
+    /**
+     * Read a coordinator application or dataset include file, from the {@link CoordDefinitionCacheService} if
+     * available and the file did not change.
+     *
+     * @param appPath file path.
+     * @return the coordinator definition.
+     * @throws CoordinatorJobException thrown if the definition could not be read.
+     */
+    private CoordDefinitionCacheService.Definition getDefinition(String appPath) throws CoordinatorJobException {
         String user = ParamChecker.notEmpty(conf.get(OozieClient.USER_NAME), OozieClient.USER_NAME);
         String group = ParamChecker.notEmpty(conf.get(OozieClient.GROUP_NAME), OozieClient.GROUP_NAME);
         Configuration confHadoop = CoordUtils.getHadoopConf(conf);
@@ -767,12 +783,11 @@ public class CoordSubmitCommand extends CoordinatorCommand<String> {
             FileSystem fs = Services.get().get(HadoopAccessorService.class).createFileSystem(user, group, uri, conf);
             Path p = new Path(uri.getPath());
 
-            // Reader reader = new InputStreamReader(fs.open(new Path(uri
-            // .getPath(), fileName)));
-            Reader reader = new InputStreamReader(fs.open(p));// TODO
-            StringWriter writer = new StringWriter();
-            IOUtils.copyCharStream(reader, writer);
-            return writer.toString();
+            CoordDefinitionCacheService cache = Services.get().get(CoordDefinitionCacheService.class);
+            if (cache != null) {
+                return cache.get(fs, p, user, group);
+            }
+            return CoordDefinitionCacheService.readDefinition(fs, p);
         }
         catch (IOException ex) {
             log.warn("IOException :" + XmlUtils.prettyPrint(confHadoop), ex);
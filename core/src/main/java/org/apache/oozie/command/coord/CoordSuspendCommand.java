@@ -14,10 +14,10 @@
  */
 package org.apache.oozie.command.coord;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.XException;
 import org.apache.oozie.client.CoordinatorJob;
@@ -50,16 +50,15 @@ public class CoordSuspendCommand extends CoordinatorCommand<Void> {
                 incrJobCounter(1);
                 coordJob.setStatus(CoordinatorJob.Status.SUSPENDED);
                 coordJob.setSuspendedTime(new Date());
-                List<CoordinatorActionBean> actionList = store.getActionsForCoordinatorJob(jobId, false);
-                for (CoordinatorActionBean action : actionList) {
-                    if (action.getStatus() == CoordinatorActionBean.Status.RUNNING) {
-                        // queue a SuspendCommand
-                        if (action.getExternalId() != null) {
-                            queueCallable(new SuspendCommand(action.getExternalId()));
-                        }
-                    }
+                // queue a SuspendCommand for the workflow job of every running action
+                List<String> externalIds = store.getRunningActionsExternalIdsForCoordinatorJob(jobId);
+                List<SuspendCommand> suspendCommands = new ArrayList<SuspendCommand>(externalIds.size());
+                for (String externalId : externalIds) {
+                    suspendCommands.add(new SuspendCommand(externalId));
                 }
                 store.updateCoordinatorJob(coordJob);
+                scheduleMaterialization(coordJob);
+                queueFanOut(suspendCommands, 0);
             }
             // TODO queueCallable(new NotificationCommand(coordJob));
             else {
@@ -14,20 +14,40 @@
  */
 package org.apache.oozie.command.coord;
 
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.command.Command;
 import org.apache.oozie.command.CommandException;
+import org.apache.oozie.service.CoordJobMatLookupTriggerService;
 import org.apache.oozie.service.DagXLogInfoService;
+import org.apache.oozie.service.Service;
+import org.apache.oozie.service.Services;
 import org.apache.oozie.service.XLogService;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.Store;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.store.WorkflowStore;
+import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 
 public abstract class CoordinatorCommand<T> extends Command<T, CoordinatorStore> {
 
+    /**
+     * Maximum number of workflow commands executed together in a single batch when a coordinator command fans out to
+     * the workflows of its actions (kill, suspend, resume), or to its actions (rerun).
+     */
+    public static final String CONF_FANOUT_BATCH_SIZE = Service.CONF_PREFIX + "coord.fanout.batch.size";
+
+    /**
+     * Time, in milliseconds, between consecutive fan-out batches.
+     */
+    public static final String CONF_FANOUT_BATCH_INTERVAL = Service.CONF_PREFIX + "coord.fanout.batch.interval";
+
+    private static final String INSTRUMENTATION_GROUP = "commands";
+
     public CoordinatorCommand(String name, String type, int priority, int logMask) {
         super(name, type, priority, logMask);
     }
@@ -45,4 +65,49 @@ public abstract class CoordinatorCommand<T> extends Command<T, CoordinatorStore>
     public Class<? extends Store> getStoreClass() {
         return CoordinatorStore.class;
     }
+
+    /**
+     * Queue the workflow commands of a coordinator fan-out in rate-limited batches, see {@link
+     * #CONF_FANOUT_BATCH_SIZE} and {@link #CONF_FANOUT_BATCH_INTERVAL}.
+     * <p/>
+     * The number of actions updated in the store and the number of workflow commands queued are instrumented as
+     * <code>[command name].actions</code> and <code>[command name].workflows</code> counters.
+     *
+     * @param callables workflow commands to queue.
+     * @param actionsUpdated number of coordinator actions updated by the command.
+     */
+    protected void queueFanOut(List<? extends XCallable<Void>> callables, int actionsUpdated) {
+        Configuration conf = Services.get().getConf();
+        int batchSize = Math.max(1, conf.getInt(CONF_FANOUT_BATCH_SIZE, 50));
+        long batchInterval = conf.getLong(CONF_FANOUT_BATCH_INTERVAL, 1000);
+        queueCallableInBatches(callables, batchSize, batchInterval);
+        if (getInstrumentation() != null) {
+            getInstrumentation().incr(INSTRUMENTATION_GROUP, getName() + ".actions", actionsUpdated);
+            getInstrumentation().incr(INSTRUMENTATION_GROUP, getName() + ".workflows", callables.size());
+        }
+        XLog.getLog(getClass()).info(
+                "[{0}] updated [{1}] actions, queued [{2}] workflow commands in [{3}] batches of [{4}] every [{5}]ms",
+                getName(), actionsUpdated, callables.size(), (callables.size() + batchSize - 1) / batchSize, batchSize,
+                batchInterval);
+    }
+
+    /**
+     * Update the next materialization time of a coordinator job after a change of its status or times, see {@link
+     * CoordJobMatLookupTriggerService#schedule(CoordinatorJobBean)}.
+     * <p/>
+     * The timing wheel is updated after the command commits, with the job lock still held, a rolled back change does
+     * not leave the job unscheduled or scheduled for a state it does not have.
+     *
+     * @param coordJob coordinator job.
+     */
+    protected void scheduleMaterialization(final CoordinatorJobBean coordJob) {
+        final CoordJobMatLookupTriggerService service = Services.get().get(CoordJobMatLookupTriggerService.class);
+        if (service != null && service.isTimingWheelEnabled()) {
+            runAfterCommit(new Runnable() {
+                public void run() {
+                    service.schedule(coordJob);
+                }
+            });
+        }
+    }
 }
@@ -36,6 +36,11 @@ public class SLAEventsCommand extends Command<List<SLAEventBean>, SLAStore> {
         this.maxNoEvents = maxNoEvnts;
     }
 
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     protected List<SLAEventBean> call(SLAStore store) throws StoreException, CommandException {
         long lsId[] = new long[1];
@@ -29,7 +29,6 @@ import org.apache.oozie.service.Services;
 import org.apache.oozie.service.UUIDService;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.store.WorkflowStore;
-import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 
 /**
@@ -56,6 +55,16 @@ public class ActionCheckCommand extends ActionCommand<Void> {
         this(id, 0, checkDelay);
     }
 
+    /**
+     * Return the uniqueness key of the command, only the periodic checks (with a check delay) are coalesced.
+     *
+     * @return the uniqueness key of the command.
+     */
+    @Override
+    public String getKey() {
+        return (actionCheckDelay > 0) ? getName() + "_" + id : null;
+    }
+
     @Override
     protected Void call(WorkflowStore store) throws StoreException, CommandException {
 
@@ -83,13 +92,9 @@ public class ActionCheckCommand extends ActionCommand<Void> {
                     try {
                         boolean isRetry = false;
                         context = new ActionCommand.ActionExecutorContext(workflow, action, isRetry);
-                        incrActionCounter(action.getType(), 1);
-
-                        Instrumentation.Cron cron = new Instrumentation.Cron();
-                        cron.start();
-                        executor.check(context, action);
-                        cron.stop();
-                        addActionCron(action.getType(), cron);
+                        if (!executeAction(ExecutorOperation.CHECK, executor, context, action)) {
+                            return null;
+                        }
 
                         if (action.isExecutionComplete()) {
                             if (!context.isExecuted()) {
@@ -163,6 +168,12 @@ public class ActionCheckCommand extends ActionCommand<Void> {
         }
     }
 
+    @Override
+    protected ActionCommand<Void> createActionCommand() {
+        // the continuation must not be skipped because of the check delay
+        return new ActionCheckCommand(id, getPriority(), -1);
+    }
+
     @Override
     protected Void execute(WorkflowStore store) throws CommandException, StoreException {
         try {
@@ -172,12 +183,12 @@ public class ActionCheckCommand extends ActionCommand<Void> {
                 call(store);
             }
             else {
-                queueCallable(new ActionCheckCommand(id, actionCheckDelay), LOCK_FAILURE_REQUEUE_INTERVAL);
+                queueAgain(new ActionCheckCommand(id, actionCheckDelay), LOCK_FAILURE_REQUEUE_INTERVAL);
                 XLog.getLog(getClass()).warn("ActionCheckCommand lock was not acquired - failed {0}", id);
             }
         }
         catch (InterruptedException e) {
-            queueCallable(new ActionCheckCommand(id, actionCheckDelay), LOCK_FAILURE_REQUEUE_INTERVAL);
+            queueAgain(new ActionCheckCommand(id, actionCheckDelay), LOCK_FAILURE_REQUEUE_INTERVAL);
             XLog.getLog(getClass()).warn("ActionCheckCommand lock was not acquired - interrupted exception failed {0}",
                                          id);
         }
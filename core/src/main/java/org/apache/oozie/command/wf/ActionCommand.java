@@ -18,8 +18,11 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -28,9 +31,12 @@ import org.apache.oozie.DagELFunctions;
 import org.apache.oozie.WorkflowActionBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.action.ActionExecutor;
+import org.apache.oozie.action.ActionExecutorException;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.client.WorkflowJob;
 import org.apache.oozie.command.CommandException;
+import org.apache.oozie.service.ActionExecutorPoolService;
+import org.apache.oozie.service.CallableQueueService;
 import org.apache.oozie.service.CallbackService;
 import org.apache.oozie.service.ELService;
 import org.apache.oozie.service.HadoopAccessorException;
@@ -57,10 +63,267 @@ public abstract class ActionCommand<T> extends WorkflowCommand<Void> {
 
     protected static final String RECOVERY_ID_SEPARATOR = "@";
 
+    public static final String EXECUTOR_TIMEOUT = "EXECUTOR_TIMEOUT";
+
+    public static final String EXECUTOR_ERROR = "EXECUTOR_ERROR";
+
+    /**
+     * Delay, in milliseconds, before queueing again a command whose action executor operation was rejected because the
+     * action executor pool of its action type is full.
+     */
+    protected static final long EXECUTOR_POOL_FULL_REQUEUE_INTERVAL = 10 * 1000;
+
+    /**
+     * Action executor operations.
+     */
+    protected enum ExecutorOperation {
+        START, CHECK, KILL, END
+    }
+
+    private AsyncResult asyncResult;
+
     public ActionCommand(String name, String type, int priority) {
         super(name, type, priority, XLog.STD);
     }
 
+    /**
+     * Create a new instance of the command for the same action, used to queue the continuation of an action executor
+     * operation run in the action executor pool.
+     *
+     * @return a new instance of the command.
+     */
+    protected abstract ActionCommand<Void> createActionCommand();
+
+    /**
+     * Return if the next {@link #executeAction} call submits the operation to the action executor pool.
+     *
+     * @param actionType action type.
+     * @return <code>true</code> if the action type has an executor pool and the command has no operation result to
+     *         replay.
+     */
+    protected boolean isSubmittedToPool(String actionType) {
+        ActionExecutorPoolService pool = Services.get().get(ActionExecutorPoolService.class);
+        return asyncResult == null && pool != null && pool.isAsync(actionType);
+    }
+
+    /**
+     * Persist the action as in flight before its operation is submitted to the action executor pool.
+     * <p/>
+     * The pending age of the action is set after the operation timeout, the recovery service does not run the command
+     * again while the operation runs in the pool. If the continuation of the operation is lost (the server is
+     * restarted) the action is recovered once the pending age is reached.
+     *
+     * @param store workflow store.
+     * @param action the action.
+     * @throws StoreException thrown if the action could not be updated.
+     */
+    protected void markInFlight(WorkflowStore store, WorkflowActionBean action) throws StoreException {
+        if (isSubmittedToPool(action.getType())) {
+            long timeout = Services.get().get(ActionExecutorPoolService.class).getTimeout(action.getType());
+            action.setPendingAge(new Date(System.currentTimeMillis() + timeout));
+            store.updateAction(action);
+        }
+    }
+
+    /**
+     * Run an action executor operation.
+     * <p/>
+     * If the action type has an executor pool in the {@link ActionExecutorPoolService}, the operation is submitted to
+     * the pool and <code>false</code> is returned, the command must return without updating the action. When the
+     * operation completes a new instance of the command is queued, even if the queue is full, it runs again with the
+     * current action and workflow and, if the action is still in the expected state, this method replays the changes
+     * done by the operation on the action and the workflow instead of running the operation.
+     *
+     * @param operation action executor operation.
+     * @param executor the executor instance being used.
+     * @param context the execution context.
+     * @param action the action.
+     * @return <code>true</code> if the operation has been run (or replayed) and the command must process its result,
+     *         <code>false</code> if the operation is running in the action executor pool.
+     * @throws ActionExecutorException thrown by the action executor operation.
+     */
+    protected boolean executeAction(final ExecutorOperation operation, final ActionExecutor executor,
+                                    ActionExecutorContext context, final WorkflowActionBean action)
+            throws ActionExecutorException {
+        if (asyncResult != null) {
+            AsyncResult result = asyncResult;
+            asyncResult = null;
+            XLog.getLog(getClass()).debug("Applying result of [{0}] operation run in the action executor pool",
+                                          operation);
+            result.context.replay(context);
+            if (result.exception != null) {
+                throw result.exception;
+            }
+            return true;
+        }
+        incrActionCounter(action.getType(), 1);
+        ActionExecutorPoolService pool = Services.get().get(ActionExecutorPoolService.class);
+        if (pool == null || !pool.isAsync(action.getType())) {
+            Instrumentation.Cron cron = new Instrumentation.Cron();
+            cron.start();
+            runOperation(operation, executor, context, action);
+            cron.stop();
+            addActionCron(action.getType(), cron);
+            return true;
+        }
+
+        // the workflow and action beans are not used by the command after this point, the operation works on them
+        // and records its changes to replay them on the beans the continuation reads from the store
+        final AsyncActionExecutorContext asyncContext = new AsyncActionExecutorContext(context.workflow, action,
+                                                                                       context.isRetry());
+        final ActionCommand<Void> continuation = createActionCommand();
+        boolean submitted = pool.submit(action.getType(), action.getId() + "#" + operation,
+                                        new ActionExecutorPoolService.Task() {
+            public void execute() throws Exception {
+                Instrumentation.Cron cron = new Instrumentation.Cron();
+                cron.start();
+                runOperation(operation, executor, asyncContext, action);
+                cron.stop();
+                addActionCron(action.getType(), cron);
+            }
+
+            public void completed(Exception exception) {
+                ActionExecutorException executorException = null;
+                if (exception instanceof ActionExecutorException) {
+                    executorException = (ActionExecutorException) exception;
+                }
+                else if (exception instanceof TimeoutException) {
+                    executorException = new ActionExecutorException(ActionExecutorException.ErrorType.TRANSIENT,
+                                                                    EXECUTOR_TIMEOUT, exception.getMessage());
+                }
+                else if (exception != null) {
+                    // handled as a transient error, the operation is retried up to the action max retries
+                    XLog.getLog(ActionCommand.this.getClass()).warn(
+                            "Error running [{0}] operation of action [{1}], {2}", operation, action.getId(),
+                            exception.getMessage(), exception);
+                    executorException = new ActionExecutorException(ActionExecutorException.ErrorType.TRANSIENT,
+                                                                    EXECUTOR_ERROR, exception.toString(), exception);
+                }
+                continuation.asyncResult = new AsyncResult(operation, executor, asyncContext, executorException);
+                queueContinuation(continuation, 0);
+            }
+        });
+        if (!submitted) {
+            queueCallable(createActionCommand(), EXECUTOR_POOL_FULL_REQUEUE_INTERVAL);
+        }
+        return false;
+    }
+
+    /**
+     * Queue again a command that could not acquire the job lock.
+     * <p/>
+     * If the command has the result of an action executor operation run in the action executor pool, a continuation
+     * with the result is queued instead, even if the queue is full, and the operation is not run again.
+     *
+     * @param command command to queue again.
+     * @param delay the queue delay in milliseconds.
+     */
+    protected void queueAgain(ActionCommand<Void> command, long delay) {
+        if (asyncResult != null) {
+            ActionCommand<Void> continuation = createActionCommand();
+            continuation.asyncResult = asyncResult;
+            asyncResult = null;
+            queueContinuation(continuation, delay);
+        }
+        else {
+            queueCallable(command, delay);
+        }
+    }
+
+    /**
+     * Discard the result of an action executor operation run in the action executor pool, if any, because the action
+     * is no longer in the state the operation was run for.
+     * <p/>
+     * If the operation started an external job that is not the one of the action, the external job is killed, it would
+     * be left running without being tracked by Oozie.
+     *
+     * @param action the current action.
+     */
+    protected void discardAsyncResult(WorkflowActionBean action) {
+        if (asyncResult == null) {
+            return;
+        }
+        final AsyncResult result = asyncResult;
+        asyncResult = null;
+        final WorkflowAction started = result.context.getAction();
+        if (result.operation != ExecutorOperation.START || !result.context.isStarted()
+                || started.getExternalId() == null || started.getExternalId().equals(action.getExternalId())) {
+            XLog.getLog(getClass()).debug("Discarding result of [{0}] operation, action status [{1}]",
+                                          result.operation, action.getStatus());
+            return;
+        }
+        XLog.getLog(getClass()).warn("Discarding result of [{0}] operation, action status [{1}], killing external job "
+                + "[{2}]", result.operation, action.getStatus(), started.getExternalId());
+        boolean submitted = Services.get().get(ActionExecutorPoolService.class).submit(
+                action.getType(), action.getId() + "#" + ExecutorOperation.KILL + "#" + started.getExternalId(),
+                new ActionExecutorPoolService.Task() {
+            public void execute() throws Exception {
+                result.executor.kill(result.context, started);
+            }
+
+            public void completed(Exception exception) {
+                if (exception != null) {
+                    XLog.getLog(ActionCommand.this.getClass()).warn(XLog.OPS,
+                            "Could not kill external job [{0}] of action [{1}], {2}", started.getExternalId(),
+                            started.getId(), exception.getMessage(), exception);
+                }
+            }
+        });
+        if (!submitted) {
+            XLog.getLog(getClass()).warn(XLog.OPS, "Could not kill external job [{0}] of action [{1}], pool full",
+                                         started.getExternalId(), action.getId());
+        }
+    }
+
+    /**
+     * Queue the continuation of an action executor operation, even if the queue is full, the operation result is only
+     * in memory.
+     */
+    private static void queueContinuation(ActionCommand<Void> continuation, long delay) {
+        if (!Services.get().get(CallableQueueService.class).queue(continuation, delay, true)) {
+            XLog.getLog(continuation.getClass()).warn(XLog.OPS,
+                    "Could not queue result of [{0}] operation, system in SAFEMODE",
+                    continuation.asyncResult.operation);
+        }
+    }
+
+    private static void runOperation(ExecutorOperation operation, ActionExecutor executor,
+                                     ActionExecutor.Context context, WorkflowAction action)
+            throws ActionExecutorException {
+        switch (operation) {
+            case START:
+                executor.start(context, action);
+                break;
+            case CHECK:
+                executor.check(context, action);
+                break;
+            case KILL:
+                executor.kill(context, action);
+                break;
+            case END:
+                executor.end(context, action);
+                break;
+        }
+    }
+
+    /**
+     * Result of an action executor operation run in the action executor pool.
+     */
+    private static class AsyncResult {
+        private final ExecutorOperation operation;
+        private final ActionExecutor executor;
+        private final AsyncActionExecutorContext context;
+        private final ActionExecutorException exception;
+
+        public AsyncResult(ExecutorOperation operation, ActionExecutor executor, AsyncActionExecutorContext context,
+                           ActionExecutorException exception) {
+            this.operation = operation;
+            this.executor = executor;
+            this.context = context;
+            this.exception = exception;
+        }
+    }
+
     /**
      * Takes care of Transient failures. Sets the action status to retry and increments the retry count if not enough
      * attempts have been made. Otherwise returns false.
@@ -199,6 +462,7 @@ public abstract class ActionCommand<T> extends WorkflowCommand<Void> {
         private boolean started;
         private boolean ended;
         private boolean executed;
+        private FileSystem appFileSystem;
 
         public ActionExecutorContext(WorkflowJobBean workflow, WorkflowActionBean action, boolean isRetry) {
             this.workflow = workflow;
@@ -318,13 +582,16 @@ public abstract class ActionCommand<T> extends WorkflowCommand<Void> {
          * @see org.apache.oozie.action.ActionExecutor.Context#getAppFileSystem()
          */
         public FileSystem getAppFileSystem() throws HadoopAccessorException, IOException, URISyntaxException {
-            WorkflowJob workflow = getWorkflow();
-            XConfiguration jobConf = new XConfiguration(new StringReader(workflow.getConf()));
-            Configuration fsConf = new Configuration();
-            XConfiguration.copy(jobConf, fsConf);
-            return Services.get().get(HadoopAccessorService.class).createFileSystem(workflow.getUser(),
-                    workflow.getGroup(), new URI(getWorkflow().getAppPath()), fsConf);
-
+            // the context lives for a single command, the file system is resolved once for all executor calls
+            if (appFileSystem == null) {
+                WorkflowJob workflow = getWorkflow();
+                XConfiguration jobConf = new XConfiguration(new StringReader(workflow.getConf()));
+                Configuration fsConf = new Configuration();
+                XConfiguration.copy(jobConf, fsConf);
+                appFileSystem = Services.get().get(HadoopAccessorService.class).createFileSystem(workflow.getUser(),
+                        workflow.getGroup(), new URI(getWorkflow().getAppPath()), fsConf);
+            }
+            return appFileSystem;
         }
 
         @Override
@@ -333,4 +600,91 @@ public abstract class ActionCommand<T> extends WorkflowCommand<Void> {
         }
     }
 
+    /**
+     * Execution context of an action executor operation run in the action executor pool, it records the changes done
+     * by the action executor to replay them on the context of the continuation command.
+     */
+    static class AsyncActionExecutorContext extends ActionExecutorContext {
+
+        private interface Change {
+            void replay(ActionExecutorContext context);
+        }
+
+        private final List<Change> changes = new ArrayList<Change>();
+
+        public AsyncActionExecutorContext(WorkflowJobBean workflow, WorkflowActionBean action, boolean isRetry) {
+            super(workflow, action, isRetry);
+        }
+
+        public synchronized void replay(ActionExecutorContext context) {
+            for (Change change : changes) {
+                change.replay(context);
+            }
+        }
+
+        private synchronized void record(Change change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void setVar(final String name, final String value) {
+            super.setVar(name, value);
+            record(new Change() {
+                public void replay(ActionExecutorContext context) {
+                    context.setVar(name, value);
+                }
+            });
+        }
+
+        @Override
+        public void setStartData(final String externalId, final String trackerUri, final String consoleUrl) {
+            super.setStartData(externalId, trackerUri, consoleUrl);
+            record(new Change() {
+                public void replay(ActionExecutorContext context) {
+                    context.setStartData(externalId, trackerUri, consoleUrl);
+                }
+            });
+        }
+
+        @Override
+        public void setExecutionData(final String externalStatus, final Properties actionData) {
+            super.setExecutionData(externalStatus, actionData);
+            record(new Change() {
+                public void replay(ActionExecutorContext context) {
+                    context.setExecutionData(externalStatus, actionData);
+                }
+            });
+        }
+
+        @Override
+        public void setEndData(final WorkflowAction.Status status, final String signalValue) {
+            super.setEndData(status, signalValue);
+            record(new Change() {
+                public void replay(ActionExecutorContext context) {
+                    context.setEndData(status, signalValue);
+                }
+            });
+        }
+
+        @Override
+        public void setExternalStatus(final String externalStatus) {
+            super.setExternalStatus(externalStatus);
+            record(new Change() {
+                public void replay(ActionExecutorContext context) {
+                    context.setExternalStatus(externalStatus);
+                }
+            });
+        }
+
+        @Override
+        public void setErrorInfo(final String str, final String exMsg) {
+            super.setErrorInfo(str, exMsg);
+            record(new Change() {
+                public void replay(ActionExecutorContext context) {
+                    context.setErrorInfo(str, exMsg);
+                }
+            });
+        }
+    }
+
 }
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.command.wf;
+
+import org.apache.oozie.WorkflowActionStatsBean;
+import org.apache.oozie.command.CommandException;
+import org.apache.oozie.service.ActionCheckerService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.store.StoreException;
+import org.apache.oozie.store.WorkflowStore;
+import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.XLog;
+
+/**
+ * Command that adds the duration of a successful run of a workflow action to the runtime history of the action.
+ * <p/>
+ * It is queued by the {@link ActionEndCommand} and runs in its own transaction, updates of the same runtime history
+ * are serialized with a lock on the history ID.
+ */
+public class ActionDurationCommand extends WorkflowCommand<Void> {
+    private static final String LOCK_PREFIX = "action.stats:";
+
+    private final String appName;
+    private final String actionName;
+    private final long duration;
+
+    public ActionDurationCommand(String appName, String actionName, long duration) {
+        super("action.duration", "action.duration", 0, XLog.STD);
+        this.appName = ParamChecker.notEmpty(appName, "appName");
+        this.actionName = ParamChecker.notEmpty(actionName, "actionName");
+        this.duration = duration;
+    }
+
+    @Override
+    protected Void call(WorkflowStore store) throws StoreException, CommandException {
+        ActionCheckerService checker = Services.get().get(ActionCheckerService.class);
+        if (checker != null) {
+            checker.addActionDuration(store, appName, actionName, duration);
+        }
+        return null;
+    }
+
+    @Override
+    protected Void execute(WorkflowStore store) throws CommandException, StoreException {
+        String id = WorkflowActionStatsBean.createId(appName, actionName);
+        try {
+            if (lock(LOCK_PREFIX + id)) {
+                call(store);
+            }
+            else {
+                queueCallable(new ActionDurationCommand(appName, actionName, duration),
+                              LOCK_FAILURE_REQUEUE_INTERVAL);
+                XLog.getLog(getClass()).warn("ActionDurationCommand lock was not acquired - failed {0}", id);
+            }
+        }
+        catch (InterruptedException e) {
+            queueCallable(new ActionDurationCommand(appName, actionName, duration), LOCK_FAILURE_REQUEUE_INTERVAL);
+            XLog.getLog(getClass()).warn(
+                    "ActionDurationCommand lock was not acquired - interrupted exception failed {0}", id);
+        }
+        return null;
+    }
+
+}
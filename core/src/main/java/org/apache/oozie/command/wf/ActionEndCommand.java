@@ -29,12 +29,12 @@ import org.apache.oozie.client.WorkflowJob;
 import org.apache.oozie.client.SLAEvent.SlaAppType;
 import org.apache.oozie.client.SLAEvent.Status;
 import org.apache.oozie.command.CommandException;
+import org.apache.oozie.service.ActionCheckerService;
 import org.apache.oozie.service.ActionService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.UUIDService;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.store.WorkflowStore;
-import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.db.SLADbOperations;
 import org.apache.oozie.workflow.WorkflowInstance;
@@ -85,13 +85,9 @@ public class ActionEndCommand extends ActionCommand<Void> {
                         WorkflowInstance wfInstance = workflow.getWorkflowInstance();
                         DagELFunctions.setActionInfo(wfInstance, action);
                         workflow.setWorkflowInstance(wfInstance);
-                        incrActionCounter(action.getType(), 1);
-
-                        Instrumentation.Cron cron = new Instrumentation.Cron();
-                        cron.start();
-                        executor.end(context, action);
-                        cron.stop();
-                        addActionCron(action.getType(), cron);
+                        if (!executeAction(ExecutorOperation.END, executor, context, action)) {
+                            return null;
+                        }
 
                         if (!context.isEnded()) {
                             XLog.getLog(getClass()).warn(XLog.OPS,
@@ -106,6 +102,9 @@ public class ActionEndCommand extends ActionCommand<Void> {
                         action.setEndTime(new Date());
                         store.updateAction(action);
                         store.updateWorkflow(workflow);
+                        if (action.getStatus() == WorkflowAction.Status.OK) {
+                            addActionDuration(workflow, action);
+                        }
                         Status slaStatus = null;
                         switch (action.getStatus()) {
                             case OK:
@@ -181,6 +180,11 @@ public class ActionEndCommand extends ActionCommand<Void> {
         return null;
     }
 
+    @Override
+    protected ActionCommand<Void> createActionCommand() {
+        return new ActionEndCommand(id, type);
+    }
+
     @Override
     protected Void execute(WorkflowStore store) throws CommandException, StoreException {
         XLog.getLog(getClass()).debug("STARTED ActionEndCommand for action " + id);
@@ -190,12 +194,12 @@ public class ActionEndCommand extends ActionCommand<Void> {
                 call(store);
             }
             else {
-                queueCallable(new ActionEndCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
+                queueAgain(new ActionEndCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
                 XLog.getLog(getClass()).warn("ActionEnd lock was not acquired - failed {0}", id);
             }
         }
         catch (InterruptedException e) {
-            queueCallable(new ActionEndCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
+            queueAgain(new ActionEndCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
             XLog.getLog(getClass()).warn("ActionEnd lock was not acquired - interrupted exception failed {0}", id);
         }
         finally {
@@ -203,4 +207,20 @@ public class ActionEndCommand extends ActionCommand<Void> {
         }
         return null;
     }
+
+    /**
+     * Queue the addition of the duration of an asynchronous action that ended successfully to its runtime history, the
+     * action completion was detected at its last check time. The history is updated after the commit of the command,
+     * in its own transaction.
+     */
+    private void addActionDuration(WorkflowJobBean workflow, WorkflowActionBean action) {
+        ActionCheckerService checker = Services.get().get(ActionCheckerService.class);
+        if (checker != null && checker.isAdaptive() && action.getExternalId() != null && action.getStartTime() != null
+                && action.getLastCheckTime() != null && workflow.getAppName() != null) {
+            long duration = action.getLastCheckTime().getTime() - action.getStartTime().getTime();
+            if (duration >= 0) {
+                queueCallable(new ActionDurationCommand(workflow.getAppName(), action.getName(), duration));
+            }
+        }
+    }
 }
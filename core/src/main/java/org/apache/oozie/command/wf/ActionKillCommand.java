@@ -27,7 +27,6 @@ import org.apache.oozie.store.StoreException;
 import org.apache.oozie.store.WorkflowStore;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.util.XLog;
-import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.db.SLADbOperations;
 
 public class ActionKillCommand extends ActionCommand<Void> {
@@ -51,13 +50,9 @@ public class ActionKillCommand extends ActionCommand<Void> {
                 try {
                     boolean isRetry = false;
                     ActionExecutorContext context = new ActionCommand.ActionExecutorContext(workflow, action, isRetry);
-                    incrActionCounter(action.getType(), 1);
-
-                    Instrumentation.Cron cron = new Instrumentation.Cron();
-                    cron.start();
-                    executor.kill(context, action);
-                    cron.stop();
-                    addActionCron(action.getType(), cron);
+                    if (!executeAction(ExecutorOperation.KILL, executor, context, action)) {
+                        return null;
+                    }
 
                     action.resetPending();
                     action.setStatus(WorkflowActionBean.Status.KILLED);
@@ -88,6 +83,11 @@ public class ActionKillCommand extends ActionCommand<Void> {
         return null;
     }
 
+    @Override
+    protected ActionCommand<Void> createActionCommand() {
+        return new ActionKillCommand(id, type);
+    }
+
     @Override
     protected Void execute(WorkflowStore store) throws CommandException, StoreException {
         XLog.getLog(getClass()).debug("STARTED ActionKillCommand for action " + id);
@@ -97,12 +97,12 @@ public class ActionKillCommand extends ActionCommand<Void> {
                 call(store);
             }
             else {
-                queueCallable(new ActionKillCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
+                queueAgain(new ActionKillCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
                 XLog.getLog(getClass()).warn("ActionKill lock was not acquired - failed {0}", id);
             }
         }
         catch (InterruptedException e) {
-            queueCallable(new ActionKillCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
+            queueAgain(new ActionKillCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
             XLog.getLog(getClass()).warn("ActionKill lock was not acquired - interrupted exception failed {0}", id);
         }
         finally {
@@ -39,7 +39,6 @@ import org.apache.oozie.service.UUIDService;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.store.WorkflowStore;
 import org.apache.oozie.util.ELEvaluationException;
-import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.XmlUtils;
 import org.apache.oozie.util.db.SLADbOperations;
@@ -121,14 +120,11 @@ public class ActionStartCommand extends ActionCommand<Void> {
                             return null;
                         }
                         action.setErrorInfo(null, null);
-                        incrActionCounter(action.getType(), 1);
-
-                        Instrumentation.Cron cron = new Instrumentation.Cron();
-                        cron.start();
-                        executor.start(context, action);
-                        cron.stop();
+                        markInFlight(store, action);
+                        if (!executeAction(ExecutorOperation.START, executor, context, action)) {
+                            return null;
+                        }
                         FaultInjection.activate("org.apache.oozie.command.SkipCommitFaultInjection");
-                        addActionCron(action.getType(), cron);
 
                         action.setRetries(0);
                         if (action.isExecutionComplete()) {
@@ -222,8 +218,12 @@ public class ActionStartCommand extends ActionCommand<Void> {
             else {
                 XLog.getLog(getClass()).warn("Job state is not {0}. Skipping Action Execution",
                                              WorkflowJob.Status.RUNNING.toString());
+                discardAsyncResult(action);
             }
         }
+        else {
+            discardAsyncResult(action);
+        }
         return null;
     }
 
@@ -240,6 +240,11 @@ public class ActionStartCommand extends ActionCommand<Void> {
         return;
     }
 
+    @Override
+    protected ActionCommand<Void> createActionCommand() {
+        return new ActionStartCommand(id, type);
+    }
+
     @Override
     protected Void execute(WorkflowStore store) throws CommandException, StoreException {
         try {
@@ -249,12 +254,12 @@ public class ActionStartCommand extends ActionCommand<Void> {
                 call(store);
             }
             else {
-                queueCallable(new ActionStartCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
+                queueAgain(new ActionStartCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
                 XLog.getLog(getClass()).warn("ActionStartCommand lock was not acquired - failed {0}", id);
             }
         }
         catch (InterruptedException e) {
-            queueCallable(new ActionStartCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
+            queueAgain(new ActionStartCommand(id, type), LOCK_FAILURE_REQUEUE_INTERVAL);
             XLog.getLog(getClass()).warn("ActionStartCommand lock was not acquired - interrupted exception failed {0}",
                                          id);
         }
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.command.wf;
+
+import org.apache.oozie.store.StoreException;
+import org.apache.oozie.store.WorkflowStore;
+import org.apache.oozie.util.XLog;
+import org.apache.oozie.command.CommandException;
+
+import java.util.Date;
+
+/**
+ * Command that moves a chunk of completed workflow jobs and their actions to the history tables.
+ */
+public class ArchiveCommand extends WorkflowCommand<Integer> {
+    private static XLog LOG = XLog.getLog(ArchiveCommand.class);
+    private Date endTime;
+    private int limit;
+
+    /**
+     * @param endTime workflow jobs ended before this time are archived.
+     * @param limit maximum number of workflow jobs to archive.
+     */
+    public ArchiveCommand(Date endTime, int limit) {
+        super("archive", "archive", 0, XLog.OPS);
+        this.endTime = endTime;
+        this.limit = limit;
+    }
+
+    /**
+     * Return if the command is background work.
+     *
+     * @return <code>true</code>, archiving uses the background connection pool.
+     */
+    @Override
+    protected boolean isBackground() {
+        return true;
+    }
+
+    @Override
+    protected Integer call(WorkflowStore store) throws StoreException, CommandException {
+        int archived = store.archive(endTime, limit);
+        LOG.debug("Archived [{0}] jobs ended before [{1}]", archived, endTime);
+        return archived;
+    }
+
+}
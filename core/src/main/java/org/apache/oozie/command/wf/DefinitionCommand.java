@@ -30,6 +30,11 @@ public class DefinitionCommand extends WorkflowCommand<String> {
         this.id = ParamChecker.notEmpty(id, "id");
     }
 
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected String call(WorkflowStore store) throws StoreException {
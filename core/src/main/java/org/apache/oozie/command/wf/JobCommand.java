@@ -48,6 +48,11 @@ public class JobCommand extends WorkflowCommand<WorkflowJobBean> {
         this.len = length;
     }
 
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     protected WorkflowJobBean call(WorkflowStore store) throws StoreException {
         WorkflowJobBean workflow = store.getWorkflowInfoWithActionsSubset(id, start, len);
@@ -46,6 +46,11 @@ public class JobsCommand extends WorkflowCommand<WorkflowsInfo> {
         this.len = length;
     }
 
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     protected WorkflowsInfo call(WorkflowStore store) throws StoreException {
         WorkflowsInfo workflowsInfo = store.getWorkflowsInfo(filter, start, len);
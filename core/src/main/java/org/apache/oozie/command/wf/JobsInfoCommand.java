@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.command.wf;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.oozie.WorkflowJobBean;
+import org.apache.oozie.store.StoreException;
+import org.apache.oozie.store.WorkflowStore;
+import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.XLog;
+
+/**
+ * Command for loading the workflows with the given IDs, without actions.
+ */
+public class JobsInfoCommand extends WorkflowCommand<List<WorkflowJobBean>> {
+    private Collection<String> ids;
+    private Date since;
+
+    /**
+     * Constructor taking the workflow IDs.
+     *
+     * @param ids workflow IDs, unknown IDs are ignored.
+     * @param since if not <code>null</code>, only the workflows modified after this time are returned.
+     */
+    public JobsInfoCommand(Collection<String> ids, Date since) {
+        super("job.info", "job.info", 1, XLog.OPS, true);
+        this.ids = ParamChecker.notNull(ids, "ids");
+        this.since = since;
+    }
+
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    protected List<WorkflowJobBean> call(WorkflowStore store) throws StoreException {
+        List<WorkflowJobBean> workflows = store.getWorkflowsInfo(ids, since);
+        for (WorkflowJobBean workflow : workflows) {
+            workflow.setConsoleUrl(JobCommand.getJobConsoleUrl(workflow.getId()));
+        }
+        return workflows;
+    }
+
+}
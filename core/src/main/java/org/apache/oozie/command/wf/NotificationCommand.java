@@ -17,26 +17,26 @@ package org.apache.oozie.command.wf;
 import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.WorkflowActionBean;
 import org.apache.oozie.WorkflowJobBean;
-import org.apache.oozie.command.Command;
+import org.apache.oozie.service.NotificationService;
+import org.apache.oozie.service.Services;
 import org.apache.oozie.store.WorkflowStore;
-import org.apache.oozie.store.Store;
 import org.apache.oozie.util.XLog;
 
-import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
-
+/**
+ * Queues a workflow job or action notification for delivery by the {@link NotificationService}.
+ */
 public class NotificationCommand extends WorkflowCommand<Void> {
 
     private static final String STATUS_PATTERN = "\\$status";
     private static final String JOB_ID_PATTERN = "\\$jobId";
     private static final String NODE_NAME_PATTERN = "\\$nodeName";
 
+    private String key;
     private String url;
-    private int retries = 0;
 
     public NotificationCommand(WorkflowJobBean workflow) {
         super("job.notification", "job.notification", 0, XLog.STD, false);
+        key = workflow.getId();
         url = workflow.getWorkflowInstance().getConf().get(OozieClient.WORKFLOW_NOTIFICATION_URL);
         if (url != null) {
             url = url.replaceAll(JOB_ID_PATTERN, workflow.getId());
@@ -45,7 +45,8 @@ public class NotificationCommand extends WorkflowCommand<Void> {
     }
 
     public NotificationCommand(WorkflowJobBean workflow, WorkflowActionBean action) {
-        super("action.notification", "job.notification", 0, XLog.STD);
+        super("action.notification", "job.notification", 0, XLog.STD, false);
+        key = workflow.getId() + "@" + action.getName();
         url = workflow.getWorkflowInstance().getConf().get(OozieClient.ACTION_NOTIFICATION_URL);
         if (url != null) {
             url = url.replaceAll(JOB_ID_PATTERN, workflow.getId());
@@ -61,28 +62,17 @@ public class NotificationCommand extends WorkflowCommand<Void> {
 
     public Void call(WorkflowStore store) {
         if (url != null) {
-            try {
-                URL url = new URL(this.url);
-                HttpURLConnection urlConn = (HttpURLConnection) url.openConnection();
-                if (urlConn.getResponseCode() != HttpURLConnection.HTTP_OK) {
-                    handleRetry();
-                }
+            NotificationService notificationService = Services.get().get(NotificationService.class);
+            if (notificationService != null) {
+                notificationService.queueNotification(key, url);
             }
-            catch (IOException ex) {
-                handleRetry();
+            else {
+                XLog.getLog(getClass()).warn(XLog.OPS,
+                                             "NotificationService not available, could not send notification [{0}]",
+                                             url);
             }
         }
         return null;
     }
 
-    private void handleRetry() {
-        if (retries < 3) {
-            retries++;
-            queueCallable(this, 60 * 1000);
-        }
-        else {
-            XLog.getLog(getClass()).warn(XLog.OPS, "could not send notification [{0}]", url);
-        }
-    }
-
 }
@@ -30,6 +30,16 @@ public class PurgeCommand extends WorkflowCommand<Void> {
         this.limit = limit;
     }
 
+    /**
+     * Return if the command is background work.
+     *
+     * @return <code>true</code>, purge uses the background connection pool.
+     */
+    @Override
+    protected boolean isBackground() {
+        return true;
+    }
+
     @Override
     protected Void call(WorkflowStore store) throws StoreException, CommandException {
         LOG.debug("Attempting to purge Jobs older than [{0}] days.", olderThan);
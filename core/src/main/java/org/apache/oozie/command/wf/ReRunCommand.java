@@ -133,6 +133,8 @@ public class ReRunCommand extends WorkflowCommand<Void> {
 
     protected Void call(WorkflowStore store) throws StoreException, CommandException {
         incrJobCounter(1);
+        // an archived workflow is moved back to the hot tables to be rerun
+        store.restoreWorkflow(jobId);
         WorkflowJobBean wfBean = store.getWorkflow(jobId, false);
         setLogInfo(wfBean);
         List<WorkflowActionBean> actions = store.getActionsForWorkflow(jobId, false);
@@ -24,13 +24,18 @@ import org.apache.oozie.WorkflowActionBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.XException;
+import org.apache.oozie.action.ActionExecutor;
+import org.apache.oozie.command.Command;
 import org.apache.oozie.command.CommandException;
 import org.apache.oozie.command.coord.CoordActionReadyCommand;
 import org.apache.oozie.command.coord.CoordActionUpdateCommand;
 import org.apache.oozie.coord.CoordELFunctions;
 import org.apache.oozie.coord.CoordinatorJobException;
+import org.apache.oozie.service.ActionExecutorPoolService;
+import org.apache.oozie.service.ActionService;
 import org.apache.oozie.service.ELService;
 import org.apache.oozie.service.SchemaService;
+import org.apache.oozie.service.Service;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.StoreService;
 import org.apache.oozie.service.UUIDService;
@@ -41,6 +46,7 @@ import org.apache.oozie.store.WorkflowStore;
 import org.apache.oozie.workflow.WorkflowException;
 import org.apache.oozie.workflow.WorkflowInstance;
 import org.apache.oozie.util.ELEvaluator;
+import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.ParamChecker;
@@ -52,7 +58,9 @@ import org.jdom.JDOMException;
 import org.jdom.Namespace;
 
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -60,8 +68,21 @@ public class SignalCommand extends WorkflowCommand<Void> {
 
     protected static final String INSTR_SUCCEEDED_JOBS_COUNTER_NAME = "succeeded";
 
+    /**
+     * Maximum number of commands of synchronous actions (start, end and the following signal) a signal executes
+     * inline, within its own transaction, instead of queueing them. <code>0</code> disables inline execution.
+     */
+    public static final String CONF_INLINE_STEPS = Service.CONF_PREFIX + "wf.signal.inline.steps";
+
+    /**
+     * Maximum number of action start commands queued in a single serial batch when a signal starts several actions
+     * (the branches of a fork), the batches run in parallel.
+     */
+    public static final String CONF_START_BATCH_SIZE = Service.CONF_PREFIX + "wf.signal.start.batch.size";
+
     private String jobId;
     private String actionId;
+    private boolean inlined;
 
     protected SignalCommand(String name, int priority, String jobId) {
         super(name, name, priority, XLog.STD);
@@ -169,6 +190,13 @@ public class SignalCommand extends WorkflowCommand<Void> {
                         }
                     }
                     else {
+                        // all the actions started by the signal (all the branches of a fork) are inserted with a
+                        // single store operation, the start commands of the actions that cannot run inline are
+                        // queued in bounded serial batches that run in parallel, a slow start only delays the
+                        // starts of its own batch
+                        List<WorkflowActionBean> newActions = new ArrayList<WorkflowActionBean>();
+                        List<ActionStartCommand> startCommands = new ArrayList<ActionStartCommand>();
+                        Map<String, String> actionSlaXmls = null;
                         for (WorkflowActionBean newAction : WorkflowStoreService.getStartedActions(workflowInstance)) {
                             String skipVar = workflowInstance.getVar(newAction.getName()
                                     + WorkflowInstance.NODE_VAR_SEPARATOR + ReRunCommand.TO_SKIP);
@@ -183,17 +211,32 @@ public class SignalCommand extends WorkflowCommand<Void> {
                                 queueCallable(new SignalCommand(jobId, oldAction.getId()));
                             }
                             else {
+                                if (actionSlaXmls == null) {
+                                    actionSlaXmls = getActionSLAXmls(workflowInstance.getApp().getDefinition());
+                                }
                                 newAction.setPending();
-                                String actionSlaXml = getActionSLAXml(newAction.getName(), workflowInstance.getApp()
-                                        .getDefinition(), workflow.getConf());
-                                // System.out.println("111111 actionXml " +
-                                // actionSlaXml);
-                                // newAction.setSlaXml(workflow.getSlaXml());
-                                newAction.setSlaXml(actionSlaXml);
-                                store.insertAction(newAction);
-                                queueCallable(new ActionStartCommand(newAction.getId(), newAction.getType()));
+                                newAction.setSlaXml(actionSlaXmls.get(newAction.getName()));
+                                newActions.add(newAction);
+                                ActionStartCommand startCommand = new ActionStartCommand(newAction.getId(),
+                                                                                         newAction.getType());
+                                if (isInline(newAction.getType())) {
+                                    queueCallable(startCommand);
+                                }
+                                else {
+                                    startCommands.add(startCommand);
+                                }
                             }
                         }
+                        if (newActions.size() > 0) {
+                            store.insertActions(newActions);
+                        }
+                        if (startCommands.size() > 1) {
+                            queueCallableInBatches(startCommands,
+                                                   Services.get().getConf().getInt(CONF_START_BATCH_SIZE, 10), 0);
+                        }
+                        else {
+                            queueCallable(startCommands);
+                        }
                     }
 
                     store.updateWorkflow(workflow);
@@ -229,35 +272,26 @@ public class SignalCommand extends WorkflowCommand<Void> {
         return eval;
     }
 
-    private String getActionSLAXml(String actionName, String wfXml, String wfConf) throws CommandException {
-        String slaXml = null;
-        // TODO need to fill-out the code
-        // Get the appropriate action:slaXml and resolve that.
+    /**
+     * Return the SLA XML of all the actions of a workflow definition that have one, parsing the definition once for
+     * all the actions started by the signal.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, String> getActionSLAXmls(String wfXml) throws CommandException {
+        Map<String, String> slaXmls = new HashMap<String, String>();
         try {
-            // Configuration conf = new XConfiguration(new
-            // StringReader(wfConf));
             Element eWfJob = XmlUtils.parseXml(wfXml);
-            // String prefix = XmlUtils.getNamespacePrefix(eWfJob,
-            // SchemaService.SLA_NAME_SPACE_URI);
             for (Element action : (List<Element>) eWfJob.getChildren("action", eWfJob.getNamespace())) {
-                if (action.getAttributeValue("name").equals(actionName) == false) {
-                    continue;
-                }
                 Element eSla = action.getChild("info", Namespace.getNamespace(SchemaService.SLA_NAME_SPACE_URI));
                 if (eSla != null) {
-                    // resolveSla(eSla, conf);
-                    slaXml = XmlUtils.prettyPrint(eSla).toString();// Could use
-                    // any
-                    // non-null
-                    // string
-                    break;
+                    slaXmls.put(action.getAttributeValue("name"), XmlUtils.prettyPrint(eSla).toString());
                 }
             }
         }
         catch (Exception e) {
             throw new CommandException(ErrorCode.E1004, e.getMessage(), e);
         }
-        return slaXml;
+        return slaXmls;
     }
 
     private String resolveSla(Element eSla, Configuration conf) throws CommandException {
@@ -303,6 +337,9 @@ public class SignalCommand extends WorkflowCommand<Void> {
         try {
             if (lock(jobId)) {
                 call(store);
+                if (!inlined) {
+                    executeInlineCommands(store);
+                }
             }
             else {
                 queueCallable(new SignalCommand(jobId, actionId), LOCK_FAILURE_REQUEUE_INTERVAL);
@@ -316,4 +353,50 @@ public class SignalCommand extends WorkflowCommand<Void> {
         XLog.getLog(getClass()).debug("ENDED SignalCommand for jobid=" + jobId + ", actionId=" + actionId);
         return null;
     }
+
+    /**
+     * Execute inline the queued commands of synchronous actions of the job, and the signals they queue, until none is
+     * left or the {@link #CONF_INLINE_STEPS} budget is exhausted. The remaining commands are queued as usual.
+     */
+    @SuppressWarnings("unchecked")
+    private void executeInlineCommands(WorkflowStore store) throws CommandException, StoreException {
+        int steps = Services.get().getConf().getInt(CONF_INLINE_STEPS, 20);
+        List<XCallable<Void>> queued = getQueuedCallables();
+        int index = getInlineIndex(queued);
+        while (steps > 0 && index >= 0) {
+            WorkflowCommand<Void> command = (WorkflowCommand<Void>) queued.remove(index);
+            if (command instanceof SignalCommand) {
+                ((SignalCommand) command).inlined = true;
+            }
+            executeInline(command, store);
+            steps--;
+            index = getInlineIndex(queued);
+        }
+    }
+
+    /**
+     * Return the index of the first queued command that can be executed inline, <code>-1</code> if none.
+     */
+    private int getInlineIndex(List<XCallable<Void>> queued) {
+        for (int i = 0; i < queued.size(); i++) {
+            XCallable<Void> callable = queued.get(i);
+            if (callable instanceof SignalCommand) {
+                if (((SignalCommand) callable).jobId.equals(jobId)) {
+                    return i;
+                }
+            }
+            else if (callable instanceof ActionStartCommand || callable instanceof ActionEndCommand) {
+                if (isInline(((Command) callable).getType())) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private boolean isInline(String actionType) {
+        ActionExecutor executor = Services.get().get(ActionService.class).getExecutor(actionType);
+        ActionExecutorPoolService pool = Services.get().get(ActionExecutorPoolService.class);
+        return executor != null && executor.isInline() && (pool == null || !pool.isAsync(actionType));
+    }
 }
@@ -28,6 +28,11 @@ public class WorkflowActionInfoCommand extends WorkflowCommand<WorkflowActionBea
         this.id = ParamChecker.notEmpty(id, "id");
     }
 
+    @Override
+    protected boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected WorkflowActionBean call(WorkflowStore store) throws StoreException {
@@ -15,17 +15,23 @@
 package org.apache.oozie.service;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.WorkflowActionStatsBean;
+import org.apache.oozie.client.WorkflowJob;
 import org.apache.oozie.command.coord.CoordActionCheckCommand;
 import org.apache.oozie.command.wf.ActionCheckCommand;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.Store;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.store.WorkflowStore;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 
@@ -33,6 +39,10 @@ import org.apache.oozie.util.XLog;
  * The Action Checker Service queue ActionCheckCommands to check the status of running actions and
  * CoordActionCheckCommands to check the status of coordinator actions. The delay between checks on the same action can
  * be configured.
+ * <p/>
+ * If adaptive checks are enabled, the delay between checks of a workflow action is planned from the runtime history of
+ * the actions with the same name in the workflow applications with the same name: checks are frequent around the
+ * expected end of the action and sparse far from it. Actions without enough history are checked with the fixed delay.
  */
 public class ActionCheckerService implements Service {
 
@@ -51,9 +61,50 @@ public class ActionCheckerService implements Service {
      */
     public static final String CONF_CALLABLE_BATCH_SIZE = CONF_PREFIX + "callable.batch.size";
 
+    /**
+     * If the delay between checks of a workflow action is planned from the runtime history of the action.
+     */
+    public static final String CONF_ACTION_CHECK_ADAPTIVE = CONF_PREFIX + "action.check.adaptive";
+
+    /**
+     * The minimum time, in seconds, between adaptive checks for the same action.
+     */
+    public static final String CONF_ACTION_CHECK_MIN_DELAY = CONF_PREFIX + "action.check.min.delay";
+
+    /**
+     * The maximum time, in seconds, between adaptive checks for the same action.
+     */
+    public static final String CONF_ACTION_CHECK_MAX_DELAY = CONF_PREFIX + "action.check.max.delay";
+
+    /**
+     * The weight, between 0 and 1, of the last run of an action in its runtime history.
+     */
+    public static final String CONF_ACTION_HISTORY_WEIGHT = CONF_PREFIX + "action.history.weight";
+
+    /**
+     * The number of runs of an action required to plan its checks from its runtime history.
+     */
+    public static final String CONF_ACTION_HISTORY_MIN_SAMPLES = CONF_PREFIX + "action.history.min.samples";
+
     protected static final String INSTRUMENTATION_GROUP = "actionchecker";
     protected static final String INSTR_CHECK_ACTIONS_COUNTER = "checks_wf_actions";
     protected static final String INSTR_CHECK_COORD_ACTIONS_COUNTER = "checks_coord_actions";
+    protected static final String INSTR_CHECK_ACTIONS_ADAPTIVE_COUNTER = "checks_wf_actions_adaptive";
+    protected static final String INSTR_CHECK_ACTIONS_SKIPPED_COUNTER = "checks_wf_actions_skipped";
+
+    /**
+     * Margin, in milliseconds, of the incremental loads of the runtime histories, histories updated by transactions
+     * committed after a load started are loaded again by the next load.
+     */
+    private static final long STATS_LOAD_MARGIN = 5 * 60 * 1000;
+
+    private boolean adaptive;
+    private final Map<String, WorkflowActionStatsBean> stats = new HashMap<String, WorkflowActionStatsBean>();
+    private long statsLoadTime;
+    private long minDelay;
+    private long maxDelay;
+    private double historyWeight;
+    private int historyMinSamples;
 
     /**
      * {@link ActionCheckRunnable} is the runnable which is scheduled to run and queue Action checks.
@@ -68,6 +119,20 @@ public class ActionCheckerService implements Service {
         }
 
         public void run() {
+            StoreService.Workload workload = StoreService.setWorkload(new StoreService.Workload("action_checker",
+                                                                                                true));
+            try {
+                runActionCheck();
+            }
+            finally {
+                StoreService.setWorkload(workload);
+            }
+        }
+
+        /**
+         * Queue the checks of the running actions, the store queries use the background connection pool.
+         */
+        private void runActionCheck() {
             XLog.Info.get().clear();
             XLog log = XLog.getLog(getClass());
             msg = new StringBuilder();
@@ -96,12 +161,18 @@ public class ActionCheckerService implements Service {
             try {
                 store = (WorkflowStore) Services.get().get(StoreService.class).getStore(WorkflowStore.class);
                 store.beginTrx();
-                List<WorkflowActionBean> actions = store.getRunningActions(actionCheckDelay);
-                msg.append(" WF_ACTIONS : " + actions.size());
-                for (WorkflowActionBean action : actions) {
-                    Services.get().get(InstrumentationService.class).get().incr(INSTRUMENTATION_GROUP,
-                                                                                INSTR_CHECK_ACTIONS_COUNTER, 1);
-                    queueCallable(new ActionCheckCommand(action.getId()));
+                ActionCheckerService checker = Services.get().get(ActionCheckerService.class);
+                if (checker != null && checker.adaptive) {
+                    runAdaptiveWFActionCheck(checker, store);
+                }
+                else {
+                    List<WorkflowActionBean> actions = store.getRunningActions(actionCheckDelay);
+                    msg.append(" WF_ACTIONS : " + actions.size());
+                    for (WorkflowActionBean action : actions) {
+                        Services.get().get(InstrumentationService.class).get().incr(INSTRUMENTATION_GROUP,
+                                                                                    INSTR_CHECK_ACTIONS_COUNTER, 1);
+                        queueCallable(new ActionCheckCommand(action.getId()));
+                    }
                 }
                 store.commitTrx();
             }
@@ -139,6 +210,48 @@ public class ActionCheckerService implements Service {
             }
         }
 
+        /**
+         * check the workflow actions due for a check according to their runtime history, or to the fixed delay if
+         * they do not have enough history.
+         */
+        private void runAdaptiveWFActionCheck(ActionCheckerService checker, WorkflowStore store)
+                throws StoreException {
+            Instrumentation instr = Services.get().get(InstrumentationService.class).get();
+            List<WorkflowActionBean> actions = store.getRunningActionsForCheck(Math.min(checker.minDelay,
+                                                                                        actionCheckDelay));
+            Map<String, String> appNames = null;
+            Map<String, WorkflowActionStatsBean> stats = null;
+            if (actions.size() > 0) {
+                appNames = store.getWorkflowAppNames(WorkflowJob.Status.RUNNING);
+                stats = checker.getActionStats(store);
+            }
+            long now = System.currentTimeMillis();
+            int queued = 0;
+            for (WorkflowActionBean action : actions) {
+                long delay = actionCheckDelay * 1000L;
+                String appName = appNames.get(action.getJobId());
+                WorkflowActionStatsBean history = (appName != null)
+                        ? stats.get(WorkflowActionStatsBean.createId(appName, action.getName())) : null;
+                if (history != null && history.getSamples() >= checker.historyMinSamples
+                        && action.getStartTime() != null) {
+                    delay = getCheckInterval(now - action.getStartTime().getTime(), history.getMeanDuration(),
+                                             history.getDurationStdDev(), checker.minDelay * 1000,
+                                             checker.maxDelay * 1000);
+                    instr.incr(INSTRUMENTATION_GROUP, INSTR_CHECK_ACTIONS_ADAPTIVE_COUNTER, 1);
+                }
+                Date lastCheckTime = action.getLastCheckTime();
+                if (lastCheckTime == null || lastCheckTime.getTime() <= now - delay) {
+                    instr.incr(INSTRUMENTATION_GROUP, INSTR_CHECK_ACTIONS_COUNTER, 1);
+                    queueCallable(new ActionCheckCommand(action.getId()));
+                    queued++;
+                }
+                else {
+                    instr.incr(INSTRUMENTATION_GROUP, INSTR_CHECK_ACTIONS_SKIPPED_COUNTER, 1);
+                }
+            }
+            msg.append(" WF_ACTIONS : " + queued + "/" + actions.size());
+        }
+
         /**
          * check coordinator actions
          */
@@ -225,6 +338,15 @@ public class ActionCheckerService implements Service {
     @Override
     public void init(Services services) {
         Configuration conf = services.getConf();
+        adaptive = conf.getBoolean(CONF_ACTION_CHECK_ADAPTIVE, false);
+        minDelay = conf.getInt(CONF_ACTION_CHECK_MIN_DELAY, 60);
+        maxDelay = Math.max(minDelay, conf.getInt(CONF_ACTION_CHECK_MAX_DELAY, 1800));
+        historyWeight = conf.getFloat(CONF_ACTION_HISTORY_WEIGHT, 0.3f);
+        if (historyWeight <= 0 || historyWeight > 1) {
+            throw new IllegalArgumentException(XLog.format("[{0}] must be between 0 and 1, [{1}]",
+                                                           CONF_ACTION_HISTORY_WEIGHT, historyWeight));
+        }
+        historyMinSamples = conf.getInt(CONF_ACTION_HISTORY_MIN_SAMPLES, 3);
         Runnable actionCheckRunnable = new ActionCheckRunnable(conf.getInt(CONF_ACTION_CHECK_DELAY, 600));
         services.get(SchedulerService.class).schedule(actionCheckRunnable, 10,
                                                       conf.getInt(CONF_ACTION_CHECK_INTERVAL, 60), SchedulerService.Unit.SEC);
@@ -246,4 +368,69 @@ public class ActionCheckerService implements Service {
     public Class<? extends Service> getInterface() {
         return ActionCheckerService.class;
     }
+
+    /**
+     * Return if the delay between checks of a workflow action is planned from the runtime history of the action.
+     *
+     * @return <code>true</code> if adaptive checks are enabled.
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Return the runtime histories of the actions.
+     * <p/>
+     * The histories are kept in memory, only the histories updated since the previous call are loaded from the store.
+     *
+     * @param store workflow store.
+     * @return the runtime histories of the actions, keyed by history ID.
+     * @throws StoreException thrown if the runtime histories could not be loaded.
+     */
+    synchronized Map<String, WorkflowActionStatsBean> getActionStats(WorkflowStore store) throws StoreException {
+        long now = System.currentTimeMillis();
+        Date since = (statsLoadTime > 0) ? new Date(statsLoadTime - STATS_LOAD_MARGIN) : null;
+        stats.putAll(store.getActionStats(since));
+        statsLoadTime = now;
+        return stats;
+    }
+
+    /**
+     * Add the duration of a successful run of a workflow action to the runtime history of the action.
+     * <p/>
+     * The history is updated within the current transaction of the store, the caller must serialize the updates of the
+     * same history, see {@link org.apache.oozie.command.wf.ActionDurationCommand}.
+     *
+     * @param store workflow store.
+     * @param appName workflow application name.
+     * @param actionName action name.
+     * @param duration duration of the run, in milliseconds.
+     * @throws StoreException thrown if the runtime history could not be updated.
+     */
+    public void addActionDuration(WorkflowStore store, String appName, String actionName, long duration)
+            throws StoreException {
+        if (adaptive) {
+            store.addActionDuration(appName, actionName, duration, historyWeight);
+        }
+    }
+
+    /**
+     * Return the time between checks of a running action.
+     * <p/>
+     * Within one standard deviation of the expected duration the action is checked with the minimum delay, away from
+     * it the delay is half the distance to the expected duration window, so checks get closer as the expected end
+     * approaches and back off as an overdue action keeps running.
+     *
+     * @param elapsed time since the action started, in milliseconds.
+     * @param meanDuration expected duration of the action, in milliseconds.
+     * @param stdDev standard deviation of the duration of the action, in milliseconds.
+     * @param minDelay minimum delay, in milliseconds.
+     * @param maxDelay maximum delay, in milliseconds.
+     * @return the delay between checks, in milliseconds.
+     */
+    static long getCheckInterval(long elapsed, double meanDuration, double stdDev, long minDelay, long maxDelay) {
+        double distance = Math.abs(meanDuration - elapsed) - stdDev;
+        long delay = (distance > 0) ? (long) (distance / 2) : 0;
+        return Math.min(maxDelay, Math.max(minDelay, delay));
+    }
 }
@@ -0,0 +1,357 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.XLog;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The action executor pool service runs action executor operations (start, check, kill and end) outside of the
+ * callable queue.
+ * <p/>
+ * Each action type configured in {@link #CONF_ACTION_TYPES} has its own bounded thread pool, a slow cluster for one
+ * action type does not hold the threads of the other action types nor the callable queue threads used by the control
+ * commands (signal, coordinator, etc.). Operations running longer than the configured timeout are interrupted and
+ * completed with a {@link TimeoutException}.
+ * <p/>
+ * Action commands submit a {@link Task} and return, the task completion queues a continuation command that applies
+ * the operation result to the action and the workflow.
+ */
+public class ActionExecutorPoolService implements DependentService, Instrumentable {
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "ActionExecutorPoolService.";
+
+    /**
+     * Action types whose executor operations run in the action executor pool, if empty all action executor
+     * operations run in the callable queue.
+     */
+    public static final String CONF_ACTION_TYPES = CONF_PREFIX + "action.types";
+
+    /**
+     * Number of threads of each action type pool, it can be overridden for an action type with the
+     * <code>threads.#ACTION-TYPE#</code> property.
+     */
+    public static final String CONF_THREADS = CONF_PREFIX + "threads";
+
+    /**
+     * Max number of operations waiting for a thread in each action type pool, it can be overridden for an action type
+     * with the <code>queue.size.#ACTION-TYPE#</code> property.
+     */
+    public static final String CONF_QUEUE_SIZE = CONF_PREFIX + "queue.size";
+
+    /**
+     * Timeout, in seconds, of an action executor operation, it can be overridden for an action type with the
+     * <code>timeout.#ACTION-TYPE#</code> property.
+     */
+    public static final String CONF_TIMEOUT = CONF_PREFIX + "timeout";
+
+    private static final String INSTRUMENTATION_GROUP = "actionexecutorpool";
+    private static final String INSTR_SUBMITTED_COUNTER = "submitted";
+    private static final String INSTR_REJECTED_COUNTER = "rejected";
+    private static final String INSTR_TIMEOUT_COUNTER = "timeout";
+    private static final String INSTR_QUEUE_SIZE_SAMPLER = "queue.size";
+    private static final String INSTR_THREADS_ACTIVE_SAMPLER = "threads.active";
+
+    /**
+     * An action executor operation run by the action executor pool.
+     */
+    public interface Task {
+
+        /**
+         * Run the action executor operation, it is called from a thread of the action type pool.
+         *
+         * @throws Exception thrown if the operation failed.
+         */
+        public void execute() throws Exception;
+
+        /**
+         * Complete the action executor operation, it is called exactly once, when the operation ends or when it times
+         * out.
+         *
+         * @param exception <code>null</code> if the operation succeeded, the exception thrown by the operation, or a
+         * {@link TimeoutException} if the operation timed out.
+         */
+        public void completed(Exception exception);
+    }
+
+    private final XLog log = XLog.getLog(getClass());
+
+    private final Map<String, ThreadPoolExecutor> pools = new HashMap<String, ThreadPoolExecutor>();
+    private final Map<String, Long> timeouts = new HashMap<String, Long>();
+    private final Set<String> inFlight = new HashSet<String>();
+    private ScheduledThreadPoolExecutor timer;
+    private Instrumentation instrumentation;
+
+    /**
+     * Runs a task in an action type pool and completes it when it ends or times out, whichever happens first.
+     */
+    private class TaskRunner implements Runnable {
+        private final String actionType;
+        private final String key;
+        private final Task task;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile Future<?> future;
+        private volatile ScheduledFuture<?> timeout;
+
+        public TaskRunner(String actionType, String key, Task task) {
+            this.actionType = actionType;
+            this.key = key;
+            this.task = task;
+        }
+
+        public void run() {
+            Exception exception = null;
+            try {
+                task.execute();
+            }
+            catch (Exception ex) {
+                exception = ex;
+            }
+            if (complete()) {
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+                completed(exception);
+            }
+            else {
+                log.debug("Action executor operation [{0}] ended after its timeout, discarding its result", key);
+            }
+        }
+
+        public void timeout() {
+            if (complete()) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+                incrCounter(actionType, INSTR_TIMEOUT_COUNTER, 1);
+                log.warn(XLog.OPS, "Action executor operation [{0}] timed out", key);
+                completed(new TimeoutException("Action executor operation [" + key + "] timed out"));
+            }
+        }
+
+        private boolean complete() {
+            if (done.compareAndSet(false, true)) {
+                synchronized (inFlight) {
+                    inFlight.remove(key);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private void completed(Exception exception) {
+            try {
+                task.completed(exception);
+            }
+            catch (Throwable ex) {
+                log.warn("Could not complete action executor operation [{0}], {1}", key, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Initialize the action executor pool service.
+     *
+     * @param services services instance.
+     */
+    @Override
+    public void init(Services services) {
+        Configuration conf = services.getConf();
+        for (String actionType : conf.getStringCollection(CONF_ACTION_TYPES)) {
+            actionType = actionType.trim();
+            if (actionType.length() > 0 && !pools.containsKey(actionType)) {
+                int threads = conf.getInt(CONF_THREADS + "." + actionType, conf.getInt(CONF_THREADS, 10));
+                int queueSize = conf.getInt(CONF_QUEUE_SIZE + "." + actionType, conf.getInt(CONF_QUEUE_SIZE, 1000));
+                long timeout = conf.getLong(CONF_TIMEOUT + "." + actionType, conf.getLong(CONF_TIMEOUT, 300));
+                pools.put(actionType, new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+                                                             new ArrayBlockingQueue<Runnable>(queueSize)));
+                timeouts.put(actionType, timeout * 1000);
+                log.info("Action type [{0}] executor pool, threads [{1}] queue size [{2}] timeout [{3}]s",
+                         actionType, threads, queueSize, timeout);
+            }
+        }
+        timer = new ScheduledThreadPoolExecutor(1);
+    }
+
+    /**
+     * Destroy the action executor pool service, running operations are interrupted and their results discarded.
+     */
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        for (ThreadPoolExecutor pool : pools.values()) {
+            pool.shutdownNow();
+        }
+        try {
+            long limit = System.currentTimeMillis() + 30 * 1000;// 30 seconds
+            for (Map.Entry<String, ThreadPoolExecutor> entry : pools.entrySet()) {
+                while (!entry.getValue().awaitTermination(1000, TimeUnit.MILLISECONDS)) {
+                    log.info("Waiting for action type [{0}] executor pool to shutdown", entry.getKey());
+                    if (System.currentTimeMillis() > limit) {
+                        log.warn("Gave up, continuing without waiting for action executor pools to shutdown");
+                        break;
+                    }
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            log.warn(ex);
+        }
+        pools.clear();
+        synchronized (inFlight) {
+            inFlight.clear();
+        }
+    }
+
+    /**
+     * Return the services the ActionExecutorPoolService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
+    /**
+     * Return the public interface for action executor pool service.
+     *
+     * @return {@link ActionExecutorPoolService}.
+     */
+    @Override
+    public Class<? extends Service> getInterface() {
+        return ActionExecutorPoolService.class;
+    }
+
+    /**
+     * Instruments the action executor pool service.
+     *
+     * @param instr instance to instrument the action executor pool service to.
+     */
+    public void instrument(Instrumentation instr) {
+        instrumentation = instr;
+        for (Map.Entry<String, ThreadPoolExecutor> entry : pools.entrySet()) {
+            final ThreadPoolExecutor pool = entry.getValue();
+            instr.addSampler(INSTRUMENTATION_GROUP, entry.getKey() + "#" + INSTR_QUEUE_SIZE_SAMPLER, 60, 1,
+                             new Instrumentation.Variable<Long>() {
+                                 public Long getValue() {
+                                     return (long) pool.getQueue().size();
+                                 }
+                             });
+            instr.addSampler(INSTRUMENTATION_GROUP, entry.getKey() + "#" + INSTR_THREADS_ACTIVE_SAMPLER, 60, 1,
+                             new Instrumentation.Variable<Long>() {
+                                 public Long getValue() {
+                                     return (long) pool.getActiveCount();
+                                 }
+                             });
+        }
+    }
+
+    /**
+     * Return if the executor operations of an action type run in the action executor pool.
+     *
+     * @param actionType action type.
+     * @return <code>true</code> if the action type has an executor pool.
+     */
+    public boolean isAsync(String actionType) {
+        return pools.containsKey(actionType);
+    }
+
+    /**
+     * Return the timeout of the executor operations of an action type.
+     *
+     * @param actionType action type.
+     * @return the timeout in milliseconds.
+     */
+    public long getTimeout(String actionType) {
+        Long timeout = timeouts.get(actionType);
+        if (timeout == null) {
+            throw new IllegalArgumentException(XLog.format("Action type [{0}] has no executor pool", actionType));
+        }
+        return timeout;
+    }
+
+    /**
+     * Submit an action executor operation to the pool of its action type.
+     * <p/>
+     * If an operation with the same key is already running or waiting for a thread the task is not submitted, it is
+     * not completed and <code>true</code> is returned.
+     *
+     * @param actionType action type.
+     * @param key operation key, the action ID and the operation name.
+     * @param task operation to run.
+     * @return <code>false</code> if the action type pool is full, the operation must be submitted again later.
+     */
+    public boolean submit(String actionType, String key, Task task) {
+        ParamChecker.notEmpty(key, "key");
+        ParamChecker.notNull(task, "task");
+        ThreadPoolExecutor pool = pools.get(actionType);
+        if (pool == null) {
+            throw new IllegalArgumentException(XLog.format("Action type [{0}] has no executor pool", actionType));
+        }
+        synchronized (inFlight) {
+            if (!inFlight.add(key)) {
+                log.debug("Action executor operation [{0}] already in progress, ignoring it", key);
+                return true;
+            }
+        }
+        final TaskRunner runner = new TaskRunner(actionType, key, task);
+        try {
+            runner.timeout = timer.schedule(new Runnable() {
+                public void run() {
+                    runner.timeout();
+                }
+            }, timeouts.get(actionType), TimeUnit.MILLISECONDS);
+            runner.future = pool.submit(runner);
+            incrCounter(actionType, INSTR_SUBMITTED_COUNTER, 1);
+            return true;
+        }
+        catch (RejectedExecutionException ex) {
+            if (runner.timeout != null) {
+                runner.timeout.cancel(false);
+            }
+            synchronized (inFlight) {
+                inFlight.remove(key);
+            }
+            incrCounter(actionType, INSTR_REJECTED_COUNTER, 1);
+            log.warn("Action type [{0}] executor pool full, rejecting action executor operation [{1}]", actionType,
+                     key);
+            return false;
+        }
+    }
+
+    private void incrCounter(String actionType, String name, int count) {
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, actionType + "#" + name, count);
+        }
+    }
+
+}
@@ -26,7 +26,7 @@ import org.apache.oozie.ErrorCode;
 import java.util.HashMap;
 import java.util.Map;
 
-public class ActionService implements Service {
+public class ActionService implements DependentService {
 
     public static final String CONF_ACTION_EXECUTOR_CLASSES = CONF_PREFIX + "ActionService.executor.classes";
 
@@ -65,6 +65,15 @@ public class ActionService implements Service {
         executors = null;
     }
 
+    /**
+     * Return the services the ActionService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
     public Class<? extends Service> getInterface() {
         return ActionService.class;
     }
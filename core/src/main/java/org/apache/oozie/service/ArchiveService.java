@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.command.CommandException;
+import org.apache.oozie.command.coord.CoordArchiveCommand;
+import org.apache.oozie.command.wf.ArchiveCommand;
+import org.apache.oozie.store.Store;
+import org.apache.oozie.util.XLog;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The ArchiveService, not enabled by default, moves completed workflow jobs and completed coordinator jobs, with their actions, from the
+ * <code>WF_JOBS</code>, <code>WF_ACTIONS</code>, <code>COORD_JOBS</code> and <code>COORD_ACTIONS</code> tables to
+ * history tables with the same columns, the table name with the {@link #HISTORY_SUFFIX} suffix.
+ * <p/>
+ * The scheduling queries only read the hot tables, moving the completed jobs out keeps the hot tables and their
+ * indexes small. Job and action information and job listings read the history tables as well, archived jobs are
+ * listed after the jobs in the hot tables. A rerun moves the job back to the hot tables. The {@link PurgeService}
+ * purges the history tables.
+ * <p/>
+ * Jobs are archived in chunks of {@link #CONF_LIMIT} jobs, one transaction per chunk, up to {@link #CONF_MAX_CHUNKS}
+ * chunks per run.
+ * <p/>
+ * If {@link StoreService#CONF_CREATE_DB_SCHEMA} is <code>true</code> the missing history tables are created at
+ * startup, otherwise they must be created with the Oozie database and the service fails to start if they are missing.
+ * <p/>
+ * Only completed coordinator jobs are archived, the actions of running coordinator jobs remain in the hot tables until
+ * their coordinator job completes.
+ * <p/>
+ * Rows are moved listing the columns both tables have, a column added to a table by a schema upgrade and missing in
+ * its history table is not archived until it is added to the history table.
+ */
+public class ArchiveService implements DependentService {
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "ArchiveService.";
+
+    /**
+     * Age of completed jobs to be archived, in hours.
+     */
+    public static final String CONF_OLDER_THAN = CONF_PREFIX + "older.than";
+
+    /**
+     * Time interval, in seconds, at which the archive service will be scheduled to run.
+     */
+    public static final String CONF_INTERVAL = CONF_PREFIX + "interval";
+
+    /**
+     * Maximum number of jobs archived per transaction.
+     */
+    public static final String CONF_LIMIT = CONF_PREFIX + "limit";
+
+    /**
+     * Maximum number of transactions per run.
+     */
+    public static final String CONF_MAX_CHUNKS = CONF_PREFIX + "max.chunks";
+
+    public static final String HISTORY_SUFFIX = "_HISTORY";
+
+    private static final String INSTRUMENTATION_GROUP = "archive";
+    private static final long HOUR_IN_MS = 60 * 60 * 1000;
+
+    private static final String[] TABLES = {"WF_JOBS", "WF_ACTIONS", "COORD_JOBS", "COORD_ACTIONS"};
+
+    // history table, index name, column
+    private static final String[][] INDEXES = {{"WF_JOBS", "WF_JOBS_H_ID", "id"},
+            {"WF_JOBS", "WF_JOBS_H_END_TIME", "end_time"}, {"WF_ACTIONS", "WF_ACTIONS_H_ID", "id"},
+            {"WF_ACTIONS", "WF_ACTIONS_H_WF_ID", "wf_id"}, {"COORD_JOBS", "COORD_JOBS_H_ID", "id"},
+            {"COORD_JOBS", "COORD_JOBS_H_LAST_MOD", "last_modified_time"},
+            {"COORD_ACTIONS", "COORD_ACTIONS_H_ID", "id"}, {"COORD_ACTIONS", "COORD_ACTIONS_H_JOB_ID", "job_id"}};
+
+    private static XLog LOG = XLog.getLog(ArchiveService.class);
+
+    /**
+     * ArchiveRunnable is the runnable which is scheduled to run at the configured interval. It archives the
+     * completed workflow jobs and then the completed coordinator jobs, a chunk at a time.
+     */
+    static class ArchiveRunnable implements Runnable {
+        private int olderThan;
+        private int limit;
+        private int maxChunks;
+
+        public ArchiveRunnable(int olderThan, int limit, int maxChunks) {
+            this.olderThan = olderThan;
+            this.limit = limit;
+            this.maxChunks = maxChunks;
+        }
+
+        public void run() {
+            Date olderThanTime = new Date(System.currentTimeMillis() - olderThan * HOUR_IN_MS);
+            try {
+                int jobs = 0;
+                for (int i = 0; i < maxChunks; i++) {
+                    int archived = new ArchiveCommand(olderThanTime, limit).call();
+                    jobs += archived;
+                    if (archived < limit) {
+                        break;
+                    }
+                }
+                incr("workflows", jobs);
+
+                jobs = 0;
+                for (int i = 0; i < maxChunks; i++) {
+                    int archived = new CoordArchiveCommand(olderThanTime, limit).call();
+                    jobs += archived;
+                    if (archived < limit) {
+                        break;
+                    }
+                }
+                incr("coordinators", jobs);
+            }
+            catch (CommandException ex) {
+                LOG.warn("Archive run failed, {0}", ex.getMessage(), ex);
+            }
+        }
+
+        private void incr(String name, int count) {
+            if (count > 0) {
+                LOG.info("Archived [{0}] {1}", count, name);
+                Services.get().get(InstrumentationService.class).get().incr(INSTRUMENTATION_GROUP, name, count);
+            }
+        }
+    }
+
+    /**
+     * Initializes the {@link ArchiveService}.
+     *
+     * @param services services instance.
+     * @throws ServiceException thrown if the history tables are missing and could not be created.
+     */
+    @Override
+    public void init(Services services) throws ServiceException {
+        Configuration conf = services.getConf();
+        checkHistoryTables(services.get(StoreService.class), conf.getBoolean(StoreService.CONF_CREATE_DB_SCHEMA,
+                                                                             false));
+        int limit = Math.min(conf.getInt(CONF_LIMIT, 100), Store.IN_CLAUSE_SIZE);
+        Runnable archiveRunnable = new ArchiveRunnable(conf.getInt(CONF_OLDER_THAN, 24), limit,
+                                                       conf.getInt(CONF_MAX_CHUNKS, 50));
+        services.get(SchedulerService.class).schedule(archiveRunnable, 10, conf.getInt(CONF_INTERVAL, 600),
+                                                      SchedulerService.Unit.SEC);
+    }
+
+    /**
+     * Destroy the Archive Service.
+     */
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Return the services the ArchiveService depends on.
+     *
+     * @return the {@link StoreService} and the {@link SchedulerService}.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{StoreService.class, SchedulerService.class};
+    }
+
+    /**
+     * Return the public interface for the archive service.
+     *
+     * @return {@link ArchiveService}.
+     */
+    @Override
+    public Class<? extends Service> getInterface() {
+        return ArchiveService.class;
+    }
+
+    private void checkHistoryTables(StoreService storeService, boolean create) throws ServiceException {
+        EntityManager entityManager = storeService.getEntityManager();
+        try {
+            Connection conn = (Connection) OpenJPAPersistence.cast(entityManager).getConnection();
+            try {
+                DatabaseMetaData metaData = conn.getMetaData();
+                String product = metaData.getDatabaseProductName();
+                for (String table : TABLES) {
+                    if (!tableExists(metaData, table + HISTORY_SUFFIX)) {
+                        if (!create) {
+                            throw new ServiceException(ErrorCode.E0610, table + HISTORY_SUFFIX,
+                                                       StoreService.CONF_CREATE_DB_SCHEMA);
+                        }
+                        Statement statement = conn.createStatement();
+                        try {
+                            List<String> columns = Store.getColumns(metaData, table);
+                            for (String sql : getCreateStatements(product, table, columns)) {
+                                statement.execute(sql);
+                            }
+                        }
+                        finally {
+                            statement.close();
+                        }
+                        if (!conn.getAutoCommit()) {
+                            conn.commit();
+                        }
+                        LOG.info("Created history table [{0}]", table + HISTORY_SUFFIX);
+                    }
+                }
+            }
+            finally {
+                conn.close();
+            }
+        }
+        catch (SQLException ex) {
+            throw new ServiceException(ErrorCode.E0608, "history tables", ex.getMessage(), ex);
+        }
+        finally {
+            entityManager.close();
+        }
+    }
+
+    private static boolean tableExists(DatabaseMetaData metaData, String table) throws SQLException {
+        for (String name : new String[]{table, table.toLowerCase()}) {
+            ResultSet rs = metaData.getTables(null, null, name, null);
+            try {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+            finally {
+                rs.close();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the statements creating the history table of a table, the DDL to copy a table definition is vendor
+     * specific. The columns are listed explicitly, in table order.
+     */
+    static List<String> getCreateStatements(String product, String table, List<String> columns) {
+        String history = table + HISTORY_SUFFIX;
+        StringBuilder select = new StringBuilder();
+        for (String column : columns) {
+            select.append((select.length() == 0) ? "" : ", ").append(column);
+        }
+        List<String> statements = new ArrayList<String>();
+        product = product.toLowerCase();
+        if (product.contains("mysql")) {
+            // the indexes are copied with the table definition
+            statements.add("CREATE TABLE " + history + " LIKE " + table);
+            return statements;
+        }
+        if (product.contains("hsql")) {
+            statements.add("SELECT " + select + " INTO " + history + " FROM " + table + " WHERE 1 = 0");
+        }
+        else if (product.contains("derby")) {
+            statements.add("CREATE TABLE " + history + " AS SELECT " + select + " FROM " + table + " WITH NO DATA");
+        }
+        else {
+            statements.add("CREATE TABLE " + history + " AS SELECT " + select + " FROM " + table + " WHERE 1 = 0");
+        }
+        for (String[] index : INDEXES) {
+            if (index[0].equals(table)) {
+                statements.add("CREATE INDEX " + index[1] + " ON " + history + " (" + index[2] + ")");
+            }
+        }
+        return statements;
+    }
+
+}
@@ -321,7 +321,8 @@ public class AuthorizationService implements Service {
 
     /**
      * Check if the user+group is authorized to operate on the specified job. <p/> Checks if the user is a super-user or
-     * the one who started the job. <p/> Read operations are allowed to all users.
+     * the one who started the job. <p/> Read operations are allowed to all users. <p/> Jobs moved to the history
+     * tables by the {@link ArchiveService} are looked up there, a rerun moves them back.
      *
      * @param user user name.
      * @param jobId job id.
@@ -341,11 +342,14 @@ public class AuthorizationService implements Service {
                     store.commitTrx();
                 }
                 catch (StoreException ex) {
-                    incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
                     if (store != null) {
                         store.rollbackTrx();
                     }
-                    throw new AuthorizationException(ex);
+                    jobBean = (ex.getErrorCode() == ErrorCode.E0604) ? getArchivedWorkflow(jobId) : null;
+                    if (jobBean == null) {
+                        incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
+                        throw new AuthorizationException(ex);
+                    }
                 }
                 catch (Exception ex) {
                     incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
@@ -393,11 +397,14 @@ public class AuthorizationService implements Service {
                     store.commitTrx();
                 }
                 catch (StoreException ex) {
-                    incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
                     if (store != null) {
                         store.rollbackTrx();
                     }
-                    throw new AuthorizationException(ex);
+                    jobBean = (ex.getErrorCode() == ErrorCode.E0604) ? getArchivedCoordinatorJob(jobId) : null;
+                    if (jobBean == null) {
+                        incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
+                        throw new AuthorizationException(ex);
+                    }
                 }
                 catch (Exception ex) {
                     incrCounter(INSTR_FAILED_AUTH_COUNTER, 1);
@@ -437,6 +444,58 @@ public class AuthorizationService implements Service {
         }
     }
 
+    /**
+     * Return a workflow job moved to the history tables by the {@link ArchiveService}, read-only stores read the
+     * history tables.
+     *
+     * @param jobId workflow job ID.
+     * @return the archived workflow job, <code>null</code> if archiving is disabled or the job is not archived.
+     */
+    private WorkflowJobBean getArchivedWorkflow(String jobId) {
+        if (Services.get().get(ArchiveService.class) == null) {
+            return null;
+        }
+        WorkflowStore store = null;
+        try {
+            store = Services.get().get(WorkflowStoreService.class).createReadOnly();
+            return store.getWorkflow(jobId, false);
+        }
+        catch (StoreException ex) {
+            return null;
+        }
+        finally {
+            if (store != null) {
+                store.closeTrx();
+            }
+        }
+    }
+
+    /**
+     * Return a coordinator job moved to the history tables by the {@link ArchiveService}, read-only stores read the
+     * history tables.
+     *
+     * @param jobId coordinator job ID.
+     * @return the archived coordinator job, <code>null</code> if archiving is disabled or the job is not archived.
+     */
+    private CoordinatorJobBean getArchivedCoordinatorJob(String jobId) {
+        if (Services.get().get(ArchiveService.class) == null) {
+            return null;
+        }
+        CoordinatorStore store = null;
+        try {
+            store = Services.get().get(CoordinatorStoreService.class).createReadOnly();
+            return store.getCoordinatorJob(jobId, false);
+        }
+        catch (StoreException ex) {
+            return null;
+        }
+        finally {
+            if (store != null) {
+                store.closeTrx();
+            }
+        }
+    }
+
     /**
      * Convenience method for instrumentation counters.
      *
@@ -14,18 +14,25 @@
  */
 package org.apache.oozie.service;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.client.OozieClient.SYSTEM_MODE;
+import org.apache.oozie.util.CompactDelayQueue;
+import org.apache.oozie.util.FairShareDelayQueue;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.PriorityDelayQueue;
@@ -53,26 +60,114 @@ import org.apache.oozie.util.PriorityDelayQueue.QueueElement;
  * of threads is reached, commands remain the queue until threads become available. Sets up a priority queue for the
  * execution of Commands via a ThreadPool. Sets up a Delayed Queue to handle actions which will be ready for execution
  * sometime in the future.
+ * <p/>
+ * Callables with a uniqueness key (see {@link XCallable#getKey()}) are coalesced: while a callable with a given key is
+ * waiting in the queue, queuing another callable with the same key does not queue it again. If the new callable is due
+ * earlier or has a higher priority, the waiting callable is replaced by it, with the earliest due time and the highest
+ * priority of both.
+ * <p/>
+ * Callables implementing {@link CompactCallable} queued with a delay of {@link #CONF_COMPACT_DELAY} or more are kept
+ * in a compact form (type, entity ID, priority and due time) until they are due, only then the callable is created
+ * again and queued for execution. Compact callables with a uniqueness key are coalesced as well, the priority and the
+ * due time of the compact entry of each key are kept, a compact entry superseded by a callable with the same key is
+ * discarded when it is due.
+ * <p/>
+ * Callables are queued in scheduling classes, defined by {@link #CONF_SCHEDULING_CLASSES} with a weight each. The
+ * thread-pool consumes the callables of the scheduling classes in proportion to their weights, within a scheduling
+ * class callables are consumed based on their priority. Each scheduling class has its own maximum queue size, {@link
+ * #CONF_SCHEDULING_CLASS_QUEUE_SIZE} followed by the class name, so a burst of callables of one class cannot fill the
+ * queue for the other classes.
+ * <p/>
+ * The scheduling class of a callable is the scheduling class of its job (see {@link ClassifiedCallable}), resolved
+ * from the job configuration: the {@link OozieClient#SCHEDULING_CLASS} property if it names a scheduling class, else
+ * the mapping of the job queue or pool name ({@link #CONF_SCHEDULING_CLASS_QUEUES}), else the mapping of the job user
+ * ({@link #CONF_SCHEDULING_CLASS_USERS}). Callables of jobs without scheduling class use the mapping of their user,
+ * else the first scheduling class, the default one.
  */
-public class CallableQueueService implements Service, Instrumentable {
+public class CallableQueueService implements DependentService, Instrumentable {
     private static final String INSTRUMENTATION_GROUP = "callablequeue";
     private static final String INSTR_IN_QUEUE_TIME_TIMER = "time.in.queue";
     private static final String INSTR_EXECUTED_COUNTER = "executed";
     private static final String INSTR_FAILED_COUNTER = "failed";
     private static final String INSTR_QUEUED_COUNTER = "queued";
+    private static final String INSTR_QUEUED_BATCHES_COUNTER = "queued.batches";
+    private static final String INSTR_COALESCED_COUNTER = "coalesced";
+    private static final String INSTR_COMPACTED_COUNTER = "compacted";
+    private static final String INSTR_COMPACT_QUEUE_SIZE_SAMPLER = "compact.queue.size";
+    private static final String INSTR_QUEUE_HEAP_SAMPLER = "queue.heap";
     private static final String INSTR_QUEUE_SIZE_SAMPLER = "queue.size";
     private static final String INSTR_THREADS_ACTIVE_SAMPLER = "threads.active";
+    private static final String INSTR_CLASS_PREFIX = "class.";
+    private static final String INSTR_REJECTED_COUNTER = "rejected";
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "CallableQueueService.";
 
     public static final String CONF_QUEUE_SIZE = CONF_PREFIX + "queue.size";
     public static final String CONF_THREADS = CONF_PREFIX + "threads";
     public static final String CONF_CALLABLE_CONCURRENCY = CONF_PREFIX + "callable.concurrency";
+    public static final String CONF_COMPACT_DELAY = CONF_PREFIX + "compact.delay";
+    public static final String CONF_COMPACT_QUEUE_SIZE = CONF_PREFIX + "compact.queue.size";
+    public static final String CONF_SCHEDULING_CLASSES = CONF_PREFIX + "scheduling.classes";
+    public static final String CONF_SCHEDULING_CLASS_QUEUE_SIZE = CONF_PREFIX + "scheduling.class.queue.size.";
+    public static final String CONF_SCHEDULING_CLASS_USERS = CONF_PREFIX + "scheduling.class.users";
+    public static final String CONF_SCHEDULING_CLASS_QUEUES = CONF_PREFIX + "scheduling.class.queues";
+    public static final String CONF_SCHEDULING_CLASS_JOBS = CONF_PREFIX + "scheduling.class.jobs";
+
+    /**
+     * Job configuration properties holding the queue or pool name of the job, in lookup order.
+     */
+    public static final String[] QUEUE_PROPERTIES = {"mapred.job.queue.name", "mapred.fairscheduler.pool"};
 
     public static final int CONCURRENCY_DELAY = 500;
 
     public static final int SAFE_MODE_DELAY = 60000;
 
+    /**
+     * Frequency, in milliseconds, at which due compact callables are created and queued for execution.
+     */
+    public static final int COMPACT_QUEUE_INTERVAL = 1000;
+
+    /**
+     * Estimated heap, in bytes, used by a callable waiting in the queue, its wrapper and its instrumentation cron.
+     */
+    public static final int CALLABLE_HEAP_SIZE = 2048;
+
+    /**
+     * A callable that can be created again from its class and its entity ID.
+     * <p/>
+     * The class must have a public constructor taking the entity ID as only parameter, the callable it creates must be
+     * equivalent to the queued one.
+     */
+    public interface CompactCallable {
+
+        /**
+         * Return the ID of the entity the callable works on.
+         *
+         * @return the entity ID.
+         */
+        public String getEntityId();
+    }
+
+    /**
+     * A callable that works on behalf of a job, it is queued in the scheduling class of the job.
+     */
+    public interface ClassifiedCallable {
+
+        /**
+         * Return the user of the job the callable works on.
+         *
+         * @return the user, <code>null</code> if not known.
+         */
+        public String getUser();
+
+        /**
+         * Return the ID of the job the callable works on.
+         *
+         * @return the job ID, <code>null</code> if not known.
+         */
+        public String getJobId();
+    }
+
     final private Map<String, AtomicInteger> activeCallables = new HashMap<String, AtomicInteger>();
     private int maxCallableConcurrency;
 
@@ -109,9 +204,16 @@ public class CallableQueueService implements Service, Instrumentable {
     // executor and a priority queue.
     class CallableWrapper extends PriorityDelayQueue.QueueElement<XCallable<?>> implements Runnable {
         private Instrumentation.Cron cron;
+        private List<String> keys = new ArrayList<String>();
+        private final String schedulingClass;
 
         public CallableWrapper(XCallable<?> callable, long delay) {
-            super(callable, callable.getPriority(), delay, TimeUnit.MILLISECONDS);
+            this(callable, callable.getPriority(), delay);
+        }
+
+        public CallableWrapper(XCallable<?> callable, int priority, long delay) {
+            super(callable, priority, delay, TimeUnit.MILLISECONDS);
+            schedulingClass = getSchedulingClass(callable);
             cron = new Instrumentation.Cron();
             cron.start();
         }
@@ -127,8 +229,10 @@ public class CallableQueueService implements Service, Instrumentable {
             XCallable<?> callable = getElement();
             try {
                 if (callableBegin(callable)) {
+                    // from now on a callable with the same key must be queued again, this one may miss its changes
+                    unregisterKeys(this);
                     cron.stop();
-                    addInQueueCron(cron);
+                    addInQueueCron(cron, schedulingClass);
                     XLog.Info.get().clear();
                     XLog log = XLog.getLog(getClass());
                     log.trace("executing callable [{0}]", callable.getName());
@@ -163,7 +267,8 @@ public class CallableQueueService implements Service, Instrumentable {
          */
         @Override
         public String toString() {
-            return "delay=" + getDelay(TimeUnit.MILLISECONDS) + ", elements=" + getElement().toString();
+            return "delay=" + getDelay(TimeUnit.MILLISECONDS) + ", class=" + schedulingClass + ", elements=" +
+                   getElement().toString();
         }
 
     }
@@ -210,6 +315,11 @@ public class CallableQueueService implements Service, Instrumentable {
             return createdTime;
         }
 
+        @Override
+        public String getKey() {
+            return null;
+        }
+
         public Void call() throws Exception {
             XLog log = XLog.getLog(getClass());
 
@@ -262,7 +372,19 @@ public class CallableQueueService implements Service, Instrumentable {
     private XLog log = XLog.getLog(getClass());
 
     private int queueSize;
-    private PriorityDelayQueue<CallableWrapper> queue;
+    private FairShareDelayQueue<XCallable<?>> queue;
+    private String[] schedulingClasses;
+    private final Map<String, String> userClasses = new HashMap<String, String>();
+    private final Map<String, String> queueClasses = new HashMap<String, String>();
+    private Map<String, String> jobClasses;
+    private final Map<String, CallableWrapper> uniqueCallables = new HashMap<String, CallableWrapper>();
+    private CompactDelayQueue compactQueue;
+    private final Map<String, long[]> compactKeys = new HashMap<String, long[]>();
+    private final List<Constructor<?>> compactTypes = new ArrayList<Constructor<?>>();
+    private final Map<Class<?>, Integer> compactTypeIds = new HashMap<Class<?>, Integer>();
+    private long compactDelay;
+    private int compactQueueSize;
+    private ScheduledThreadPoolExecutor compactTimer;
     private AtomicLong delayQueueExecCounter = new AtomicLong(0);
     private ThreadPoolExecutor executor;
     private Instrumentation instrumentation;
@@ -279,9 +401,11 @@ public class CallableQueueService implements Service, Instrumentable {
         }
     }
 
-    private void addInQueueCron(Instrumentation.Cron cron) {
+    private void addInQueueCron(Instrumentation.Cron cron, String schedulingClass) {
         if (instrumentation != null) {
             instrumentation.addCron(INSTRUMENTATION_GROUP, INSTR_IN_QUEUE_TIME_TIMER, cron);
+            instrumentation.addCron(INSTRUMENTATION_GROUP,
+                                    INSTR_CLASS_PREFIX + schedulingClass + "." + INSTR_IN_QUEUE_TIME_TIMER, cron);
         }
     }
 
@@ -298,7 +422,35 @@ public class CallableQueueService implements Service, Instrumentable {
         queueSize = conf.getInt(CONF_QUEUE_SIZE, 10000);
         int threads = conf.getInt(CONF_THREADS, 10);
 
-        queue = new PriorityDelayQueue<CallableWrapper>(3, 1000 * 30, TimeUnit.MILLISECONDS, queueSize) {
+        String[] classes = conf.getStrings(CONF_SCHEDULING_CLASSES, "default:1");
+        schedulingClasses = new String[classes.length];
+        int[] weights = new int[classes.length];
+        int[] classQueueSizes = new int[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            String[] classWeight = classes[i].trim().split(":");
+            schedulingClasses[i] = classWeight[0].trim();
+            weights[i] = (classWeight.length > 1) ? Integer.parseInt(classWeight[1].trim()) : 1;
+            classQueueSizes[i] = conf.getInt(CONF_SCHEDULING_CLASS_QUEUE_SIZE + schedulingClasses[i], queueSize);
+            log.info("Scheduling class [{0}], weight [{1}], queue size [{2}]", schedulingClasses[i], weights[i],
+                     classQueueSizes[i]);
+        }
+        parseMapping(conf, CONF_SCHEDULING_CLASS_USERS, userClasses);
+        parseMapping(conf, CONF_SCHEDULING_CLASS_QUEUES, queueClasses);
+        final int jobClassesSize = conf.getInt(CONF_SCHEDULING_CLASS_JOBS, 10000);
+        jobClasses = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > jobClassesSize;
+            }
+        };
+
+        queue = new FairShareDelayQueue<XCallable<?>>(schedulingClasses, weights, classQueueSizes, 3, 1000 * 30,
+                                                      TimeUnit.MILLISECONDS, queueSize) {
+            @Override
+            protected String getQueueClass(QueueElement<XCallable<?>> queueElement) {
+                return ((CallableWrapper) queueElement).schedulingClass;
+            }
+
             @Override
             protected void debug(String msgTemplate, Object... msgArgs) {
                 log.trace(msgTemplate, msgArgs);
@@ -332,6 +484,22 @@ public class CallableQueueService implements Service, Instrumentable {
         }
 
         maxCallableConcurrency = conf.getInt(CONF_CALLABLE_CONCURRENCY, 3);
+
+        compactDelay = conf.getLong(CONF_COMPACT_DELAY, 30) * 1000;
+        compactQueueSize = conf.getInt(CONF_COMPACT_QUEUE_SIZE, 100000);
+        compactQueue = new CompactDelayQueue(1024);
+        compactTimer = new ScheduledThreadPoolExecutor(1);
+        compactTimer.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                // an exception escaping the runnable would cancel the timer, compact callables would never run
+                try {
+                    queueDueCompactCallables();
+                }
+                catch (Throwable ex) {
+                    log.warn("Could not queue due compact callables, {0}", ex.getMessage(), ex);
+                }
+            }
+        }, COMPACT_QUEUE_INTERVAL, COMPACT_QUEUE_INTERVAL, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -341,8 +509,17 @@ public class CallableQueueService implements Service, Instrumentable {
     public void destroy() {
         try {
             long limit = System.currentTimeMillis() + 30 * 1000;// 30 seconds
+            compactTimer.shutdownNow();
+            compactQueue.clear();
             executor.shutdown();
             queue.clear();
+            synchronized (uniqueCallables) {
+                uniqueCallables.clear();
+                compactKeys.clear();
+            }
+            synchronized (jobClasses) {
+                jobClasses.clear();
+            }
             while (!executor.awaitTermination(1000, TimeUnit.MILLISECONDS)) {
                 log.info("Waiting for executor to shutdown");
                 if (System.currentTimeMillis() > limit) {
@@ -356,6 +533,15 @@ public class CallableQueueService implements Service, Instrumentable {
         }
     }
 
+    /**
+     * Return the services the CallableQueueService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
     /**
      * Return the public interface for command queue service.
      *
@@ -370,16 +556,30 @@ public class CallableQueueService implements Service, Instrumentable {
      * @return int size of queue
      */
     public synchronized int queueSize() {
-        return queue.size();
+        return queue.size() + compactQueue.size();
     }
 
     private boolean queue(CallableWrapper wrapper, boolean ignoreQueueSize) {
-        if (!ignoreQueueSize && queue.size() >= queueSize) {
-            log.warn("queue if full, ignoring queuing for [{0}]", wrapper.getElement());
+        if (!ignoreQueueSize && !queue.hasCapacity(wrapper)) {
+            if (queue.size() >= queueSize) {
+                log.warn("queue if full, ignoring queuing for [{0}]", wrapper.getElement());
+            }
+            else {
+                log.warn("queue of scheduling class [{0}] is full, ignoring queuing for [{1}]",
+                         wrapper.schedulingClass, wrapper.getElement());
+            }
+            incrCounter(INSTR_CLASS_PREFIX + wrapper.schedulingClass + "." + INSTR_REJECTED_COUNTER, 1);
             return false;
         }
         if (!executor.isShutdown()) {
-            executor.execute(wrapper);
+            if (ignoreQueueSize) {
+                // the executor would reject the callable if the queue is full, all the thread-pool threads are
+                // started at init, the callable is queued directly
+                queue.offer(wrapper, true);
+            }
+            else {
+                executor.execute(wrapper);
+            }
         }
         else {
             log.warn("Executor shutting down, ignoring queueing of [{0}]", wrapper.getElement());
@@ -387,6 +587,319 @@ public class CallableQueueService implements Service, Instrumentable {
         return true;
     }
 
+    private void registerKeys(CallableWrapper wrapper, List<XCallable<?>> callables) {
+        synchronized (uniqueCallables) {
+            for (XCallable<?> callable : callables) {
+                String key = callable.getKey();
+                if (key != null) {
+                    wrapper.keys.add(key);
+                    uniqueCallables.put(key, wrapper);
+                }
+            }
+        }
+    }
+
+    private void unregisterKeys(CallableWrapper wrapper) {
+        synchronized (uniqueCallables) {
+            for (String key : wrapper.keys) {
+                if (uniqueCallables.get(key) == wrapper) {
+                    uniqueCallables.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if a callable is coalesced with a callable with the same key waiting in the queue or in the compact queue,
+     * the waiting callable must be due no later and have no lower priority than the new one.
+     *
+     * @param callable callable to queue.
+     * @param delay delay of the callable, in milliseconds.
+     * @return <code>true</code> if the callable is coalesced and must not be queued.
+     */
+    private boolean isCoalesced(XCallable<?> callable, long delay) {
+        String key = callable.getKey();
+        if (key != null) {
+            synchronized (uniqueCallables) {
+                CallableWrapper existing = uniqueCallables.get(key);
+                if (existing != null && existing.getDelay(TimeUnit.MILLISECONDS) <= delay &&
+                        existing.getPriority() >= callable.getPriority()) {
+                    log.trace("coalesced callable [{0}] with queued callable, key [{1}]", callable.getName(), key);
+                    incrCoalescedCounter(callable);
+                    return true;
+                }
+                long[] compacted = compactKeys.get(key);
+                if (compacted != null && compacted[1] <= System.currentTimeMillis() + delay &&
+                        compacted[0] >= callable.getPriority()) {
+                    log.trace("coalesced callable [{0}] with compact callable, key [{1}]", callable.getName(), key);
+                    incrCoalescedCounter(callable);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replace a callable with the same key waiting in the queue by a new callable due earlier or with a higher
+     * priority.
+     * <p/>
+     * The waiting callable is replaced only if it can still be removed from the queue, the new callable must then be
+     * queued with the earliest delay and the highest priority of both.
+     *
+     * @param callable callable to queue.
+     * @param delay delay of the callable, in milliseconds.
+     * @return the priority and the delay to queue the callable with.
+     */
+    private long[] replaceQueued(XCallable<?> callable, long delay) {
+        long[] priorityDelay = new long[]{callable.getPriority(), delay};
+        String key = callable.getKey();
+        if (key != null) {
+            synchronized (uniqueCallables) {
+                CallableWrapper existing = uniqueCallables.get(key);
+                if (existing != null && existing.keys.size() == 1 && executor.remove(existing)) {
+                    uniqueCallables.remove(key);
+                    priorityDelay[0] = Math.max(priorityDelay[0], existing.getPriority());
+                    priorityDelay[1] = Math.min(priorityDelay[1],
+                                                Math.max(0, existing.getDelay(TimeUnit.MILLISECONDS)));
+                    log.trace("replaced queued callable with callable [{0}], key [{1}]", callable.getName(), key);
+                    incrCoalescedCounter(callable);
+                }
+                // the compact entry is discarded when it is due
+                long[] compacted = compactKeys.remove(key);
+                if (compacted != null) {
+                    priorityDelay[0] = Math.max(priorityDelay[0], compacted[0]);
+                    priorityDelay[1] = Math.min(priorityDelay[1],
+                                                Math.max(0, compacted[1] - System.currentTimeMillis()));
+                    log.trace("replaced compact callable with callable [{0}], key [{1}]", callable.getName(), key);
+                    incrCoalescedCounter(callable);
+                }
+            }
+        }
+        return priorityDelay;
+    }
+
+    private void incrCoalescedCounter(XCallable<?> callable) {
+        incrCounter(INSTR_COALESCED_COUNTER, 1);
+        incrCounter(callable.getType() + "#" + INSTR_COALESCED_COUNTER, 1);
+    }
+
+    private static void parseMapping(Configuration conf, String property, Map<String, String> mapping) {
+        for (String entry : conf.getStringCollection(property)) {
+            String[] keyClass = entry.trim().split(":");
+            if (keyClass.length == 2) {
+                mapping.put(keyClass[0].trim(), keyClass[1].trim());
+            }
+            else if (entry.trim().length() > 0) {
+                XLog.getLog(CallableQueueService.class).warn("Invalid [{0}] entry [{1}], ignoring it", property, entry);
+            }
+        }
+    }
+
+    /**
+     * Return the scheduling class of a callable, a composite callable uses the scheduling class of its first callable.
+     *
+     * @param callable callable to classify.
+     * @return the scheduling class of the callable.
+     */
+    private String getSchedulingClass(XCallable<?> callable) {
+        if (callable instanceof CompositeCallable) {
+            callable = ((CompositeCallable) callable).callables.get(0);
+        }
+        String jobId = null;
+        String user = null;
+        if (callable instanceof ClassifiedCallable) {
+            jobId = ((ClassifiedCallable) callable).getJobId();
+            user = ((ClassifiedCallable) callable).getUser();
+        }
+        if (jobId == null && callable instanceof CompactCallable) {
+            // compact callables are created again without context, the entity ID starts with the job ID
+            jobId = ((CompactCallable) callable).getEntityId();
+            if (jobId != null && jobId.indexOf('@') > -1) {
+                jobId = jobId.substring(0, jobId.indexOf('@'));
+            }
+        }
+        return getSchedulingClass(jobId, user);
+    }
+
+    /**
+     * Return the scheduling class for the callables of a job.
+     *
+     * @param jobId job ID, it may be <code>null</code>.
+     * @param user user of the job, it may be <code>null</code>.
+     * @return the scheduling class of the job if known, else the scheduling class of the user, else the default
+     *         scheduling class.
+     */
+    public String getSchedulingClass(String jobId, String user) {
+        String schedulingClass = null;
+        if (jobId != null) {
+            synchronized (jobClasses) {
+                schedulingClass = jobClasses.get(jobId);
+            }
+        }
+        if (schedulingClass == null && user != null) {
+            schedulingClass = userClasses.get(user);
+        }
+        return (schedulingClass != null && queue.hasClass(schedulingClass)) ? schedulingClass : schedulingClasses[0];
+    }
+
+    /**
+     * Return if the scheduling class of a job must be set, it is not needed if there is a single scheduling class or
+     * if the scheduling class of the job is already known.
+     *
+     * @param jobId job ID.
+     * @return <code>true</code> if the scheduling class of the job must be set.
+     */
+    public boolean isJobSchedulingClassNeeded(String jobId) {
+        if (schedulingClasses.length == 1) {
+            return false;
+        }
+        synchronized (jobClasses) {
+            return !jobClasses.containsKey(jobId);
+        }
+    }
+
+    /**
+     * Set the scheduling class of a job from its configuration.
+     *
+     * @param jobId job ID.
+     * @param jobConf job configuration.
+     * @return the scheduling class of the job.
+     */
+    public String setJobSchedulingClass(String jobId, Configuration jobConf) {
+        String schedulingClass = jobConf.get(OozieClient.SCHEDULING_CLASS);
+        if (schedulingClass != null && !queue.hasClass(schedulingClass)) {
+            log.warn("Job [{0}] scheduling class [{1}] does not exist, ignoring it", jobId, schedulingClass);
+            schedulingClass = null;
+        }
+        for (int i = 0; schedulingClass == null && i < QUEUE_PROPERTIES.length; i++) {
+            String queueName = jobConf.get(QUEUE_PROPERTIES[i]);
+            if (queueName != null) {
+                schedulingClass = queueClasses.get(queueName);
+            }
+        }
+        if (schedulingClass == null || !queue.hasClass(schedulingClass)) {
+            schedulingClass = getSchedulingClass(null, jobConf.get(OozieClient.USER_NAME));
+        }
+        synchronized (jobClasses) {
+            jobClasses.put(jobId, schedulingClass);
+        }
+        return schedulingClass;
+    }
+
+    /**
+     * Keep a callable in compact form until it is due.
+     *
+     * @param callable callable to compact, it must implement {@link CompactCallable}.
+     * @param priority priority of the callable.
+     * @param delay delay of the callable, in milliseconds.
+     * @param ignoreQueueSize if <code>true</code> the callable is queued even if the compact queue is full.
+     * @return <code>true</code> if the callable was queued, <code>false</code> if the compact queue is full.
+     */
+    private boolean compact(XCallable<?> callable, int priority, long delay, boolean ignoreQueueSize) {
+        if (!ignoreQueueSize && compactQueue.size() >= compactQueueSize) {
+            log.warn("compact queue is full, ignoring queuing for [{0}]", callable);
+            return false;
+        }
+        Integer typeId;
+        synchronized (compactTypes) {
+            typeId = compactTypeIds.get(callable.getClass());
+            if (typeId == null) {
+                try {
+                    compactTypes.add(callable.getClass().getConstructor(String.class));
+                }
+                catch (NoSuchMethodException ex) {
+                    throw new IllegalArgumentException(XLog.format(
+                            "Compact callable [{0}] does not have a public constructor taking an entity ID",
+                            callable.getClass().getName()), ex);
+                }
+                typeId = compactTypes.size() - 1;
+                compactTypeIds.put(callable.getClass(), typeId);
+            }
+        }
+        long dueTime = System.currentTimeMillis() + delay;
+        String key = callable.getKey();
+        if (key != null) {
+            synchronized (uniqueCallables) {
+                // the callable is not coalesced, it supersedes the compact entry with the same key, if any
+                long[] compacted = compactKeys.get(key);
+                if (compacted != null) {
+                    priority = (int) Math.max(priority, compacted[0]);
+                    dueTime = Math.min(dueTime, compacted[1]);
+                    log.trace("replaced compact callable with callable [{0}], key [{1}]", callable.getName(), key);
+                    incrCoalescedCounter(callable);
+                }
+                compactKeys.put(key, new long[]{priority, dueTime});
+            }
+        }
+        compactQueue.add(typeId, ((CompactCallable) callable).getEntityId(), priority, dueTime);
+        incrCounter(INSTR_QUEUED_COUNTER, 1);
+        incrCounter(INSTR_COMPACTED_COUNTER, 1);
+        return true;
+    }
+
+    /**
+     * Create the compact callables that are due within the next interval and queue them for execution.
+     * <p/>
+     * While Oozie is in safe mode the compact callables are kept in the compact queue. Compact entries superseded by a
+     * callable with the same key are discarded.
+     */
+    private void queueDueCompactCallables() {
+        Services services = Services.get();
+        if (services == null || services.getSystemMode() == SYSTEM_MODE.SAFEMODE) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (CompactDelayQueue.Entry entry : compactQueue.pollDue(now + COMPACT_QUEUE_INTERVAL)) {
+            try {
+                Constructor<?> constructor;
+                synchronized (compactTypes) {
+                    constructor = compactTypes.get(entry.getTypeId());
+                }
+                XCallable<?> callable = (XCallable<?>) constructor.newInstance(entry.getEntityId());
+                synchronized (this) {
+                    if (isSuperseded(callable, entry)) {
+                        continue;
+                    }
+                    if (!isCoalesced(callable, entry.getDueTime() - now)) {
+                        CallableWrapper wrapper = new CallableWrapper(callable, entry.getPriority(),
+                                                                      Math.max(0, entry.getDueTime() - now));
+                        if (queue(wrapper, true)) {
+                            registerKeys(wrapper, Collections.<XCallable<?>>singletonList(callable));
+                        }
+                    }
+                }
+            }
+            catch (Exception ex) {
+                incrCounter(INSTR_FAILED_COUNTER, 1);
+                log.warn("Could not create compact callable [{0}], {1}", entry, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Check if a due compact entry has been superseded by a callable with the same key, if it has not the key of the
+     * entry is released.
+     *
+     * @param callable callable created from the compact entry.
+     * @param entry compact entry.
+     * @return <code>true</code> if the entry is superseded and must be discarded.
+     */
+    private boolean isSuperseded(XCallable<?> callable, CompactDelayQueue.Entry entry) {
+        String key = callable.getKey();
+        if (key != null) {
+            synchronized (uniqueCallables) {
+                long[] compacted = compactKeys.get(key);
+                if (compacted == null || compacted[0] != entry.getPriority() || compacted[1] != entry.getDueTime()) {
+                    log.trace("discarded superseded compact callable [{0}], key [{1}]", callable.getName(), key);
+                    return true;
+                }
+                compactKeys.remove(key);
+            }
+        }
+        return false;
+    }
+
     /**
      * Queue a callable for asynchronous execution.
      *
@@ -422,7 +935,22 @@ public class CallableQueueService implements Service, Instrumentable {
      * @return <code>true</code> if the callable was queued, <code>false</code> if the queue is full and the callable
      *         was not queued.
      */
-    public synchronized boolean queue(XCallable<?> callable, long delay) {
+    public boolean queue(XCallable<?> callable, long delay) {
+        return queue(callable, delay, false);
+    }
+
+    /**
+     * Queue a callable for asynchronous execution sometime in the future, optionally even if the queue is full.
+     * <p/>
+     * Ignoring the queue size is meant for callables that carry state only held in memory and must not be lost.
+     *
+     * @param callable callable to queue for delayed execution
+     * @param delay time, in milliseconds, that the callable should be delayed.
+     * @param ignoreQueueSize if the callable must be queued even if the queue is full.
+     * @return <code>true</code> if the callable was queued, <code>false</code> if the callable was not queued, the
+     *         queue is full and <code>ignoreQueueSize</code> is <code>false</code> or Oozie is in safe mode.
+     */
+    public synchronized boolean queue(XCallable<?> callable, long delay, boolean ignoreQueueSize) {
         if (callable == null) {
             return true;
         }
@@ -431,8 +959,22 @@ public class CallableQueueService implements Service, Instrumentable {
             log.warn("[queue] System is in SAFEMODE. Hence no callable is queued. current queue size " + queue.size());
         }
         else {
-            queued = queue(new CallableWrapper(callable, delay), false);
+            if (isCoalesced(callable, delay)) {
+                return true;
+            }
+            if (callable instanceof CompactCallable && compactDelay > 0 && delay >= compactDelay) {
+                return compact(callable, callable.getPriority(), delay, ignoreQueueSize);
+            }
+            long[] priorityDelay = replaceQueued(callable, delay);
+            CallableWrapper wrapper = new CallableWrapper(callable, (int) priorityDelay[0], priorityDelay[1]);
+            queued = queue(wrapper, ignoreQueueSize);
             if (queued) {
+                if (callable instanceof CompositeCallable) {
+                    registerKeys(wrapper, ((CompositeCallable) callable).callables);
+                }
+                else {
+                    registerKeys(wrapper, Collections.<XCallable<?>>singletonList(callable));
+                }
                 incrCounter(INSTR_QUEUED_COUNTER, 1);
             }
             else {
@@ -454,18 +996,31 @@ public class CallableQueueService implements Service, Instrumentable {
      * @return <code>true</code> if the callables were queued, <code>false</code> if the queue is full and the callables
      *         were not queued.
      */
-    @SuppressWarnings("unchecked")
-    public synchronized boolean queueSerial(List<? extends XCallable<?>> callables, long delay) {
+    public boolean queueSerial(List<? extends XCallable<?>> callables, long delay) {
+        return queueSerial(callables, delay, false);
+    }
+
+    private synchronized boolean queueSerial(List<? extends XCallable<?>> callables, long delay,
+                                             boolean ignoreQueueSize) {
         boolean queued;
+        if (callables != null && callables.size() > 1) {
+            List<XCallable<?>> notCoalesced = new ArrayList<XCallable<?>>(callables.size());
+            for (XCallable<?> callable : callables) {
+                if (!isCoalesced(callable, delay)) {
+                    notCoalesced.add(callable);
+                }
+            }
+            callables = notCoalesced;
+        }
         if (callables == null || callables.size() == 0) {
             queued = true;
         }
         else if (callables.size() == 1) {
-            queued = queue(callables.get(0), delay);
+            queued = queue(callables.get(0), delay, ignoreQueueSize);
         }
         else {
             XCallable<?> callable = new CompositeCallable(callables);
-            queued = queue(callable, delay);
+            queued = queue(callable, delay, ignoreQueueSize);
             if (queued) {
                 incrCounter(INSTR_QUEUED_COUNTER, callables.size());
             }
@@ -473,6 +1028,41 @@ public class CallableQueueService implements Service, Instrumentable {
         return queued;
     }
 
+    /**
+     * Queue a list of callables for serial execution in batches.
+     * <p/>
+     * The callables are split in batches of up to <code>batchSize</code> callables, each batch is queued as a single
+     * composite callable and each batch is delayed <code>batchInterval</code> milliseconds more than the previous one.
+     * This rate-limits large fan-outs so they do not take over the queue and the thread-pool.
+     * <p/>
+     * The batches are queued even if the queue is full, callers queue them after committing the state the callables
+     * act on and the callables must not be lost.
+     *
+     * @param callables callables to be executed by the composite callables.
+     * @param batchSize maximum number of callables per batch.
+     * @param batchInterval time, in milliseconds, between the execution of consecutive batches.
+     * @return <code>true</code> if all the batches were queued, <code>false</code> if Oozie is in safe mode and some
+     *         batches were not queued.
+     */
+    public synchronized boolean queueSerialBatches(List<? extends XCallable<?>> callables, int batchSize,
+                                                   long batchInterval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be greater than zero");
+        }
+        boolean queued = true;
+        if (callables != null) {
+            long delay = 0;
+            for (int i = 0; i < callables.size() && queued; i += batchSize) {
+                queued = queueSerial(callables.subList(i, Math.min(i + batchSize, callables.size())), delay, true);
+                if (queued) {
+                    incrCounter(INSTR_QUEUED_BATCHES_COUNTER, 1);
+                }
+                delay += batchInterval;
+            }
+        }
+        return queued;
+    }
+
     /**
      * Instruments the callable queue service.
      *
@@ -491,6 +1081,26 @@ public class CallableQueueService implements Service, Instrumentable {
                 return (long) executor.getActiveCount();
             }
         });
+        instr.addSampler(INSTRUMENTATION_GROUP, INSTR_COMPACT_QUEUE_SIZE_SAMPLER, 60, 1,
+                new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return (long) compactQueue.size();
+            }
+        });
+        instr.addSampler(INSTRUMENTATION_GROUP, INSTR_QUEUE_HEAP_SAMPLER, 60, 1,
+                new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return (long) queue.size() * CALLABLE_HEAP_SIZE + compactQueue.getHeapSize();
+            }
+        });
+        for (final String schedulingClass : schedulingClasses) {
+            String name = INSTR_CLASS_PREFIX + schedulingClass + "." + INSTR_QUEUE_SIZE_SAMPLER;
+            instr.addSampler(INSTRUMENTATION_GROUP, name, 60, 1, new Instrumentation.Variable<Long>() {
+                public Long getValue() {
+                    return (long) queue.size(schedulingClass);
+                }
+            });
+        }
     }
 
     /**
@@ -500,7 +1110,7 @@ public class CallableQueueService implements Service, Instrumentable {
      */
     public List<String> getQueueDump() {
         List<String> list = new ArrayList<String>();
-        for (QueueElement<CallableWrapper> qe : queue) {
+        for (QueueElement<XCallable<?>> qe : queue) {
             if (qe.toString() == null) {
                 continue;
             }
@@ -26,7 +26,7 @@ import java.text.MessageFormat;
 /**
  * Service that generates and parses callback URLs.
  */
-public class CallbackService implements Service {
+public class CallbackService implements DependentService {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "CallbackService.";
 
@@ -49,6 +49,15 @@ public class CallbackService implements Service {
     public void destroy() {
     }
 
+    /**
+     * Return the services the CallbackService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
     /**
      * Return the public interface of the Dag engine service.
      *
@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsAction;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.XLog;
+import org.apache.oozie.util.XmlUtils;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The coordinator definition cache service keeps the content of coordinator application and dataset include files
+ * read by coordinator submissions.
+ * <p/>
+ * A cached definition is used only if the modification time and the length of the file did not change and the file
+ * permissions allow the submitting user to read it, otherwise the file is read again. The file status is obtained with
+ * the file system of the submitting user, the HDFS path permissions are enforced as when reading the file.
+ * <p/>
+ * A cached definition keeps its schema validation result and its parsed XML, coordinator submissions and dry-runs of
+ * the same application skip reading, validating and parsing unchanged files.
+ * <p/>
+ * The cache is an LRU of {@link #CONF_SIZE} definitions, if zero the cache is disabled.
+ */
+public class CoordDefinitionCacheService implements DependentService, Instrumentable {
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "CoordDefinitionCacheService.";
+
+    /**
+     * Maximum number of cached definitions.
+     */
+    public static final String CONF_SIZE = CONF_PREFIX + "size";
+
+    private static final String INSTRUMENTATION_GROUP = "coord.definitions";
+
+    private final XLog log = XLog.getLog(getClass());
+
+    private int maxSize;
+    private Map<String, Definition> definitions;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+
+    /**
+     * Coordinator definition, the content of a coordinator application or dataset include file.
+     */
+    public static class Definition {
+        private final String xml;
+        private final long modificationTime;
+        private final long length;
+        private volatile boolean validated;
+        private Element element;
+
+        private Definition(String xml, long modificationTime, long length) {
+            this.xml = xml;
+            this.modificationTime = modificationTime;
+            this.length = length;
+        }
+
+        /**
+         * Return the content of the definition file.
+         *
+         * @return the content of the definition file.
+         */
+        public String getXml() {
+            return xml;
+        }
+
+        /**
+         * Return if the definition has been validated against the coordinator schema.
+         *
+         * @return if the definition has been validated against the coordinator schema.
+         */
+        public boolean isValidated() {
+            return validated;
+        }
+
+        /**
+         * Mark the definition as validated against the coordinator schema.
+         */
+        public void setValidated() {
+            validated = true;
+        }
+
+        /**
+         * Return the parsed definition, the definition is parsed once.
+         * <p/>
+         * The returned element is a copy, callers can modify it.
+         *
+         * @return the parsed definition.
+         * @throws JDOMException thrown if the definition is not valid XML.
+         */
+        public Element getElement() throws JDOMException {
+            synchronized (this) {
+                if (element == null) {
+                    element = XmlUtils.parseXml(xml);
+                }
+            }
+            return (Element) element.clone();
+        }
+
+        private boolean isCurrent(FileStatus status) {
+            return modificationTime == status.getModificationTime() && length == status.getLen();
+        }
+    }
+
+    /**
+     * Initialize the coordinator definition cache service.
+     *
+     * @param services services instance.
+     */
+    @Override
+    public void init(Services services) {
+        maxSize = services.getConf().getInt(CONF_SIZE, 500);
+        definitions = new LinkedHashMap<String, Definition>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Definition> eldest) {
+                return size() > maxSize;
+            }
+        };
+        log.info("Coordinator definition cache size [{0}]", maxSize);
+    }
+
+    /**
+     * Destroy the coordinator definition cache service.
+     */
+    @Override
+    public void destroy() {
+        synchronized (this) {
+            definitions.clear();
+        }
+    }
+
+    /**
+     * Return the services the CoordDefinitionCacheService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
+    /**
+     * Return the public interface for the coordinator definition cache service.
+     *
+     * @return {@link CoordDefinitionCacheService}.
+     */
+    @Override
+    public Class<? extends Service> getInterface() {
+        return CoordDefinitionCacheService.class;
+    }
+
+    /**
+     * Instruments the coordinator definition cache service.
+     *
+     * @param instr instance to instrument the coordinator definition cache service to.
+     */
+    public void instrument(Instrumentation instr) {
+        instr.addVariable(INSTRUMENTATION_GROUP, "hits", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return hits.get();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "misses", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return misses.get();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "stale", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return stale.get();
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "size", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return (long) size();
+            }
+        });
+    }
+
+    /**
+     * Return a coordinator definition, from the cache if the file did not change.
+     *
+     * @param fs file system of the submitting user.
+     * @param path definition file path.
+     * @param user submitting user.
+     * @param group submitting user group.
+     * @return the coordinator definition.
+     * @throws IOException thrown if the definition could not be read.
+     */
+    public Definition get(FileSystem fs, Path path, String user, String group) throws IOException {
+        FileStatus status = fs.getFileStatus(path);
+        String key = fs.makeQualified(path).toString();
+        Definition definition;
+        synchronized (this) {
+            definition = definitions.get(key);
+        }
+        if (definition != null) {
+            if (definition.isCurrent(status) && canRead(status, user, group)) {
+                hits.incrementAndGet();
+                return definition;
+            }
+            stale.incrementAndGet();
+        }
+        misses.incrementAndGet();
+        definition = new Definition(read(fs, path), status.getModificationTime(), status.getLen());
+        if (maxSize > 0) {
+            synchronized (this) {
+                definitions.put(key, definition);
+            }
+        }
+        return definition;
+    }
+
+    /**
+     * Return the number of cached definitions.
+     *
+     * @return the number of cached definitions.
+     */
+    public synchronized int size() {
+        return definitions.size();
+    }
+
+    /**
+     * Read a coordinator definition without using the cache.
+     *
+     * @param fs file system of the submitting user.
+     * @param path definition file path.
+     * @return the coordinator definition.
+     * @throws IOException thrown if the definition could not be read.
+     */
+    public static Definition readDefinition(FileSystem fs, Path path) throws IOException {
+        return new Definition(read(fs, path), -1, -1);
+    }
+
+    private static String read(FileSystem fs, Path path) throws IOException {
+        Reader reader = new InputStreamReader(fs.open(path));
+        StringWriter writer = new StringWriter();
+        IOUtils.copyCharStream(reader, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Check the read permission of the file as HDFS does, the cached content of a file must not be returned to a user
+     * that could not read the file.
+     */
+    private static boolean canRead(FileStatus status, String user, String group) {
+        FsPermission permission = status.getPermission();
+        FsAction action;
+        if (user.equals(status.getOwner())) {
+            action = permission.getUserAction();
+        }
+        else if (group.equals(status.getGroup())) {
+            action = permission.getGroupAction();
+        }
+        else {
+            action = permission.getOtherAction();
+        }
+        return action.implies(FsAction.READ);
+    }
+
+}
@@ -17,12 +17,18 @@ package org.apache.oozie.service;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.CoordinatorJobBean;
+import org.apache.oozie.client.CoordinatorJob;
 import org.apache.oozie.command.coord.CoordJobMatLookupCommand;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.StoreException;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.TimingWheel;
 import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 
@@ -30,8 +36,16 @@ import org.apache.oozie.util.XLog;
  * The coordinator Materialization Lookup trigger service schedule lookup trigger command for every interval (default is
  * 5 minutes ). This interval could be configured through oozie configuration defined is either oozie-default.xml or
  * oozie-site.xml using the property name oozie.service.CoordJobMatLookupTriggerService.lookup.interval
+ * <p/>
+ * If the timing wheel is enabled the service does not scan the coordinator jobs periodically. It keeps the next
+ * materialization time of every PREP and RUNNING coordinator job in a {@link TimingWheel}, loaded from the database at
+ * startup and updated by the coordinator commands that change the job (submit, materialization, change, suspend,
+ * resume, kill), and queues the lookup command of a job when its materialization is due. Each job materializes a
+ * look-ahead window derived from its frequency, {@link #CONF_LOOKAHEAD_PERIODS} periods capped by the
+ * materialization window, but never less than one period. A job whose lookup did not reschedule it is looked up again
+ * after the lookup interval.
  */
-public class CoordJobMatLookupTriggerService implements Service {
+public class CoordJobMatLookupTriggerService implements Service, Instrumentable {
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "CoordJobMatLookupTriggerService.";
     /**
      * Time interval, in seconds, at which the Job materialization service will be scheduled to run.
@@ -45,11 +59,34 @@ public class CoordJobMatLookupTriggerService implements Service {
      * The number of callables to be queued in a batch.
      */
     public static final String CONF_CALLABLE_BATCH_SIZE = CONF_PREFIX + "callable.batch.size";
+    /**
+     * If the next materialization times of the coordinator jobs are kept in a timing wheel instead of scanning the
+     * coordinator jobs every lookup interval.
+     */
+    public static final String CONF_TIMING_WHEEL = CONF_PREFIX + "timing.wheel";
+    /**
+     * Time interval, in seconds, at which the timing wheel is advanced.
+     */
+    public static final String CONF_TIMING_WHEEL_TICK = CONF_PREFIX + "timing.wheel.tick";
+    /**
+     * Number of coordinator job periods materialized by a lookup when the timing wheel is enabled.
+     */
+    public static final String CONF_LOOKAHEAD_PERIODS = CONF_PREFIX + "lookahead.periods";
 
     private static final String INSTRUMENTATION_GROUP = "coord_job_mat_lookup";
     private static final String INSTR_MAT_JOBS_COUNTER = "jobs";
+    private static final String INSTR_SCHEDULED_JOBS_SAMPLER = "scheduled.jobs";
     private static final int CONF_LOOKUP_INTERVAL_DEFAULT = 300;
     private static final int CONF_MATERIALIZATION_WINDOW_DEFAULT = 3600;
+    private static final int TIMING_WHEEL_SIZE = 4096;
+
+    private final XLog log = XLog.getLog(getClass());
+
+    private TimingWheel<String> wheel;
+    private final Map<String, Integer> windows = new ConcurrentHashMap<String, Integer>();
+    private int lookupInterval;
+    private int materializationWindow;
+    private int lookaheadPeriods;
 
     /**
      * This runnable class will run in every "interval" to queue CoordJobMatLookupTriggerCommand.
@@ -66,6 +103,21 @@ public class CoordJobMatLookupTriggerService implements Service {
 
         @Override
         public void run() {
+            StoreService.Workload workload = StoreService.setWorkload(new StoreService.Workload("coord_mat_lookup",
+                                                                                                true));
+            try {
+                runMatLookupTrigger();
+            }
+            finally {
+                StoreService.setWorkload(workload);
+            }
+        }
+
+        /**
+         * Queue the materialization lookups of the coordinator jobs, the store queries use the background connection
+         * pool.
+         */
+        private void runMatLookupTrigger() {
             runCoordJobMatLookup();
 
             if (null != callables) {
@@ -205,21 +257,99 @@ public class CoordJobMatLookupTriggerService implements Service {
 
     }
 
+    /**
+     * This runnable class advances the timing wheel and queues the CoordJobMatLookupCommand of the jobs due.
+     */
+    class TimingWheelRunnable implements Runnable {
+
+        @Override
+        public void run() {
+            XLog.Info.get().clear();
+            long now = System.currentTimeMillis();
+            List<String> jobIds = wheel.advance(now);
+            if (jobIds.isEmpty()) {
+                return;
+            }
+            int batchSize = Services.get().getConf().getInt(CONF_CALLABLE_BATCH_SIZE, 10);
+            List<XCallable<Void>> callables = new ArrayList<XCallable<Void>>();
+            for (String jobId : jobIds) {
+                // looked up again if the lookup does not reschedule the job, i.e. the lookup command was lost
+                wheel.schedule(jobId, now + lookupInterval * 1000L);
+                Integer window = windows.get(jobId);
+                callables.add(new CoordJobMatLookupCommand(jobId, (window != null) ? window : materializationWindow));
+                Services.get().get(InstrumentationService.class).get().incr(INSTRUMENTATION_GROUP,
+                                                                            INSTR_MAT_JOBS_COUNTER, 1);
+                if (callables.size() == batchSize) {
+                    queueSerial(callables);
+                    callables = new ArrayList<XCallable<Void>>();
+                }
+            }
+            if (!callables.isEmpty()) {
+                queueSerial(callables);
+            }
+            log.debug("Timing wheel, [{0}] coordinator jobs due for materialization", jobIds.size());
+        }
+
+        private void queueSerial(List<XCallable<Void>> callables) {
+            if (!Services.get().get(CallableQueueService.class).queueSerial(callables)) {
+                log.warn("Unable to queue the callables commands for TimingWheelRunnable. "
+                        + "Most possibly command queue is full. Queue size is :"
+                        + Services.get().get(CallableQueueService.class).queueSize());
+            }
+        }
+    }
+
     @Override
     public void init(Services services) throws ServiceException {
         Configuration conf = services.getConf();
-        Runnable lookupTriggerJobsRunnable = new CoordJobMatLookupTriggerRunnable(conf.getInt(
-                CONF_MATERIALIZATION_WINDOW, CONF_MATERIALIZATION_WINDOW_DEFAULT));// Default is 1 hour
-        services.get(SchedulerService.class).schedule(lookupTriggerJobsRunnable, 10,
-                                                      conf.getInt(CONF_LOOKUP_INTERVAL, CONF_LOOKUP_INTERVAL_DEFAULT),// Default is 5 minutes
-                                                      SchedulerService.Unit.SEC);
-        return;
+        lookupInterval = conf.getInt(CONF_LOOKUP_INTERVAL, CONF_LOOKUP_INTERVAL_DEFAULT);// Default is 5 minutes
+        materializationWindow = conf.getInt(CONF_MATERIALIZATION_WINDOW, CONF_MATERIALIZATION_WINDOW_DEFAULT);// Default is 1 hour
+        lookaheadPeriods = conf.getInt(CONF_LOOKAHEAD_PERIODS, 10);
+        if (conf.getBoolean(CONF_TIMING_WHEEL, true)) {
+            int tick = conf.getInt(CONF_TIMING_WHEEL_TICK, 5);
+            wheel = new TimingWheel<String>(tick * 1000L, TIMING_WHEEL_SIZE, System.currentTimeMillis());
+            loadJobs(services.get(StoreService.class));
+            services.get(SchedulerService.class).schedule(new TimingWheelRunnable(), tick, tick,
+                                                          SchedulerService.Unit.SEC);
+        }
+        else {
+            Runnable lookupTriggerJobsRunnable = new CoordJobMatLookupTriggerRunnable(materializationWindow);
+            services.get(SchedulerService.class).schedule(lookupTriggerJobsRunnable, 10, lookupInterval,
+                                                          SchedulerService.Unit.SEC);
+        }
+    }
+
+    /**
+     * Load the next materialization times of the PREP, RUNNING and PREMATER coordinator jobs into the timing wheel.
+     */
+    private void loadJobs(StoreService storeService) throws ServiceException {
+        CoordinatorStore store = null;
+        try {
+            store = storeService.getStore(CoordinatorStore.class);
+            store.beginTrx();
+            List<CoordinatorJobBean> jobs = store.getCoordinatorJobsForMaterialization();
+            store.commitTrx();
+            for (CoordinatorJobBean job : jobs) {
+                schedule(job);
+            }
+            log.info("Timing wheel loaded with [{0}] coordinator jobs", wheel.size());
+        }
+        catch (StoreException ex) {
+            if (store != null && store.isActive()) {
+                store.rollbackTrx();
+            }
+            throw new ServiceException(ex);
+        }
+        finally {
+            if (store != null && !store.isActive()) {
+                store.closeTrx();
+            }
+        }
     }
 
     @Override
     public void destroy() {
-        // TODO Auto-generated method stub
-
+        windows.clear();
     }
 
     @Override
@@ -227,4 +357,155 @@ public class CoordJobMatLookupTriggerService implements Service {
         return CoordJobMatLookupTriggerService.class;
     }
 
+    /**
+     * Instruments the coordinator materialization lookup trigger service.
+     *
+     * @param instr instance to instrument the service to.
+     */
+    public void instrument(Instrumentation instr) {
+        if (wheel != null) {
+            instr.addSampler(INSTRUMENTATION_GROUP, INSTR_SCHEDULED_JOBS_SAMPLER, 60, 1,
+                             new Instrumentation.Variable<Long>() {
+                                 public Long getValue() {
+                                     return (long) wheel.size();
+                                 }
+                             });
+        }
+    }
+
+    /**
+     * Return if the next materialization times of the coordinator jobs are kept in a timing wheel.
+     *
+     * @return <code>true</code> if the timing wheel is enabled.
+     */
+    public boolean isTimingWheelEnabled() {
+        return wheel != null;
+    }
+
+    /**
+     * Return the materialization window of a coordinator job.
+     * <p/>
+     * With the timing wheel enabled, the window is {@link #CONF_LOOKAHEAD_PERIODS} periods of the job capped by the
+     * materialization window, but not less than one period. Otherwise it is the materialization window.
+     *
+     * @param job coordinator job.
+     * @return the materialization window, in seconds.
+     */
+    public int getMaterializationWindow(CoordinatorJobBean job) {
+        if (wheel == null) {
+            return materializationWindow;
+        }
+        long period = getPeriod(job);
+        if (period <= 0) {
+            return materializationWindow;
+        }
+        return (int) Math.max(period, Math.min(lookaheadPeriods * period, materializationWindow));
+    }
+
+    /**
+     * Schedule the next materialization of a coordinator job from its current status and times, replacing its
+     * previous schedule.
+     * <p/>
+     * The job is unscheduled if it is not PREP, RUNNING nor PREMATER, if it is materialized up to its end time or up
+     * to its pause time. A PREMATER job is looked up again after the lookup interval. This method does nothing if the
+     * timing wheel is disabled.
+     *
+     * @param job coordinator job.
+     */
+    public void schedule(CoordinatorJobBean job) {
+        if (wheel == null) {
+            return;
+        }
+        Date dueTime;
+        if (job.getStatus() == CoordinatorJob.Status.PREMATER) {
+            dueTime = new Date(System.currentTimeMillis() + lookupInterval * 1000L);
+        }
+        else {
+            dueTime = getMaterializationTime(job);
+        }
+        if (dueTime != null) {
+            windows.put(job.getId(), getMaterializationWindow(job));
+            wheel.schedule(job.getId(), dueTime.getTime());
+        }
+        else {
+            unschedule(job.getId());
+        }
+    }
+
+    /**
+     * Remove a coordinator job from the timing wheel.
+     *
+     * @param jobId coordinator job ID.
+     */
+    public void unschedule(String jobId) {
+        if (wheel != null) {
+            wheel.cancel(jobId);
+            windows.remove(jobId);
+        }
+    }
+
+    /**
+     * Return the time a coordinator job is scheduled at in the timing wheel, for testing.
+     *
+     * @param jobId coordinator job ID.
+     * @return the due time, or <code>null</code> if the job is not scheduled or the timing wheel is disabled.
+     */
+    Long getScheduledTime(String jobId) {
+        return (wheel != null) ? wheel.getDueTime(jobId) : null;
+    }
+
+    /**
+     * Return the time at which a PREP or RUNNING coordinator job is due for materialization.
+     *
+     * @param job coordinator job.
+     * @return the due time, or <code>null</code> if the job does not need to be materialized.
+     */
+    static Date getMaterializationTime(CoordinatorJobBean job) {
+        if (job.getStatus() != CoordinatorJob.Status.PREP && job.getStatus() != CoordinatorJob.Status.RUNNING) {
+            return null;
+        }
+        Date next = job.getNextMaterializedTime();
+        if (next == null) {
+            return (job.getStartTime() != null)
+                    ? new Date(job.getStartTime().getTime() - CoordJobMatLookupCommand.LOOKAHEAD_WINDOW * 1000L)
+                    : null;
+        }
+        if (job.getEndTime() != null && !next.before(job.getEndTime())) {
+            return null;
+        }
+        if (job.getPauseTime() != null && !job.getPauseTime().after(next)) {
+            return null;
+        }
+        return next;
+    }
+
+    /**
+     * Return the period of a coordinator job, months are counted as 31 days.
+     */
+    private static long getPeriod(CoordinatorJobBean job) {
+        long unit;
+        switch (job.getTimeUnit()) {
+            case MINUTE:
+                unit = 60;
+                break;
+            case HOUR:
+                unit = 60 * 60;
+                break;
+            case DAY:
+            case END_OF_DAY:
+                unit = 24 * 60 * 60;
+                break;
+            case WEEK:
+                unit = 7 * 24 * 60 * 60;
+                break;
+            case MONTH:
+            case END_OF_MONTH:
+                unit = 31 * 24 * 60 * 60;
+                break;
+            default:
+                unit = 0;
+        }
+        return unit * job.getFrequency();
+    }
+
 }
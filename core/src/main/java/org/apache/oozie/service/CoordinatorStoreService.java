@@ -61,6 +61,21 @@ public class CoordinatorStoreService implements Service {
         }
     }
 
+    /**
+     * Return a read-only coordinator store instance, it does not use a transaction.
+     *
+     * @return a read-only coordinator store.
+     * @throws StoreException thrown if the coordinator store could not be created.
+     */
+    public CoordinatorStore createReadOnly() throws StoreException {
+        try {
+            return new CoordinatorStore(false, true);
+        }
+        catch (Exception ex) {
+            throw new StoreException(ErrorCode.E0600, ex.getMessage(), ex);
+        }
+    }
+
     /**
      * Return a workflow store instance with an existing transaction. <p/> The workflow store has to be committed and then
      * closed to commit changes, if only close it rolls back.
@@ -144,6 +144,16 @@ public class DBLiteWorkflowStoreService extends LiteWorkflowStoreService impleme
         }
     }
 
+    @Override
+    public WorkflowStore createReadOnly() throws StoreException {
+        try {
+            return new WorkflowStore(false, true);
+        }
+        catch (Exception ex) {
+            throw new StoreException(ErrorCode.E0600, ex.getMessage(), ex);
+        }
+    }
+
     @Override
     public <S extends Store> WorkflowStore create(S store) throws StoreException {
         try {
@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+/**
+ * A service that declares the services it needs during its initialization.
+ * <p/>
+ * {@link Services} initializes a dependent service, possibly concurrently with other services, as soon as the services
+ * it declares have been initialized. Services that do not implement this interface are initialized after all the
+ * services defined before them in the configuration.
+ */
+public interface DependentService extends Service {
+
+    /**
+     * Return the public interfaces of the services used by the service initialization.
+     * <p/>
+     * The services must be defined before the service in the configuration, services not defined are ignored.
+     *
+     * @return the public interfaces of the services the service depends on, an empty array if none.
+     */
+    public Class[] getDependencies();
+
+}
@@ -34,7 +34,7 @@ import java.util.List;
  * syntax for a constant definition is <code>PREFIX:NAME=CLASS_NAME#CONSTANT_NAME</code>. <p/> The syntax for a constant
  * definition is <code>PREFIX:NAME=CLASS_NAME#METHOD_NAME</code>.
  */
-public class ELService implements Service {
+public class ELService implements DependentService {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "ELService.";
 
@@ -142,6 +142,15 @@ public class ELService implements Service {
         functions = null;
     }
 
+    /**
+     * Return the services the ELService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
     /**
      * Return the public interface for EL service.
      *
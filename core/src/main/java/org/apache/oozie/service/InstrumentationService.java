@@ -26,7 +26,7 @@ import java.util.Map;
  * on the {@link SchedulerService}. <p/> The {@link #CONF_LOGGING_INTERVAL} configuration property indicates how often
  * snapshots of the instrumentation should be logged.
  */
-public class InstrumentationService implements Service {
+public class InstrumentationService implements DependentService {
     private static final String JVM_INSTRUMENTATION_GROUP = "jvm";
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "InstrumentationService.";
@@ -101,6 +101,15 @@ public class InstrumentationService implements Service {
         instrumentation = null;
     }
 
+    /**
+     * Return the services the InstrumentationService depends on.
+     *
+     * @return the {@link SchedulerService}.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{SchedulerService.class};
+    }
+
     /**
      * Return the public interface for instrumentation service.
      *
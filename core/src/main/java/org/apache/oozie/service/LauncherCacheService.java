@@ -0,0 +1,317 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.XLog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The launcher cache service keeps a single copy of each launcher JAR in a shared directory of every file system used
+ * by actions.
+ * <p/>
+ * Launcher JARs are stored under a directory named after the MD5 checksum of their content,
+ * <code>&lt;dir&gt;/&lt;checksum&gt;/&lt;jar-name&gt;</code>. A launcher JAR is uploaded once per file system and Oozie
+ * version, all actions reference the same HDFS file in the DistributedCache and TaskTrackers reuse their localized
+ * copy instead of downloading the JAR for every action.
+ * <p/>
+ * The shared directory is written by the Oozie server user and it is world readable. Checksum directories not used by
+ * the running Oozie server and not accessed for {@link #CONF_GC_OLDER_THAN} days are deleted periodically. Other Oozie
+ * servers sharing the directory see a launcher JAR as used through its access time, the access time of a launcher JAR
+ * is refreshed, and the JAR uploaded again if it was deleted, when it is used and it was last checked more than an
+ * hour before.
+ * <p/>
+ * If the {@link #CONF_DIR} property is empty the service is disabled and launcher JARs are copied to the action
+ * directory of every action.
+ */
+public class LauncherCacheService implements Service {
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "LauncherCacheService.";
+
+    /**
+     * Shared launcher JAR directory, in the file system of the action.
+     */
+    public static final String CONF_DIR = CONF_PREFIX + "dir";
+
+    /**
+     * Group of the Oozie server user, used to write the shared launcher JAR directory.
+     */
+    public static final String CONF_GROUP = CONF_PREFIX + "group";
+
+    /**
+     * Age, in days, of unused launcher JAR checksum directories to be deleted.
+     */
+    public static final String CONF_GC_OLDER_THAN = CONF_PREFIX + "gc.older.than";
+
+    /**
+     * Time interval, in seconds, at which unused launcher JAR checksum directories are deleted.
+     */
+    public static final String CONF_GC_INTERVAL = CONF_PREFIX + "gc.interval";
+
+    private static final FsPermission DIR_PERMISSION = new FsPermission((short) 0755);
+    private static final FsPermission FILE_PERMISSION = new FsPermission((short) 0644);
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final long REVALIDATE_INTERVAL = 60 * 60 * 1000;
+
+    private final XLog log = XLog.getLog(getClass());
+
+    private String dir;
+    private String user;
+    private String group;
+    private final Map<String, String> checksums = new HashMap<String, String>();
+    private final Map<URI, Configuration> fileSystems = new HashMap<URI, Configuration>();
+    private final Map<String, Long> populated = new HashMap<String, Long>();
+    long revalidateInterval = REVALIDATE_INTERVAL;
+
+    /**
+     * GCRunnable is the runnable which is scheduled to run at the configured interval, it deletes the launcher JAR
+     * checksum directories older than the configured age.
+     */
+    class GCRunnable implements Runnable {
+        private long olderThan;
+
+        public GCRunnable(int olderThan) {
+            this.olderThan = olderThan * 24L * 60 * 60 * 1000;
+        }
+
+        public void run() {
+            Map<URI, Configuration> fsMap;
+            Set<String> inUse;
+            synchronized (LauncherCacheService.this) {
+                fsMap = new HashMap<URI, Configuration>(fileSystems);
+                inUse = new HashSet<String>(checksums.values());
+            }
+            long limit = System.currentTimeMillis() - olderThan;
+            for (Map.Entry<URI, Configuration> entry : fsMap.entrySet()) {
+                try {
+                    gc(createFileSystem(entry.getKey(), entry.getValue()), inUse, limit);
+                }
+                catch (Exception ex) {
+                    log.warn("Could not clean up launcher cache [{0}] in [{1}], {2}", dir, entry.getKey(),
+                             ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Initialize the launcher cache service.
+     *
+     * @param services services instance.
+     */
+    @Override
+    public void init(Services services) {
+        Configuration conf = services.getConf();
+        dir = conf.get(CONF_DIR, "").trim();
+        user = System.getProperty("user.name");
+        group = conf.get(CONF_GROUP, "users");
+        if (isEnabled()) {
+            services.get(SchedulerService.class).schedule(new GCRunnable(conf.getInt(CONF_GC_OLDER_THAN, 7)), 60,
+                                                          conf.getInt(CONF_GC_INTERVAL, 24 * 60 * 60),
+                                                          SchedulerService.Unit.SEC);
+            log.info("Launcher cache directory [{0}]", dir);
+        }
+        else {
+            log.info("Launcher cache disabled, launcher JARs are copied to every action directory");
+        }
+    }
+
+    /**
+     * Destroy the launcher cache service.
+     */
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Return the public interface for launcher cache service.
+     *
+     * @return {@link LauncherCacheService}.
+     */
+    @Override
+    public Class<? extends Service> getInterface() {
+        return LauncherCacheService.class;
+    }
+
+    /**
+     * Return if the launcher cache is enabled.
+     *
+     * @return <code>true</code> if launcher JARs are shared by all actions.
+     */
+    public boolean isEnabled() {
+        return dir.length() > 0;
+    }
+
+    /**
+     * Return the shared path of a launcher JAR.
+     *
+     * @param launcherJar local launcher JAR.
+     * @return the shared path of the launcher JAR, without file system.
+     * @throws IOException thrown if the launcher JAR could not be read.
+     */
+    public Path getLauncherJarPath(File launcherJar) throws IOException {
+        ParamChecker.notNull(launcherJar, "launcherJar");
+        return new Path(new Path(dir, getChecksum(launcherJar)), launcherJar.getName());
+    }
+
+    /**
+     * Upload a launcher JAR to the shared directory of a file system if it is not there already.
+     * <p/>
+     * The launcher JAR is uploaded as the Oozie server user, the given file system is used only for its URI and
+     * configuration. A launcher JAR already checked within the last hour is used without accessing the file system.
+     *
+     * @param fs file system of the action.
+     * @param launcherJar local launcher JAR.
+     * @return the shared path of the launcher JAR, without file system.
+     * @throws IOException thrown if the launcher JAR could not be uploaded.
+     * @throws HadoopAccessorException thrown if the file system could not be created.
+     */
+    public Path uploadLauncherJar(FileSystem fs, File launcherJar) throws IOException, HadoopAccessorException {
+        ParamChecker.notNull(fs, "fs");
+        Path jar = getLauncherJarPath(launcherJar);
+        String key = fs.getUri() + jar.toString();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Long checked = populated.get(key);
+            if (checked != null && now - checked < revalidateInterval) {
+                return jar;
+            }
+            if (!fileSystems.containsKey(fs.getUri())) {
+                fileSystems.put(fs.getUri(), fs.getConf());
+            }
+        }
+        FileSystem oozieFs = createFileSystem(fs.getUri(), fs.getConf());
+        if (!oozieFs.exists(jar)) {
+            Path root = new Path(dir);
+            if (!oozieFs.exists(root)) {
+                oozieFs.mkdirs(root, DIR_PERMISSION);
+                oozieFs.setPermission(root, DIR_PERMISSION);
+            }
+            Path checksumDir = jar.getParent();
+            Path tmpDir = new Path(root, checksumDir.getName() + "-" + Services.get().getSystemId() + "-"
+                    + System.currentTimeMillis() + TMP_SUFFIX);
+            Path tmpJar = new Path(tmpDir, jar.getName());
+            try {
+                oozieFs.copyFromLocalFile(new Path(launcherJar.getAbsolutePath()), tmpJar);
+                oozieFs.setPermission(tmpJar, FILE_PERMISSION);
+                oozieFs.setPermission(tmpDir, DIR_PERMISSION);
+                if (!oozieFs.rename(tmpDir, checksumDir) && !oozieFs.exists(jar)) {
+                    throw new IOException("Could not rename [" + tmpDir + "] to [" + checksumDir + "]");
+                }
+                log.info("Uploaded launcher JAR [{0}] to [{1}]", launcherJar.getName(), jar);
+            }
+            finally {
+                if (oozieFs.exists(tmpDir)) {
+                    oozieFs.delete(tmpDir, true);
+                }
+            }
+        }
+        else {
+            // the JAR is on the classpath of all actions, it must not have been planted by another user
+            FileStatus status = oozieFs.getFileStatus(jar);
+            if (!user.equals(status.getOwner())) {
+                throw new IOException("Launcher JAR [" + jar + "] is owned by [" + status.getOwner()
+                        + "] instead of [" + user + "]");
+            }
+            // the access time, not the modification time, marks the JAR as used, a modification time change
+            // would invalidate the localized copies of the TaskTrackers
+            oozieFs.setTimes(jar, -1, now);
+        }
+        synchronized (this) {
+            populated.put(key, now);
+        }
+        return jar;
+    }
+
+    /**
+     * Delete the checksum directories not in use and not accessed since the limit, and stale temporary
+     * directories.
+     */
+    void gc(FileSystem fs, Set<String> inUse, long limit) throws IOException {
+        Path root = new Path(dir);
+        if (!fs.exists(root)) {
+            return;
+        }
+        for (FileStatus dirStatus : fs.listStatus(root)) {
+            String name = dirStatus.getPath().getName();
+            if (!dirStatus.isDir() || inUse.contains(name)) {
+                continue;
+            }
+            long lastUsed = dirStatus.getModificationTime();
+            for (FileStatus status : fs.listStatus(dirStatus.getPath())) {
+                lastUsed = Math.max(lastUsed, Math.max(status.getModificationTime(), status.getAccessTime()));
+            }
+            if (lastUsed < limit) {
+                fs.delete(dirStatus.getPath(), true);
+                log.info("Deleted unused launcher cache directory [{0}]", dirStatus.getPath());
+            }
+        }
+    }
+
+    private FileSystem createFileSystem(URI uri, Configuration conf) throws HadoopAccessorException {
+        return Services.get().get(HadoopAccessorService.class).createFileSystem(user, group, uri, conf);
+    }
+
+    private synchronized String getChecksum(File file) throws IOException {
+        String checksum = checksums.get(file.getAbsolutePath());
+        if (checksum == null) {
+            checksum = md5(file);
+            checksums.put(file.getAbsolutePath(), checksum);
+        }
+        return checksum;
+    }
+
+    private static String md5(File file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            InputStream is = new FileInputStream(file);
+            try {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            finally {
+                is.close();
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex.getMessage());
+        }
+    }
+
+}
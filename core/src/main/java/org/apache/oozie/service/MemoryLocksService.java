@@ -18,7 +18,7 @@ import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.MemoryLocks;
 
-public class MemoryLocksService implements Service, Instrumentable {
+public class MemoryLocksService implements DependentService, Instrumentable {
     private static final String INSTRUMENTATION_GROUP = "locks";
     private MemoryLocks locks;
 
@@ -40,6 +40,15 @@ public class MemoryLocksService implements Service, Instrumentable {
         locks = null;
     }
 
+    /**
+     * Return the services the MemoryLocksService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
     /**
      * Return the public interface for the memory locks services
      *
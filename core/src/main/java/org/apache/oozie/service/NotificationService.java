@@ -0,0 +1,381 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.ParamChecker;
+import org.apache.oozie.util.XLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The notification service delivers job and action HTTP notifications asynchronously.
+ * <p/>
+ * Notifications are sent by a dedicated thread pool, slow or unreachable notification endpoints do not hold callable
+ * queue threads. Connections have connect and read timeouts and responses are fully read, allowing the JDK to reuse
+ * keep-alive connections to the same host. The number of concurrent notifications to a host is limited by the {@link
+ * #CONF_HOST_CONCURRENCY} property, notifications to a host at its limit wait, without using a thread, until a
+ * notification to the host ends. Failed notifications are retried with exponential backoff.
+ * <p/>
+ * Notifications pending delivery for the same key (a job or action ID) are coalesced, only the latest one is sent.
+ */
+public class NotificationService implements DependentService, Instrumentable {
+
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "NotificationService.";
+
+    public static final String CONF_THREADS = CONF_PREFIX + "threads";
+    public static final String CONF_QUEUE_SIZE = CONF_PREFIX + "queue.size";
+    public static final String CONF_HOST_CONCURRENCY = CONF_PREFIX + "host.concurrency";
+    public static final String CONF_CONNECT_TIMEOUT = CONF_PREFIX + "connect.timeout";
+    public static final String CONF_READ_TIMEOUT = CONF_PREFIX + "read.timeout";
+    public static final String CONF_MAX_RETRIES = CONF_PREFIX + "max.retries";
+    public static final String CONF_RETRY_DELAY = CONF_PREFIX + "retry.delay";
+    public static final String CONF_RETRY_MAX_DELAY = CONF_PREFIX + "retry.max.delay";
+
+    private static final String INSTRUMENTATION_GROUP = "notification";
+    private static final String INSTR_SENT_COUNTER = "sent";
+    private static final String INSTR_FAILED_COUNTER = "failed";
+    private static final String INSTR_RETRIED_COUNTER = "retried";
+    private static final String INSTR_COALESCED_COUNTER = "coalesced";
+    private static final String INSTR_DROPPED_COUNTER = "dropped";
+    private static final String INSTR_DELIVERY_TIMER = "delivery";
+    private static final String INSTR_PENDING_SAMPLER = "pending";
+
+    private final XLog log = XLog.getLog(getClass());
+
+    private ScheduledThreadPoolExecutor executor;
+    private final Map<String, Notification> pending = new HashMap<String, Notification>();
+    private final Map<String, Integer> hostActive = new HashMap<String, Integer>();
+    private final Map<String, LinkedList<Notification>> hostWaiting = new HashMap<String, LinkedList<Notification>>();
+    private int queueSize;
+    private int hostConcurrency;
+    private int connectTimeout;
+    private int readTimeout;
+    private int maxRetries;
+    private long retryDelay;
+    private long retryMaxDelay;
+    private Instrumentation instrumentation;
+
+    /**
+     * A notification pending delivery, its URL is replaced when a newer notification with the same key is queued.
+     */
+    class Notification implements Runnable {
+        private final String key;
+        private final Instrumentation.Cron cron;
+        private URL url;
+        private int retries;
+        private String grantedHost;
+
+        public Notification(String key, URL url) {
+            this.key = key;
+            this.url = url;
+            cron = new Instrumentation.Cron();
+            cron.start();
+        }
+
+        public void run() {
+            URL url;
+            String host;
+            synchronized (pending) {
+                url = this.url;
+                if (grantedHost != null) {
+                    // the host slot was handed over by a notification that ended
+                    host = grantedHost;
+                    grantedHost = null;
+                }
+                else {
+                    host = getHost(url);
+                    if (!hostBegin(host, this)) {
+                        return;
+                    }
+                }
+                if (pending.get(key) == this) {
+                    pending.remove(key);
+                }
+            }
+            try {
+                if (send(url)) {
+                    cron.stop();
+                    incrCounter(INSTR_SENT_COUNTER, 1);
+                    addCron(INSTR_DELIVERY_TIMER, cron);
+                }
+                else {
+                    retry(url);
+                }
+            }
+            finally {
+                hostEnd(host);
+            }
+        }
+
+        private void retry(URL url) {
+            if (retries < maxRetries) {
+                long delay = Math.min(retryDelay << retries, retryMaxDelay);
+                retries++;
+                synchronized (pending) {
+                    if (pending.containsKey(key)) {
+                        log.debug("Notification [{0}] failed, superseded by a newer notification", url);
+                        return;
+                    }
+                    pending.put(key, this);
+                    schedule(this, delay);
+                }
+                incrCounter(INSTR_RETRIED_COUNTER, 1);
+                log.debug("Notification [{0}] failed, retry [{1}] in [{2}]ms", url, retries, delay);
+            }
+            else {
+                incrCounter(INSTR_FAILED_COUNTER, 1);
+                log.warn(XLog.OPS, "could not send notification [{0}]", url);
+            }
+        }
+    }
+
+    /**
+     * Initialize the notification service.
+     *
+     * @param services services instance.
+     */
+    @Override
+    public void init(Services services) {
+        Configuration conf = services.getConf();
+        queueSize = conf.getInt(CONF_QUEUE_SIZE, 10000);
+        hostConcurrency = conf.getInt(CONF_HOST_CONCURRENCY, 2);
+        connectTimeout = conf.getInt(CONF_CONNECT_TIMEOUT, 10 * 1000);
+        readTimeout = conf.getInt(CONF_READ_TIMEOUT, 10 * 1000);
+        maxRetries = conf.getInt(CONF_MAX_RETRIES, 3);
+        retryDelay = conf.getLong(CONF_RETRY_DELAY, 60 * 1000);
+        retryMaxDelay = conf.getLong(CONF_RETRY_MAX_DELAY, 10 * 60 * 1000);
+        executor = new ScheduledThreadPoolExecutor(conf.getInt(CONF_THREADS, 5));
+    }
+
+    /**
+     * Destroy the notification service, pending notifications are discarded.
+     */
+    @Override
+    public void destroy() {
+        try {
+            long limit = System.currentTimeMillis() + 30 * 1000;// 30 seconds
+            executor.shutdownNow();
+            while (!executor.awaitTermination(1000, TimeUnit.MILLISECONDS)) {
+                log.info("Waiting for notification executor to shutdown");
+                if (System.currentTimeMillis() > limit) {
+                    log.warn("Gave up, continuing without waiting for notification executor to shutdown");
+                    break;
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            log.warn(ex);
+        }
+        synchronized (pending) {
+            pending.clear();
+            hostWaiting.clear();
+        }
+    }
+
+    /**
+     * Return the services the NotificationService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
+    /**
+     * Return the public interface for notification service.
+     *
+     * @return {@link NotificationService}.
+     */
+    @Override
+    public Class<? extends Service> getInterface() {
+        return NotificationService.class;
+    }
+
+    /**
+     * Instruments the notification service.
+     *
+     * @param instr instance to instrument the notification service to.
+     */
+    public void instrument(Instrumentation instr) {
+        instrumentation = instr;
+        instr.addSampler(INSTRUMENTATION_GROUP, INSTR_PENDING_SAMPLER, 60, 1, new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                synchronized (pending) {
+                    return (long) pending.size();
+                }
+            }
+        });
+    }
+
+    /**
+     * Queue a notification for asynchronous delivery.
+     * <p/>
+     * If a notification with the same key is pending delivery, its URL is replaced with the given one and a single
+     * notification is sent.
+     *
+     * @param key notification key, typically the job or action ID.
+     * @param url notification URL.
+     * @return <code>true</code> if the notification was queued or coalesced, <code>false</code> if the URL is invalid
+     *         or the queue is full.
+     */
+    public boolean queueNotification(String key, String url) {
+        ParamChecker.notEmpty(key, "key");
+        ParamChecker.notEmpty(url, "url");
+        URL urlObj;
+        try {
+            urlObj = new URL(url);
+        }
+        catch (MalformedURLException ex) {
+            log.warn(XLog.OPS, "invalid notification URL [{0}], {1}", url, ex.getMessage());
+            return false;
+        }
+        synchronized (pending) {
+            Notification notification = pending.get(key);
+            if (notification != null) {
+                notification.url = urlObj;
+                incrCounter(INSTR_COALESCED_COUNTER, 1);
+                return true;
+            }
+            if (pending.size() >= queueSize) {
+                incrCounter(INSTR_DROPPED_COUNTER, 1);
+                log.warn(XLog.OPS, "notification queue full, could not send notification [{0}]", url);
+                return false;
+            }
+            notification = new Notification(key, urlObj);
+            pending.put(key, notification);
+            schedule(notification, 0);
+        }
+        return true;
+    }
+
+    private void schedule(Notification notification, long delay) {
+        if (!executor.isShutdown()) {
+            executor.schedule(notification, delay, TimeUnit.MILLISECONDS);
+        }
+        else {
+            pending.remove(notification.key);
+            log.warn("Notification executor shutting down, ignoring notification [{0}]", notification.url);
+        }
+    }
+
+    private static String getHost(URL url) {
+        return url.getHost() + ":" + url.getPort();
+    }
+
+    /**
+     * Take a slot of a host, if the host is at its concurrency limit the notification waits for a slot, it is
+     * scheduled again when a notification to the host ends. Must be called holding the pending lock.
+     */
+    private boolean hostBegin(String host, Notification notification) {
+        Integer active = hostActive.get(host);
+        int count = (active != null) ? active : 0;
+        if (count >= hostConcurrency) {
+            LinkedList<Notification> waiting = hostWaiting.get(host);
+            if (waiting == null) {
+                waiting = new LinkedList<Notification>();
+                hostWaiting.put(host, waiting);
+            }
+            waiting.add(notification);
+            return false;
+        }
+        hostActive.put(host, count + 1);
+        return true;
+    }
+
+    /**
+     * Release a slot of a host, the slot is handed over to the first notification waiting for the host, if any.
+     */
+    private void hostEnd(String host) {
+        synchronized (pending) {
+            LinkedList<Notification> waiting = hostWaiting.get(host);
+            if (waiting != null) {
+                Notification next = waiting.removeFirst();
+                if (waiting.isEmpty()) {
+                    hostWaiting.remove(host);
+                }
+                next.grantedHost = host;
+                schedule(next, 0);
+                if (!executor.isShutdown()) {
+                    return;
+                }
+            }
+            int count = hostActive.get(host) - 1;
+            if (count == 0) {
+                hostActive.remove(host);
+            }
+            else {
+                hostActive.put(host, count);
+            }
+        }
+    }
+
+    /**
+     * Send a notification, the response is fully read so the connection can be reused for the next notification to
+     * the same host.
+     *
+     * @param url notification URL.
+     * @return <code>true</code> if the notification endpoint returned HTTP OK.
+     */
+    private boolean send(URL url) {
+        try {
+            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            conn.setConnectTimeout(connectTimeout);
+            conn.setReadTimeout(readTimeout);
+            int status = conn.getResponseCode();
+            InputStream is = (status < HttpURLConnection.HTTP_BAD_REQUEST) ? conn.getInputStream()
+                    : conn.getErrorStream();
+            if (is != null) {
+                try {
+                    byte[] buffer = new byte[1024];
+                    while (is.read(buffer) != -1) {
+                    }
+                }
+                finally {
+                    is.close();
+                }
+            }
+            return status == HttpURLConnection.HTTP_OK;
+        }
+        catch (IOException ex) {
+            log.debug("Notification [{0}] failed, {1}", url, ex.getMessage());
+            return false;
+        }
+    }
+
+    private void incrCounter(String name, int count) {
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP, name, count);
+        }
+    }
+
+    private void addCron(String name, Instrumentation.Cron cron) {
+        if (instrumentation != null) {
+            instrumentation.addCron(INSTRUMENTATION_GROUP, name, cron);
+        }
+    }
+
+}
@@ -86,6 +86,19 @@ public class RecoveryService implements Service {
         }
 
         public void run() {
+            StoreService.Workload workload = StoreService.setWorkload(new StoreService.Workload("recovery", true));
+            try {
+                runRecovery();
+            }
+            finally {
+                StoreService.setWorkload(workload);
+            }
+        }
+
+        /**
+         * Queue the recovery of the jobs and actions, the store queries use the background connection pool.
+         */
+        private void runRecovery() {
             XLog.Info.get().clear();
             XLog log = XLog.getLog(getClass());
             msg = new StringBuilder();
@@ -14,18 +14,59 @@
  */
 package org.apache.oozie.service;
 
+import java.util.List;
+
 import org.apache.oozie.ErrorCode;
+import org.apache.oozie.SLAEventBean;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.SLAStore;
 import org.apache.oozie.store.Store;
 import org.apache.oozie.store.StoreException;
+import org.apache.oozie.util.Instrumentable;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.SLAEventBuffer;
+
+/**
+ * The SLA store service creates {@link SLAStore} instances.
+ * <p/>
+ * It also keeps an in memory {@link SLAEventBuffer} with the most recent committed SLA events, used to answer SLA event
+ * polls without going to the database, and supports long-polls that wait for new SLA events.
+ */
+public class SLAStoreService implements DependentService, Instrumentable {
 
-public class SLAStoreService implements Service {
+    public static final String CONF_PREFIX = Service.CONF_PREFIX + "SLAStoreService.";
+
+    /**
+     * Number of recent SLA events kept in memory, 0 disables the in memory buffer.
+     */
+    public static final String CONF_BUFFER_SIZE = CONF_PREFIX + "buffer.size";
+
+    /**
+     * Maximum time, in milliseconds, a long-poll waits for new SLA events.
+     */
+    public static final String CONF_MAX_WAIT = CONF_PREFIX + "max.wait";
+
+    private static final String INSTRUMENTATION_GROUP = "sla";
+    private static final String INSTR_BUFFER_HITS_COUNTER = "buffer.hits";
+    private static final String INSTR_BUFFER_MISSES_COUNTER = "buffer.misses";
+    private static final String INSTR_BUFFER_SIZE_SAMPLER = "buffer.size";
+
+    private SLAEventBuffer buffer;
+    private long maxWait;
+    private Instrumentation instrumentation;
 
     @Override
     public void destroy() {
-        // TODO Auto-generated method stub
+        buffer = null;
+    }
 
+    /**
+     * Return the services the SLAStoreService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
     }
 
     @Override
@@ -50,6 +91,21 @@ public class SLAStoreService implements Service {
         }
     }
 
+    /**
+     * Return a read-only SLA store instance, it does not use a transaction.
+     *
+     * @return a read-only SLA store.
+     * @throws StoreException thrown if the SLA store could not be created.
+     */
+    public SLAStore createReadOnly() throws StoreException {
+        try {
+            return new SLAStore(true);
+        }
+        catch (Exception ex) {
+            throw new StoreException(ErrorCode.E0600, ex.getMessage(), ex);
+        }
+    }
+
     /**
      * Return a SLA store instance with an existing transaction. <p/> The SLA store has to be committed and then closed
      * to commit changes, if only close it rolls back.
@@ -70,8 +126,84 @@ public class SLAStoreService implements Service {
 
     @Override
     public void init(Services services) throws ServiceException {
-        // TODO Auto-generated method stub
+        int bufferSize = services.getConf().getInt(CONF_BUFFER_SIZE, 10000);
+        buffer = (bufferSize > 0) ? new SLAEventBuffer(bufferSize) : null;
+        maxWait = services.getConf().getLong(CONF_MAX_WAIT, 60 * 1000);
+    }
 
+    /**
+     * Instruments the SLA store service.
+     *
+     * @param instr instance to instrument the SLA store service to.
+     */
+    public void instrument(Instrumentation instr) {
+        instrumentation = instr;
+        instr.addSampler(INSTRUMENTATION_GROUP, INSTR_BUFFER_SIZE_SAMPLER, 60, 1, new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                SLAEventBuffer buffer = SLAStoreService.this.buffer;
+                return (buffer != null) ? (long) buffer.size() : 0;
+            }
+        });
+    }
+
+    /**
+     * Add a committed SLA event to the in memory buffer.
+     * <p/>
+     * It must be called only after the transaction that inserted the event has been committed.
+     *
+     * @param event committed SLA event.
+     */
+    public void eventCommitted(SLAEventBean event) {
+        SLAEventBuffer buffer = this.buffer;
+        if (buffer != null) {
+            buffer.add(event);
+        }
+    }
+
+    /**
+     * Wait until the in memory buffer has SLA events newer than a sequence ID.
+     *
+     * @param seqId sequence ID.
+     * @param wait time to wait, in milliseconds, it is capped to {@link #CONF_MAX_WAIT}.
+     * @return <code>true</code> if new events are available, <code>false</code> if the wait timed out or the buffer is
+     *         disabled.
+     * @throws InterruptedException thrown if the thread was interrupted while waiting for events.
+     */
+    public boolean waitForEvents(long seqId, long wait) throws InterruptedException {
+        SLAEventBuffer buffer = this.buffer;
+        return buffer != null && wait > 0 && buffer.waitForEventsNewerThan(seqId, Math.min(wait, maxWait));
+    }
+
+    /**
+     * Return the SLA events newer than a sequence ID from the in memory buffer, optionally waiting for new events.
+     * <p/>
+     * If the buffer cannot answer the request (because the sequence ID is older than the events in the buffer) it
+     * returns <code>null</code> without waiting, the events must then be read from the database.
+     *
+     * @param seqId sequence ID, only events with a greater sequence ID are returned.
+     * @param limit maximum number of events to return.
+     * @param wait time to wait, in milliseconds, for events if there are no events newer than the sequence ID. It is
+     * capped to {@link #CONF_MAX_WAIT}. 0 means no wait.
+     * @param lastSeqId single element array to return the sequence ID of the last returned event.
+     * @return the list of events, <code>null</code> if the request cannot be answered from the buffer.
+     * @throws InterruptedException thrown if the thread was interrupted while waiting for events.
+     */
+    public List<SLAEventBean> getBufferedEvents(long seqId, int limit, long wait, long[] lastSeqId)
+            throws InterruptedException {
+        SLAEventBuffer buffer = this.buffer;
+        List<SLAEventBean> events = null;
+        if (buffer != null) {
+            events = buffer.getEventsNewerThan(seqId, limit, lastSeqId);
+            if (events != null && events.size() == 0 && wait > 0) {
+                buffer.waitForEventsNewerThan(seqId, Math.min(wait, maxWait));
+                events = buffer.getEventsNewerThan(seqId, limit, lastSeqId);
+            }
+        }
+        if (instrumentation != null) {
+            instrumentation.incr(INSTRUMENTATION_GROUP,
+                                 (events != null) ? INSTR_BUFFER_HITS_COUNTER : INSTR_BUFFER_MISSES_COUNTER, 1);
+        }
+        return events;
     }
 
 }
@@ -27,7 +27,7 @@ import java.util.concurrent.TimeUnit;
  * java.util.concurrent.ScheduledExecutorService. <p/> The {@link #SCHEDULER_THREADS} configuration property indicates
  * how many threads the scheduler will use to run scheduled commands.
  */
-public class SchedulerService implements Service {
+public class SchedulerService implements DependentService {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "SchedulerService.";
 
@@ -68,6 +68,15 @@ public class SchedulerService implements Service {
         }
     }
 
+    /**
+     * Return the services the SchedulerService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
     /**
      * Return the public interface for scheduler service.
      *
@@ -33,7 +33,7 @@ import java.util.List;
 /**
  * Service that loads Oozie workflow definition schema and registered extension schemas.
  */
-public class SchemaService implements Service {
+public class SchemaService implements DependentService {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "SchemaService.";
 
@@ -94,6 +94,15 @@ public class SchemaService implements Service {
         }
     }
 
+    /**
+     * Return the services the SchemaService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
     /**
      * Return the public interface of the service.
      *
@@ -19,6 +19,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.hadoop.util.VersionInfo;
 import org.apache.oozie.client.OozieClient.SYSTEM_MODE;
+import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.IOUtils;
@@ -29,6 +30,11 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.io.IOException;
 import java.io.File;
 
@@ -38,8 +44,11 @@ import java.io.File;
  * {@link #CONF_SERVICE_CLASSES} configuration property. The services class names must be separated by commas (spaces
  * and enters are allowed). <p/> The {@link #CONF_SYSTEM_MODE} configuration property is any of
  * NORMAL/SAFEMODE/NOWEBSERVICE. <p/> Services are loaded and initialized in the order they are defined in the in
- * configuration property. <p/> After all services are initialized, if the Instrumentation service is present, all
- * services that implement the {@link Instrumentable} are instrumented. <p/> Services are destroyed in reverse order.
+ * configuration property. <p/> If {@link #CONF_SERVICE_INIT_THREADS} is greater than 1, services implementing {@link
+ * DependentService} are initialized concurrently, as soon as the services they depend on are initialized, the other
+ * services are initialized after all the services defined before them. <p/> After all services are initialized, if
+ * the Instrumentation service is present, all services that implement the {@link Instrumentable} are instrumented and
+ * the initialization time of each service is instrumented. <p/> Services are destroyed in reverse order of definition.
  * <p/> If services initialization fail, initialized services are immediatly destroyed.
  */
 public class Services {
@@ -61,12 +70,19 @@ public class Services {
 
     public static final String CONF_DELETE_RUNTIME_DIR = "oozie.delete.runtime.dir.on.shutdown";
 
+    public static final String CONF_SERVICE_INIT_THREADS = "oozie.services.init.threads";
+
+    private static final String INSTRUMENTATION_GROUP = "services";
+
     private static Services SERVICES;
 
     private SYSTEM_MODE systemMode;
     private String runtimeDir;
     private Configuration conf;
-    private Map<Class<? extends Service>, Service> services = new LinkedHashMap<Class<? extends Service>, Service>();
+    private Map<Class<? extends Service>, Service> services = new ConcurrentHashMap<Class<? extends Service>, Service>();
+    private List<Service> serviceList = new ArrayList<Service>();
+    private Map<Class<? extends Service>, Instrumentation.Cron> initCrons =
+            new ConcurrentHashMap<Class<? extends Service>, Instrumentation.Cron>();
     private String systemId;
     private static String oozieHome;
 
@@ -195,17 +211,25 @@ public class Services {
         XLog log = new XLog(LogFactory.getLog(getClass()));
         log.trace("Initializing");
         SERVICES = this;
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
         try {
+            List<Class<? extends Service>> classes = new ArrayList<Class<? extends Service>>();
             Class<? extends Service>[] serviceClasses = (Class<? extends Service>[]) conf.getClasses(
                     CONF_SERVICE_CLASSES);
             if (serviceClasses != null) {
-                for (Class<? extends Service> serviceClass : serviceClasses) {
-                    setService(serviceClass);
-                }
+                Collections.addAll(classes, serviceClasses);
             }
             serviceClasses = (Class<? extends Service>[]) conf.getClasses(CONF_SERVICE_EXT_CLASSES);
             if (serviceClasses != null) {
-                for (Class<? extends Service> serviceClass : serviceClasses) {
+                Collections.addAll(classes, serviceClasses);
+            }
+            int threads = conf.getInt(CONF_SERVICE_INIT_THREADS, 1);
+            if (threads > 1) {
+                initConcurrently(classes, threads);
+            }
+            else {
+                for (Class<? extends Service> serviceClass : classes) {
                     setService(serviceClass);
                 }
             }
@@ -218,13 +242,19 @@ public class Services {
             SERVICES = null;
             throw ex;
         }
+        cron.stop();
         InstrumentationService instrService = get(InstrumentationService.class);
         if (instrService != null) {
-            for (Service service : services.values()) {
+            for (Service service : serviceList) {
                 if (service instanceof Instrumentable) {
                     ((Instrumentable) service).instrument(instrService.get());
                 }
             }
+            for (Map.Entry<Class<? extends Service>, Instrumentation.Cron> entry : initCrons.entrySet()) {
+                instrService.get().addCron(INSTRUMENTATION_GROUP, entry.getKey().getSimpleName() + ".init",
+                                           entry.getValue());
+            }
+            instrService.get().addCron(INSTRUMENTATION_GROUP, "init", cron);
         }
         log.info("Initialized");
         log.info("Running with JARs for Hadoop version [{0}]", VersionInfo.getVersion());
@@ -242,7 +272,10 @@ public class Services {
             deleteRuntimeDir = conf.getBoolean(CONF_DELETE_RUNTIME_DIR, false);
         }
         if (services != null) {
-            List<Service> list = new ArrayList<Service>(services.values());
+            List<Service> list;
+            synchronized (serviceList) {
+                list = new ArrayList<Service>(serviceList);
+            }
             Collections.reverse(list);
             for (Service service : list) {
                 try {
@@ -266,6 +299,7 @@ public class Services {
             }
         }
         services = null;
+        serviceList.clear();
         conf = null;
         SERVICES = null;
     }
@@ -296,16 +330,8 @@ public class Services {
     private void setServiceInternal(Class<? extends Service> klass, boolean logging) throws ServiceException {
         try {
             Service newService = (Service) ReflectionUtils.newInstance(klass, null);
-            Service oldService = services.get(newService.getInterface());
-            if (oldService != null) {
-                oldService.destroy();
-            }
-            if (logging) {
-                XLog log = new XLog(LogFactory.getLog(getClass()));
-                log.trace("Initializing service[{0}] class[{1}]", newService.getInterface(), newService.getClass());
-            }
-            newService.init(this);
-            services.put(newService.getInterface(), newService);
+            initService(newService, logging);
+            addService(newService);
         }
         catch (ServiceException ex) {
             XLog.getLog(getClass()).fatal(ex.getMessage(), ex);
@@ -314,6 +340,172 @@ public class Services {
         }
     }
 
+    /**
+     * Initialize a service, destroying the service with the same public interface if any, and time it.
+     */
+    private void initService(Service newService, boolean logging) throws ServiceException {
+        Service oldService = services.get(newService.getInterface());
+        if (oldService != null) {
+            oldService.destroy();
+        }
+        if (logging) {
+            XLog log = new XLog(LogFactory.getLog(getClass()));
+            log.trace("Initializing service[{0}] class[{1}]", newService.getInterface(), newService.getClass());
+        }
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        newService.init(this);
+        cron.stop();
+        initCrons.put(newService.getInterface(), cron);
+        services.put(newService.getInterface(), newService);
+    }
+
+    /**
+     * Add an initialized service to the destroy order, replacing the service with the same public interface if any.
+     */
+    private void addService(Service service) {
+        synchronized (serviceList) {
+            for (int i = 0; i < serviceList.size(); i++) {
+                if (serviceList.get(i).getInterface() == service.getInterface()) {
+                    serviceList.set(i, service);
+                    return;
+                }
+            }
+            serviceList.add(service);
+        }
+    }
+
+    /**
+     * Initialize the services using a pool of threads. <p/> A service implementing {@link DependentService} waits only
+     * for the services it depends on, any other service waits for all the services defined before it. Because a
+     * service only waits for services defined before it, and tasks are taken from the pool queue in definition order,
+     * the initialization cannot deadlock. <p/> If a service with the same public interface is defined more than once,
+     * only the last definition is initialized. <p/> The services are added to the destroy order in definition order,
+     * regardless of the order their initialization completes. If any service fails, the initialized services are
+     * destroyed and the first error is thrown.
+     */
+    private void initConcurrently(List<Class<? extends Service>> classes, int threads) throws ServiceException {
+        Map<Class<? extends Service>, Service> defined = new LinkedHashMap<Class<? extends Service>, Service>();
+        for (Class<? extends Service> klass : classes) {
+            Service service = (Service) ReflectionUtils.newInstance(klass, null);
+            defined.put(service.getInterface(), service);
+        }
+        final List<ServiceInit> inits = new ArrayList<ServiceInit>();
+        Map<Class<? extends Service>, ServiceInit> initsByInterface = new LinkedHashMap<Class<? extends Service>,
+                ServiceInit>();
+        for (Service service : defined.values()) {
+            List<ServiceInit> dependencies = new ArrayList<ServiceInit>();
+            if (service instanceof DependentService) {
+                for (Class dependency : ((DependentService) service).getDependencies()) {
+                    ServiceInit init = initsByInterface.get(dependency);
+                    if (init != null) {
+                        dependencies.add(init);
+                    }
+                }
+            }
+            else {
+                dependencies.addAll(inits);
+            }
+            ServiceInit init = new ServiceInit(service, dependencies);
+            inits.add(init);
+            initsByInterface.put(service.getInterface(), init);
+        }
+
+        XLog.getLog(getClass()).debug("Initializing [{0}] services with [{1}] threads", inits.size(), threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count;
+
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "oozie-services-init-" + (count++));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            for (ServiceInit init : inits) {
+                executor.execute(init);
+            }
+            for (ServiceInit init : inits) {
+                init.await();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        Throwable error = null;
+        for (ServiceInit init : inits) {
+            if (init.initialized) {
+                addService(init.service);
+            }
+            else if (error == null && init.error != null) {
+                error = init.error;
+            }
+        }
+        if (error != null) {
+            XLog.getLog(getClass()).fatal(error.getMessage(), error);
+            destroy();
+            if (error instanceof ServiceException) {
+                throw (ServiceException) error;
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            throw new ServiceException(ErrorCode.E0100, getClass().getName(), error.getMessage(), error);
+        }
+    }
+
+    /**
+     * Initialization task of a service, it waits for the initialization of the services it depends on.
+     */
+    private class ServiceInit implements Runnable {
+        private final Service service;
+        private final List<ServiceInit> dependencies;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean initialized;
+        private volatile Throwable error;
+
+        ServiceInit(Service service, List<ServiceInit> dependencies) {
+            this.service = service;
+            this.dependencies = dependencies;
+        }
+
+        public void run() {
+            try {
+                for (ServiceInit dependency : dependencies) {
+                    dependency.await();
+                    if (!dependency.initialized) {
+                        return;
+                    }
+                }
+                initService(service, true);
+                initialized = true;
+            }
+            catch (Throwable ex) {
+                error = ex;
+            }
+            finally {
+                done.countDown();
+            }
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                }
+                catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * Return the services singleton.
      *
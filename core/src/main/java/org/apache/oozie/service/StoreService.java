@@ -16,11 +16,14 @@ package org.apache.oozie.service;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.oozie.util.IOUtils;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
+import org.apache.oozie.util.db.BackgroundInstrumentedBasicDataSource;
+import org.apache.oozie.util.db.ReadInstrumentedBasicDataSource;
 import org.apache.oozie.store.StoreException;
 import org.apache.oozie.service.Service;
 import org.apache.oozie.service.Services;
@@ -30,6 +33,7 @@ import org.apache.oozie.store.WorkflowStore;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.ErrorCode;
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
 import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
 import org.apache.hadoop.conf.Configuration;
 
@@ -46,6 +50,7 @@ import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.WorkflowActionBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.SLAEventBean;
+import org.apache.oozie.WorkflowActionStatsBean;
 import org.apache.oozie.client.rest.JsonCoordinatorAction;
 import org.apache.oozie.client.rest.JsonCoordinatorJob;
 import org.apache.oozie.client.rest.JsonWorkflowAction;
@@ -54,8 +59,20 @@ import org.apache.oozie.client.rest.JsonSLAEvent;
 
 /**
  * Base service for persistency of jobs and actions.
+ * <p/>
+ * The entity beans are enhanced at build time, the JPQL compilation and the SQL of the queries are cached by OpenJPA,
+ * the size of both caches is instrumented.
+ * <p/>
+ * Read-only stores, used by the commands that only read jobs, run without a transaction and, if a read replica is
+ * configured ({@link #CONF_READ_URL}), use a separate connection pool to the replica.
+ * <p/>
+ * Connections are partitioned in bulkhead pools by workload: read-only stores (API reads) use the read pool, stores
+ * created by threads running a background {@link Workload} (purge and sweeps) use the background pool and all other
+ * stores (scheduling commands) use the default pool. A workload with a pool size of zero, the default, shares the
+ * default pool.
+ * Prepared statements are pooled per connection.
  */
-public class StoreService implements Service {
+public class StoreService implements DependentService, Instrumentable {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "StoreService.";
     public static final String CONF_URL = CONF_PREFIX + "jdbc.url";
@@ -64,8 +81,90 @@ public class StoreService implements Service {
     public static final String CONF_PASSWORD = CONF_PREFIX + "jdbc.password";
     public static final String CONF_MAX_ACTIVE_CONN = CONF_PREFIX + "pool.max.active.conn";
     public static final String CONF_CREATE_DB_SCHEMA = CONF_PREFIX + "create.db.schema";
+    public static final String CONF_READ_URL = CONF_PREFIX + "read.jdbc.url";
+    public static final String CONF_READ_DRIVER = CONF_PREFIX + "read.jdbc.driver";
+    public static final String CONF_READ_USERNAME = CONF_PREFIX + "read.jdbc.username";
+    public static final String CONF_READ_PASSWORD = CONF_PREFIX + "read.jdbc.password";
+    public static final String CONF_READ_MAX_ACTIVE_CONN = CONF_PREFIX + "read.pool.max.active.conn";
+    public static final String CONF_READ_CREATE_DB_SCHEMA = CONF_PREFIX + "read.create.db.schema";
+    public static final String CONF_BACKGROUND_MAX_ACTIVE_CONN = CONF_PREFIX + "background.pool.max.active.conn";
+    public static final String CONF_MAX_OPEN_STATEMENTS = CONF_PREFIX + "pool.max.open.statements";
+
+    private static final String INSTRUMENTATION_GROUP = "jpa";
+    private static final String INSTR_QUERY_COMPILATION_CACHE = "query.compilation.cache";
+    private static final String INSTR_QUERY_SQL_CACHE = "query.sql.cache";
+
+    private static final ThreadLocal<Workload> WORKLOAD = new ThreadLocal<Workload>();
 
     private EntityManagerFactory factory;
+    private EntityManagerFactory readFactory;
+    private EntityManagerFactory backgroundFactory;
+    private boolean readReplica;
+    private String maxStatements;
+
+    /**
+     * Workload of a thread, it selects the connection pool of the stores created by the thread and names the
+     * connection hold time instrumentation.
+     */
+    public static class Workload {
+        private final String name;
+        private final boolean background;
+
+        /**
+         * Create a workload.
+         *
+         * @param name workload name, the command or service name.
+         * @param background indicates if the workload uses the background connection pool.
+         */
+        public Workload(String name, boolean background) {
+            this.name = name;
+            this.background = background;
+        }
+
+        /**
+         * Return the workload name.
+         *
+         * @return the workload name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Return if the workload uses the background connection pool.
+         *
+         * @return if the workload uses the background connection pool.
+         */
+        public boolean isBackground() {
+            return background;
+        }
+    }
+
+    /**
+     * Set the workload of the current thread.
+     *
+     * @param workload workload, <code>null</code> to clear it.
+     * @return the previous workload of the thread, to be restored when the workload ends.
+     */
+    public static Workload setWorkload(Workload workload) {
+        Workload previous = WORKLOAD.get();
+        if (workload != null) {
+            WORKLOAD.set(workload);
+        }
+        else {
+            WORKLOAD.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Return the workload of the current thread.
+     *
+     * @return the workload of the current thread, <code>null</code> if not set.
+     */
+    public static Workload getWorkload() {
+        return WORKLOAD.get();
+    }
 
     /**
      * Return instance of store.
@@ -114,6 +213,40 @@ public class StoreService implements Service {
         throw new StoreException(ErrorCode.E0607, " StoreService.getStore(Class, store)");
     }
 
+    /**
+     * Return instance of a read-only store.
+     * <p/>
+     * A read-only store does not use a transaction and reads from the read replica if one is configured.
+     *
+     * @return {@link Store}.
+     */
+    @SuppressWarnings("unchecked")
+    public <S extends Store> S getReadOnlyStore(Class<S> klass) throws StoreException {
+        if (WorkflowStore.class.equals(klass)) {
+            return (S) Services.get().get(WorkflowStoreService.class).createReadOnly();
+        }
+        else {
+            if (CoordinatorStore.class.equals(klass)) {
+                return (S) Services.get().get(CoordinatorStoreService.class).createReadOnly();
+            }
+            else {
+                if (SLAStore.class.equals(klass)) {
+                    return (S) Services.get().get(SLAStoreService.class).createReadOnly();
+                }
+            }
+        }
+        throw new StoreException(ErrorCode.E0607, " can not get store StoreService.getReadOnlyStore(Class)");
+    }
+
+    /**
+     * Return the services the StoreService depends on.
+     *
+     * @return the {@link InstrumentationService}.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{InstrumentationService.class};
+    }
+
     /**
      * Return the public interface of the service.
      *
@@ -136,7 +269,49 @@ public class StoreService implements Service {
         String password = conf.get(CONF_PASSWORD, "").trim();
         String maxConn = conf.get(CONF_MAX_ACTIVE_CONN, "10").trim();
         boolean autoSchemaCreation = conf.getBoolean(CONF_CREATE_DB_SCHEMA, true);
+        maxStatements = Integer.toString(conf.getInt(CONF_MAX_OPEN_STATEMENTS, 100));
+
+        factory = createFactory(url, driver, user, password, maxConn, autoSchemaCreation, null);
+
+        String readUrl = conf.get(CONF_READ_URL, "").trim();
+        int readMaxConn = conf.getInt(CONF_READ_MAX_ACTIVE_CONN, 0);
+        readReplica = readUrl.length() > 0;
+        if (readReplica) {
+            readFactory = createFactory(readUrl, conf.get(CONF_READ_DRIVER, driver),
+                                        conf.get(CONF_READ_USERNAME, user), conf.get(CONF_READ_PASSWORD, password).trim(),
+                                        (readMaxConn > 0) ? Integer.toString(readMaxConn) : maxConn,
+                                        conf.getBoolean(CONF_READ_CREATE_DB_SCHEMA, false),
+                                        ReadInstrumentedBasicDataSource.class.getName());
+            XLog.getLog(getClass()).info(XLog.STD, "Read-only stores use the replica database [{0}]", readUrl);
+        }
+        else if (readMaxConn > 0) {
+            readFactory = createFactory(url, driver, user, password, Integer.toString(readMaxConn), false,
+                                        ReadInstrumentedBasicDataSource.class.getName());
+        }
+        else {
+            readFactory = factory;
+        }
 
+        int backgroundMaxConn = conf.getInt(CONF_BACKGROUND_MAX_ACTIVE_CONN, 0);
+        backgroundFactory = (backgroundMaxConn > 0)
+                            ? createFactory(url, driver, user, password, Integer.toString(backgroundMaxConn), false,
+                                            BackgroundInstrumentedBasicDataSource.class.getName())
+                            : factory;
+        XLog.getLog(getClass()).info(XLog.STD, "Connection pools, default [{0}], read [{1}], background [{2}]",
+                                     maxConn, (readFactory != factory) ? readMaxConn : "shared",
+                                     (backgroundFactory != factory) ? backgroundMaxConn : "shared");
+
+        initEntities(factory);
+        if (readFactory != factory) {
+            initEntities(readFactory);
+        }
+        if (backgroundFactory != factory) {
+            initEntities(backgroundFactory);
+        }
+    }
+
+    private EntityManagerFactory createFactory(String url, String driver, String user, String password, String maxConn,
+                                               boolean autoSchemaCreation, String dataSource) throws ServiceException {
         if (!url.startsWith("jdbc:")) {
             throw new ServiceException(ErrorCode.E0608, url, "invalid JDBC URL, must start with 'jdbc:'");
         }
@@ -159,15 +334,23 @@ public class StoreService implements Service {
 
         String connProps = "DriverClassName={0},Url={1},Username={2},Password={3},MaxActive={4}";
         connProps = MessageFormat.format(connProps, driver, url, user, password, maxConn);
+        if (!maxStatements.equals("0")) {
+            connProps += ",PoolPreparedStatements=true,MaxOpenPreparedStatements=" + maxStatements;
+        }
         Properties props = new Properties();
         props.setProperty("openjpa.ConnectionProperties", connProps);
         if (autoSchemaCreation) {
             props.setProperty("openjpa.jdbc.SynchronizeMappings", "buildSchema(ForeignKeys=true)");
         }
+        if (dataSource != null) {
+            props.setProperty("openjpa.ConnectionDriverName", dataSource);
+            props.setProperty("openjpa.jdbc.TransactionIsolation", "read-committed");
+        }
+        return Persistence.createEntityManagerFactory(persistentUnit, props);
+    }
 
-        factory = Persistence.createEntityManagerFactory(persistentUnit, props);
-
-        EntityManager entityManager = getEntityManager();
+    private void initEntities(EntityManagerFactory factory) {
+        EntityManager entityManager = factory.createEntityManager();
         entityManager.find(WorkflowActionBean.class, 1);
         entityManager.find(WorkflowJobBean.class, 1);
         entityManager.find(CoordinatorActionBean.class, 1);
@@ -178,6 +361,7 @@ public class StoreService implements Service {
         entityManager.find(JsonCoordinatorJob.class, 1);
         entityManager.find(SLAEventBean.class, 1);
         entityManager.find(JsonSLAEvent.class, 1);
+        entityManager.find(WorkflowActionStatsBean.class, 1);
 
         XLog.getLog(getClass()).info(XLog.STD, "All entities initialized");
         // need to use a pseudo no-op transaction so all entities, datasource
@@ -190,17 +374,73 @@ public class StoreService implements Service {
         entityManager.close();
     }
 
+    /**
+     * Instruments the store service.
+     * <p/>
+     * It adds the size of the OpenJPA query compilation and query SQL caches.
+     *
+     * @param instr instance to instrument the store service to.
+     */
+    public void instrument(Instrumentation instr) {
+        final OpenJPAEntityManagerFactorySPI spi = (OpenJPAEntityManagerFactorySPI) factory;
+        instr.addVariable(INSTRUMENTATION_GROUP, INSTR_QUERY_COMPILATION_CACHE, new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return getCacheSize(spi.getConfiguration().getQueryCompilationCacheInstance());
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, INSTR_QUERY_SQL_CACHE, new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                return (spi.getConfiguration() instanceof JDBCConfiguration)
+                       ? getCacheSize(((JDBCConfiguration) spi.getConfiguration()).getQuerySQLCacheInstance())
+                       : 0;
+            }
+        });
+    }
+
+    private static long getCacheSize(Map cache) {
+        if (cache == null) {
+            return 0;
+        }
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
     /**
      * Destroy the StoreService
      */
     public void destroy() {
+        if (readFactory != factory) {
+            readFactory.close();
+        }
+        if (backgroundFactory != factory) {
+            backgroundFactory.close();
+        }
         factory.close();
     }
 
     /**
-     * Return EntityManager
+     * Return EntityManager, from the background pool if the workload of the current thread is a background one.
      */
     public EntityManager getEntityManager() {
-        return factory.createEntityManager();
+        Workload workload = WORKLOAD.get();
+        return (workload != null && workload.isBackground()) ? backgroundFactory.createEntityManager()
+                                                             : factory.createEntityManager();
+    }
+
+    /**
+     * Return EntityManager for read-only stores, pointing to the read replica if one is configured.
+     */
+    public EntityManager getReadOnlyEntityManager() {
+        return readFactory.createEntityManager();
+    }
+
+    /**
+     * Return if read-only stores use a read replica.
+     *
+     * @return <code>true</code> if a read replica is configured.
+     */
+    public boolean hasReadReplica() {
+        return readReplica;
     }
 }
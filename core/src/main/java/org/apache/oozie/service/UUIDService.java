@@ -28,7 +28,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * generation type, 'random' or 'counter'. <p/> For 'random' uses the JDK UUID.randomUUID() method. <p/> For 'counter'
  * uses a counter postfixed wit the system start up time.
  */
-public class UUIDService implements Service {
+public class UUIDService implements DependentService {
 
     public static final String CONF_PREFIX = Service.CONF_PREFIX + "UUIDService.";
 
@@ -68,6 +68,15 @@ public class UUIDService implements Service {
         startTime = null;
     }
 
+    /**
+     * Return the services the UUIDService depends on.
+     *
+     * @return an empty array, it does not depend on other services.
+     */
+    public Class[] getDependencies() {
+        return new Class[]{};
+    }
+
     /**
      * Return the public interface for UUID service.
      *
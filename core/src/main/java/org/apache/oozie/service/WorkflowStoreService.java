@@ -62,6 +62,17 @@ public abstract class WorkflowStoreService implements Service {
      */
     public abstract WorkflowStore create() throws StoreException;
 
+    /**
+     * Return a read-only workflow store instance, it does not use a transaction. <p/> By default it returns a regular
+     * workflow store.
+     *
+     * @return a read-only workflow store.
+     * @throws StoreException thrown if the workflow store could not be created.
+     */
+    public WorkflowStore createReadOnly() throws StoreException {
+        return create();
+    }
+
     /**
      * Return a workflow store instance with an existing transaction. <p/> The workflow store has to be committed and
      * then closed to commit changes, if only close it rolls back.
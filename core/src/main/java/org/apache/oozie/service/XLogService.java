@@ -17,6 +17,7 @@ package org.apache.oozie.service;
 import org.apache.commons.logging.LogFactory;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.PropertyConfigurator;
+import org.apache.oozie.util.AsyncLogDispatcher;
 import org.apache.oozie.util.Instrumentable;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.XLog;
@@ -73,6 +74,16 @@ public class XLogService implements Service, Instrumentable {
      */
     public static final String LOG4J_RELOAD = "oozie.log4j.reload";
 
+    /**
+     * System property that indicates if log messages are written asynchronously.
+     */
+    public static final String LOG4J_ASYNC = "oozie.log4j.async";
+
+    /**
+     * System property that indicates the max number of log messages waiting to be written asynchronously.
+     */
+    public static final String LOG4J_ASYNC_BUFFER_SIZE = "oozie.log4j.async.buffer.size";
+
     /**
      * Default value for the log4j configuration file if {@link #LOG4J_FILE} is not set.
      */
@@ -83,6 +94,11 @@ public class XLogService implements Service, Instrumentable {
      */
     public static final String DEFAULT_RELOAD_INTERVAL = "10";
 
+    /**
+     * Default value for the asynchronous buffer size if {@link #LOG4J_ASYNC_BUFFER_SIZE} is not set.
+     */
+    public static final String DEFAULT_ASYNC_BUFFER_SIZE = "10000";
+
     private XLog log;
     private long interval;
     private boolean fromClasspath;
@@ -159,6 +175,13 @@ public class XLogService implements Service, Instrumentable {
             log.info("Log4j configuration file loaded from [{0}]", from);
             log.info("Log4j reload interval [{0}]", reload);
 
+            if (Boolean.parseBoolean(System.getProperty(LOG4J_ASYNC, "false"))) {
+                int bufferSize = Integer.parseInt(System.getProperty(LOG4J_ASYNC_BUFFER_SIZE,
+                                                                     DEFAULT_ASYNC_BUFFER_SIZE));
+                XLog.startAsync(bufferSize);
+                log.info("Log messages written asynchronously, buffer size [{0}]", bufferSize);
+            }
+
             XLog.Info.reset();
             XLog.Info.defineParameter(USER);
             XLog.Info.defineParameter(GROUP);
@@ -233,6 +256,7 @@ public class XLogService implements Service, Instrumentable {
      * Destroy the log service.
      */
     public void destroy() {
+        XLog.stopAsync();
         LogManager.shutdown();
         XLog.Info.reset();
         XLogStreamer.Filter.reset();
@@ -289,6 +313,18 @@ public class XLogService implements Service, Instrumentable {
                 return logOverWS;
             }
         });
+        instr.addVariable(INSTRUMENTATION_GROUP, "async.pending", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                AsyncLogDispatcher dispatcher = XLog.getAsyncDispatcher();
+                return (dispatcher != null) ? dispatcher.getPending() : 0L;
+            }
+        });
+        instr.addVariable(INSTRUMENTATION_GROUP, "async.overflows", new Instrumentation.Variable<Long>() {
+            public Long getValue() {
+                AsyncLogDispatcher dispatcher = XLog.getAsyncDispatcher();
+                return (dispatcher != null) ? dispatcher.getOverflows() : 0L;
+            }
+        });
     }
 
     /**
@@ -52,7 +52,11 @@ public abstract class BaseJobsServlet extends JsonRestServlet {
 
                 new JsonRestServlet.ParameterInfo(
                         RestConstants.JOBS_EXTERNAL_ID_PARAM, String.class,
-                        false, Arrays.asList("GET"))));
+                        false, Arrays.asList("GET")),
+                new JsonRestServlet.ParameterInfo(RestConstants.JOBS_IDS_PARAM,
+                                                  String.class, false, Arrays.asList("GET")),
+                new JsonRestServlet.ParameterInfo(RestConstants.JOBS_SINCE_PARAM,
+                                                  String.class, false, Arrays.asList("GET"))));
     }
 
     public BaseJobsServlet(String instrumentationName) {
@@ -103,7 +107,14 @@ public abstract class BaseJobsServlet extends JsonRestServlet {
     throws ServletException, IOException {
         String externalId = request
         .getParameter(RestConstants.JOBS_EXTERNAL_ID_PARAM);
-        if (externalId != null) {
+        String ids = request.getParameter(RestConstants.JOBS_IDS_PARAM);
+        if (ids != null) {
+            stopCron();
+            JSONObject json = getJobsInfo(request, ids);
+            startCron();
+            sendJsonResponse(response, HttpServletResponse.SC_OK, json);
+        }
+        else if (externalId != null) {
             stopCron();
             JSONObject json = getJobIdForExternalId(request, externalId);
             startCron();
@@ -155,6 +166,19 @@ public abstract class BaseJobsServlet extends JsonRestServlet {
     abstract JSONObject getJobs(HttpServletRequest request)
     throws XServletException, IOException;
 
+    /**
+     * abstract method to get the jobs and actions with the given IDs, if the request has a <code>since</code>
+     * parameter only the jobs and actions modified after that time are returned
+     *
+     * @param request
+     * @param ids comma separated workflow job, workflow action, coordinator job and coordinator action IDs
+     * @return JSONObject of the requested jobs and actions
+     * @throws XServletException
+     * @throws IOException
+     */
+    abstract JSONObject getJobsInfo(HttpServletRequest request, String ids)
+    throws XServletException, IOException;
+
     static void validateJobConfiguration(Configuration conf) throws XServletException {
         if (conf.get(OozieClient.USER_NAME) == null) {
             throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ErrorCode.E0401,
@@ -34,12 +34,18 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Base class for Oozie web service API Servlets. <p/> This class provides common instrumentation, error logging and
@@ -125,12 +131,29 @@ public abstract class JsonRestServlet extends HttpServlet {
     private static final String INSTR_TOTAL_REQUESTS_SAMPLER = "requests";
     private static final String INSTR_TOTAL_REQUESTS_COUNTER = "requests";
     private static final String INSTR_TOTAL_FAILED_REQUESTS_COUNTER = "failed";
+    private static final String INSTR_NOT_MODIFIED_COUNTER = "not-modified";
+    private static final String INSTR_COMPRESSED_COUNTER = "compressed";
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String VARY = "Vary";
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    /**
+     * JSON responses smaller than this size, in bytes, are not compressed.
+     */
+    static final int MIN_COMPRESS_SIZE = 1024;
+
     private static AtomicLong TOTAL_REQUESTS_SAMPLER_COUNTER;
 
     private Instrumentation instrumentation;
     private String instrumentationName;
     private AtomicLong samplerCounter = new AtomicLong();
     private ThreadLocal<Instrumentation.Cron> requestCron = new ThreadLocal<Instrumentation.Cron>();
+    private ThreadLocal<HttpServletRequest> currentRequest = new ThreadLocal<HttpServletRequest>();
     private List<ResourceInfo> resourcesInfo = new ArrayList<ResourceInfo>();
     private boolean allowSafeModeChanges;
 
@@ -270,6 +293,7 @@ public abstract class JsonRestServlet extends HttpServlet {
         }
         Instrumentation.Cron cron = new Instrumentation.Cron();
         requestCron.set(cron);
+        currentRequest.set(request);
         try {
             cron.start();
             validateRestUrl(request.getMethod(), getResourceName(request), request.getParameterMap());
@@ -309,6 +333,7 @@ public abstract class JsonRestServlet extends HttpServlet {
             addCron(instrumentationName, cron);
             addCron(instrumentationName + "-" + request.getMethod(), cron);
             requestCron.remove();
+            currentRequest.remove();
         }
     }
 
@@ -322,6 +347,9 @@ public abstract class JsonRestServlet extends HttpServlet {
 
     /**
      * Sends a JSON response.
+     * <p/>
+     * For GET requests the response has an ETag, if the request is conditional and the bean did not change a 304
+     * response without body is sent.
      *
      * @param response servlet response.
      * @param statusCode HTTP status code.
@@ -329,10 +357,8 @@ public abstract class JsonRestServlet extends HttpServlet {
      * @throws java.io.IOException thrown if the bean could not be serialized to the response output stream.
      */
     protected void sendJsonResponse(HttpServletResponse response, int statusCode, JsonBean bean) throws IOException {
-        response.setStatus(statusCode);
         JSONObject json = bean.toJSONObject();
-        response.setContentType(JSTON_UTF8);
-        json.writeJSONString(response.getWriter());
+        writeJsonResponse(response, statusCode, json.toJSONString());
     }
 
     /**
@@ -359,9 +385,107 @@ public abstract class JsonRestServlet extends HttpServlet {
         else {
             response.sendError(statusCode);
         }
+        StringWriter writer = new StringWriter();
+        json.writeJSONString(writer);
+        writeJsonResponse(response, statusCode, writer.toString());
+    }
+
+    /**
+     * Writes a JSON response, handling conditional GET requests and compressing the response if the client accepts
+     * it.
+     *
+     * @param response servlet response.
+     * @param statusCode HTTP status code.
+     * @param json JSON response.
+     * @throws IOException thrown if the response could not be written.
+     */
+    private void writeJsonResponse(HttpServletResponse response, int statusCode, String json) throws IOException {
+        byte[] data = json.getBytes("UTF-8");
+        HttpServletRequest request = currentRequest.get();
+        if (request != null && statusCode == HttpServletResponse.SC_OK && request.getMethod().equals("GET")) {
+            String etag = "\"" + digest(data) + "\"";
+            response.setHeader(ETAG, etag);
+            if (isNotModified(request, etag)) {
+                incrCounter(INSTR_NOT_MODIFIED_COUNTER, 1);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
         response.setStatus(statusCode);
         response.setContentType(JSTON_UTF8);
-        json.writeJSONString(response.getWriter());
+        String encoding = (request != null) ? getContentEncoding(request) : null;
+        OutputStream os = response.getOutputStream();
+        if (encoding != null) {
+            response.setHeader(VARY, ACCEPT_ENCODING);
+            if (data.length >= MIN_COMPRESS_SIZE) {
+                incrCounter(INSTR_COMPRESSED_COUNTER, 1);
+                response.setHeader(CONTENT_ENCODING, encoding);
+                os = (encoding.equals(GZIP)) ? new GZIPOutputStream(os) : new DeflaterOutputStream(os);
+            }
+        }
+        os.write(data);
+        if (os instanceof DeflaterOutputStream) {
+            ((DeflaterOutputStream) os).finish();
+        }
+        os.flush();
+    }
+
+    /**
+     * Return if a GET request is satisfied by the client cached response.
+     * <p/>
+     * Only If-None-Match is supported, the beans have no modification time covering all their content (a coordinator
+     * job modification time does not change when its actions change) and HTTP dates have seconds precision.
+     */
+    private boolean isNotModified(HttpServletRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the content encoding to use for the response, <code>null</code> if the client does not accept gzip nor
+     * deflate.
+     */
+    private String getContentEncoding(HttpServletRequest request) {
+        String accept = request.getHeader(ACCEPT_ENCODING);
+        String encoding = null;
+        if (accept != null) {
+            for (String token : accept.split(",")) {
+                String[] parts = token.trim().split(";");
+                String name = parts[0].trim().toLowerCase();
+                if (parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                    continue;
+                }
+                if (name.equals(GZIP)) {
+                    return GZIP;
+                }
+                if (name.equals(DEFLATE)) {
+                    encoding = DEFLATE;
+                }
+            }
+        }
+        return encoding;
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(data);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
     }
 
     /**
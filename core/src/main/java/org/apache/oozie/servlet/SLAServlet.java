@@ -49,6 +49,8 @@ public class SLAServlet extends JsonRestServlet {
                         RestConstants.SLA_GT_SEQUENCE_ID, String.class, true,
                         Arrays.asList("GET")),
                 new JsonRestServlet.ParameterInfo(RestConstants.MAX_EVENTS,
+                                                  String.class, false, Arrays.asList("GET")),
+                new JsonRestServlet.ParameterInfo(RestConstants.SLA_WAIT,
                                                   String.class, false, Arrays.asList("GET"))));
     }
 
@@ -58,6 +60,10 @@ public class SLAServlet extends JsonRestServlet {
 
     /**
      * Return information about SLA Events.
+     * <p/>
+     * Recent events are served from the {@link SLAStoreService} in memory buffer, older events are read from the
+     * database. If the <code>wait</code> parameter (in milliseconds) is specified and there are no new events, the
+     * request waits for new events up to that time before responding.
      */
     @SuppressWarnings("unchecked")
     public void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -68,19 +74,35 @@ public class SLAServlet extends JsonRestServlet {
                     .getParameter(RestConstants.SLA_GT_SEQUENCE_ID);
             String strMaxEvents = request
                     .getParameter(RestConstants.MAX_EVENTS);
+            String strWait = request.getParameter(RestConstants.SLA_WAIT);
             int maxNoEvents = 100; // Default
+            long wait = 0;
             XLog.getLog(getClass()).debug(
                     "Got SLA GET request for :" + gtSequenceNum
                             + " and max-events :" + strMaxEvents);
             if (strMaxEvents != null && strMaxEvents.length() > 0) {
                 maxNoEvents = Integer.parseInt(strMaxEvents);
             }
+            if (strWait != null && strWait.length() > 0) {
+                wait = Long.parseLong(strWait);
+            }
             if (gtSequenceNum != null) {
                 long seqId = Long.parseLong(gtSequenceNum);
                 stopCron();
-                SLAEventsCommand seCommand = new SLAEventsCommand(seqId, maxNoEvents);
-                List<SLAEventBean> slaEvntList = seCommand.call();
-                long lastSeqId = seCommand.getLastSeqId();
+                SLAStoreService slaService = Services.get().get(SLAStoreService.class);
+                long[] lsId = new long[1];
+                List<SLAEventBean> slaEvntList = slaService.getBufferedEvents(seqId, maxNoEvents, wait, lsId);
+                long lastSeqId = lsId[0];
+                if (slaEvntList == null) {
+                    SLAEventsCommand seCommand = new SLAEventsCommand(seqId, maxNoEvents);
+                    slaEvntList = seCommand.call();
+                    lastSeqId = seCommand.getLastSeqId();
+                    if (slaEvntList.size() == 0 && slaService.waitForEvents(seqId, wait)) {
+                        seCommand = new SLAEventsCommand(seqId, maxNoEvents);
+                        slaEvntList = seCommand.call();
+                        lastSeqId = seCommand.getLastSeqId();
+                    }
+                }
 
                 Element eResponse = new Element("sla-message");
                 for (SLAEventBean event : slaEvntList) {
@@ -108,6 +130,10 @@ public class SLAServlet extends JsonRestServlet {
             XLog.getLog(getClass()).error("Command exception ", ce);
             throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ce);
         }
+        catch (InterruptedException ie) {
+            XLog.getLog(getClass()).warn("Interrupted while waiting for SLA events ", ie);
+            throw new XServletException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, ErrorCode.E0307, ie.getMessage());
+        }
         catch (RuntimeException re) {
             re.printStackTrace();
             XLog.getLog(getClass()).error("Runtime error ", re);
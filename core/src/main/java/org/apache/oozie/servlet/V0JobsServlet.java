@@ -117,4 +117,12 @@ public class V0JobsServlet extends BaseJobsServlet {
 
         return json;
     }
+
+    /**
+     * v0 service implementation to get the jobs with the given IDs, not supported
+     */
+    @Override
+    protected JSONObject getJobsInfo(HttpServletRequest request, String ids) throws XServletException, IOException {
+        throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ErrorCode.E0302, RestConstants.JOBS_IDS_PARAM);
+    }
 }
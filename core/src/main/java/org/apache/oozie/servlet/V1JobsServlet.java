@@ -15,12 +15,16 @@
 package org.apache.oozie.servlet;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorEngine;
 import org.apache.oozie.CoordinatorEngineException;
 import org.apache.oozie.CoordinatorJobBean;
@@ -28,6 +32,7 @@ import org.apache.oozie.CoordinatorJobInfo;
 import org.apache.oozie.DagEngine;
 import org.apache.oozie.DagEngineException;
 import org.apache.oozie.ErrorCode;
+import org.apache.oozie.WorkflowActionBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.WorkflowsInfo;
 import org.apache.oozie.client.OozieClient;
@@ -44,10 +49,25 @@ public class V1JobsServlet extends BaseJobsServlet {
 
     private static final String INSTRUMENTATION_NAME = "v1jobs";
 
+    /**
+     * Configuration property of the watch time overlap, in seconds. The watch time returned with the jobs info is the
+     * latest modification time of the returned jobs and actions minus the overlap. Commands set the modification time
+     * when they run, not when they commit, the overlap must be longer than the longest command transaction or the
+     * changes it commits can be missed by the watch requests.
+     */
+    public static final String CONF_WATCH_TIME_OVERLAP = "oozie.servlet.V1JobsServlet.watch.time.overlap";
+
+    private static long watchTimeOverlap;
+
     public V1JobsServlet() {
         super(INSTRUMENTATION_NAME);
     }
 
+    @Override
+    public void init() {
+        watchTimeOverlap = Services.get().getConf().getLong(CONF_WATCH_TIME_OVERLAP, 60) * 1000;
+    }
+
     /**
      * v1 service implementation to submit a job, either workflow or coordinator
      */
@@ -134,6 +154,131 @@ public class V1JobsServlet extends BaseJobsServlet {
         return json;
     }
 
+    /**
+     * v1 service implementation to get the jobs and actions with the given IDs, each kind of job or action is read with
+     * one set-based query
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected JSONObject getJobsInfo(HttpServletRequest request, String ids) throws XServletException, IOException {
+        String sinceStr = request.getParameter(RestConstants.JOBS_SINCE_PARAM);
+        Date since = null;
+        if (sinceStr != null) {
+            try {
+                since = new Date(Long.parseLong(sinceStr));
+            }
+            catch (NumberFormatException ex) {
+                throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ErrorCode.E0303,
+                        RestConstants.JOBS_SINCE_PARAM, sinceStr);
+            }
+        }
+        List<String> wfJobIds = new ArrayList<String>();
+        List<String> wfActionIds = new ArrayList<String>();
+        List<String> coordJobIds = new ArrayList<String>();
+        List<String> coordActionIds = new ArrayList<String>();
+        for (String id : ids.split(",")) {
+            id = id.trim();
+            if (id.length() == 0) {
+                continue;
+            }
+            if (id.contains("-W@")) {
+                wfActionIds.add(id);
+            }
+            else if (id.endsWith("-W")) {
+                wfJobIds.add(id);
+            }
+            else if (id.contains("-C@")) {
+                coordActionIds.add(id);
+            }
+            else if (id.endsWith("-C")) {
+                coordJobIds.add(id);
+            }
+            else {
+                throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ErrorCode.E0303,
+                        RestConstants.JOBS_IDS_PARAM, id);
+            }
+        }
+
+        List<WorkflowJobBean> wfJobs = Collections.emptyList();
+        List<WorkflowActionBean> wfActions = Collections.emptyList();
+        List<CoordinatorJobBean> coordJobs = Collections.emptyList();
+        List<CoordinatorActionBean> coordActions = Collections.emptyList();
+        try {
+            if (!wfJobIds.isEmpty() || !wfActionIds.isEmpty()) {
+                DagEngine dagEngine = Services.get().get(DagEngineService.class).getDagEngine(getUser(request),
+                        getAuthToken(request));
+                if (!wfJobIds.isEmpty()) {
+                    wfJobs = dagEngine.getJobsInfo(wfJobIds, since);
+                }
+                if (!wfActionIds.isEmpty()) {
+                    wfActions = dagEngine.getWorkflowActionsInfo(wfActionIds, since);
+                }
+            }
+        }
+        catch (DagEngineException ex) {
+            throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ex);
+        }
+        try {
+            if (!coordJobIds.isEmpty() || !coordActionIds.isEmpty()) {
+                CoordinatorEngine coordEngine = Services.get().get(CoordinatorEngineService.class)
+                        .getCoordinatorEngine(getUser(request), getAuthToken(request));
+                if (!coordJobIds.isEmpty()) {
+                    coordJobs = coordEngine.getCoordJobsInfo(coordJobIds, since);
+                }
+                if (!coordActionIds.isEmpty()) {
+                    coordActions = coordEngine.getCoordActionsInfo(coordActionIds, since);
+                }
+            }
+        }
+        catch (CoordinatorEngineException ex) {
+            throw new XServletException(HttpServletResponse.SC_BAD_REQUEST, ex);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put(JsonTags.WORKFLOWS_JOBS, WorkflowJobBean.toJSONArray(wfJobs));
+        json.put(JsonTags.WORKFLOW_ACTIONS_INFO, WorkflowActionBean.toJSONArray(wfActions));
+        json.put(JsonTags.COORDINATOR_JOBS, CoordinatorJobBean.toJSONArray(coordJobs));
+        json.put(JsonTags.COORDINATOR_ACTIONS_INFO, CoordinatorActionBean.toJSONArray(coordActions));
+        json.put(JsonTags.JOBS_WATCH_TIME, getWatchTime(since, wfJobs, wfActions, coordJobs, coordActions));
+        return json;
+    }
+
+    /**
+     * Return the watch time of a jobs info response, based on the modification times of the returned jobs and actions
+     * instead of the server clock: changes not yet visible to the request (a lagging read replica) are modified after
+     * the returned watch time and are reported by the next watch request.
+     * <p/>
+     * If nothing is returned the watch time is the given one, if none it is the server time. Workflow actions have no
+     * modification time, their start, check and end times are used.
+     */
+    private static long getWatchTime(Date since, List<WorkflowJobBean> wfJobs, List<WorkflowActionBean> wfActions,
+                                     List<CoordinatorJobBean> coordJobs, List<CoordinatorActionBean> coordActions) {
+        long lastModified = -1;
+        for (WorkflowJobBean job : wfJobs) {
+            lastModified = max(lastModified, job.getLastModifiedTime());
+        }
+        for (WorkflowActionBean action : wfActions) {
+            lastModified = max(lastModified, action.getStartTime());
+            lastModified = max(lastModified, action.getLastCheckTime());
+            lastModified = max(lastModified, action.getEndTime());
+        }
+        for (CoordinatorJobBean job : coordJobs) {
+            lastModified = max(lastModified, job.getLastModifiedTime());
+        }
+        for (CoordinatorActionBean action : coordActions) {
+            lastModified = max(lastModified, action.getLastModifiedTime());
+        }
+        if (lastModified == -1) {
+            return (since != null) ? since.getTime() : System.currentTimeMillis() - watchTimeOverlap;
+        }
+        long watchTime = lastModified - watchTimeOverlap;
+        return (since != null) ? Math.max(since.getTime(), watchTime) : watchTime;
+    }
+
+    private static long max(long time, Date date) {
+        return (date != null) ? Math.max(time, date.getTime()) : time;
+    }
+
     /**
      * v1 service implementation to submit a workflow job
      */
@@ -17,9 +17,14 @@ package org.apache.oozie.store;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import javax.persistence.EntityManager;
@@ -29,6 +34,7 @@ import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.CoordinatorJobInfo;
 import org.apache.oozie.ErrorCode;
+import org.apache.oozie.client.CoordinatorAction;
 import org.apache.oozie.client.CoordinatorJob.Status;
 import org.apache.oozie.client.CoordinatorJob.Timeunit;
 import org.apache.oozie.service.InstrumentationService;
@@ -55,9 +61,15 @@ public class CoordinatorStore extends Store {
     private static final String INSTR_GROUP = "db";
     public static final int LOCK_TIMEOUT = 50000;
     private static final long DAY_IN_MS = 24 * 60 * 60 * 1000;
+    private static final String COORD_JOBS_HISTORY = "COORD_JOBS_HISTORY";
+    private static final String COORD_ACTIONS_HISTORY = "COORD_ACTIONS_HISTORY";
 
     public CoordinatorStore(boolean selectForUpdate) throws StoreException {
-        super();
+        this(selectForUpdate, false);
+    }
+
+    public CoordinatorStore(boolean selectForUpdate, boolean readOnly) throws StoreException {
+        super(readOnly);
         entityManager = getEntityManager();
     }
 
@@ -108,6 +120,12 @@ public class CoordinatorStore extends Store {
                  * fetch.setLockTimeout(-1); // 1 second }
                  */
                 List<CoordinatorJobBean> cjBeans = q.getResultList();
+                if (cjBeans.size() == 0 && isHistoryEnabled()) {
+                    Query h = entityManager.createNativeQuery("SELECT * FROM " + COORD_JOBS_HISTORY + " WHERE id = ?",
+                                                              CoordinatorJobBean.class);
+                    h.setParameter(1, id);
+                    cjBeans = h.getResultList();
+                }
 
                 if (cjBeans.size() > 0) {
                     return cjBeans.get(0);
@@ -168,6 +186,44 @@ public class CoordinatorStore extends Store {
         return cjBeans;
     }
 
+    /**
+     * Return the PREP, RUNNING and PREMATER coordinator jobs, only the ID, status, start, end, pause and next
+     * materialization times, frequency and time unit of the jobs are loaded.
+     *
+     * @return list of lightweight coordinator job beans.
+     * @throws StoreException
+     */
+    public List<CoordinatorJobBean> getCoordinatorJobsForMaterialization() throws StoreException {
+        List<CoordinatorJobBean> cjBeans = doOperation("getCoordinatorJobsForMaterialization",
+                new Callable<List<CoordinatorJobBean>>() {
+                    @SuppressWarnings("unchecked")
+                    public List<CoordinatorJobBean> call() throws StoreException {
+                        List<CoordinatorJobBean> jobList = new ArrayList<CoordinatorJobBean>();
+                        try {
+                            Query q = entityManager.createNamedQuery("GET_COORD_JOBS_FOR_MATERIALIZATION");
+                            List<Object[]> rows = q.getResultList();
+                            for (Object[] row : rows) {
+                                CoordinatorJobBean job = new CoordinatorJobBean();
+                                job.setId((String) row[0]);
+                                job.setStatus(Status.valueOf((String) row[1]));
+                                job.setStartTimestamp((Timestamp) row[2]);
+                                job.setEndTimestamp((Timestamp) row[3]);
+                                job.setPauseTime((Timestamp) row[4]);
+                                job.setNextMaterializedTimestamp((Timestamp) row[5]);
+                                job.setFrequency((Integer) row[6]);
+                                job.setTimeUnit(Timeunit.valueOf((String) row[7]));
+                                jobList.add(job);
+                            }
+                        }
+                        catch (IllegalStateException e) {
+                            throw new StoreException(ErrorCode.E0601, e.getMessage(), e);
+                        }
+                        return jobList;
+                    }
+                });
+        return cjBeans;
+    }
+
     /**
      * A list of Coordinator Jobs that are matched with the status and have last materialized time' older than
      * checkAgeSecs will be returned.
@@ -242,6 +298,12 @@ public class CoordinatorStore extends Store {
 
                 CoordinatorActionBean action = null;
                 List<CoordinatorActionBean> actions = q.getResultList();
+                if (actions.size() == 0 && isHistoryEnabled()) {
+                    Query h = entityManager.createNativeQuery("SELECT * FROM " + COORD_ACTIONS_HISTORY + " WHERE id = ?",
+                                                              CoordinatorActionBean.class);
+                    h.setParameter(1, id);
+                    actions = h.getResultList();
+                }
                 if (actions.size() > 0) {
                     action = actions.get(0);
                 }
@@ -516,12 +578,77 @@ public class CoordinatorStore extends Store {
                     }
                 }
                 
-                XLog.getLog(getClass()).debug("ENDED Coord Purge deleted jobs :" + coordJobs.size() + " and actions " + actionDeleted);
+                int archivedDeleted = 0;
+                if (isArchiveEnabled()) {
+                    Query h = entityManager.createNativeQuery("DELETE FROM " + COORD_ACTIONS_HISTORY + " WHERE job_id IN "
+                            + "(SELECT id FROM " + COORD_JOBS_HISTORY + " WHERE last_modified_time <= ?)");
+                    h.setParameter(1, lastModTm);
+                    actionDeleted += h.executeUpdate();
+                    h = entityManager.createNativeQuery("DELETE FROM " + COORD_JOBS_HISTORY
+                            + " WHERE last_modified_time <= ?");
+                    h.setParameter(1, lastModTm);
+                    archivedDeleted = h.executeUpdate();
+                }
+
+                XLog.getLog(getClass()).debug("ENDED Coord Purge deleted jobs :" + coordJobs.size() + " archived jobs "
+                        + archivedDeleted + " and actions " + actionDeleted);
                 return null;
             }
         });
     }
 
+    /**
+     * Move coordinator jobs completed before the given time, and their actions, to the history tables.
+     *
+     * @param lastModifiedTime coordinator jobs completed and last modified before this time are moved.
+     * @param limit maximum number of coordinator jobs to move.
+     * @return the number of coordinator jobs moved.
+     * @throws StoreException
+     */
+    public int archive(final Date lastModifiedTime, final int limit) throws StoreException {
+        return doOperation("coord-archive", new Callable<Integer>() {
+            @SuppressWarnings("unchecked")
+            public Integer call() throws SQLException, StoreException {
+                Query q = entityManager.createNamedQuery("GET_COMPLETED_COORD_JOB_IDS_OLDER_THAN");
+                q.setParameter("lastModTime", new Timestamp(lastModifiedTime.getTime()));
+                q.setMaxResults(limit);
+                List<String> ids = q.getResultList();
+                if (ids.size() > 0) {
+                    int actions = moveRows(entityManager, "COORD_ACTIONS", COORD_ACTIONS_HISTORY, "job_id", ids);
+                    moveRows(entityManager, "COORD_JOBS", COORD_JOBS_HISTORY, "id", ids);
+                    log.debug("Archived [{0}] coordinator jobs and [{1}] actions", ids.size(), actions);
+                }
+                return ids.size();
+            }
+        });
+    }
+
+    /**
+     * Move an archived coordinator job and its actions back from the history tables, the coordinator job can then be
+     * modified.
+     *
+     * @param id coordinator job ID.
+     * @return <code>true</code> if the coordinator job was archived.
+     * @throws StoreException
+     */
+    public boolean restoreCoordinatorJob(final String id) throws StoreException {
+        ParamChecker.notEmpty(id, "CoordJobId");
+        if (!isArchiveEnabled()) {
+            return false;
+        }
+        return doOperation("restoreCoordinatorJob", new Callable<Boolean>() {
+            public Boolean call() throws SQLException, StoreException {
+                List<String> ids = Collections.singletonList(id);
+                if (moveRows(entityManager, COORD_JOBS_HISTORY, "COORD_JOBS", "id", ids) == 0) {
+                    return false;
+                }
+                moveRows(entityManager, COORD_ACTIONS_HISTORY, "COORD_ACTIONS", "job_id", ids);
+                log.debug("Restored archived coordinator job [{0}]", id);
+                return true;
+            }
+        });
+    }
+
     public void commit() throws StoreException {
     }
 
@@ -588,6 +715,10 @@ public class CoordinatorStore extends Store {
                 }
 
                 realLen = ((Long) qTotal.getSingleResult()).intValue();
+                if (isHistoryEnabled()) {
+                    realLen += getHistoryCoordinatorInfo(filter, start - 1 - realLen, len - coordBeansList.size(),
+                                                         coordBeansList);
+                }
 
                 return new CoordinatorJobInfo(coordBeansList, start, len, realLen);
             }
@@ -595,6 +726,37 @@ public class CoordinatorStore extends Store {
         return coordJobInfo;
     }
 
+    /**
+     * Add the archived coordinator jobs of a listing page to the given list, archived coordinator jobs are listed
+     * after the coordinator jobs of the hot table.
+     *
+     * @return the number of archived coordinator jobs matching the filter.
+     */
+    @SuppressWarnings("unchecked")
+    private int getHistoryCoordinatorInfo(Map<String, List<String>> filter, int offset, int len,
+                                          List<CoordinatorJobBean> coordBeansList) {
+        List<String> values = new ArrayList<String>();
+        String condition = StoreStatusFilter.historyFilter(filter, values);
+        Query qTotal = entityManager.createNativeQuery("SELECT COUNT(*) FROM " + COORD_JOBS_HISTORY + condition);
+        setParameters(qTotal, values);
+        int total = ((Number) qTotal.getSingleResult()).intValue();
+        if (len > 0 && offset < total) {
+            Query q = entityManager.createNativeQuery("SELECT * FROM " + COORD_JOBS_HISTORY + condition
+                    + " ORDER BY created_time DESC", CoordinatorJobBean.class);
+            setParameters(q, values);
+            q.setFirstResult(Math.max(offset, 0));
+            q.setMaxResults(len);
+            for (CoordinatorJobBean w : (List<CoordinatorJobBean>) q.getResultList()) {
+                coordBeansList.add(getBeanForCoordinatorJobFromArray(new Object[]{w.getId(), w.getAppName(),
+                        w.getStatusStr(), w.getUser(), w.getGroup(), w.getStartTimestamp(), w.getEndTimestamp(),
+                        w.getAppPath(), w.getConcurrency(), w.getFrequency(), w.getLastActionTimestamp(),
+                        w.getNextMaterializedTimestamp(), w.getCreatedTimestamp(), w.getTimeUnitStr(),
+                        w.getTimeZone(), w.getTimeout()}));
+            }
+        }
+        return total;
+    }
+
     private CoordinatorJobBean getBeanForCoordinatorJobFromArray(Object[] arr) {
         CoordinatorJobBean bean = new CoordinatorJobBean();
         bean.setId((String) arr[0]);
@@ -715,6 +877,14 @@ public class CoordinatorStore extends Store {
                                                                       q.setFirstResult(start - 1);
                                                                       q.setMaxResults(len);
                                                                       actions = q.getResultList();
+                                                                      if (actions.size() == 0 && isHistoryEnabled()) {
+                                                                          Query h = entityManager.createNativeQuery("SELECT * FROM " + COORD_ACTIONS_HISTORY
+                                                                                  + " WHERE job_id = ?", CoordinatorActionBean.class);
+                                                                          h.setParameter(1, jobId);
+                                                                          h.setFirstResult(start - 1);
+                                                                          h.setMaxResults(len);
+                                                                          actions = h.getResultList();
+                                                                      }
                                                                       for (CoordinatorActionBean a : actions) {
                                                                           CoordinatorActionBean aa = getBeanForRunningCoordAction(a);
                                                                           actionList.add(aa);
@@ -792,6 +962,78 @@ public class CoordinatorStore extends Store {
         return cBean;
     }
 
+    /**
+     * Return the external (workflow) IDs of the actions of a coordinator job that are not in a terminal state.
+     * <p/>
+     * Only the IDs are loaded, the action beans are not materialized.
+     *
+     * @param jobId coordinator job ID
+     * @return list of external IDs
+     * @throws StoreException
+     */
+    public List<String> getActiveActionsExternalIdsForCoordinatorJob(final String jobId) throws StoreException {
+        return getActionsExternalIdsForCoordinatorJob(jobId, "GET_ACTIVE_ACTIONS_EXTERNAL_IDS_FOR_COORD_JOB");
+    }
+
+    /**
+     * Return the external (workflow) IDs of the RUNNING actions of a coordinator job.
+     * <p/>
+     * Only the IDs are loaded, the action beans are not materialized.
+     *
+     * @param jobId coordinator job ID
+     * @return list of external IDs
+     * @throws StoreException
+     */
+    public List<String> getRunningActionsExternalIdsForCoordinatorJob(final String jobId) throws StoreException {
+        return getActionsExternalIdsForCoordinatorJob(jobId, "GET_RUNNING_ACTIONS_EXTERNAL_IDS_FOR_COORD_JOB");
+    }
+
+    private List<String> getActionsExternalIdsForCoordinatorJob(final String jobId, final String queryName)
+            throws StoreException {
+        ParamChecker.notEmpty(jobId, "CoordinatorJobID");
+        List<String> externalIds = doOperation("getActionsExternalIdsForCoordinatorJob", new Callable<List<String>>() {
+            @SuppressWarnings("unchecked")
+            public List<String> call() throws StoreException {
+                List<String> idList = new ArrayList<String>();
+                try {
+                    Query q = entityManager.createNamedQuery(queryName);
+                    q.setParameter("jobId", jobId);
+                    idList.addAll(q.getResultList());
+                }
+                catch (IllegalStateException e) {
+                    throw new StoreException(ErrorCode.E0601, e.getMessage(), e);
+                }
+                return idList;
+            }
+        });
+        return externalIds;
+    }
+
+    /**
+     * Set the status of all the actions of a coordinator job that are not in a terminal state with a single update
+     * statement.
+     *
+     * @param jobId coordinator job ID
+     * @param status the new status of the actions
+     * @return the number of actions updated
+     * @throws StoreException
+     */
+    public int updateActiveCoordinatorActionsStatus(final String jobId, final CoordinatorAction.Status status)
+            throws StoreException {
+        ParamChecker.notEmpty(jobId, "CoordinatorJobID");
+        ParamChecker.notNull(status, "status");
+        Integer count = doOperation("updateActiveCoordinatorActionsStatus", new Callable<Integer>() {
+            public Integer call() throws StoreException {
+                Query q = entityManager.createNamedQuery("UPDATE_ACTIVE_COORD_ACTIONS_STATUS_FOR_JOB");
+                q.setParameter("jobId", jobId);
+                q.setParameter("status", status.toString());
+                q.setParameter("lastModifiedTime", new Date());
+                return q.executeUpdate();
+            }
+        });
+        return count.intValue();
+    }
+
     public List<CoordinatorActionBean> getRunningActionsForCoordinatorJob(final String jobId, final boolean locking)
             throws StoreException {
         ParamChecker.notEmpty(jobId, "CoordinatorJobID");
@@ -977,4 +1219,243 @@ public class CoordinatorStore extends Store {
         });
         return jobids;
     }
+
+    /**
+     * Get the coordinator action beans of a job for the given action IDs.
+     * <p/>
+     * The actions are read with one query per {@link #IN_CLAUSE_SIZE} IDs.
+     *
+     * @param jobId coordinator job ID.
+     * @param ids action IDs.
+     * @return the coordinator action beans, in the order of the IDs.
+     * @throws StoreException thrown if an action does not exist.
+     */
+    public List<CoordinatorActionBean> getCoordActionsForIds(final String jobId, final Collection<String> ids)
+            throws StoreException {
+        ParamChecker.notEmpty(jobId, "jobId");
+        ParamChecker.notNull(ids, "ids");
+        List<CoordinatorActionBean> actions = doOperation("getCoordActionsForIds",
+                new Callable<List<CoordinatorActionBean>>() {
+            @SuppressWarnings("unchecked")
+            public List<CoordinatorActionBean> call() throws StoreException {
+                List<String> idList = new ArrayList<String>(ids);
+                Map<String, CoordinatorActionBean> found = new HashMap<String, CoordinatorActionBean>();
+                for (int start = 0; start < idList.size(); start += IN_CLAUSE_SIZE) {
+                    List<String> chunk = idList.subList(start, Math.min(idList.size(), start + IN_CLAUSE_SIZE));
+                    Query q = entityManager.createQuery("select OBJECT(a) from CoordinatorActionBean a where "
+                            + "a.jobId = :jobId AND a.id IN (" + getInClause("id", chunk.size()) + ")");
+                    q.setParameter("jobId", jobId);
+                    setInParameters(q, "id", chunk);
+                    for (CoordinatorActionBean a : (List<CoordinatorActionBean>) q.getResultList()) {
+                        found.put(a.getId(), getBeanForRunningCoordAction(a));
+                    }
+                }
+                List<CoordinatorActionBean> actionList = new ArrayList<CoordinatorActionBean>();
+                for (String id : idList) {
+                    CoordinatorActionBean action = found.get(id);
+                    if (action == null) {
+                        throw new StoreException(ErrorCode.E0605, id);
+                    }
+                    actionList.add(action);
+                }
+                return actionList;
+            }
+        });
+        return actions;
+    }
+
+    /**
+     * Get the coordinator action beans of a job for the given nominal times.
+     * <p/>
+     * The actions are read with one query per {@link #IN_CLAUSE_SIZE} nominal times.
+     *
+     * @param jobId coordinator job ID.
+     * @param nominalTimes action nominal times.
+     * @return the coordinator action beans, in the order of the nominal times.
+     * @throws StoreException thrown if an action does not exist.
+     */
+    public List<CoordinatorActionBean> getCoordActionsForNominalTimes(final String jobId,
+                                                                      final Collection<Date> nominalTimes)
+            throws StoreException {
+        ParamChecker.notEmpty(jobId, "jobId");
+        ParamChecker.notNull(nominalTimes, "nominalTimes");
+        List<CoordinatorActionBean> actions = doOperation("getCoordActionsForNominalTimes",
+                new Callable<List<CoordinatorActionBean>>() {
+            @SuppressWarnings("unchecked")
+            public List<CoordinatorActionBean> call() throws StoreException {
+                List<Timestamp> times = new ArrayList<Timestamp>();
+                for (Date nominalTime : nominalTimes) {
+                    times.add(new Timestamp(nominalTime.getTime()));
+                }
+                Map<Long, CoordinatorActionBean> found = new HashMap<Long, CoordinatorActionBean>();
+                for (int start = 0; start < times.size(); start += IN_CLAUSE_SIZE) {
+                    List<Timestamp> chunk = times.subList(start, Math.min(times.size(), start + IN_CLAUSE_SIZE));
+                    Query q = entityManager.createQuery("select OBJECT(a) from CoordinatorActionBean a where "
+                            + "a.jobId = :jobId AND a.nominalTimestamp IN ("
+                            + getInClause("nominalTime", chunk.size()) + ")");
+                    q.setParameter("jobId", jobId);
+                    setInParameters(q, "nominalTime", chunk);
+                    for (CoordinatorActionBean a : (List<CoordinatorActionBean>) q.getResultList()) {
+                        found.put(a.getNominalTimestamp().getTime(), getBeanForRunningCoordAction(a));
+                    }
+                }
+                List<CoordinatorActionBean> actionList = new ArrayList<CoordinatorActionBean>();
+                for (Timestamp time : times) {
+                    CoordinatorActionBean action = found.get(time.getTime());
+                    if (action == null) {
+                        throw new StoreException(ErrorCode.E0605, DateUtils.convertDateToString(time));
+                    }
+                    actionList.add(action);
+                }
+                return actionList;
+            }
+        });
+        return actions;
+    }
+
+    /**
+     * Load the coordinator jobs with the given IDs and return their beans, without actions.
+     * <p/>
+     * The jobs are read with one query per {@link #IN_CLAUSE_SIZE} IDs, unknown IDs are ignored. Archived jobs are
+     * not modified, they are not returned when a modification time is given.
+     *
+     * @param ids coordinator job IDs.
+     * @param since if not <code>null</code>, only the jobs modified after this time are returned.
+     * @return the coordinator job beans.
+     * @throws StoreException
+     */
+    public List<CoordinatorJobBean> getCoordinatorJobsInfo(final Collection<String> ids, final Date since)
+            throws StoreException {
+        ParamChecker.notNull(ids, "ids");
+        return doOperation("getCoordinatorJobsInfoForIds", new Callable<List<CoordinatorJobBean>>() {
+            @SuppressWarnings("unchecked")
+            public List<CoordinatorJobBean> call() throws StoreException {
+                List<String> idList = new ArrayList<String>(ids);
+                Set<String> missing = new LinkedHashSet<String>(idList);
+                List<CoordinatorJobBean> coordBeansList = new ArrayList<CoordinatorJobBean>();
+                for (int start = 0; start < idList.size(); start += IN_CLAUSE_SIZE) {
+                    List<String> chunk = idList.subList(start, Math.min(idList.size(), start + IN_CLAUSE_SIZE));
+                    // the modification time is also read, the watch time of the jobs info is based on it
+                    StringBuilder sb = new StringBuilder(StoreStatusFilter.coordSeletStr.replace(
+                            " from CoordinatorJobBean w", ", w.lastModifiedTimestamp from CoordinatorJobBean w"));
+                    sb.append(" where w.id IN (").append(getInClause("id", chunk.size())).append(")");
+                    if (since != null) {
+                        sb.append(" AND w.lastModifiedTimestamp > :since");
+                    }
+                    Query q = entityManager.createQuery(sb.toString());
+                    setInParameters(q, "id", chunk);
+                    if (since != null) {
+                        q.setParameter("since", new Timestamp(since.getTime()));
+                    }
+                    for (Object[] arr : (List<Object[]>) q.getResultList()) {
+                        CoordinatorJobBean job = getBeanForCoordinatorJobFromArray(arr);
+                        job.setLastModifiedTime((Timestamp) arr[16]);
+                        missing.remove(job.getId());
+                        coordBeansList.add(job);
+                    }
+                }
+                if (since == null && !missing.isEmpty() && isHistoryEnabled()) {
+                    for (CoordinatorJobBean w : getHistoryRows(entityManager, COORD_JOBS_HISTORY,
+                                                               new ArrayList<String>(missing),
+                                                               CoordinatorJobBean.class)) {
+                        CoordinatorJobBean job = getBeanForCoordinatorJobFromArray(new Object[]{w.getId(),
+                                w.getAppName(), w.getStatusStr(), w.getUser(), w.getGroup(), w.getStartTimestamp(),
+                                w.getEndTimestamp(), w.getAppPath(), w.getConcurrency(), w.getFrequency(),
+                                w.getLastActionTimestamp(), w.getNextMaterializedTimestamp(),
+                                w.getCreatedTimestamp(), w.getTimeUnitStr(), w.getTimeZone(), w.getTimeout()});
+                        job.setLastModifiedTime(w.getLastModifiedTime());
+                        coordBeansList.add(job);
+                    }
+                }
+                return coordBeansList;
+            }
+        });
+    }
+
+    /**
+     * Load the coordinator actions with the given IDs and return their beans.
+     * <p/>
+     * The actions are read with one query per {@link #IN_CLAUSE_SIZE} IDs, unknown IDs are ignored. Archived actions
+     * are not modified, they are not returned when a modification time is given.
+     *
+     * @param ids coordinator action IDs.
+     * @param since if not <code>null</code>, only the actions modified after this time are returned.
+     * @return the coordinator action beans.
+     * @throws StoreException
+     */
+    public List<CoordinatorActionBean> getCoordActionsInfo(final Collection<String> ids, final Date since)
+            throws StoreException {
+        ParamChecker.notNull(ids, "ids");
+        return doOperation("getCoordActionsInfoForIds", new Callable<List<CoordinatorActionBean>>() {
+            @SuppressWarnings("unchecked")
+            public List<CoordinatorActionBean> call() throws StoreException {
+                List<String> idList = new ArrayList<String>(ids);
+                Set<String> missing = new LinkedHashSet<String>(idList);
+                List<CoordinatorActionBean> actionList = new ArrayList<CoordinatorActionBean>();
+                for (int start = 0; start < idList.size(); start += IN_CLAUSE_SIZE) {
+                    List<String> chunk = idList.subList(start, Math.min(idList.size(), start + IN_CLAUSE_SIZE));
+                    StringBuilder sb = new StringBuilder("select OBJECT(a) from CoordinatorActionBean a where a.id IN (");
+                    sb.append(getInClause("id", chunk.size())).append(")");
+                    if (since != null) {
+                        sb.append(" AND a.lastModifiedTimestamp > :since");
+                    }
+                    Query q = entityManager.createQuery(sb.toString());
+                    setInParameters(q, "id", chunk);
+                    if (since != null) {
+                        q.setParameter("since", new Timestamp(since.getTime()));
+                    }
+                    for (CoordinatorActionBean a : (List<CoordinatorActionBean>) q.getResultList()) {
+                        missing.remove(a.getId());
+                        actionList.add(getBeanForRunningCoordAction(a));
+                    }
+                }
+                if (since == null && !missing.isEmpty() && isHistoryEnabled()) {
+                    for (CoordinatorActionBean a : getHistoryRows(entityManager, COORD_ACTIONS_HISTORY,
+                                                                  new ArrayList<String>(missing),
+                                                                  CoordinatorActionBean.class)) {
+                        actionList.add(getBeanForRunningCoordAction(a));
+                    }
+                }
+                return actionList;
+            }
+        });
+    }
+
+    /**
+     * Reset the given coordinator actions for a rerun, the actions are set to <code>WAITING</code>, their external ID
+     * and status are cleared and their rerun time is set.
+     * <p/>
+     * The actions are updated with one statement per {@link #IN_CLAUSE_SIZE} actions.
+     *
+     * @param ids action IDs.
+     * @param rerunTime rerun time.
+     * @return the number of actions updated.
+     * @throws StoreException
+     */
+    public int updateCoordActionsForRerun(final Collection<String> ids, final Date rerunTime) throws StoreException {
+        ParamChecker.notNull(ids, "ids");
+        ParamChecker.notNull(rerunTime, "rerunTime");
+        Integer count = doOperation("updateCoordActionsForRerun", new Callable<Integer>() {
+            public Integer call() throws StoreException {
+                List<String> idList = new ArrayList<String>(ids);
+                int count = 0;
+                for (int start = 0; start < idList.size(); start += IN_CLAUSE_SIZE) {
+                    List<String> chunk = idList.subList(start, Math.min(idList.size(), start + IN_CLAUSE_SIZE));
+                    Query q = entityManager.createQuery("update CoordinatorActionBean a set a.status = :status, "
+                            + "a.externalId = :externalId, a.externalStatus = :externalStatus, "
+                            + "a.rerunTimestamp = :rerunTime, a.lastModifiedTimestamp = :lastModifiedTime where "
+                            + "a.id IN (" + getInClause("id", chunk.size()) + ")");
+                    q.setParameter("status", CoordinatorAction.Status.WAITING.toString());
+                    q.setParameter("externalId", "");
+                    q.setParameter("externalStatus", "");
+                    q.setParameter("rerunTime", new Timestamp(rerunTime.getTime()));
+                    q.setParameter("lastModifiedTime", new Timestamp(System.currentTimeMillis()));
+                    setInParameters(q, "id", chunk);
+                    count += q.executeUpdate();
+                }
+                return count;
+            }
+        });
+        return count.intValue();
+    }
 }
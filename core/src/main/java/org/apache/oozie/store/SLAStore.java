@@ -28,18 +28,59 @@ import org.apache.oozie.ErrorCode;
 import org.apache.oozie.SLAEventBean;
 import org.apache.oozie.XException;
 import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.SLAStoreService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.util.Instrumentation;
 import org.apache.oozie.util.ParamChecker;
+import org.apache.openjpa.event.AbstractTransactionListener;
+import org.apache.openjpa.event.TransactionEvent;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
 
 public class SLAStore extends Store {
     private EntityManager entityManager;
     private static final String INSTR_GROUP = "db";
+    private CommitListener commitListener;
+
+    /**
+     * Transaction listener that hands the SLA events inserted in the transaction to the {@link SLAStoreService} in
+     * memory buffer once the transaction commits. It is registered once per transaction and removed when the
+     * transaction ends, the events of a rolled back transaction are discarded.
+     */
+    private class CommitListener extends AbstractTransactionListener {
+        private final List<SLAEventBean> events = new ArrayList<SLAEventBean>();
+
+        @Override
+        public void afterCommit(TransactionEvent event) {
+            SLAStoreService slaService = Services.get().get(SLAStoreService.class);
+            if (slaService != null) {
+                for (SLAEventBean slaEvent : events) {
+                    slaService.eventCommitted(copyEventBean(slaEvent));
+                }
+            }
+            end();
+        }
+
+        @Override
+        public void afterRollback(TransactionEvent event) {
+            end();
+        }
+
+        private void end() {
+            events.clear();
+            OpenJPAPersistence.cast(entityManager).removeTransactionListener(this);
+            if (commitListener == this) {
+                commitListener = null;
+            }
+        }
+    }
 
     public SLAStore() throws StoreException {
-        super();
-        entityManager = getEntityManager();
+        this(false);
+    }
 
+    public SLAStore(boolean readOnly) throws StoreException {
+        super(readOnly);
+        entityManager = getEntityManager();
     }
 
     public SLAStore(Store store) throws StoreException {
@@ -48,9 +89,10 @@ public class SLAStore extends Store {
     }
 
     /**
-     * Create a CoordJobBean. It also creates the process instance for the job.
+     * Insert a SLA event. <p/> Once the transaction commits the event is handed to the {@link SLAStoreService} in memory
+     * buffer.
      *
-     * @param workflow workflow bean
+     * @param slaEvent SLA event bean
      * @throws StoreException
      */
 
@@ -60,6 +102,11 @@ public class SLAStore extends Store {
         doOperation("insertSLAEvent", new Callable<Void>() {
             public Void call() throws StoreException {
                 entityManager.persist(slaEvent);
+                if (commitListener == null) {
+                    commitListener = new CommitListener();
+                    OpenJPAPersistence.cast(entityManager).addTransactionListener(commitListener);
+                }
+                commitListener.events.add(slaEvent);
                 return null;
             }
         });
@@ -19,6 +19,7 @@ package org.apache.oozie.store;
 import javax.persistence.EntityManager;
 import javax.persistence.FlushModeType;
 import javax.persistence.PersistenceUnit;
+import javax.persistence.Query;
 /*
  import javax.persistence.Persistence;
  import org.apache.oozie.CoordinatorActionBean;
@@ -32,6 +33,7 @@ import javax.persistence.PersistenceUnit;
  import org.apache.oozie.client.rest.JsonWorkflowJob;
  import org.apache.oozie.client.rest.JsonSLAEvent;
  */
+import org.apache.oozie.service.ArchiveService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.StoreService;
 import org.apache.oozie.util.XLog;
@@ -39,7 +41,13 @@ import org.apache.openjpa.persistence.OpenJPAEntityManager;
 import org.apache.openjpa.persistence.OpenJPAPersistence;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @PersistenceUnit(unitName = "oozie")
 /**
@@ -47,13 +55,33 @@ import java.sql.SQLException;
  */
 public abstract class Store {
 
+    /**
+     * Maximum number of parameters of an IN clause, bulk queries on more values use several queries.
+     */
+    public static final int IN_CLAUSE_SIZE = 500;
+
+    private static final Map<String, String> COMMON_COLUMNS = new ConcurrentHashMap<String, String>();
+
     private EntityManager entityManager;
+    private boolean readOnly;
 
     /**
      * create a fresh transaction
      */
     public Store() {
-        entityManager = Services.get().get(StoreService.class).getEntityManager();
+        this(false);
+    }
+
+    /**
+     * Create a store, a read-only store does not use a transaction and reads from the read replica if one is
+     * configured in the {@link StoreService}.
+     *
+     * @param readOnly indicates if the store is read-only.
+     */
+    public Store(boolean readOnly) {
+        this.readOnly = readOnly;
+        entityManager = (readOnly) ? Services.get().get(StoreService.class).getReadOnlyEntityManager()
+                                   : Services.get().get(StoreService.class).getEntityManager();
     }
 
     /**
@@ -61,6 +89,16 @@ public abstract class Store {
      */
     public Store(Store store) {
         entityManager = store.getEntityManager();
+        readOnly = store.isReadOnly();
+    }
+
+    /**
+     * Return if the store is read-only.
+     *
+     * @return <code>true</code> if the store is read-only.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
     }
 
     /**
@@ -71,18 +109,22 @@ public abstract class Store {
     }
 
     /**
-     * Invoke transaction on the EntityManager
+     * Invoke transaction on the EntityManager, read-only stores do not start a transaction.
      */
     public void beginTrx() {
         entityManager.setFlushMode(FlushModeType.COMMIT);
-        entityManager.getTransaction().begin();
+        if (!readOnly) {
+            entityManager.getTransaction().begin();
+        }
     }
 
     /**
      * Commit current transaction
      */
     public void commitTrx() {
-        entityManager.getTransaction().commit();
+        if (!readOnly) {
+            entityManager.getTransaction().commit();
+        }
     }
 
     /**
@@ -96,7 +138,9 @@ public abstract class Store {
      * Rollback transaction
      */
     public void rollbackTrx() {
-        entityManager.getTransaction().rollback();
+        if (!readOnly) {
+            entityManager.getTransaction().rollback();
+        }
     }
 
     /**
@@ -108,6 +152,202 @@ public abstract class Store {
         return entityManager.getTransaction().isActive();
     }
 
+    /**
+     * Return if the store reads the job history tables.
+     * <p/>
+     * Only read-only stores read the history tables, and only if the {@link ArchiveService} is enabled. Jobs in the
+     * history tables are completed, they are never modified.
+     *
+     * @return <code>true</code> if the store reads the job history tables.
+     */
+    protected boolean isHistoryEnabled() {
+        return readOnly && isArchiveEnabled();
+    }
+
+    /**
+     * Return if the {@link ArchiveService} is enabled, completed jobs are then moved to the job history tables.
+     *
+     * @return <code>true</code> if the {@link ArchiveService} is enabled.
+     */
+    protected static boolean isArchiveEnabled() {
+        return Services.get().get(ArchiveService.class) != null;
+    }
+
+    /**
+     * Move the rows with the given column values from a table to another table.
+     * <p/>
+     * The columns are listed explicitly, only the columns both tables have are moved. A column added to a table by a
+     * schema upgrade is then left to its default value instead of failing the move.
+     *
+     * @param entityManager entity manager of the current transaction.
+     * @param from table to move the rows from.
+     * @param to table to move the rows to.
+     * @param column column of the values.
+     * @param values values of the rows to move.
+     * @return the number of rows moved.
+     * @throws SQLException thrown if the columns of the tables could not be read.
+     */
+    protected static int moveRows(EntityManager entityManager, String from, String to, String column,
+                                  List<String> values) throws SQLException {
+        String columns = getCommonColumns(entityManager, from, to);
+        String condition = " WHERE " + column + " IN (" + getParameters(values.size()) + ")";
+        Query insert = entityManager.createNativeQuery("INSERT INTO " + to + " (" + columns + ") SELECT " + columns
+                + " FROM " + from + condition);
+        setParameters(insert, values);
+        insert.executeUpdate();
+        Query delete = entityManager.createNativeQuery("DELETE FROM " + from + condition);
+        setParameters(delete, values);
+        return delete.executeUpdate();
+    }
+
+    /**
+     * Return the columns two tables have in common, comma separated, in the order of the first table.
+     * <p/>
+     * The columns are read from the database metadata the first time and then cached.
+     */
+    private static String getCommonColumns(EntityManager entityManager, String table1, String table2)
+            throws SQLException {
+        String key = table1 + "," + table2;
+        String columns = COMMON_COLUMNS.get(key);
+        if (columns == null) {
+            Connection conn = (Connection) OpenJPAPersistence.cast(entityManager).getConnection();
+            try {
+                DatabaseMetaData metaData = conn.getMetaData();
+                List<String> columns2 = new ArrayList<String>();
+                for (String c : getColumns(metaData, table2)) {
+                    columns2.add(c.toLowerCase());
+                }
+                StringBuilder sb = new StringBuilder();
+                for (String c : getColumns(metaData, table1)) {
+                    if (columns2.contains(c.toLowerCase())) {
+                        sb.append((sb.length() == 0) ? "" : ", ").append(c);
+                    }
+                }
+                if (sb.length() == 0) {
+                    throw new SQLException("Tables [" + table1 + "] and [" + table2 + "] have no common columns");
+                }
+                columns = sb.toString();
+                COMMON_COLUMNS.put(key, columns);
+            }
+            finally {
+                conn.close();
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Return the columns of a table, in table order.
+     * <p/>
+     * The table name is looked up as given and then in lower and upper case, databases differ in the case of the
+     * names they store.
+     *
+     * @param metaData database metadata.
+     * @param table table name.
+     * @return the columns of the table, an empty list if the table does not exist.
+     * @throws SQLException thrown if the metadata could not be read.
+     */
+    public static List<String> getColumns(DatabaseMetaData metaData, String table) throws SQLException {
+        List<String> columns = new ArrayList<String>();
+        for (String name : new String[]{table, table.toLowerCase(), table.toUpperCase()}) {
+            ResultSet rs = metaData.getColumns(null, null, name, null);
+            try {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            finally {
+                rs.close();
+            }
+            if (!columns.isEmpty()) {
+                break;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Return the positional parameters of a native query <code>IN</code> clause.
+     *
+     * @param size number of parameters.
+     * @return the positional parameters, comma separated.
+     */
+    protected static String getParameters(int size) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            sb.append((i == 0) ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Set the positional parameters of a native query.
+     *
+     * @param q native query.
+     * @param values parameter values, in parameter order.
+     */
+    protected static void setParameters(Query q, List<?> values) {
+        for (int i = 0; i < values.size(); i++) {
+            q.setParameter(i + 1, values.get(i));
+        }
+    }
+
+    /**
+     * Return the named parameters of a JPQL <code>IN</code> clause.
+     *
+     * @param name parameter name prefix.
+     * @param size number of parameters.
+     * @return the named parameters, comma separated.
+     */
+    protected static String getInClause(String name, int size) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(":").append(name).append(i);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Set the named parameters of a JPQL <code>IN</code> clause.
+     *
+     * @param q JPQL query.
+     * @param name parameter name prefix.
+     * @param values parameter values, in parameter order.
+     */
+    protected static void setInParameters(Query q, String name, List<?> values) {
+        for (int i = 0; i < values.size(); i++) {
+            q.setParameter(name + i, values.get(i));
+        }
+    }
+
+    /**
+     * Return the beans of the rows of a history table with the given IDs.
+     * <p/>
+     * The rows are read with one query per {@link #IN_CLAUSE_SIZE} IDs.
+     *
+     * @param entityManager entity manager of the current transaction.
+     * @param table history table.
+     * @param ids row IDs.
+     * @param beanClass bean class of the table rows.
+     * @return the beans of the rows found.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T> List<T> getHistoryRows(EntityManager entityManager, String table, List<String> ids,
+                                                Class<T> beanClass) {
+        List<T> rows = new ArrayList<T>();
+        for (int start = 0; start < ids.size(); start += IN_CLAUSE_SIZE) {
+            List<String> chunk = ids.subList(start, Math.min(ids.size(), start + IN_CLAUSE_SIZE));
+            Query q = entityManager.createNativeQuery("SELECT * FROM " + table + " WHERE id IN ("
+                    + getParameters(chunk.size()) + ")", beanClass);
+            setParameters(q, chunk);
+            rows.addAll(q.getResultList());
+        }
+        return rows;
+    }
+
     public String getConnection() {
         OpenJPAEntityManager kem = OpenJPAPersistence.cast(entityManager);
         Connection conn = (Connection) kem.getConnection();
@@ -172,4 +172,39 @@ public class StoreStatusFilter {
             }
         }
     }
+
+    /**
+     * Build the SQL condition of a filter for the job history tables, the history tables are read with native queries.
+     *
+     * @param filter filter condition.
+     * @param values list the values of the condition parameters are added to, in parameter order.
+     * @return the SQL condition starting with <code>WHERE</code>, or an empty string if the filter is empty.
+     */
+    public static String historyFilter(Map<String, List<String>> filter, List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : filter.entrySet()) {
+            String column = null;
+            if (entry.getKey().equals(OozieClient.FILTER_GROUP)) {
+                column = "group_name";
+            }
+            else if (entry.getKey().equals(OozieClient.FILTER_STATUS)) {
+                column = "status";
+            }
+            else if (entry.getKey().equals(OozieClient.FILTER_NAME)) {
+                column = "app_name";
+            }
+            else if (entry.getKey().equals(OozieClient.FILTER_USER)) {
+                column = "user_name";
+            }
+            if (column != null && entry.getValue().size() > 0) {
+                sb.append((sb.length() == 0) ? " WHERE " : " AND ").append(column).append(" IN (");
+                for (int i = 0; i < entry.getValue().size(); i++) {
+                    sb.append((i == 0) ? "?" : ", ?");
+                    values.add(entry.getValue().get(i));
+                }
+                sb.append(")");
+            }
+        }
+        return sb.toString();
+    }
 }
@@ -18,9 +18,14 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import javax.persistence.EntityManager;
@@ -28,6 +33,7 @@ import javax.persistence.Query;
 
 import org.apache.oozie.ErrorCode;
 import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.WorkflowActionStatsBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.WorkflowsInfo;
 import org.apache.oozie.client.OozieClient;
@@ -56,6 +62,8 @@ public class WorkflowStore extends Store {
     private EntityManager entityManager;
     private boolean selectForUpdate;
     private static final String INSTR_GROUP = "db";
+    private static final String WF_JOBS_HISTORY = "WF_JOBS_HISTORY";
+    private static final String WF_ACTIONS_HISTORY = "WF_ACTIONS_HISTORY";
     public static final int LOCK_TIMEOUT = 50000;
     private static final String seletStr = "Select w.id, w.appName, w.status, w.run, w.user, w.group, w.createdTimestamp, "
             + "w.startTimestamp, w.lastModifiedTimestamp, w.endTimestamp from WorkflowJobBean w";
@@ -79,7 +87,11 @@ public class WorkflowStore extends Store {
     }
 
     public WorkflowStore(boolean selectForUpdate) throws StoreException {
-        super();
+        this(selectForUpdate, false);
+    }
+
+    public WorkflowStore(boolean selectForUpdate, boolean readOnly) throws StoreException {
+        super(readOnly);
         entityManager = getEntityManager();
         javax.xml.validation.Schema schema = Services.get().get(SchemaService.class).getSchema(SchemaName.WORKFLOW);
         OpenJPAEntityManager kem = OpenJPAPersistence.cast(entityManager);
@@ -126,6 +138,9 @@ public class WorkflowStore extends Store {
             public WorkflowJobBean call() throws SQLException, StoreException, WorkflowException, InterruptedException {
                 WorkflowJobBean wfBean = null;
                 wfBean = getWorkflowOnly(id, locking);
+                if (wfBean == null && isHistoryEnabled()) {
+                    wfBean = getHistoryWorkflow(id);
+                }
                 if (wfBean == null) {
                     throw new StoreException(ErrorCode.E0604, id);
                 }
@@ -221,6 +236,24 @@ public class WorkflowStore extends Store {
         });
     }
 
+    /**
+     * Create new Action records in the ACTIONS table, in a single store operation.
+     *
+     * @param actions list of WorkflowActionBeans
+     * @throws StoreException If an action is already present
+     */
+    public void insertActions(final List<WorkflowActionBean> actions) throws StoreException {
+        ParamChecker.notNull(actions, "actions");
+        doOperation("insertActions", new Callable<Void>() {
+            public Void call() throws SQLException, StoreException, WorkflowException {
+                for (WorkflowActionBean action : actions) {
+                    entityManager.persist(action);
+                }
+                return null;
+            }
+        });
+    }
+
     /**
      * Load the action data and returns a bean.
      *
@@ -244,6 +277,12 @@ public class WorkflowStore extends Store {
                 WorkflowActionBean action = null;
                 q.setParameter("id", id);
                 List<WorkflowActionBean> actions = q.getResultList();
+                if (actions.size() == 0 && isHistoryEnabled()) {
+                    Query h = entityManager.createNativeQuery("SELECT * FROM " + WF_ACTIONS_HISTORY + " WHERE id = ?",
+                                                              WorkflowActionBean.class);
+                    h.setParameter(1, id);
+                    actions = h.getResultList();
+                }
                 // action = (WorkflowActionBean) q.getSingleResult();
                 if (actions.size() > 0) {
                     action = actions.get(0);
@@ -446,6 +485,157 @@ public class WorkflowStore extends Store {
         return actions;
     }
 
+    /**
+     * Load the running actions last checked before now - checkAgeSecs, only the ID, name, workflow ID, start time and
+     * last check time of the actions are loaded.
+     *
+     * @param checkAgeSecs check age in seconds.
+     * @return List of lightweight action beans.
+     * @throws StoreException
+     */
+    public List<WorkflowActionBean> getRunningActionsForCheck(final long checkAgeSecs) throws StoreException {
+        List<WorkflowActionBean> actions = doOperation("getRunningActionsForCheck",
+                new Callable<List<WorkflowActionBean>>() {
+                    @SuppressWarnings("unchecked")
+                    public List<WorkflowActionBean> call() throws SQLException, StoreException, WorkflowException {
+                        List<WorkflowActionBean> actions = new ArrayList<WorkflowActionBean>();
+                        Timestamp ts = new Timestamp(System.currentTimeMillis() - checkAgeSecs * 1000);
+                        try {
+                            Query q = entityManager.createNamedQuery("GET_RUNNING_ACTIONS_FOR_CHECK");
+                            q.setParameter("lastCheckTime", ts);
+                            List<Object[]> rows = q.getResultList();
+                            for (Object[] row : rows) {
+                                WorkflowActionBean action = new WorkflowActionBean();
+                                action.setId((String) row[0]);
+                                action.setName((String) row[1]);
+                                action.setJobId((String) row[2]);
+                                if (row[3] != null) {
+                                    action.setStartTime((Timestamp) row[3]);
+                                }
+                                if (row[4] != null) {
+                                    action.setLastCheckTime((Timestamp) row[4]);
+                                }
+                                actions.add(action);
+                            }
+                        }
+                        catch (IllegalStateException e) {
+                            throw new StoreException(ErrorCode.E0601, e.getMessage(), e);
+                        }
+                        return actions;
+                    }
+                });
+        return actions;
+    }
+
+    /**
+     * Load the application names of the workflows with the given status.
+     *
+     * @param status workflow status.
+     * @return map of workflow ID to workflow application name.
+     * @throws StoreException
+     */
+    public Map<String, String> getWorkflowAppNames(final Status status) throws StoreException {
+        ParamChecker.notNull(status, "status");
+        Map<String, String> appNames = doOperation("getWorkflowAppNames", new Callable<Map<String, String>>() {
+            @SuppressWarnings("unchecked")
+            public Map<String, String> call() throws SQLException, StoreException {
+                Map<String, String> appNames = new HashMap<String, String>();
+                try {
+                    Query q = entityManager.createNamedQuery("GET_WORKFLOWS_APP_NAMES_WITH_STATUS");
+                    q.setParameter("status", status.toString());
+                    List<Object[]> rows = q.getResultList();
+                    for (Object[] row : rows) {
+                        appNames.put((String) row[0], (String) row[1]);
+                    }
+                }
+                catch (IllegalStateException e) {
+                    throw new StoreException(ErrorCode.E0601, e.getMessage(), e);
+                }
+                return appNames;
+            }
+        });
+        return appNames;
+    }
+
+    /**
+     * Load the runtime history of all the actions.
+     *
+     * @return map of runtime history ID to runtime history.
+     * @throws StoreException
+     */
+    public Map<String, WorkflowActionStatsBean> getActionStats() throws StoreException {
+        return getActionStats(null);
+    }
+
+    /**
+     * Load the runtime history of the actions updated since the given time.
+     *
+     * @param since time, <code>null</code> to load the runtime history of all the actions.
+     * @return map of runtime history ID to runtime history.
+     * @throws StoreException
+     */
+    public Map<String, WorkflowActionStatsBean> getActionStats(final Date since) throws StoreException {
+        Map<String, WorkflowActionStatsBean> stats = doOperation("getActionStats",
+                new Callable<Map<String, WorkflowActionStatsBean>>() {
+                    @SuppressWarnings("unchecked")
+                    public Map<String, WorkflowActionStatsBean> call() throws SQLException, StoreException {
+                        Map<String, WorkflowActionStatsBean> stats = new HashMap<String, WorkflowActionStatsBean>();
+                        try {
+                            Query q;
+                            if (since != null) {
+                                q = entityManager.createNamedQuery("GET_ACTION_STATS_MODIFIED_SINCE");
+                                q.setParameter("since", new Timestamp(since.getTime()));
+                            }
+                            else {
+                                q = entityManager.createNamedQuery("GET_ACTION_STATS");
+                            }
+                            List<WorkflowActionStatsBean> list = q.getResultList();
+                            for (WorkflowActionStatsBean bean : list) {
+                                stats.put(bean.getId(), bean);
+                            }
+                        }
+                        catch (IllegalStateException e) {
+                            throw new StoreException(ErrorCode.E0601, e.getMessage(), e);
+                        }
+                        return stats;
+                    }
+                });
+        return stats;
+    }
+
+    /**
+     * Add the duration of a successful run of an action to its runtime history.
+     * <p/>
+     * The runtime history is read and written within the current transaction, concurrent updates of the same runtime
+     * history must be serialized by the caller.
+     *
+     * @param appName workflow application name.
+     * @param actionName action name.
+     * @param duration duration of the run, in milliseconds.
+     * @param weight weight of the run in the moving average and variance.
+     * @throws StoreException
+     */
+    public void addActionDuration(final String appName, final String actionName, final long duration,
+                                  final double weight) throws StoreException {
+        ParamChecker.notEmpty(appName, "appName");
+        ParamChecker.notEmpty(actionName, "actionName");
+        doOperation("addActionDuration", new Callable<Void>() {
+            public Void call() throws SQLException, StoreException {
+                WorkflowActionStatsBean stats = entityManager.find(WorkflowActionStatsBean.class,
+                                                                   WorkflowActionStatsBean.createId(appName, actionName));
+                if (stats == null) {
+                    stats = new WorkflowActionStatsBean(appName, actionName);
+                    stats.addDuration(duration, weight);
+                    entityManager.persist(stats);
+                }
+                else {
+                    stats.addDuration(duration, weight);
+                }
+                return null;
+            }
+        });
+    }
+
     /**
      * Load All the actions that are START_RETRY or START_MANUAL or END_RETRY or END_MANUAL.
      * 
@@ -677,6 +867,10 @@ public class WorkflowStore extends Store {
                 }
 
                 realLen = ((Long) qTotal.getSingleResult()).intValue();
+                if (isHistoryEnabled()) {
+                    realLen += getHistoryWorkflowsInfo(filter, start - 1 - realLen, len - wfBeansList.size(),
+                                                       wfBeansList);
+                }
 
                 return new WorkflowsInfo(wfBeansList, start, len, realLen);
             }
@@ -698,12 +892,15 @@ public class WorkflowStore extends Store {
             public WorkflowJobBean call() throws SQLException, StoreException, InterruptedException {
                 WorkflowJobBean wfBean = null;
                 wfBean = getWorkflowforInfo(id, false);
-                if (wfBean == null) {
-                    throw new StoreException(ErrorCode.E0604, id);
+                if (wfBean == null && isHistoryEnabled()) {
+                    wfBean = getHistoryWorkflowInfo(id, 1, Integer.MAX_VALUE);
                 }
-                else {
+                else if (wfBean != null) {
                     wfBean.setActions(getActionsForWorkflow(id, false));
                 }
+                if (wfBean == null) {
+                    throw new StoreException(ErrorCode.E0604, id);
+                }
                 return wfBean;
             }
         });
@@ -725,18 +922,126 @@ public class WorkflowStore extends Store {
             public WorkflowJobBean call() throws SQLException, StoreException, InterruptedException {
                 WorkflowJobBean wfBean = null;
                 wfBean = getWorkflowforInfo(id, false);
-                if (wfBean == null) {
-                    throw new StoreException(ErrorCode.E0604, id);
+                if (wfBean == null && isHistoryEnabled()) {
+                    wfBean = getHistoryWorkflowInfo(id, start, len);
                 }
-                else {
+                else if (wfBean != null) {
                     wfBean.setActions(getActionsSubsetForWorkflow(id, start, len));
                 }
+                if (wfBean == null) {
+                    throw new StoreException(ErrorCode.E0604, id);
+                }
                 return wfBean;
             }
         });
         return wfBean;
     }
 
+    /**
+     * Load the workflows with the given IDs and return their beans, without actions and workflow instance.
+     * <p/>
+     * The workflows are read with one query per {@link #IN_CLAUSE_SIZE} IDs, unknown IDs are ignored. Archived
+     * workflows are not modified, they are not returned when a modification time is given.
+     *
+     * @param ids workflow IDs.
+     * @param since if not <code>null</code>, only the workflows modified after this time are returned.
+     * @return the workflow beans.
+     * @throws StoreException
+     */
+    public List<WorkflowJobBean> getWorkflowsInfo(final Collection<String> ids, final Date since)
+            throws StoreException {
+        ParamChecker.notNull(ids, "ids");
+        return doOperation("getWorkflowsInfoForIds", new Callable<List<WorkflowJobBean>>() {
+            @SuppressWarnings("unchecked")
+            public List<WorkflowJobBean> call() throws SQLException, StoreException {
+                List<String> idList = new ArrayList<String>(ids);
+                Set<String> missing = new LinkedHashSet<String>(idList);
+                List<WorkflowJobBean> wfBeansList = new ArrayList<WorkflowJobBean>();
+                for (int start = 0; start < idList.size(); start += IN_CLAUSE_SIZE) {
+                    List<String> chunk = idList.subList(start, Math.min(idList.size(), start + IN_CLAUSE_SIZE));
+                    StringBuilder sb = new StringBuilder(seletStr);
+                    sb.append(" where w.id IN (").append(getInClause("id", chunk.size())).append(")");
+                    if (since != null) {
+                        sb.append(" AND w.lastModifiedTimestamp > :since");
+                    }
+                    Query q = entityManager.createQuery(sb.toString());
+                    setInParameters(q, "id", chunk);
+                    if (since != null) {
+                        q.setParameter("since", new Timestamp(since.getTime()));
+                    }
+                    for (Object[] arr : (List<Object[]>) q.getResultList()) {
+                        WorkflowJobBean w = getBeanForWorkflowFromArray(arr);
+                        missing.remove(w.getId());
+                        wfBeansList.add(w);
+                    }
+                }
+                if (since == null && !missing.isEmpty() && isHistoryEnabled()) {
+                    for (WorkflowJobBean w : getHistoryRows(entityManager, WF_JOBS_HISTORY,
+                                                            new ArrayList<String>(missing), WorkflowJobBean.class)) {
+                        wfBeansList.add(getBeanForWorkflowFromArray(new Object[]{w.getId(), w.getAppName(),
+                                w.getStatusStr(), w.getRun(), w.getUser(), w.getGroup(), w.getCreatedTimestamp(),
+                                w.getStartTimestamp(), w.getLastModifiedTimestamp(), w.getEndTimestamp()}));
+                    }
+                }
+                return wfBeansList;
+            }
+        });
+    }
+
+    /**
+     * Load the workflow actions with the given IDs and return their beans.
+     * <p/>
+     * The actions are read with one query per {@link #IN_CLAUSE_SIZE} IDs, unknown IDs are ignored. Actions have no
+     * modification time, when a modification time is given an action is returned if it started, was checked or ended
+     * after that time, or if its workflow was modified after that time. Archived actions are not modified, they are
+     * not returned when a modification time is given.
+     *
+     * @param ids action IDs.
+     * @param since if not <code>null</code>, only the actions modified after this time are returned.
+     * @return the action beans.
+     * @throws StoreException
+     */
+    public List<WorkflowActionBean> getActionsInfo(final Collection<String> ids, final Date since)
+            throws StoreException {
+        ParamChecker.notNull(ids, "ids");
+        return doOperation("getActionsInfoForIds", new Callable<List<WorkflowActionBean>>() {
+            @SuppressWarnings("unchecked")
+            public List<WorkflowActionBean> call() throws SQLException, StoreException {
+                List<String> idList = new ArrayList<String>(ids);
+                Set<String> missing = new LinkedHashSet<String>(idList);
+                List<WorkflowActionBean> actionList = new ArrayList<WorkflowActionBean>();
+                for (int start = 0; start < idList.size(); start += IN_CLAUSE_SIZE) {
+                    List<String> chunk = idList.subList(start, Math.min(idList.size(), start + IN_CLAUSE_SIZE));
+                    String inClause = "a.id IN (" + getInClause("id", chunk.size()) + ")";
+                    Query q;
+                    if (since != null) {
+                        q = entityManager.createQuery("select OBJECT(a) from WorkflowActionBean a, WorkflowJobBean w "
+                                + "where a.wfId = w.id AND " + inClause + " AND (w.lastModifiedTimestamp > :since "
+                                + "OR a.startTimestamp > :since OR a.lastCheckTimestamp > :since "
+                                + "OR a.endTimestamp > :since)");
+                        q.setParameter("since", new Timestamp(since.getTime()));
+                    }
+                    else {
+                        q = entityManager.createQuery("select OBJECT(a) from WorkflowActionBean a where " + inClause);
+                    }
+                    setInParameters(q, "id", chunk);
+                    for (WorkflowActionBean a : (List<WorkflowActionBean>) q.getResultList()) {
+                        missing.remove(a.getId());
+                        actionList.add(getBeanForRunningAction(a));
+                    }
+                }
+                if (since == null && !missing.isEmpty() && isHistoryEnabled()) {
+                    for (WorkflowActionBean a : getHistoryRows(entityManager, WF_ACTIONS_HISTORY,
+                                                               new ArrayList<String>(missing),
+                                                               WorkflowActionBean.class)) {
+                        actionList.add(getBeanForRunningAction(a));
+                    }
+                }
+                return actionList;
+            }
+        });
+    }
+
     /**
      * Get the Workflow ID with given external ID which will be assigned for the subworkflows.
      *
@@ -793,12 +1098,75 @@ public class WorkflowStore extends Store {
                     }
                 }
 
-                XLog.getLog(getClass()).debug("ENDED Workflow Purge deleted jobs :" + workflows.size() + " and actions " + actionDeleted);
+                int archivedDeleted = 0;
+                if (isArchiveEnabled()) {
+                    Query h = entityManager.createNativeQuery("DELETE FROM " + WF_ACTIONS_HISTORY + " WHERE wf_id IN "
+                            + "(SELECT id FROM " + WF_JOBS_HISTORY + " WHERE end_time < ?)");
+                    h.setParameter(1, maxEndTime);
+                    actionDeleted += h.executeUpdate();
+                    h = entityManager.createNativeQuery("DELETE FROM " + WF_JOBS_HISTORY + " WHERE end_time < ?");
+                    h.setParameter(1, maxEndTime);
+                    archivedDeleted = h.executeUpdate();
+                }
+
+                XLog.getLog(getClass()).debug("ENDED Workflow Purge deleted jobs :" + workflows.size() + " archived jobs "
+                        + archivedDeleted + " and actions " + actionDeleted);
                 return null;
             }
         });
     }
 
+    /**
+     * Move workflows ended before the given time, and their actions, to the history tables.
+     *
+     * @param endTime workflows ended before this time are moved.
+     * @param limit maximum number of workflows to move.
+     * @return the number of workflows moved.
+     * @throws StoreException
+     */
+    public int archive(final Date endTime, final int limit) throws StoreException {
+        return doOperation("archive", new Callable<Integer>() {
+            @SuppressWarnings("unchecked")
+            public Integer call() throws SQLException, StoreException {
+                Query q = entityManager.createNamedQuery("GET_COMPLETED_WORKFLOW_IDS_OLDER_THAN");
+                q.setParameter("endTime", new Timestamp(endTime.getTime()));
+                q.setMaxResults(limit);
+                List<String> ids = q.getResultList();
+                if (ids.size() > 0) {
+                    int actions = moveRows(entityManager, "WF_ACTIONS", WF_ACTIONS_HISTORY, "wf_id", ids);
+                    moveRows(entityManager, "WF_JOBS", WF_JOBS_HISTORY, "id", ids);
+                    XLog.getLog(getClass()).debug("Archived [{0}] jobs and [{1}] actions", ids.size(), actions);
+                }
+                return ids.size();
+            }
+        });
+    }
+
+    /**
+     * Move an archived workflow and its actions back from the history tables, the workflow can then be modified.
+     *
+     * @param id workflow ID.
+     * @return <code>true</code> if the workflow was archived.
+     * @throws StoreException
+     */
+    public boolean restoreWorkflow(final String id) throws StoreException {
+        ParamChecker.notEmpty(id, "WorkflowID");
+        if (!isArchiveEnabled()) {
+            return false;
+        }
+        return doOperation("restoreWorkflow", new Callable<Boolean>() {
+            public Boolean call() throws SQLException, StoreException {
+                List<String> ids = Collections.singletonList(id);
+                if (moveRows(entityManager, WF_JOBS_HISTORY, "WF_JOBS", "id", ids) == 0) {
+                    return false;
+                }
+                moveRows(entityManager, WF_ACTIONS_HISTORY, "WF_ACTIONS", "wf_id", ids);
+                XLog.getLog(getClass()).debug("Restored archived job [{0}]", id);
+                return true;
+            }
+        });
+    }
+
     private <V> V doOperation(String name, Callable<V> command) throws StoreException {
         try {
             Instrumentation.Cron cron = new Instrumentation.Cron();
@@ -824,6 +1192,64 @@ public class WorkflowStore extends Store {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private WorkflowJobBean getHistoryWorkflow(String id) {
+        Query q = entityManager.createNativeQuery("SELECT * FROM " + WF_JOBS_HISTORY + " WHERE id = ?",
+                                                  WorkflowJobBean.class);
+        q.setParameter(1, id);
+        List<WorkflowJobBean> w = q.getResultList();
+        return (w.size() > 0) ? w.get(0) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private WorkflowJobBean getHistoryWorkflowInfo(String id, int start, int len) throws SQLException {
+        WorkflowJobBean w = getHistoryWorkflow(id);
+        if (w == null) {
+            return null;
+        }
+        WorkflowJobBean wfBean = getBeanForRunningWorkflow(w);
+        Query q = entityManager.createNativeQuery("SELECT * FROM " + WF_ACTIONS_HISTORY
+                + " WHERE wf_id = ? ORDER BY start_time", WorkflowActionBean.class);
+        q.setParameter(1, id);
+        q.setFirstResult(start - 1);
+        q.setMaxResults(len);
+        List<WorkflowActionBean> actions = new ArrayList<WorkflowActionBean>();
+        for (WorkflowActionBean a : (List<WorkflowActionBean>) q.getResultList()) {
+            actions.add(getBeanForRunningAction(a));
+        }
+        wfBean.setActions(actions);
+        return wfBean;
+    }
+
+    /**
+     * Add the archived workflows of a listing page to the given list, archived workflows are listed after the
+     * workflows of the hot table.
+     *
+     * @return the number of archived workflows matching the filter.
+     */
+    @SuppressWarnings("unchecked")
+    private int getHistoryWorkflowsInfo(Map<String, List<String>> filter, int offset, int len,
+                                        List<WorkflowJobBean> wfBeansList) {
+        List<String> values = new ArrayList<String>();
+        String condition = StoreStatusFilter.historyFilter(filter, values);
+        Query qTotal = entityManager.createNativeQuery("SELECT COUNT(*) FROM " + WF_JOBS_HISTORY + condition);
+        setParameters(qTotal, values);
+        int total = ((Number) qTotal.getSingleResult()).intValue();
+        if (len > 0 && offset < total) {
+            Query q = entityManager.createNativeQuery("SELECT * FROM " + WF_JOBS_HISTORY + condition
+                    + " ORDER BY start_time DESC", WorkflowJobBean.class);
+            setParameters(q, values);
+            q.setFirstResult(Math.max(offset, 0));
+            q.setMaxResults(len);
+            for (WorkflowJobBean w : (List<WorkflowJobBean>) q.getResultList()) {
+                wfBeansList.add(getBeanForWorkflowFromArray(new Object[]{w.getId(), w.getAppName(),
+                        w.getStatusStr(), w.getRun(), w.getUser(), w.getGroup(), w.getCreatedTimestamp(),
+                        w.getStartTimestamp(), w.getLastModifiedTimestamp(), w.getEndTimestamp()}));
+            }
+        }
+        return total;
+    }
+
     private WorkflowJobBean getWorkflowOnly(final String id, boolean locking) throws SQLException,
             InterruptedException, StoreException {
         WorkflowJobBean wfBean = null;
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import org.apache.commons.logging.Log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes formatted log messages to their <code>Log</code> from a background thread.
+ * <p/>
+ * Messages are kept in a bounded ring buffer, when the buffer is full {@link #dispatch} returns <code>false</code> and
+ * the caller must write the message itself, no message is lost. Messages are written in dispatch order.
+ */
+public class AsyncLogDispatcher {
+    private static final long STOP_TIMEOUT = 30 * 1000;
+
+    private final Log[] logs;
+    private final XLog.Level[] levels;
+    private final String[] messages;
+    private final Throwable[] throwables;
+    private int head;
+    private int count;
+    private boolean stopped;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicLong overflows = new AtomicLong();
+    private final Thread thread;
+
+    /**
+     * Create an asynchronous log dispatcher and start its background thread.
+     *
+     * @param bufferSize maximum number of messages waiting to be written.
+     */
+    public AsyncLogDispatcher(int bufferSize) {
+        ParamChecker.checkGTZero(bufferSize, "bufferSize");
+        logs = new Log[bufferSize];
+        levels = new XLog.Level[bufferSize];
+        messages = new String[bufferSize];
+        throwables = new Throwable[bufferSize];
+        thread = new Thread("oozie-async-log") {
+            @Override
+            public void run() {
+                writeMessages();
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a message to be written by the background thread.
+     *
+     * @param log log to write to.
+     * @param level message level.
+     * @param msg message.
+     * @param throwable exception, it may be <code>null</code>.
+     * @return <code>false</code> if the buffer is full or the dispatcher is stopped, the caller must write the message.
+     */
+    public boolean dispatch(Log log, XLog.Level level, String msg, Throwable throwable) {
+        lock.lock();
+        try {
+            if (stopped || count == logs.length) {
+                if (!stopped) {
+                    overflows.incrementAndGet();
+                }
+                return false;
+            }
+            int tail = (head + count) % logs.length;
+            logs[tail] = log;
+            levels[tail] = level;
+            messages[tail] = msg;
+            throwables[tail] = throwable;
+            count++;
+            if (count == 1) {
+                notEmpty.signal();
+            }
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of messages waiting to be written.
+     *
+     * @return the number of messages waiting to be written.
+     */
+    public int getPending() {
+        lock.lock();
+        try {
+            return count;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of messages written by the caller because the buffer was full.
+     *
+     * @return the number of messages written by the caller because the buffer was full.
+     */
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    /**
+     * Stop the dispatcher, the messages waiting to be written are written before returning.
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            notEmpty.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+        try {
+            thread.join(STOP_TIMEOUT);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeMessages() {
+        Log[] batchLogs = new Log[logs.length];
+        XLog.Level[] batchLevels = new XLog.Level[logs.length];
+        String[] batchMessages = new String[logs.length];
+        Throwable[] batchThrowables = new Throwable[logs.length];
+        while (true) {
+            int batch;
+            lock.lock();
+            try {
+                while (count == 0 && !stopped) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (count == 0) {
+                    return;
+                }
+                batch = count;
+                for (int i = 0; i < batch; i++) {
+                    int j = (head + i) % logs.length;
+                    batchLogs[i] = logs[j];
+                    batchLevels[i] = levels[j];
+                    batchMessages[i] = messages[j];
+                    batchThrowables[i] = throwables[j];
+                    logs[j] = null;
+                    messages[j] = null;
+                    throwables[j] = null;
+                }
+                head = (head + batch) % logs.length;
+                count = 0;
+            }
+            finally {
+                lock.unlock();
+            }
+            for (int i = 0; i < batch; i++) {
+                try {
+                    XLog.write(batchLogs[i], batchLevels[i], batchMessages[i], batchThrowables[i]);
+                }
+                catch (Throwable ex) {
+                    // a failing log must not stop the dispatcher thread
+                }
+                batchLogs[i] = null;
+                batchMessages[i] = null;
+                batchThrowables[i] = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A delay queue of compact entries, an entry is a type ID, an entity ID, a priority and a due time.
+ * <p/>
+ * The entries are kept in a binary min-heap ordered by due time stored in primitive arrays, there is no object per
+ * entry other than the entity ID string. Entry objects are only created when the entries are polled from the queue.
+ * <p/>
+ * This class is thread safe.
+ */
+public class CompactDelayQueue {
+
+    // estimated sizes, in bytes, of a reference, of the String header and of the char[] header (64 bit JVM)
+    private static final int REFERENCE_SIZE = 8;
+    private static final int STRING_SIZE = 40;
+    private static final int ARRAY_SIZE = 16;
+
+    /**
+     * An entry polled from the queue.
+     */
+    public static class Entry {
+        private final int typeId;
+        private final String entityId;
+        private final int priority;
+        private final long dueTime;
+
+        private Entry(int typeId, String entityId, int priority, long dueTime) {
+            this.typeId = typeId;
+            this.entityId = entityId;
+            this.priority = priority;
+            this.dueTime = dueTime;
+        }
+
+        public int getTypeId() {
+            return typeId;
+        }
+
+        public String getEntityId() {
+            return entityId;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public long getDueTime() {
+            return dueTime;
+        }
+
+        @Override
+        public String toString() {
+            return "type=" + typeId + ", entity=" + entityId + ", priority=" + priority + ", due=" + dueTime;
+        }
+    }
+
+    private long[] dueTimes;
+    private int[] typeIds;
+    private byte[] priorities;
+    private String[] entityIds;
+    private int size;
+    private long entityIdsHeapSize;
+
+    /**
+     * Create a compact delay queue.
+     *
+     * @param initialCapacity initial number of entries the queue can hold, the queue grows as needed.
+     */
+    public CompactDelayQueue(int initialCapacity) {
+        ParamChecker.checkGTZero(initialCapacity, "initialCapacity");
+        dueTimes = new long[initialCapacity];
+        typeIds = new int[initialCapacity];
+        priorities = new byte[initialCapacity];
+        entityIds = new String[initialCapacity];
+    }
+
+    /**
+     * Add an entry to the queue.
+     *
+     * @param typeId type ID.
+     * @param entityId entity ID.
+     * @param priority priority, between 0 and 127.
+     * @param dueTime due time, in milliseconds.
+     */
+    public synchronized void add(int typeId, String entityId, int priority, long dueTime) {
+        ParamChecker.notNull(entityId, "entityId");
+        if (priority < 0 || priority > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("priority must be between 0 and " + Byte.MAX_VALUE);
+        }
+        if (size == dueTimes.length) {
+            grow();
+        }
+        set(size, dueTime, typeId, (byte) priority, entityId);
+        entityIdsHeapSize += getHeapSize(entityId);
+        siftUp(size++);
+    }
+
+    /**
+     * Remove the entries due up to the given time.
+     *
+     * @param time time, in milliseconds.
+     * @return the entries due, in due time order.
+     */
+    public synchronized List<Entry> pollDue(long time) {
+        List<Entry> due = new ArrayList<Entry>();
+        while (size > 0 && dueTimes[0] <= time) {
+            due.add(new Entry(typeIds[0], entityIds[0], priorities[0], dueTimes[0]));
+            entityIdsHeapSize -= getHeapSize(entityIds[0]);
+            size--;
+            set(0, dueTimes[size], typeIds[size], priorities[size], entityIds[size]);
+            entityIds[size] = null;
+            siftDown(0);
+        }
+        return due;
+    }
+
+    /**
+     * Return the due time of the next entry.
+     *
+     * @return the due time of the next entry, in milliseconds, or <code>-1</code> if the queue is empty.
+     */
+    public synchronized long peekDueTime() {
+        return (size > 0) ? dueTimes[0] : -1;
+    }
+
+    /**
+     * Return the number of entries in the queue.
+     *
+     * @return the number of entries in the queue.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Return the estimated heap used by the queue.
+     *
+     * @return the estimated heap used by the queue, in bytes.
+     */
+    public synchronized long getHeapSize() {
+        long arrays = 4 * ARRAY_SIZE + (long) dueTimes.length * (8 + 4 + 1 + REFERENCE_SIZE);
+        return arrays + entityIdsHeapSize;
+    }
+
+    /**
+     * Remove all the entries of the queue.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            entityIds[i] = null;
+        }
+        size = 0;
+        entityIdsHeapSize = 0;
+    }
+
+    private static long getHeapSize(String entityId) {
+        return STRING_SIZE + ARRAY_SIZE + 2 * entityId.length();
+    }
+
+    private void grow() {
+        int capacity = dueTimes.length * 2;
+        long[] newDueTimes = new long[capacity];
+        int[] newTypeIds = new int[capacity];
+        byte[] newPriorities = new byte[capacity];
+        String[] newEntityIds = new String[capacity];
+        System.arraycopy(dueTimes, 0, newDueTimes, 0, size);
+        System.arraycopy(typeIds, 0, newTypeIds, 0, size);
+        System.arraycopy(priorities, 0, newPriorities, 0, size);
+        System.arraycopy(entityIds, 0, newEntityIds, 0, size);
+        dueTimes = newDueTimes;
+        typeIds = newTypeIds;
+        priorities = newPriorities;
+        entityIds = newEntityIds;
+    }
+
+    private void set(int i, long dueTime, int typeId, byte priority, String entityId) {
+        dueTimes[i] = dueTime;
+        typeIds[i] = typeId;
+        priorities[i] = priority;
+        entityIds[i] = entityId;
+    }
+
+    private void swap(int i, int j) {
+        long dueTime = dueTimes[i];
+        int typeId = typeIds[i];
+        byte priority = priorities[i];
+        String entityId = entityIds[i];
+        set(i, dueTimes[j], typeIds[j], priorities[j], entityIds[j]);
+        set(j, dueTime, typeId, priority, entityId);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (dueTimes[parent] <= dueTimes[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && dueTimes[left] < dueTimes[smallest]) {
+                smallest = left;
+            }
+            if (right < size && dueTimes[right] < dueTimes[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+}
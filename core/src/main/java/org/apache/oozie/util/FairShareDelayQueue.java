@@ -0,0 +1,433 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A Queue implementation that shares its consumption among scheduling classes in proportion to their weights.
+ * <p/>
+ * Each scheduling class has its own {@link PriorityDelayQueue} sub-queue, with its own maximum size. Within a class,
+ * elements are consumed by priority and age as in the {@link PriorityDelayQueue}.
+ * <p/>
+ * Across classes, elements are consumed using stride scheduling: every class has a pass value that advances, each
+ * time an element of the class is consumed, by a stride inversely proportional to the class weight. Elements are
+ * consumed from the class with the lowest pass that has an element available. A class that has no element available
+ * when another class is served does not accumulate credit, its pass is moved up to the pass of the served class.
+ * <p/>
+ * As a result, when all classes have elements available, a class with weight 4 gets 4 times the elements of a class
+ * with weight 1. When a class has no elements available, its share goes to the other classes.
+ * <p/>
+ * The scheduling class of an element is given by {@link #getQueueClass(PriorityDelayQueue.QueueElement)}, the first
+ * class is the default class for elements of unknown classes.
+ */
+public class FairShareDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.QueueElement<E>>
+        implements BlockingQueue<PriorityDelayQueue.QueueElement<E>> {
+
+    private static final long STRIDE = 1L << 20;
+
+    private final String[] classes;
+    private final Map<String, Integer> classIndexes = new HashMap<String, Integer>();
+    private final PriorityDelayQueue<E>[] queues;
+    private final long[] strides;
+    private final long[] passes;
+    private final int maxSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Create a <code>FairShareDelayQueue</code>.
+     *
+     * @param classes names of the scheduling classes, the first one is the default class.
+     * @param weights weights of the scheduling classes.
+     * @param classMaxSizes maximum size of the sub-queue of each scheduling class, -1 means unbounded.
+     * @param priorities number of priorities each sub-queue supports.
+     * @param maxWait max wait time for elements before they are promoted to the next higher priority.
+     * @param unit time unit of the max wait time.
+     * @param maxSize maximum size of the queue, -1 means unbounded.
+     */
+    @SuppressWarnings("unchecked")
+    public FairShareDelayQueue(String[] classes, int[] weights, int[] classMaxSizes, int priorities, long maxWait,
+                               TimeUnit unit, int maxSize) {
+        ParamChecker.notNull(classes, "classes");
+        if (classes.length == 0) {
+            throw new IllegalArgumentException("classes cannot be empty");
+        }
+        if (weights.length != classes.length || classMaxSizes.length != classes.length) {
+            throw new IllegalArgumentException("classes, weights and classMaxSizes must have the same length");
+        }
+        if (maxSize < -1 || maxSize == 0) {
+            throw new IllegalArgumentException("maxSize must be -1 or greater than 0");
+        }
+        this.classes = classes.clone();
+        queues = new PriorityDelayQueue[classes.length];
+        strides = new long[classes.length];
+        passes = new long[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            ParamChecker.notEmpty(classes[i], "classes[" + i + "]");
+            ParamChecker.checkGTZero(weights[i], "weights[" + i + "]");
+            if (classIndexes.put(classes[i], i) != null) {
+                throw new IllegalArgumentException("duplicate class [" + classes[i] + "]");
+            }
+            queues[i] = new PriorityDelayQueue<E>(priorities, maxWait, unit, classMaxSizes[i]) {
+                @Override
+                protected void debug(String msgTemplate, Object... msgArgs) {
+                    FairShareDelayQueue.this.debug(msgTemplate, msgArgs);
+                }
+            };
+            strides[i] = STRIDE / weights[i];
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return the scheduling class of an element.
+     * <p/>
+     * This implementation returns the default class, it should be overriden to classify the elements.
+     *
+     * @param queueElement element to classify.
+     * @return the scheduling class of the element, unknown classes are mapped to the default class.
+     */
+    protected String getQueueClass(PriorityDelayQueue.QueueElement<E> queueElement) {
+        return classes[0];
+    }
+
+    /**
+     * Return the names of the scheduling classes.
+     *
+     * @return the names of the scheduling classes, the first one is the default class.
+     */
+    public String[] getClasses() {
+        return classes.clone();
+    }
+
+    /**
+     * Return if a scheduling class exists.
+     *
+     * @param queueClass scheduling class name.
+     * @return <code>true</code> if the scheduling class exists.
+     */
+    public boolean hasClass(String queueClass) {
+        return classIndexes.containsKey(queueClass);
+    }
+
+    private PriorityDelayQueue<E> getQueue(PriorityDelayQueue.QueueElement<E> queueElement) {
+        Integer index = classIndexes.get(getQueueClass(queueElement));
+        return queues[(index != null) ? index : 0];
+    }
+
+    /**
+     * Return the number of elements in the queue.
+     *
+     * @return the number of elements in the queue.
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (PriorityDelayQueue<E> queue : queues) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    /**
+     * Return the number of elements of a scheduling class.
+     *
+     * @param queueClass scheduling class name.
+     * @return the number of elements of the scheduling class, <code>0</code> if the class does not exist.
+     */
+    public int size(String queueClass) {
+        Integer index = classIndexes.get(queueClass);
+        return (index != null) ? queues[index].size() : 0;
+    }
+
+    /**
+     * Return if the queue can accept an element without exceeding its maximum size or the maximum size of the
+     * element scheduling class.
+     *
+     * @param queueElement element to check.
+     * @return <code>true</code> if the element can be accepted.
+     */
+    public boolean hasCapacity(PriorityDelayQueue.QueueElement<E> queueElement) {
+        PriorityDelayQueue<E> queue = getQueue(queueElement);
+        return (maxSize == -1 || size() < maxSize) && (queue.getMaxSize() == -1 || queue.size() < queue.getMaxSize());
+    }
+
+    /**
+     * Return an iterator over all the elements (both expired and unexpired) in this queue. The iterator does not
+     * return the elements in any particular order and it does not reflect later modifications of the queue.
+     *
+     * @return an iterator over the elements in this queue.
+     */
+    @Override
+    public Iterator<PriorityDelayQueue.QueueElement<E>> iterator() {
+        List<PriorityDelayQueue.QueueElement<E>> list = new ArrayList<PriorityDelayQueue.QueueElement<E>>();
+        for (PriorityDelayQueue<E> queue : queues) {
+            Iterator<PriorityDelayQueue.QueueElement<E>> it = queue.iterator();
+            while (it.hasNext()) {
+                list.add(it.next());
+            }
+        }
+        return list.iterator();
+    }
+
+    /**
+     * Insert the specified element into the sub-queue of its scheduling class.
+     *
+     * @param queueElement the element to add.
+     * @param ignoreSize if <tt>true</tt> the element is added even if the queue or its scheduling class have reached
+     * their maximum size.
+     * @return <tt>true</tt> if the element has been inserted, <tt>false</tt> if the queue or the scheduling class of
+     *         the element have reached their maximum size.
+     */
+    public boolean offer(PriorityDelayQueue.QueueElement<E> queueElement, boolean ignoreSize) {
+        if (queueElement == null) {
+            throw new NullPointerException("queueElement is NULL");
+        }
+        if (!ignoreSize && maxSize != -1 && size() >= maxSize) {
+            return false;
+        }
+        return getQueue(queueElement).offer(queueElement, ignoreSize);
+    }
+
+    /**
+     * Insert the specified element into the queue.
+     *
+     * @param queueElement the element to add.
+     * @return <tt>true</tt> if the element has been inserted, <tt>false</tt> if the queue or the scheduling class of
+     *         the element have reached their maximum size.
+     */
+    @Override
+    public boolean offer(PriorityDelayQueue.QueueElement<E> queueElement) {
+        return offer(queueElement, false);
+    }
+
+    /**
+     * Retrieve and remove the head of this queue, or return <tt>null</tt> if this queue has no elements with an expired
+     * delay.
+     * <p/>
+     * The retrieved element is the head of the sub-queue with the lowest pass that has an element available.
+     *
+     * @return the head of this queue, or <tt>null</tt> if this queue has no elements with an expired delay.
+     */
+    @Override
+    public PriorityDelayQueue.QueueElement<E> poll() {
+        lock.lock();
+        try {
+            boolean[] polled = new boolean[queues.length];
+            for (int n = 0; n < queues.length; n++) {
+                int next = -1;
+                for (int i = 0; i < queues.length; i++) {
+                    if (!polled[i] && (next == -1 || passes[i] < passes[next])) {
+                        next = i;
+                    }
+                }
+                polled[next] = true;
+                PriorityDelayQueue.QueueElement<E> e = queues[next].poll();
+                if (e != null) {
+                    // classes with nothing available do not accumulate credit while other classes are served
+                    for (int i = 0; i < queues.length; i++) {
+                        if (polled[i] && passes[i] < passes[next]) {
+                            passes[i] = passes[next];
+                        }
+                    }
+                    passes[next] += strides[next];
+                    debug("poll(): [{0}], from class [{1}]", e.getElement(), classes[next]);
+                    return e;
+                }
+            }
+            return null;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove an element from this queue, regardless of its delay.
+     *
+     * @param o element to remove.
+     * @return <tt>true</tt> if the element was in the queue.
+     */
+    @Override
+    public boolean remove(Object o) {
+        for (PriorityDelayQueue<E> queue : queues) {
+            if (queue.remove(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieve, but does not remove, the head of this queue, or returns <tt>null</tt> if this queue is empty. The
+     * element returned is the element that expires first among the heads of all the sub-queues.
+     *
+     * @return the head of this queue, or <tt>null</tt> if this queue is empty.
+     */
+    @Override
+    public PriorityDelayQueue.QueueElement<E> peek() {
+        PriorityDelayQueue.QueueElement<E> e = null;
+        for (PriorityDelayQueue<E> queue : queues) {
+            PriorityDelayQueue.QueueElement<E> ee = queue.peek();
+            if (ee != null && (e == null || ee.getDelay(TimeUnit.MILLISECONDS) < e.getDelay(TimeUnit.MILLISECONDS))) {
+                e = ee;
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Method for debugging purposes. This implementation is a <tt>NOP</tt>.
+     * <p/>
+     * This method should be overriden for logging purposes.
+     *
+     * @param msgTemplate message template.
+     * @param msgArgs arguments for the message template.
+     */
+    protected void debug(String msgTemplate, Object... msgArgs) {
+    }
+
+    //BlockingQueue implementation
+
+    /**
+     * Insert the specified element into this queue, ignoring the maximum sizes.
+     *
+     * @param e the element to add
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public void put(PriorityDelayQueue.QueueElement<E> e) throws InterruptedException {
+        offer(e, true);
+    }
+
+    /**
+     * Insert the specified element into this queue.
+     * <p/>
+     * IMPORTANT: As in the {@link PriorityDelayQueue}, this implementation forces the addition of the element to the
+     * queue regardless of the queue current size. The timeout value is ignored as the element is added immediately.
+     *
+     * @param e the element to add
+     * @param timeout ignored.
+     * @param unit ignored.
+     * @return <tt>true</tt>
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public boolean offer(PriorityDelayQueue.QueueElement<E> e, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return offer(e, true);
+    }
+
+    /**
+     * Retrieve and removes the head of this queue, waiting if necessary until an element becomes available.
+     * <p/>
+     * IMPORTANT: This implementation has a delay of up to 10ms (when the queue is empty) to detect a new element
+     * is available. It is doing a 10ms sleep.
+     *
+     * @return the head of this queue
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public PriorityDelayQueue.QueueElement<E> take() throws InterruptedException {
+        PriorityDelayQueue.QueueElement<E> e = poll();
+        while (e == null) {
+            Thread.sleep(10);
+            e = poll();
+        }
+        return e;
+    }
+
+    /**
+     * Retrieve and removes the head of this queue, waiting up to the specified wait time if necessary for an element
+     * to become available.
+     *
+     * @param timeout how long to wait before giving up, in units of <tt>unit</tt>
+     * @param unit a <tt>TimeUnit</tt> determining how to interpret the <tt>timeout</tt> parameter
+     * @return the head of this queue, or <tt>null</tt> if the specified waiting time elapses before an element is
+     *         available
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public PriorityDelayQueue.QueueElement<E> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        PriorityDelayQueue.QueueElement<E> e = poll();
+        long time = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (e == null && time > System.currentTimeMillis()) {
+            Thread.sleep(10);
+            e = poll();
+        }
+        return e;
+    }
+
+    /**
+     * Return the number of additional elements that this queue can accept, or <tt>-1</tt> if the queue is unbounded.
+     *
+     * @return the remaining capacity
+     */
+    @Override
+    public int remainingCapacity() {
+        return (maxSize == -1) ? -1 : maxSize - size();
+    }
+
+    /**
+     * Remove all available elements from this queue and adds them to the given collection.
+     *
+     * @param c the collection to transfer elements into
+     * @return the number of elements transferred
+     */
+    @Override
+    public int drainTo(Collection<? super PriorityDelayQueue.QueueElement<E>> c) {
+        int count = 0;
+        for (PriorityDelayQueue<E> queue : queues) {
+            count += queue.drainTo(c);
+        }
+        return count;
+    }
+
+    /**
+     * Remove at most the given number of available elements from this queue and adds them to the given collection.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @return the number of elements transferred
+     */
+    @Override
+    public int drainTo(Collection<? super PriorityDelayQueue.QueueElement<E>> c, int maxElements) {
+        int count = 0;
+        for (PriorityDelayQueue<E> queue : queues) {
+            count += queue.drainTo(c, maxElements - count);
+        }
+        return count;
+    }
+
+    /**
+     * Removes all of the elements from this queue. The queue will be empty after this call returns.
+     */
+    @Override
+    public void clear() {
+        for (PriorityDelayQueue<E> queue : queues) {
+            queue.clear();
+        }
+    }
+
+}
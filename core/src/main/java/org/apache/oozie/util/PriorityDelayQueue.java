@@ -409,6 +409,34 @@ public class PriorityDelayQueue<E> extends AbstractQueue<PriorityDelayQueue.Queu
         }
     }
 
+    /**
+     * Remove a wrapper element from this queue, regardless of its delay.
+     *
+     * @param o wrapper element to remove.
+     *
+     * @return <tt>true</tt> if the wrapper element was in the queue.
+     */
+    @Override
+    public boolean remove(Object o) {
+        try {
+            lock.lock();
+            for (int i = 0; i < priorities; i++) {
+                if (queues[i].remove(o)) {
+                    if (currentSize != null) {
+                        currentSize.decrementAndGet();
+                    }
+                    ((QueueElement) o).inQueue = false;
+                    debug("remove(): [{0}], from P[{1}]", o, i);
+                    return true;
+                }
+            }
+            return false;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Retrieve, but does not remove, the head of this queue, or returns <tt>null</tt> if this queue is empty.  Unlike
      * <tt>poll</tt>, if no expired elements are available in the queue, this method returns the element that will
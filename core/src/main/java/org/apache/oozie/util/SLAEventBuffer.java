@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.oozie.SLAEventBean;
+
+/**
+ * Fixed size in memory ring buffer of the most recent committed SLA events, ordered by sequence (event) ID.
+ * <p/>
+ * The buffer keeps a floor sequence ID, all events with a sequence ID greater than the floor that have been added to
+ * the buffer are in the buffer. Requests for events newer than a sequence ID lower than the floor cannot be answered
+ * by the buffer and must go to the database.
+ * <p/>
+ * Until the first event is added the floor is undefined and the buffer cannot answer any request.
+ * <p/>
+ * Readers can wait for new events to be added with {@link #waitForEventsNewerThan(long, long)}.
+ */
+public class SLAEventBuffer {
+    private final SLAEventBean[] events;
+    private int head;
+    private int size;
+    private long floorSeqId = -1;
+    private boolean floorSet;
+
+    /**
+     * Create a SLA event buffer.
+     *
+     * @param capacity maximum number of events kept in the buffer.
+     */
+    public SLAEventBuffer(int capacity) {
+        ParamChecker.checkGTZero(capacity, "capacity");
+        events = new SLAEventBean[capacity];
+    }
+
+    /**
+     * Return the number of events in the buffer.
+     *
+     * @return the number of events in the buffer.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Return the floor sequence ID, all events newer than it are in the buffer.
+     *
+     * @return the floor sequence ID, <code>-1</code> if no event has been added to the buffer yet.
+     */
+    public synchronized long getFloorSeqId() {
+        return (floorSet) ? floorSeqId : -1;
+    }
+
+    /**
+     * Add a committed event to the buffer, evicting the oldest event if the buffer is full.
+     * <p/>
+     * Events older than the floor sequence ID are ignored, they are only available from the database.
+     *
+     * @param event event to add.
+     */
+    public synchronized void add(SLAEventBean event) {
+        ParamChecker.notNull(event, "event");
+        long seqId = event.getEvent_id();
+        if (!floorSet) {
+            floorSeqId = seqId - 1;
+            floorSet = true;
+        }
+        if (seqId <= floorSeqId) {
+            return;
+        }
+        if (size == events.length) {
+            floorSeqId = Math.max(floorSeqId, events[head].getEvent_id());
+            events[head] = null;
+            head = (head + 1) % events.length;
+            size--;
+            if (seqId <= floorSeqId) {
+                return;
+            }
+        }
+        // events are committed almost in sequence order, insertion sort from the tail
+        int pos = size;
+        while (pos > 0 && get(pos - 1).getEvent_id() > seqId) {
+            set(pos, get(pos - 1));
+            pos--;
+        }
+        set(pos, event);
+        size++;
+        notifyAll();
+    }
+
+    /**
+     * Return the events newer than a sequence ID if the buffer can answer the request.
+     *
+     * @param seqId sequence ID, only events with a greater sequence ID are returned.
+     * @param limit maximum number of events to return.
+     * @param lastSeqId single element array to return the sequence ID of the last returned event, it is set to
+     * <code>seqId</code> if no event is returned.
+     * @return the list of events, <code>null</code> if the sequence ID is older than the floor sequence ID.
+     */
+    public synchronized List<SLAEventBean> getEventsNewerThan(long seqId, int limit, long[] lastSeqId) {
+        ParamChecker.checkGTZero(limit, "limit");
+        if (!floorSet || seqId < floorSeqId) {
+            return null;
+        }
+        lastSeqId[0] = seqId;
+        List<SLAEventBean> list = new ArrayList<SLAEventBean>();
+        for (int i = firstNewerThan(seqId); i < size && list.size() < limit; i++) {
+            SLAEventBean event = get(i);
+            list.add(event);
+            lastSeqId[0] = event.getEvent_id();
+        }
+        return list;
+    }
+
+    /**
+     * Wait until the buffer has events newer than a sequence ID or the timeout expires.
+     *
+     * @param seqId sequence ID.
+     * @param timeout maximum time to wait, in milliseconds.
+     * @return <code>true</code> if the buffer has events newer than the sequence ID.
+     * @throws InterruptedException thrown if the thread was interrupted while waiting.
+     */
+    public synchronized boolean waitForEventsNewerThan(long seqId, long timeout) throws InterruptedException {
+        long limit = System.currentTimeMillis() + timeout;
+        long wait = timeout;
+        while (firstNewerThan(seqId) == size && wait > 0) {
+            wait(wait);
+            wait = limit - System.currentTimeMillis();
+        }
+        return firstNewerThan(seqId) < size;
+    }
+
+    /**
+     * Binary search of the position of the first event with a sequence ID greater than the given one.
+     */
+    private int firstNewerThan(long seqId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid).getEvent_id() <= seqId) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private SLAEventBean get(int pos) {
+        return events[(head + pos) % events.length];
+    }
+
+    private void set(int pos, SLAEventBean event) {
+        events[(head + pos) % events.length] = event;
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hashed timing wheel of keys due at a given time.
+ * <p/>
+ * The wheel has a fixed number of slots, each slot covers one tick. A key is stored in the slot of its due time, keys
+ * due more than one wheel revolution ahead stay in their slot until their revolution comes. Scheduling, rescheduling
+ * and cancelling a key are constant time operations, advancing the wheel only visits the slots of the elapsed ticks.
+ * <p/>
+ * A key is scheduled at most once, scheduling a key again replaces its due time.
+ * <p/>
+ * This class is thread safe.
+ */
+public class TimingWheel<K> {
+    private final long tick;
+    private final List<Map<K, Long>> slots;
+    private final Map<K, Long> dueTimes = new HashMap<K, Long>();
+    private final Map<K, Long> dueTicks = new HashMap<K, Long>();
+    private long currentTick;
+
+    /**
+     * Create a timing wheel.
+     *
+     * @param tick duration of a tick, in milliseconds.
+     * @param size number of slots of the wheel.
+     * @param now current time, in milliseconds.
+     */
+    public TimingWheel(long tick, int size, long now) {
+        ParamChecker.checkGTZero((int) Math.min(tick, Integer.MAX_VALUE), "tick");
+        ParamChecker.checkGTZero(size, "size");
+        this.tick = tick;
+        slots = new ArrayList<Map<K, Long>>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new HashMap<K, Long>());
+        }
+        currentTick = now / tick;
+    }
+
+    /**
+     * Schedule a key, replacing its previous due time if already scheduled.
+     * <p/>
+     * A key due in the past is returned when the wheel advances to the next tick.
+     *
+     * @param key key to schedule.
+     * @param dueTime due time, in milliseconds.
+     */
+    public synchronized void schedule(K key, long dueTime) {
+        ParamChecker.notNull(key, "key");
+        cancel(key);
+        long dueTick = Math.max(dueTime / tick, currentTick + 1);
+        getSlot(dueTick).put(key, dueTick);
+        dueTimes.put(key, dueTime);
+        dueTicks.put(key, dueTick);
+    }
+
+    /**
+     * Cancel a key.
+     *
+     * @param key key to cancel.
+     * @return <code>true</code> if the key was scheduled.
+     */
+    public synchronized boolean cancel(K key) {
+        Long dueTick = dueTicks.remove(key);
+        if (dueTick != null) {
+            dueTimes.remove(key);
+            getSlot(dueTick).remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Return the due time of a key.
+     *
+     * @param key key.
+     * @return the due time of the key, in milliseconds, or <code>null</code> if the key is not scheduled.
+     */
+    public synchronized Long getDueTime(K key) {
+        return dueTimes.get(key);
+    }
+
+    /**
+     * Return the number of scheduled keys.
+     *
+     * @return the number of scheduled keys.
+     */
+    public synchronized int size() {
+        return dueTimes.size();
+    }
+
+    /**
+     * Advance the wheel to the given time and remove the keys due up to it.
+     *
+     * @param now current time, in milliseconds.
+     * @return the keys due, they are not scheduled anymore.
+     */
+    public synchronized List<K> advance(long now) {
+        List<K> due = new ArrayList<K>();
+        long nowTick = now / tick;
+        // a full revolution visits all the slots, there is no need to go around more than once
+        long firstTick = Math.max(currentTick + 1, nowTick - slots.size() + 1);
+        for (long t = firstTick; t <= nowTick; t++) {
+            Iterator<Map.Entry<K, Long>> it = getSlot(t).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Long> entry = it.next();
+                if (entry.getValue() <= nowTick) {
+                    it.remove();
+                    dueTimes.remove(entry.getKey());
+                    dueTicks.remove(entry.getKey());
+                    due.add(entry.getKey());
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return due;
+    }
+
+    private Map<K, Long> getSlot(long tickNumber) {
+        return slots.get((int) (tickNumber % slots.size()));
+    }
+
+}
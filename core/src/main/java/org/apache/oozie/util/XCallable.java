@@ -19,7 +19,8 @@ import java.util.concurrent.Callable;
 /**
  * Extends Callable adding the concept of priority. <p/> The priority is useful when queuing callables for later
  * execution via the {@link org.apache.oozie.service.CallableQueueService}. <p/> A higher number means a higher
- * priority. <p/>
+ * priority. <p/> Idempotent callables may have a uniqueness key, the {@link org.apache.oozie.service.CallableQueueService}
+ * coalesces queued callables with the same key. <p/>
  */
 public interface XCallable<T> extends Callable<T> {
 
@@ -52,4 +53,13 @@ public interface XCallable<T> extends Callable<T> {
      */
     public long getCreatedTime();
 
+    /**
+     * Return the uniqueness key of the callable. <p/> Callables with the same key are equivalent, a callable queued
+     * while an equivalent callable is waiting in the {@link org.apache.oozie.service.CallableQueueService} is coalesced
+     * with it.
+     *
+     * @return the callable uniqueness key, <code>null</code> if the callable is not coalesced.
+     */
+    public String getKey();
+
 }
@@ -19,26 +19,30 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.text.MessageFormat;
-import java.util.ArrayList;
+import java.text.NumberFormat;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The <code>XLog</code> class extends the functionality of the Apache common-logging <code>Log</code> interface. <p/>
  * It provides common prefix support, message templating with variable parameters and selective tee logging to multiple
- * logs. <p/> It provides also the LogFactory functionality.
+ * logs. <p/> It provides also the LogFactory functionality. <p/> Messages can be written to the logs asynchronously,
+ * by a background thread, see {@link #startAsync(int)}.
  */
 public class XLog implements Log {
 
     /**
      * <code>LogInfo</code> stores contextual information to create log prefixes. <p/> <code>LogInfo</code> uses a
      * <code>ThreadLocal</code> to propagate the context. <p/> <code>LogInfo</code> context parameters are configurable
-     * singletons.
+     * singletons. <p/> The prefix of a <code>LogInfo</code> is rendered once and cached until its parameters or the
+     * defined context parameters change.
      */
     public static class Info {
-        private static String template = "";
-        private static List<String> parameterNames = new ArrayList<String>();
+        private static List<String> parameterNames = new CopyOnWriteArrayList<String>();
+        private static volatile int parametersVersion;
 
         private static ThreadLocal<Info> tlLogInfo = new ThreadLocal<Info>() {
             @Override
@@ -56,20 +60,16 @@ public class XLog implements Log {
          */
         public static void defineParameter(String name) {
             ParamChecker.notEmpty(name, "name");
-            int count = parameterNames.size();
-            if (count > 0) {
-                template += " ";
-            }
-            template += name + "[{" + count + "}]";
             parameterNames.add(name);
+            parametersVersion++;
         }
 
         /**
          * Remove all defined context parameters. <p/>
          */
         public static void reset() {
-            template = "";
             parameterNames.clear();
+            parametersVersion++;
         }
 
         /**
@@ -89,6 +89,8 @@ public class XLog implements Log {
         }
 
         private Map<String, String> parameters = new HashMap<String, String>();
+        private String prefix;
+        private int prefixVersion;
 
         /**
          * Constructs an empty LogInfo.
@@ -111,6 +113,7 @@ public class XLog implements Log {
          */
         public void clear() {
             parameters.clear();
+            prefix = null;
         }
 
         /**
@@ -124,6 +127,7 @@ public class XLog implements Log {
                 throw new IllegalArgumentException(format("Parameter[{0}] not defined", name));
             }
             parameters.put(name, value);
+            prefix = null;
         }
 
         /**
@@ -146,6 +150,7 @@ public class XLog implements Log {
                 throw new IllegalArgumentException(format("Parameter[{0}] not defined", name));
             }
             parameters.remove(name);
+            prefix = null;
         }
 
         /**
@@ -156,6 +161,7 @@ public class XLog implements Log {
         public void setParameters(Info logInfo) {
             parameters.clear();
             parameters.putAll(logInfo.parameters);
+            prefix = null;
         }
 
         /**
@@ -164,14 +170,21 @@ public class XLog implements Log {
          * @return the <code>LogInfo</code> prefix.
          */
         public String createPrefix() {
-            String[] params = new String[parameterNames.size()];
-            for (int i = 0; i < params.length; i++) {
-                params[i] = parameters.get(parameterNames.get(i));
-                if (params[i] == null) {
-                    params[i] = "-";
+            int version = parametersVersion;
+            if (prefix == null || prefixVersion != version) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < parameterNames.size(); i++) {
+                    String name = parameterNames.get(i);
+                    String value = parameters.get(name);
+                    if (i > 0) {
+                        sb.append(" ");
+                    }
+                    sb.append(name).append("[").append((value != null) ? value : "-").append("]");
                 }
+                prefix = sb.toString();
+                prefixVersion = version;
             }
-            return MessageFormat.format(template, (Object[]) params);
+            return prefix;
         }
 
     }
@@ -232,6 +245,49 @@ public class XLog implements Log {
 
     private static final int[] LOGGER_MASKS = {STD, OPS};
 
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    // same number formatting MessageFormat uses for number parameters
+    private static final ThreadLocal<NumberFormat> NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+        @Override
+        protected NumberFormat initialValue() {
+            return NumberFormat.getInstance();
+        }
+    };
+
+    private static volatile AsyncLogDispatcher asyncDispatcher;
+
+    /**
+     * Start writing log messages asynchronously. <p/> Messages are formatted by the logging thread and handed to a
+     * background thread through a bounded buffer, when the buffer is full messages are written by the logging thread.
+     *
+     * @param bufferSize maximum number of messages waiting to be written.
+     */
+    public static synchronized void startAsync(int bufferSize) {
+        stopAsync();
+        asyncDispatcher = new AsyncLogDispatcher(bufferSize);
+    }
+
+    /**
+     * Stop writing log messages asynchronously, messages waiting to be written are written before returning.
+     */
+    public static synchronized void stopAsync() {
+        AsyncLogDispatcher dispatcher = asyncDispatcher;
+        asyncDispatcher = null;
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    /**
+     * Return the dispatcher writing log messages asynchronously.
+     *
+     * @return the dispatcher, <code>null</code> if log messages are written synchronously.
+     */
+    public static AsyncLogDispatcher getAsyncDispatcher() {
+        return asyncDispatcher;
+    }
+
     //package private for testing purposes.
     Log[] loggers;
 
@@ -511,34 +567,48 @@ public class XLog implements Log {
             String msg = prefix + format(msgTemplate, params);
             Throwable throwable = getCause(params);
 
+            AsyncLogDispatcher dispatcher = asyncDispatcher;
             for (int i = 0; i < LOGGER_MASKS.length; i++) {
                 if (isEnabled(level, loggerMask & LOGGER_MASKS[i])) {
-                    Log log = loggers[i];
-                    switch (level) {
-                        case FATAL:
-                            log.fatal(msg, throwable);
-                            break;
-                        case ERROR:
-                            log.error(msg, throwable);
-                            break;
-                        case INFO:
-                            log.info(msg, throwable);
-                            break;
-                        case WARN:
-                            log.warn(msg, throwable);
-                            break;
-                        case DEBUG:
-                            log.debug(msg, throwable);
-                            break;
-                        case TRACE:
-                            log.trace(msg, throwable);
-                            break;
+                    if (dispatcher == null || !dispatcher.dispatch(loggers[i], level, msg, throwable)) {
+                        write(loggers[i], level, msg, throwable);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Write a message to a <code>Log</code>.
+     *
+     * @param log log to write to.
+     * @param level message level.
+     * @param msg message.
+     * @param throwable exception, it may be <code>null</code>.
+     */
+    static void write(Log log, Level level, String msg, Throwable throwable) {
+        switch (level) {
+            case FATAL:
+                log.fatal(msg, throwable);
+                break;
+            case ERROR:
+                log.error(msg, throwable);
+                break;
+            case INFO:
+                log.info(msg, throwable);
+                break;
+            case WARN:
+                log.warn(msg, throwable);
+                break;
+            case DEBUG:
+                log.debug(msg, throwable);
+                break;
+            case TRACE:
+                log.trace(msg, throwable);
+                break;
+        }
+    }
+
     /**
      * Log a fatal message <code>Exception</code> to the common <code>Log</code>.
      *
@@ -668,7 +738,9 @@ public class XLog implements Log {
     /**
      * Utility method that does uses the <code>StringFormat</code> to format the message template using the provided
      * parameters. <p/> In addition to the <code>StringFormat</code> syntax for message templates, it supports
-     * <code>{E}</code> for ENTER. <p/> The last parameter is ignored for the formatting if it is an Exception.
+     * <code>{E}</code> for ENTER. <p/> The last parameter is ignored for the formatting if it is an Exception. <p/>
+     * Templates using only <code>{#}</code> placeholders are formatted without <code>MessageFormat</code>, with the same
+     * result.
      *
      * @param msgTemplate message template.
      * @param params paramaters to use in the template. If the last parameter is an Exception, it is ignored.
@@ -676,13 +748,69 @@ public class XLog implements Log {
      */
     public static String format(String msgTemplate, Object... params) {
         ParamChecker.notEmpty(msgTemplate, "msgTemplate");
-        msgTemplate = msgTemplate.replace("{E}", System.getProperty("line.separator"));
+        if (msgTemplate.indexOf("{E}") > -1) {
+            msgTemplate = msgTemplate.replace("{E}", LINE_SEPARATOR);
+        }
         if (params != null && params.length > 0) {
-            msgTemplate = MessageFormat.format(msgTemplate, params);
+            String msg = fastFormat(msgTemplate, params);
+            msgTemplate = (msg != null) ? msg : MessageFormat.format(msgTemplate, params);
         }
         return msgTemplate;
     }
 
+    /**
+     * Format a message template with <code>{#}</code> placeholders only.
+     *
+     * @param msgTemplate message template.
+     * @param params parameters to use in the template.
+     * @return the formatted message, <code>null</code> if the template or the parameters require
+     *         <code>MessageFormat</code>.
+     */
+    private static String fastFormat(String msgTemplate, Object[] params) {
+        if (msgTemplate.indexOf('\'') > -1) {
+            return null;
+        }
+        int length = msgTemplate.length();
+        StringBuilder sb = new StringBuilder(length + 16 * params.length);
+        int start = 0;
+        int open = msgTemplate.indexOf('{');
+        while (open > -1) {
+            int close = open + 1;
+            int index = 0;
+            while (close < length && msgTemplate.charAt(close) >= '0' && msgTemplate.charAt(close) <= '9' &&
+                    close - open < 6) {
+                index = index * 10 + (msgTemplate.charAt(close) - '0');
+                close++;
+            }
+            if (close == open + 1 || close == length || msgTemplate.charAt(close) != '}') {
+                return null;
+            }
+            sb.append(msgTemplate, start, open);
+            if (index >= params.length) {
+                sb.append(msgTemplate, open, close + 1);
+            }
+            else {
+                Object param = params[index];
+                if (param == null || param instanceof String) {
+                    sb.append(param);
+                }
+                else if (param instanceof Number) {
+                    sb.append(NUMBER_FORMAT.get().format(param));
+                }
+                else if (param instanceof Date) {
+                    return null;
+                }
+                else {
+                    sb.append(param.toString());
+                }
+            }
+            start = close + 1;
+            open = msgTemplate.indexOf('{', start);
+        }
+        sb.append(msgTemplate, start, length);
+        return sb.toString();
+    }
+
     /**
      * Utility method that extracts the <code>Throwable</code>, if present, from the parameters.
      *
@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util.db;
+
+/**
+ * Datasource of the background connection pool, used by purge and by the recovery, action checker and
+ * materialization sweeps, it instruments its connections separately from the default pool.
+ */
+public class BackgroundInstrumentedBasicDataSource extends InstrumentedBasicDataSource {
+    public static final String INSTR_PREFIX = "background.";
+    public static final String INSTR_NAME = INSTR_PREFIX + InstrumentedBasicDataSource.INSTR_NAME;
+
+    public BackgroundInstrumentedBasicDataSource() {
+        super(INSTR_PREFIX);
+    }
+
+}
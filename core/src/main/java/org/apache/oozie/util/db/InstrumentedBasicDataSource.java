@@ -17,22 +17,123 @@ package org.apache.oozie.util.db;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.oozie.service.InstrumentationService;
 import org.apache.oozie.service.Services;
+import org.apache.oozie.service.StoreService;
 import org.apache.oozie.util.Instrumentation;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DBCP datasource that instruments its connection pool.
+ * <p/>
+ * It samples the active DB connections and records the time spent waiting to borrow a connection, the connections
+ * that could not be borrowed and, per {@link StoreService.Workload} name (the command or service using the
+ * connection), the time connections are held before being returned to the pool. The instrumentation names are
+ * prefixed with the pool name, the default pool has no prefix.
+ */
 public class InstrumentedBasicDataSource extends BasicDataSource {
     public static final String INSTR_GROUP = "jdbc";
     public static final String INSTR_NAME = "connections.active";
+    public static final String INSTR_WAIT = "connection.wait";
+    public static final String INSTR_BORROW_FAILURES = "connection.borrow.failures";
+    public static final String INSTR_HOLD = "connection.hold.";
+
+    private static final String UNKNOWN_HOLDER = "other";
+
+    private final String prefix;
+    private final Instrumentation instr;
 
     /**
-     * The created datasource instruments the active DB connections.
+     * The created datasource instruments the default connection pool.
      */
     public InstrumentedBasicDataSource() {
-        Instrumentation instr = Services.get().get(InstrumentationService.class).get();
-        instr.addSampler(INSTR_GROUP, INSTR_NAME, 60, 1, new Instrumentation.Variable<Long>() {
+        this("");
+    }
+
+    /**
+     * The created datasource instruments a connection pool under the given prefix.
+     *
+     * @param prefix prefix of the instrumentation names, the pool name followed by a dot.
+     */
+    protected InstrumentedBasicDataSource(String prefix) {
+        this.prefix = prefix;
+        instr = Services.get().get(InstrumentationService.class).get();
+        instr.addSampler(INSTR_GROUP, prefix + INSTR_NAME, 60, 1, new Instrumentation.Variable<Long>() {
             public Long getValue() {
                 return (long) getNumActive();
             }
         });
     }
 
+    /**
+     * Borrow a connection from the pool, the wait time and the borrow failures are instrumented.
+     * <p/>
+     * The returned connection instruments the time it is held when it is closed.
+     *
+     * @return a pooled connection.
+     * @throws SQLException thrown if a connection could not be borrowed.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Instrumentation.Cron cron = new Instrumentation.Cron();
+        cron.start();
+        Connection connection;
+        try {
+            connection = super.getConnection();
+        }
+        catch (SQLException ex) {
+            instr.incr(INSTR_GROUP, prefix + INSTR_BORROW_FAILURES, 1);
+            throw ex;
+        }
+        finally {
+            cron.stop();
+            instr.addCron(INSTR_GROUP, prefix + INSTR_WAIT, cron);
+        }
+        StoreService.Workload workload = StoreService.getWorkload();
+        String holder = (workload != null) ? workload.getName() : UNKNOWN_HOLDER;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class},
+                                                   new HoldTimer(connection, holder));
+    }
+
+    /**
+     * Delegates to the pooled connection, it instruments the hold time on the first close.
+     */
+    private class HoldTimer implements InvocationHandler {
+        private final Connection connection;
+        private final String holder;
+        private final Instrumentation.Cron cron = new Instrumentation.Cron();
+        private boolean closed;
+
+        private HoldTimer(Connection connection, String holder) {
+            this.connection = connection;
+            this.holder = holder;
+            cron.start();
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals") && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode") && args == null) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.equals("close") && !closed) {
+                closed = true;
+                cron.stop();
+                instr.addCron(INSTR_GROUP, prefix + INSTR_HOLD + holder, cron);
+            }
+            try {
+                return method.invoke(connection, args);
+            }
+            catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
 }
@@ -38,7 +38,7 @@ public class ForkNodeDef extends NodeDef {
         // the return list contains (parentExecutionPath/transition#transition)+
         public List<String> multiExit(Context context) {
             List<String> transitions = context.getNodeDef().getTransitions();
-            context.setVar(FORK_COUNT_PREFIX + context.getExecutionPath(), "" + transitions.size());
+            context.setForkCount(context.getExecutionPath(), transitions.size());
 
             List<String> fullTransitions = new ArrayList<String>(transitions.size());
 
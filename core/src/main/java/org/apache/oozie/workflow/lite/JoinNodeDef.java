@@ -39,11 +39,11 @@ public class JoinNodeDef extends NodeDef {
                 throw new WorkflowException(ErrorCode.E0709, context.getNodeDef().getName());
             }
             String parentExecutionPath = context.getParentExecutionPath(context.getExecutionPath());
-            String forkCount = context.getVar(ForkNodeDef.FORK_COUNT_PREFIX + parentExecutionPath);
-            if (forkCount == null) {
+            int forkCount = context.getForkCount(parentExecutionPath);
+            if (forkCount == -1) {
                 throw new WorkflowException(ErrorCode.E0720, context.getNodeDef().getName());
             }
-            int count = Integer.parseInt(forkCount) - 1;
+            int count = forkCount - 1;
             if (count == 0) {
                 context.setVar(flag, "true");
             }
@@ -51,18 +51,15 @@ public class JoinNodeDef extends NodeDef {
 
         public boolean enter(Context context) throws WorkflowException {
             String parentExecutionPath = context.getParentExecutionPath(context.getExecutionPath());
-            String forkCount = context.getVar(ForkNodeDef.FORK_COUNT_PREFIX + parentExecutionPath);
-            if (forkCount == null) {
+            int forkCount = context.getForkCount(parentExecutionPath);
+            if (forkCount == -1) {
                 throw new WorkflowException(ErrorCode.E0720, context.getNodeDef().getName());
             }
-            int count = Integer.parseInt(forkCount) - 1;
+            int count = forkCount - 1;
+            context.setForkCount(parentExecutionPath, count);
             if (count > 0) {
-                context.setVar(ForkNodeDef.FORK_COUNT_PREFIX + parentExecutionPath, "" + count);
                 context.deleteExecutionPath();
             }
-            else {
-                context.setVar(ForkNodeDef.FORK_COUNT_PREFIX + parentExecutionPath, null);
-            }
             return (count == 0);
         }
 
@@ -101,7 +101,7 @@ public class LiteWorkflowApp implements Writable, WorkflowApp {
         ParamChecker.notEmpty(name, "name");
         ParamChecker.notEmpty(transition, "transition");
         NodeDef node = getNode(name);
-        if (!node.getTransitions().contains(transition)) {
+        if (!node.hasTransition(transition)) {
             throw new IllegalArgumentException("invalid transition");
         }
     }
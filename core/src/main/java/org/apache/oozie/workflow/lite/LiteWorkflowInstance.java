@@ -35,6 +35,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -133,6 +134,28 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
             LiteWorkflowInstance.this.setVar(name, value);
         }
 
+        @Override
+        public int getForkCount(String forkExecutionPath) {
+            int[] count = forkCounts.get(forkExecutionPath);
+            return (count != null) ? count[0] : -1;
+        }
+
+        @Override
+        public void setForkCount(String forkExecutionPath, int count) {
+            if (count > 0) {
+                int[] current = forkCounts.get(forkExecutionPath);
+                if (current != null) {
+                    current[0] = count;
+                }
+                else {
+                    forkCounts.put(forkExecutionPath, new int[]{count});
+                }
+            }
+            else {
+                forkCounts.remove(forkExecutionPath);
+            }
+        }
+
         @Override
         public LiteWorkflowInstance getProcessInstance() {
             return LiteWorkflowInstance.this;
@@ -146,6 +169,8 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
     private Status status;
     private Map<String, NodeInstance> executionPaths = new HashMap<String, NodeInstance>();
     private Map<String, String> persistentVars = new HashMap<String, String>();
+    // pending branches of the forks by fork execution path, persisted as 'workflow.fork.' variables
+    private Map<String, int[]> forkCounts = new HashMap<String, int[]>();
     private Map<String, Object> transientVars = new HashMap<String, Object>();
 
     protected LiteWorkflowInstance() {
@@ -176,6 +201,24 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
     public synchronized boolean signal(String executionPath, String signalValue) throws WorkflowException {
         ParamChecker.notEmpty(executionPath, "executionPath");
         ParamChecker.notNull(signalValue, "signalValue");
+        // the execution paths started by the signal are signaled depth first and in transition order, iteratively,
+        // so wide forks and long chains of synchronous nodes do not recurse
+        LinkedList<String> pathsToSignal = new LinkedList<String>();
+        signalPath(executionPath, signalValue, pathsToSignal);
+        while (!pathsToSignal.isEmpty()) {
+            if (status != Status.RUNNING) {
+                // the job ended in a previous branch, the remaining branches cannot be signaled
+                terminate();
+                throw new WorkflowException(ErrorCode.E0716);
+            }
+            signalPath(pathsToSignal.removeFirst(), "::synch::", pathsToSignal);
+        }
+        terminate();
+        return status.isEndState();
+    }
+
+    private void signalPath(String executionPath, String signalValue, LinkedList<String> pathsToSignal)
+            throws WorkflowException {
         log.debug(XLog.STD, "Signaling job execution path [{0}] signal value [{1}]", executionPath, signalValue);
         if (status != Status.RUNNING) {
             throw new WorkflowException(ErrorCode.E0716);
@@ -279,15 +322,16 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
                                 }
 
                             }
-                            // signal all new synch transitions
-                            for (String pathToStart : pathsToStart) {
-                                signal(pathToStart, "::synch::");
-                            }
+                            // signal all new synch transitions, before the paths pending from previous nodes
+                            pathsToSignal.addAll(0, pathsToStart);
                         }
                     }
                 }
             }
         }
+    }
+
+    private void terminate() {
         if (status.isEndState()) {
             if (status == Status.FAILED) {
                 List<String> failedNodes = terminateNodes(status);
@@ -302,7 +346,6 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
                 }
             }
         }
-        return status.isEndState();
     }
 
     public synchronized void fail(String nodeName) throws WorkflowException {
@@ -542,11 +585,15 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
             dOut.writeUTF(entry.getValue().nodeName);
             dOut.writeBoolean(entry.getValue().started);
         }
-        dOut.writeInt(persistentVars.size());
+        dOut.writeInt(persistentVars.size() + forkCounts.size());
         for (Map.Entry<String, String> entry : persistentVars.entrySet()) {
             dOut.writeUTF(entry.getKey());
             dOut.writeUTF(entry.getValue());
         }
+        for (Map.Entry<String, int[]> entry : forkCounts.entrySet()) {
+            dOut.writeUTF(ForkNodeDef.FORK_COUNT_PREFIX + entry.getKey());
+            dOut.writeUTF(Integer.toString(entry.getValue()[0]));
+        }
     }
 
     @Override
@@ -576,7 +623,13 @@ public class LiteWorkflowInstance implements Writable, WorkflowInstance {
         for (int x = 0; x < numVars; x++) {
             String vName = dIn.readUTF();
             String vVal = dIn.readUTF();
-            persistentVars.put(vName, vVal);
+            if (vName.startsWith(ForkNodeDef.FORK_COUNT_PREFIX)) {
+                forkCounts.put(vName.substring(ForkNodeDef.FORK_COUNT_PREFIX.length()),
+                               new int[]{Integer.parseInt(vVal)});
+            }
+            else {
+                persistentVars.put(vName, vVal);
+            }
         }
         refreshLog();
     }
@@ -22,7 +22,9 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 //TODO javadoc
 public class NodeDef implements Writable {
@@ -30,6 +32,7 @@ public class NodeDef implements Writable {
     private Class<? extends NodeHandler> handlerClass;
     private String conf;
     private List<String> transitions = new ArrayList<String>();
+    private Set<String> transitionSet = Collections.emptySet();
 
     NodeDef() {
     }
@@ -39,6 +42,7 @@ public class NodeDef implements Writable {
         this.conf = conf;
         this.handlerClass = ParamChecker.notNull(handlerClass, "handlerClass");
         this.transitions = Collections.unmodifiableList(ParamChecker.notEmptyElements(transitions, "transitions"));
+        transitionSet = new HashSet<String>(this.transitions);
     }
 
     public boolean equals(NodeDef other) {
@@ -61,6 +65,17 @@ public class NodeDef implements Writable {
         return transitions;
     }
 
+    /**
+     * Return if the node has a transition, in constant time regardless of the number of transitions (fork nodes can
+     * have hundreds).
+     *
+     * @param transition transition name.
+     * @return <code>true</code> if the node has the transition.
+     */
+    public boolean hasTransition(String transition) {
+        return transitionSet.contains(transition);
+    }
+
     public String getConf() {
         return conf;
     }
@@ -87,6 +102,7 @@ public class NodeDef implements Writable {
         for (int i = 0; i < numTrans; i++) {
             transitions.add(dataInput.readUTF());
         }
+        transitionSet = new HashSet<String>(transitions);
     }
 
     @Override
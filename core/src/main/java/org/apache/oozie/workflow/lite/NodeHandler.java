@@ -42,6 +42,12 @@ public abstract class NodeHandler {
 
         public Object getTransientVar(String name);
 
+        //number of branches of the fork at the execution path that have not reached the join, -1 if none
+        public int getForkCount(String forkExecutionPath);
+
+        //a count of zero or less removes the fork count
+        public void setForkCount(String forkExecutionPath, int count);
+
         public String createExecutionPath(String name);
 
         //can be called only from exit(), creation of execPaths is automatic
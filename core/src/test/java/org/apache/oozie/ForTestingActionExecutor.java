@@ -55,6 +55,14 @@ public class ForTestingActionExecutor extends ActionExecutor {
         if ("start.error".equals(error)) {
             throw new ActionExecutorException(ActionExecutorException.ErrorType.ERROR, TEST_ERROR, "start");
         }
+        if ("start.sleep".equals(error)) {
+            try {
+                Thread.sleep(3000);
+            }
+            catch (InterruptedException ex) {
+                throw new ActionExecutorException(ActionExecutorException.ErrorType.TRANSIENT, TEST_ERROR, "start");
+            }
+        }
         String externalStatus = eConf.getChild("external-status", ns).getText().trim();
 
         String runningMode = "sync";
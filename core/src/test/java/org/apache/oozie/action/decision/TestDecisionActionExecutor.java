@@ -132,6 +132,7 @@ public class TestDecisionActionExecutor extends XFsTestCase {
         ActionExecutor decision = new DecisionActionExecutor();
 
         assertEquals(DecisionActionExecutor.ACTION_TYPE, decision.getType());
+        assertTrue(decision.isInline());
 
         WorkflowActionBean action = new WorkflowActionBean();
         action.setConf("<switch xmlns='uri:oozie:workflow:0.1'>" +
@@ -38,6 +38,7 @@ public class TestFsActionExecutor extends ActionExecutorTestCase {
     public void testSetupMethods() throws Exception {
         FsActionExecutor ae = new FsActionExecutor();
         assertEquals("fs", ae.getType());
+        assertFalse(ae.isInline());
     }
 
     private Context createContext(String actionXml) throws Exception {
@@ -28,6 +28,8 @@ import org.apache.oozie.action.ActionExecutor;
 import org.apache.oozie.action.ActionExecutorException;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.service.LauncherCacheService;
+import org.apache.oozie.service.Services;
 import org.apache.oozie.service.WorkflowAppService;
 import org.apache.oozie.util.XConfiguration;
 import org.apache.oozie.util.XmlUtils;
@@ -57,6 +59,36 @@ public class TestJavaActionExecutor extends ActionExecutorTestCase {
         assertTrue(new File(jar.toString()).exists());
     }
 
+    public void testActionDefinitionCache() throws Exception {
+        String actionXml = "<java>" + "<job-tracker>" + getJobTrackerUri() + "</job-tracker>" +
+                "<name-node>" + getNameNodeUri() + "</name-node>" + "<configuration>" +
+                "<property><name>oozie.launcher.a</name><value>LA</value></property>" +
+                "<property><name>b</name><value>B</value></property>" +
+                "</configuration>" + "<main-class>MAIN-CLASS</main-class>" + "</java>";
+        WorkflowActionBean action = new WorkflowActionBean();
+        action.setConf(actionXml);
+
+        JavaActionExecutor ae = new JavaActionExecutor();
+        Element element = ae.parseActionXml(action);
+        assertSame(element, ae.parseActionXml(action));
+
+        // the definition is shared by executors, across commands
+        WorkflowActionBean retry = new WorkflowActionBean();
+        retry.setConf(new String(actionXml));
+        assertSame(element, new JavaActionExecutor().parseActionXml(retry));
+
+        WorkflowActionBean other = new WorkflowActionBean();
+        other.setConf(actionXml.replace("MAIN-CLASS", "OTHER-CLASS"));
+        assertNotSame(element, ae.parseActionXml(other));
+        assertSame(element, ae.parseActionXml(action));
+
+        Configuration conf = new XConfiguration();
+        ae.setupLauncherConf(conf, ae.parseActionXml(action), getFsTestCaseDir(), null);
+        assertEquals("LA", conf.get("oozie.launcher.a"));
+        assertEquals("LA", conf.get("a"));
+        assertNull(conf.get("b"));
+    }
+
     public void testSetupMethods() throws Exception {
         JavaActionExecutor ae = new JavaActionExecutor();
 
@@ -188,13 +220,15 @@ public class TestJavaActionExecutor extends ActionExecutorTestCase {
         ae.addToCache(conf, appPath, appSoPath.toString(), false);
         assertTrue(conf.get("mapred.cache.files").contains(appSoPath.toUri().getPath()));
 
-        assertTrue(ae.getOozieLauncherJar(context).startsWith(context.getActionDir().toString()));
-        assertTrue(ae.getOozieLauncherJar(context).endsWith(ae.getLauncherJarName()));
+        String launcherJar = ae.getOozieLauncherJar(context);
+        assertTrue(launcherJar.startsWith(Services.get().getConf().get(LauncherCacheService.CONF_DIR)));
+        assertTrue(launcherJar.endsWith(ae.getLauncherJarName()));
 
         assertFalse(getFileSystem().exists(context.getActionDir()));
         ae.prepareActionDir(getFileSystem(), context);
         assertTrue(getFileSystem().exists(context.getActionDir()));
-        assertTrue(getFileSystem().exists(new Path(context.getActionDir(), ae.getLauncherJarName())));
+        assertFalse(getFileSystem().exists(new Path(context.getActionDir(), ae.getLauncherJarName())));
+        assertTrue(getFileSystem().exists(new Path(launcherJar)));
 
         ae.cleanUpActionDir(getFileSystem(), context);
         assertFalse(getFileSystem().exists(context.getActionDir()));
@@ -18,10 +18,17 @@ import org.apache.oozie.service.CallbackService;
 
 import org.apache.oozie.util.PropertiesUtils;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -354,6 +361,121 @@ public class TestSshActionExecutor extends XFsTestCase {
         }
     }
 
+    private static String startProcess(String command) throws Exception {
+        Process process = Runtime.getRuntime().exec(new String[]{"sh", "-c", command + " > /dev/null 2>&1 & echo $!"});
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String pid = reader.readLine().trim();
+        reader.close();
+        process.waitFor();
+        return pid;
+    }
+
+    private static int countLines(File file, String text) throws Exception {
+        int count = 0;
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.contains(text)) {
+                count++;
+            }
+        }
+        reader.close();
+        return count;
+    }
+
+    // fake ssh, runs the remote command locally and logs its invocations
+    private File initFakeSsh() throws Exception {
+        File log = new File(getTestCaseDir(), "ssh.log");
+        File fakeSsh = new File(getTestCaseDir(), "fake-ssh.sh");
+        Writer writer = new FileWriter(fakeSsh);
+        writer.write("#!/bin/sh\n" +
+                     "echo \"$*\" >> " + log.getAbsolutePath() + "\n" +
+                     "while [ \"$1\" = \"-o\" ]; do shift 2; done\n" +
+                     "shift\n" +
+                     "exec sh -c \"$*\"\n");
+        writer.close();
+        fakeSsh.setExecutable(true);
+        services.destroy();
+        setSystemProperty(SshActionExecutor.CONF_SSH_COMMAND, fakeSsh.getAbsolutePath());
+        services = new Services();
+        services.init();
+        return log;
+    }
+
+    public void testMultiplexingOptions() throws Exception {
+        setSystemProperty(SshActionExecutor.CONF_MULTIPLEXING, "true");
+        File log = initFakeSsh();
+
+        XConfiguration protoConf = new XConfiguration();
+        protoConf.setStrings(WorkflowAppService.HADOOP_USER, getTestUser());
+        WorkflowJobBean workflow = new WorkflowJobBean();
+        workflow.setProtoActionConf(protoConf.toXmlString());
+        workflow.setId(Services.get().get(UUIDService.class).generateId(ApplicationType.WORKFLOW));
+
+        WorkflowActionBean action = new WorkflowActionBean();
+        action.setId("running");
+        action.setName("running");
+        action.setConf("<ssh xmlns='uri:oozie-workflow:0.1'><host>localhost</host><command>echo</command></ssh>");
+        action.setStartData(startProcess("sleep 60"), getTestUser() + "@localhost", "localhost");
+        Context context = new Context(workflow, action);
+
+        SshActionExecutor ssh = new SshActionExecutor();
+        ssh.kill(context, action);
+        assertEquals(Status.KILLED, action.getStatus());
+
+        // the control socket is named with the hash of the USER@HOST, not with the user and host names
+        String controlDir = Services.get().getRuntimeDir() + "/ssh/ctl/";
+        BufferedReader reader = new BufferedReader(new FileReader(log));
+        String line = reader.readLine();
+        reader.close();
+        assertTrue(line, line.matches(".*-o ControlPath=" + Pattern.quote(controlDir) + "[0-9a-f]{32} -o ControlPersist=300 .*"));
+    }
+
+    public void testBatchedStatus() throws Exception {
+        File log = initFakeSsh();
+
+        XConfiguration protoConf = new XConfiguration();
+        protoConf.setStrings(WorkflowAppService.HADOOP_USER, getTestUser());
+        WorkflowJobBean workflow = new WorkflowJobBean();
+        workflow.setProtoActionConf(protoConf.toXmlString());
+        workflow.setId(Services.get().get(UUIDService.class).generateId(ApplicationType.WORKFLOW));
+
+        String conf = "<ssh xmlns='uri:oozie-workflow:0.1'><host>localhost</host><command>echo</command></ssh>";
+        WorkflowActionBean running = new WorkflowActionBean();
+        running.setId("running");
+        running.setName("running");
+        running.setConf(conf);
+        running.setStartData(startProcess("sleep 60"), getTestUser() + "@localhost", "localhost");
+        Context runningContext = new Context(workflow, running);
+
+        WorkflowActionBean done = new WorkflowActionBean();
+        done.setId("done");
+        done.setName("done");
+        done.setConf(conf);
+        done.setStartData(startProcess("true"), getTestUser() + "@localhost", "localhost");
+        Context doneContext = new Context(workflow, done);
+        Thread.sleep(500);
+
+        SshActionExecutor ssh = new SshActionExecutor();
+        ssh.check(runningContext, running);
+        assertEquals(Status.RUNNING.toString(), running.getExternalStatus());
+        assertEquals(1, countLines(log, "for e in"));
+
+        // the probe for the second action checks both actions
+        ssh.check(doneContext, done);
+        assertEquals(Status.DONE, done.getStatus());
+        assertEquals(Status.OK.toString(), done.getExternalStatus());
+        assertEquals(2, countLines(log, "for e in"));
+
+        // the status of the first action comes from the previous probe
+        ssh.check(runningContext, running);
+        assertEquals(Status.RUNNING.toString(), running.getExternalStatus());
+        assertEquals(2, countLines(log, "for e in"));
+
+        ssh.kill(runningContext, running);
+        assertEquals(Status.KILLED, running.getStatus());
+    }
+
     protected void tearDown() throws Exception {
         services.destroy();
         super.tearDown();
@@ -15,6 +15,7 @@
 package org.apache.oozie.client;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
 
@@ -22,11 +23,14 @@ import org.apache.hadoop.fs.Path;
 import org.apache.oozie.BuildInfo;
 import org.apache.oozie.client.OozieClient.SYSTEM_MODE;
 import org.apache.oozie.client.rest.RestConstants;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.Services;
 import org.apache.oozie.servlet.DagServletTestCase;
 import org.apache.oozie.servlet.MockDagEngineService;
 import org.apache.oozie.servlet.V0JobServlet;
 import org.apache.oozie.servlet.V0JobsServlet;
 import org.apache.oozie.servlet.V1AdminServlet;
+import org.apache.oozie.util.Instrumentation;
 
 public class TestWorkflowClient extends DagServletTestCase {
 
@@ -69,6 +73,7 @@ public class TestWorkflowClient extends DagServletTestCase {
                 wc.validateWSVersion();
                 assertTrue(HeaderTestingVersionServlet.OOZIE_HEADERS.containsKey("header"));
                 assertTrue(HeaderTestingVersionServlet.OOZIE_HEADERS.containsValue("test"));
+                assertTrue(HeaderTestingVersionServlet.OOZIE_HEADERS.containsValue("gzip, deflate"));
                 return null;
             }
         });
@@ -227,6 +232,40 @@ public class TestWorkflowClient extends DagServletTestCase {
         });
     }
 
+    public void testJobStatusRevalidation() throws Exception {
+        runTest(END_POINTS, SERVLET_CLASSES, IS_SECURITY_ENABLED, new Callable<Void>() {
+            public Void call() throws Exception {
+                String oozieUrl = getContextURL();
+                OozieClient wc = new OozieClient(oozieUrl);
+                WorkflowJob wf = wc.getJobInfo(MockDagEngineService.JOB_ID + 1);
+                assertEquals(MockDagEngineService.JOB_ID + 1, wf.getId());
+
+                // second request is conditional, the server answers not modified and the kept response is used
+                long notModified = getNotModifiedCount();
+                wf = wc.getJobInfo(MockDagEngineService.JOB_ID + 1);
+                assertEquals(MockDagEngineService.JOB_ID + 1, wf.getId());
+                assertEquals(notModified + 1, getNotModifiedCount());
+
+                // responses kept for other request headers (i.e. other users) are not used
+                wc.setHeader("x-test-user", "other");
+                wf = wc.getJobInfo(MockDagEngineService.JOB_ID + 1);
+                assertEquals(MockDagEngineService.JOB_ID + 1, wf.getId());
+                assertEquals(notModified + 1, getNotModifiedCount());
+                wf = wc.getJobInfo(MockDagEngineService.JOB_ID + 1);
+                assertEquals(MockDagEngineService.JOB_ID + 1, wf.getId());
+                assertEquals(notModified + 2, getNotModifiedCount());
+                return null;
+            }
+        });
+    }
+
+    private long getNotModifiedCount() {
+        Map<String, Instrumentation.Element<Long>> counters =
+                Services.get().get(InstrumentationService.class).get().getCounters().get("webservices");
+        Instrumentation.Element<Long> counter = (counters != null) ? counters.get("not-modified") : null;
+        return (counter != null) ? counter.getValue() : 0;
+    }
+
     public void testJobsStatus() throws Exception {
         runTest(END_POINTS, SERVLET_CLASSES, IS_SECURITY_ENABLED, new Callable<Void>() {
             public Void call() throws Exception {
@@ -16,6 +16,8 @@ package org.apache.oozie.client;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.Callable;
 
@@ -92,4 +94,34 @@ public class TestWorkflowXClient extends DagServletTestCase {
             }
         });
     }
+
+    public void testJobsInfoForIds() throws Exception {
+        runTest(END_POINTS, SERVLET_CLASSES, IS_SECURITY_ENABLED, new Callable<Void>() {
+            public Void call() throws Exception {
+                String oozieUrl = getContextURL();
+                OozieClient wc = new OozieClient(oozieUrl);
+                List<String> ids = new ArrayList<String>();
+                for (int i = 0; i < 2 * OozieClient.JOBS_INFO_BATCH_SIZE + 10; i++) {
+                    ids.add(MockDagEngineService.JOB_ID + (i % MockDagEngineService.INIT_WF_COUNT)
+                            + MockDagEngineService.JOB_ID_END);
+                }
+
+                // the IDs are sent in batches, the results of the batches are merged
+                JobsInfo info = wc.getJobsInfoForIds(ids);
+                assertEquals(3, MockDagEngineService.jobsInfoCalls);
+                assertEquals(ids.size(), info.getWorkflowJobs().size());
+                for (int i = 0; i < ids.size(); i++) {
+                    assertEquals(MockDagEngineService.JOB_ID + (i % MockDagEngineService.INIT_WF_COUNT),
+                                 info.getWorkflowJobs().get(i).getId());
+                }
+                assertTrue(info.getWatchTime() <= System.currentTimeMillis());
+
+                MockDagEngineService.reset();
+                info = wc.watchJobs(ids.subList(0, OozieClient.JOBS_INFO_BATCH_SIZE), info.getWatchTime());
+                assertEquals(1, MockDagEngineService.jobsInfoCalls);
+                assertEquals(0, info.getWorkflowJobs().size());
+                return null;
+            }
+        });
+    }
 }
@@ -18,8 +18,11 @@ import org.apache.oozie.store.StoreException;
 import org.apache.oozie.store.WorkflowStore;
 import org.apache.oozie.store.Store;
 import org.apache.oozie.service.DagXLogInfoService;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.MemoryLocksService;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.MemoryLocks;
 import org.apache.oozie.util.XCallable;
 import org.apache.oozie.util.XLog;
 import org.apache.oozie.ErrorCode;
@@ -59,6 +62,11 @@ public class TestCommand extends XTestCase {
             return 1;
         }
 
+        @Override
+        public String getKey() {
+            return null;
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
@@ -111,6 +119,82 @@ public class TestCommand extends XTestCase {
         }
     }
 
+    private static class MyInlineCommand extends Command<Object, WorkflowStore> {
+        private WorkflowStore store;
+
+        public MyInlineCommand() {
+            super("inner", "inner", 1, XLog.OPS);
+        }
+
+        protected Object call(WorkflowStore store) throws StoreException, CommandException {
+            this.store = store;
+            queueCallable(new DummyXCallable("inner"));
+            return null;
+        }
+
+        @Override
+        protected Object execute(WorkflowStore store) throws StoreException, CommandException {
+            try {
+                assertTrue(lock("inline"));
+            }
+            catch (InterruptedException ex) {
+                throw new CommandException(ErrorCode.E0800, ex);
+            }
+            return call(store);
+        }
+
+        public Class<? extends Store> getStoreClass() {
+            return WorkflowStore.class;
+        }
+    }
+
+    private static class MyOuterCommand extends Command<Object, WorkflowStore> {
+        private MyInlineCommand inner = new MyInlineCommand();
+
+        public MyOuterCommand() {
+            super("outer", "outer", 1, XLog.OPS);
+        }
+
+        protected Object call(WorkflowStore store) throws StoreException, CommandException {
+            queueCallable(new DummyXCallable("outer"));
+            executeInline(inner, store);
+            assertSame(store, inner.store);
+            assertTrue(EXECUTED.isEmpty());
+            assertTrue(isUnlocked("inline"));
+            return null;
+        }
+
+        public Class<? extends Store> getStoreClass() {
+            return WorkflowStore.class;
+        }
+    }
+
+    private static boolean isUnlocked(final String resource) {
+        final boolean[] unlocked = new boolean[1];
+        Thread thread = new Thread() {
+            public void run() {
+                try {
+                    MemoryLocks.LockToken token = Services.get().get(MemoryLocksService.class).getWriteLock(resource, 0);
+                    if (token != null) {
+                        unlocked[0] = true;
+                        token.release();
+                    }
+                }
+                catch (InterruptedException ex) {
+                    //nop
+                }
+            }
+        };
+        thread.start();
+        try {
+            thread.join();
+        }
+        catch (InterruptedException ex) {
+            //nop
+        }
+        return unlocked[0];
+    }
+
     public void testDagCommand() throws Exception {
         Services services = new Services();
         services.init();
@@ -168,6 +252,26 @@ public class TestCommand extends XTestCase {
         services.destroy();
     }
 
+    public void testExecuteInline() throws Exception {
+        Services services = new Services();
+        services.init();
+        EXECUTED.clear();
+
+        new MyOuterCommand().call();
+
+        waitFor(2000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return EXECUTED.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList("outer", "inner"), EXECUTED);
+        assertTrue(services.get(InstrumentationService.class).get().getTimers().get("commands")
+                .containsKey("inner.inline"));
+        EXECUTED.clear();
+
+        services.destroy();
+    }
+
     /**
      * Return the public interface of the Workflow Store.
      *
@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.command.wf;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.DagEngine;
+import org.apache.oozie.ForTestingActionExecutor;
+import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.service.ActionExecutorPoolService;
+import org.apache.oozie.service.ActionService;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.MemoryLocksService;
+import org.apache.oozie.service.SchemaService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.MemoryLocks;
+import org.apache.oozie.util.XConfiguration;
+
+/**
+ * Test cases for action commands whose action executor operations run in the action executor pool.
+ */
+public class TestAsyncActionCommands extends XTestCase {
+
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setSystemProperty(SchemaService.WF_CONF_EXT_SCHEMAS, "wf-ext-schema.xsd");
+        setSystemProperty(ActionExecutorPoolService.CONF_ACTION_TYPES, "test");
+        init();
+        cleanUpDBTables();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private void init() throws Exception {
+        services = new Services();
+        services.init();
+        services.get(ActionService.class).register(ForTestingActionExecutor.class);
+    }
+
+    private String submit(DagEngine engine, String error) throws Exception {
+        Reader reader = IOUtils.getResourceAsReader("wf-ext-schema-valid.xml", -1);
+        Writer writer = new FileWriter(getTestCaseDir() + "/workflow.xml");
+        IOUtils.copyCharStream(reader, writer);
+
+        Configuration conf = new XConfiguration();
+        conf.set(OozieClient.APP_PATH, getTestCaseDir() + File.separator + "workflow.xml");
+        conf.set(OozieClient.USER_NAME, getTestUser());
+        conf.set(OozieClient.GROUP_NAME, getTestGroup());
+        injectKerberosInfo(conf);
+        conf.set(OozieClient.LOG_TOKEN, "t");
+        conf.set("signal-value", "OK");
+        conf.set("external-status", "ok");
+        conf.set("error", error);
+        conf.setInt(OozieClient.ACTION_MAX_RETRIES, 0);
+        return engine.submitJob(conf, true);
+    }
+
+    private long getSubmittedCount() {
+        Map<String, Instrumentation.Element<Long>> counters =
+                services.get(InstrumentationService.class).get().getCounters().get("actionexecutorpool");
+        Instrumentation.Element<Long> counter = (counters != null) ? counters.get("test#submitted") : null;
+        return (counter != null) ? counter.getValue() : 0;
+    }
+
+    private void waitForStatus(final DagEngine engine, final String jobId, final WorkflowJob.Status status,
+                               int timeout) throws Exception {
+        waitFor(timeout, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return engine.getJob(jobId).getStatus() == status;
+            }
+        });
+        assertEquals(status, engine.getJob(jobId).getStatus());
+    }
+
+    /**
+     * Tests that the continuation commands apply the start and end results of the operations run in the pool.
+     */
+    public void testAsyncOperations() throws Exception {
+        DagEngine engine = new DagEngine("u", "a");
+        String jobId = submit(engine, "none");
+        waitForStatus(engine, jobId, WorkflowJob.Status.SUCCEEDED, 10000);
+
+        WorkflowActionBean action = (WorkflowActionBean) engine.getJob(jobId).getActions().get(0);
+        assertEquals(WorkflowActionBean.Status.OK, action.getStatus());
+        assertEquals("ok", action.getExternalStatus());
+        assertFalse(action.isPending());
+        assertEquals(2, getSubmittedCount());
+    }
+
+    /**
+     * Tests that the continuation command handles the error thrown by the operation run in the pool.
+     */
+    public void testAsyncOperationError() throws Exception {
+        DagEngine engine = new DagEngine("u", "a");
+        String jobId = submit(engine, "start.non-transient");
+        waitForStatus(engine, jobId, WorkflowJob.Status.SUSPENDED, 10000);
+
+        WorkflowActionBean action = (WorkflowActionBean) engine.getJob(jobId).getActions().get(0);
+        assertEquals(WorkflowActionBean.Status.START_MANUAL, action.getStatus());
+        assertEquals(ForTestingActionExecutor.TEST_ERROR, action.getErrorCode());
+        assertEquals("start", action.getErrorMessage());
+    }
+
+    /**
+     * Tests that an operation timing out is handled as a transient error.
+     */
+    public void testAsyncOperationTimeout() throws Exception {
+        services.destroy();
+        setSystemProperty(ActionExecutorPoolService.CONF_TIMEOUT, "1");
+        init();
+
+        DagEngine engine = new DagEngine("u", "a");
+        String jobId = submit(engine, "start.sleep");
+        waitForStatus(engine, jobId, WorkflowJob.Status.SUSPENDED, 10000);
+
+        WorkflowActionBean action = (WorkflowActionBean) engine.getJob(jobId).getActions().get(0);
+        assertEquals(WorkflowActionBean.Status.START_MANUAL, action.getStatus());
+        assertEquals(ActionCommand.EXECUTOR_TIMEOUT, action.getErrorCode());
+    }
+
+    /**
+     * Tests that the action is persisted as in flight while its start operation runs in the pool, it is not recovered
+     * before the operation timeout.
+     */
+    public void testInFlightMarker() throws Exception {
+        DagEngine engine = new DagEngine("u", "a");
+        final String jobId = submit(engine, "start.sleep");
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return getSubmittedCount() == 1;
+            }
+        });
+        Thread.sleep(500);
+
+        WorkflowActionBean action = (WorkflowActionBean) engine.getJob(jobId).getActions().get(0);
+        assertEquals(WorkflowActionBean.Status.PREP, action.getStatus());
+        assertTrue(action.isPending());
+        assertTrue(action.getPendingAge().getTime() > System.currentTimeMillis() + 60 * 1000);
+
+        waitForStatus(engine, jobId, WorkflowJob.Status.SUCCEEDED, 15000);
+    }
+
+    /**
+     * Tests that a continuation command that could not lock the job is queued again with the operation result, the
+     * operation is not run again.
+     */
+    public void testContinuationLockFailure() throws Exception {
+        DagEngine engine = new DagEngine("u", "a");
+        String jobId = submit(engine, "start.sleep");
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return getSubmittedCount() == 1;
+            }
+        });
+
+        // the continuation of the start operation runs while the job is locked
+        MemoryLocks.LockToken lock = services.get(MemoryLocksService.class).getWriteLock(jobId, 5000);
+        assertNotNull(lock);
+        try {
+            Thread.sleep(5000);
+            assertEquals(WorkflowJob.Status.RUNNING, engine.getJob(jobId).getStatus());
+            assertEquals(1, getSubmittedCount());
+        }
+        finally {
+            lock.release();
+        }
+
+        waitForStatus(engine, jobId, WorkflowJob.Status.SUCCEEDED, 45000);
+        assertEquals(2, getSubmittedCount());
+    }
+
+    /**
+     * Tests that the result of an operation completing while the job is suspended is discarded, the operation is run
+     * again when the job is resumed.
+     */
+    public void testContinuationJobSuspended() throws Exception {
+        DagEngine engine = new DagEngine("u", "a");
+        String jobId = submit(engine, "start.sleep");
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return getSubmittedCount() == 1;
+            }
+        });
+        engine.suspend(jobId);
+        Thread.sleep(5000);
+
+        WorkflowActionBean action = (WorkflowActionBean) engine.getJob(jobId).getActions().get(0);
+        assertEquals(WorkflowActionBean.Status.PREP, action.getStatus());
+        assertTrue(action.isPending());
+
+        engine.resume(jobId);
+        waitForStatus(engine, jobId, WorkflowJob.Status.SUCCEEDED, 15000);
+        assertEquals(3, getSubmittedCount());
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.command.wf;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.DagEngine;
+import org.apache.oozie.ForTestingActionExecutor;
+import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.client.WorkflowAction;
+import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.service.ActionService;
+import org.apache.oozie.service.InstrumentationService;
+import org.apache.oozie.service.SchemaService;
+import org.apache.oozie.service.Services;
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.XConfiguration;
+
+/**
+ * Test cases for the inline execution of the commands of synchronous actions and the queuing of the action starts by
+ * the signal command.
+ */
+public class TestSignalCommand extends XTestCase {
+
+    private Services services;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (services != null) {
+            services.destroy();
+        }
+        super.tearDown();
+    }
+
+    private void init() throws Exception {
+        services = new Services();
+        services.init();
+        cleanUpDBTables();
+    }
+
+    private String submit(DagEngine engine, String workflowXml) throws Exception {
+        Reader reader = IOUtils.getResourceAsReader(workflowXml, -1);
+        Writer writer = new FileWriter(getTestCaseDir() + "/workflow.xml");
+        IOUtils.copyCharStream(reader, writer);
+
+        Configuration conf = new XConfiguration();
+        conf.set(OozieClient.APP_PATH, getTestCaseDir() + File.separator + "workflow.xml");
+        conf.set(OozieClient.USER_NAME, getTestUser());
+        conf.set(OozieClient.GROUP_NAME, getTestGroup());
+        injectKerberosInfo(conf);
+        conf.set(OozieClient.LOG_TOKEN, "t");
+        return engine.submitJob(conf, true);
+    }
+
+    private long getInlineTicks(String command) {
+        Map<String, Instrumentation.Element<Instrumentation.Timer>> timers =
+                services.get(InstrumentationService.class).get().getTimers().get("commands");
+        Instrumentation.Element<Instrumentation.Timer> timer = (timers != null) ? timers.get(command + ".inline") : null;
+        return (timer != null) ? timer.getValue().getTicks() : 0;
+    }
+
+    private long getQueuedBatches() {
+        Map<String, Instrumentation.Element<Long>> counters =
+                services.get(InstrumentationService.class).get().getCounters().get("callablequeue");
+        Instrumentation.Element<Long> counter = (counters != null) ? counters.get("queued.batches") : null;
+        return (counter != null) ? counter.getValue() : 0;
+    }
+
+    private void runDecisions() throws Exception {
+        final DagEngine engine = new DagEngine("u", "a");
+        final String jobId = submit(engine, "wf-decisions.xml");
+        waitFor(10000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return engine.getJob(jobId).getStatus() == WorkflowJob.Status.SUCCEEDED;
+            }
+        });
+        WorkflowJob job = engine.getJob(jobId);
+        assertEquals(WorkflowJob.Status.SUCCEEDED, job.getStatus());
+        assertEquals(2, job.getActions().size());
+        for (WorkflowAction action : job.getActions()) {
+            assertEquals(WorkflowAction.Status.OK, action.getStatus());
+        }
+    }
+
+    /**
+     * Tests that the start and end of the decision actions are executed inline by the signal command.
+     */
+    public void testInlineDecisions() throws Exception {
+        init();
+        runDecisions();
+        assertEquals(2, getInlineTicks("action.start"));
+        assertEquals(2, getInlineTicks("action.end"));
+        assertTrue(getInlineTicks("signal") > 0);
+    }
+
+    /**
+     * Tests that no command is executed inline when the inline steps are set to zero.
+     */
+    public void testInlineDisabled() throws Exception {
+        setSystemProperty(SignalCommand.CONF_INLINE_STEPS, "0");
+        init();
+        runDecisions();
+        assertEquals(0, getInlineTicks("action.start"));
+        assertEquals(0, getInlineTicks("action.end"));
+        assertEquals(0, getInlineTicks("signal"));
+    }
+
+    /**
+     * Tests that the starts of the branches of a fork are queued in batches of the configured size.
+     */
+    public void testForkStartBatches() throws Exception {
+        setSystemProperty(SchemaService.WF_CONF_EXT_SCHEMAS, "wf-ext-schema.xsd");
+        setSystemProperty(SignalCommand.CONF_START_BATCH_SIZE, "2");
+        init();
+        services.get(ActionService.class).register(ForTestingActionExecutor.class);
+
+        final DagEngine engine = new DagEngine("u", "a");
+        final String jobId = submit(engine, "wf-fork.xml");
+        waitFor(10000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return engine.getJob(jobId).getStatus() == WorkflowJob.Status.SUCCEEDED;
+            }
+        });
+        WorkflowJob job = engine.getJob(jobId);
+        assertEquals(WorkflowJob.Status.SUCCEEDED, job.getStatus());
+        int started = 0;
+        for (WorkflowAction action : job.getActions()) {
+            if (action.getType().equals("test")) {
+                assertEquals(WorkflowAction.Status.OK, action.getStatus());
+                started++;
+            }
+        }
+        assertEquals(3, started);
+        assertEquals(2, getQueuedBatches());
+    }
+
+}
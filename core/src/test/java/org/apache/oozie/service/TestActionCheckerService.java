@@ -21,6 +21,7 @@ import java.io.Reader;
 import java.io.Writer;
 import java.util.List;
 import java.util.Date;
+import java.util.Map;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.client.CoordinatorAction;
@@ -32,8 +33,10 @@ import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorEngine;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.WorkflowActionStatsBean;
 import org.apache.oozie.DagEngine;
 import org.apache.oozie.ForTestingActionExecutor;
+import org.apache.oozie.command.wf.ActionDurationCommand;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.service.ActionCheckerService.ActionCheckRunnable;
 import org.apache.oozie.store.CoordinatorStore;
@@ -65,6 +68,7 @@ public class TestActionCheckerService extends XTestCase {
     protected void setUp() throws Exception {
         super.setUp();
         setSystemProperty(SchemaService.WF_CONF_EXT_SCHEMAS, "wf-ext-schema.xsd");
+        setSystemProperty(ActionCheckerService.CONF_ACTION_CHECK_ADAPTIVE, "true");
         services = new Services();
         services.init();
         cleanUpDBTables();
@@ -200,6 +204,152 @@ public class TestActionCheckerService extends XTestCase {
         assertEquals(WorkflowJob.Status.RUNNING, engine.getJob(jobId).getStatus());
     }
 
+    /**
+     * Tests the adaptive check functionality of the Action Check Service Runnable. </p> Starts an action which behaves
+     * like an Async Action, adds a runtime history of one hour for the action and sets its last check time older than
+     * the fixed delay. Verifies the action is not checked far from its expected end.
+     *
+     * @throws Exception
+     */
+    public void testActionCheckerServiceHistory() throws Exception {
+        Reader reader = IOUtils.getResourceAsReader("wf-ext-schema-valid.xml", -1);
+        Writer writer = new FileWriter(getTestCaseDir() + "/workflow.xml");
+        IOUtils.copyCharStream(reader, writer);
+
+        final DagEngine engine = new DagEngine("u", "a");
+        Configuration conf = new XConfiguration();
+        conf.set(OozieClient.APP_PATH, getTestCaseDir() + File.separator + "workflow.xml");
+        conf.setStrings(WorkflowAppService.HADOOP_USER, getTestUser());
+        conf.setStrings(OozieClient.GROUP_NAME, getTestGroup());
+        conf.setStrings(WorkflowAppService.HADOOP_UGI, getTestUser() + "," + getTestGroup());
+        injectKerberosInfo(conf);
+        conf.set(OozieClient.LOG_TOKEN, "t");
+
+        conf.set("external-status", "ok");
+        conf.set("signal-value", "based_on_action_status");
+        conf.set("running-mode", "async");
+
+        final String jobId = engine.submitJob(conf, true);
+
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.RUNNING);
+            }
+        });
+
+        Thread.sleep(100);
+        final WorkflowStore store = Services.get().get(WorkflowStoreService.class).create();
+        store.beginTrx();
+        List<WorkflowActionBean> actions = store.getActionsForWorkflow(jobId, true);
+        WorkflowActionBean action = actions.get(0);
+        assertEquals(WorkflowActionBean.Status.RUNNING, action.getStatus());
+        action.setLastCheckTime(new Date(System.currentTimeMillis() - 90 * 1000));
+        store.updateAction(action);
+        String appName = engine.getJob(jobId).getAppName();
+        for (int i = 0; i < 3; i++) {
+            store.addActionDuration(appName, action.getName(), 60 * 60 * 1000, 0.3);
+        }
+        store.commitTrx();
+        store.closeTrx();
+
+        final WorkflowStore store1 = Services.get().get(WorkflowStoreService.class).create();
+        store1.beginTrx();
+        WorkflowActionStatsBean stats = store1.getActionStats().get(
+                WorkflowActionStatsBean.createId(appName, action.getName()));
+        assertEquals(3, stats.getSamples());
+        assertEquals(60 * 60 * 1000, stats.getMeanDuration(), 0.1);
+        assertEquals(0, stats.getDurationStdDev(), 0.1);
+        store1.commitTrx();
+        store1.closeTrx();
+
+        Runnable actionCheckRunnable = new ActionCheckRunnable(20);
+        actionCheckRunnable.run();
+
+        Thread.sleep(3000);
+        final WorkflowStore store2 = Services.get().get(WorkflowStoreService.class).create();
+        store2.beginTrx();
+        List<WorkflowActionBean> actions2 = store2.getActionsForWorkflow(jobId, false);
+        WorkflowActionBean action2 = actions2.get(0);
+        assertEquals(WorkflowActionBean.Status.RUNNING, action2.getStatus());
+        store2.commitTrx();
+        store2.closeTrx();
+        assertEquals(WorkflowJob.Status.RUNNING, engine.getJob(jobId).getStatus());
+    }
+
+    /**
+     * Tests that concurrent updates of the same runtime history are serialized, no update is lost.
+     *
+     * @throws Exception
+     */
+    public void testActionDurationCommand() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            Services.get().get(CallableQueueService.class).queue(new ActionDurationCommand("app", "a", 1000 * i));
+        }
+        waitFor(10000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                WorkflowActionStatsBean stats = getActionStats("app", "a");
+                return stats != null && stats.getSamples() == 10;
+            }
+        });
+        assertEquals(10, getActionStats("app", "a").getSamples());
+    }
+
+    private WorkflowActionStatsBean getActionStats(String appName, String actionName) throws Exception {
+        WorkflowStore store = Services.get().get(WorkflowStoreService.class).create();
+        store.beginTrx();
+        WorkflowActionStatsBean stats = store.getActionStats().get(
+                WorkflowActionStatsBean.createId(appName, actionName));
+        store.commitTrx();
+        store.closeTrx();
+        return stats;
+    }
+
+    /**
+     * Tests that the runtime histories kept by the service are loaded incrementally.
+     *
+     * @throws Exception
+     */
+    public void testActionStatsIncrementalLoad() throws Exception {
+        ActionCheckerService checker = Services.get().get(ActionCheckerService.class);
+        WorkflowStore store = Services.get().get(WorkflowStoreService.class).create();
+        store.beginTrx();
+        store.addActionDuration("app", "a", 1000, 0.3);
+        store.commitTrx();
+        store.beginTrx();
+        assertEquals(1, store.getActionStats(new Date(System.currentTimeMillis() - 60 * 1000)).size());
+        assertEquals(0, store.getActionStats(new Date(System.currentTimeMillis() + 60 * 1000)).size());
+        Map<String, WorkflowActionStatsBean> stats = checker.getActionStats(store);
+        assertEquals(1, stats.get(WorkflowActionStatsBean.createId("app", "a")).getSamples());
+        store.addActionDuration("app", "a", 1000, 0.3);
+        store.addActionDuration("app", "b", 1000, 0.3);
+        store.commitTrx();
+        store.beginTrx();
+        stats = checker.getActionStats(store);
+        store.commitTrx();
+        store.closeTrx();
+        assertEquals(2, stats.size());
+        assertEquals(2, stats.get(WorkflowActionStatsBean.createId("app", "a")).getSamples());
+        assertEquals(1, stats.get(WorkflowActionStatsBean.createId("app", "b")).getSamples());
+    }
+
+    public void testCheckInterval() throws Exception {
+        long min = 60 * 1000;
+        long max = 30 * 60 * 1000;
+        long hour = 60 * 60 * 1000;
+
+        // far from the expected end
+        assertEquals(max, ActionCheckerService.getCheckInterval(0, 6 * hour, 0, min, max));
+        assertEquals(hour / 4, ActionCheckerService.getCheckInterval(hour / 2, hour, 0, min, max));
+
+        // within one standard deviation of the expected end
+        assertEquals(min, ActionCheckerService.getCheckInterval(hour - 60 * 1000, hour, 5 * 60 * 1000, min, max));
+        assertEquals(min, ActionCheckerService.getCheckInterval(hour + 60 * 1000, hour, 5 * 60 * 1000, min, max));
+
+        // overdue, backing off
+        assertEquals(hour / 4, ActionCheckerService.getCheckInterval(3 * hour / 2, hour, 0, min, max));
+        assertEquals(max, ActionCheckerService.getCheckInterval(5 * hour, hour, 0, min, max));
+    }
+
     /**
      * Tests functionality of the Action Checker Service Runnable for coordinator actions. </p> Inserts Coord Job, Coord
      * Action, and Workflow Job, and verifies the action status updated to SUCCEEDED. </p> Runs the ActionCheck
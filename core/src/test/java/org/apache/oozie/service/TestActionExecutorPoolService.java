@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.oozie.test.XTestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+public class TestActionExecutorPoolService extends XTestCase {
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setSystemProperty(ActionExecutorPoolService.CONF_ACTION_TYPES, "test");
+        setSystemProperty(ActionExecutorPoolService.CONF_THREADS, "1");
+        setSystemProperty(ActionExecutorPoolService.CONF_QUEUE_SIZE, "1");
+        setSystemProperty(ActionExecutorPoolService.CONF_TIMEOUT, "1");
+        services = new Services();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private static class MyTask implements ActionExecutorPoolService.Task {
+        private final long sleep;
+        private final List<Object> completed;
+
+        public MyTask(long sleep, List<Object> completed) {
+            this.sleep = sleep;
+            this.completed = completed;
+        }
+
+        public void execute() throws Exception {
+            Thread.sleep(sleep);
+        }
+
+        public void completed(Exception exception) {
+            completed.add((exception != null) ? exception : "ok");
+        }
+    }
+
+    public void testIsAsync() throws Exception {
+        ActionExecutorPoolService pool = services.get(ActionExecutorPoolService.class);
+        assertTrue(pool.isAsync("test"));
+        assertFalse(pool.isAsync("map-reduce"));
+        assertEquals(1000, pool.getTimeout("test"));
+    }
+
+    public void testNoActionTypes() throws Exception {
+        services.destroy();
+        setSystemProperty(ActionExecutorPoolService.CONF_ACTION_TYPES, "");
+        services = new Services();
+        services.init();
+        assertFalse(services.get(ActionExecutorPoolService.class).isAsync("test"));
+    }
+
+    public void testSubmitAndTimeout() throws Exception {
+        ActionExecutorPoolService pool = services.get(ActionExecutorPoolService.class);
+        final List<Object> completed = Collections.synchronizedList(new ArrayList<Object>());
+        assertTrue(pool.submit("test", "a#START", new MyTask(100, completed)));
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return completed.size() == 1;
+            }
+        });
+        assertEquals("ok", completed.get(0));
+
+        completed.clear();
+        assertTrue(pool.submit("test", "b#START", new MyTask(5000, completed)));
+        waitFor(3000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return completed.size() == 1;
+            }
+        });
+        assertEquals(1, completed.size());
+        assertTrue(completed.get(0) instanceof TimeoutException);
+    }
+
+    public void testBulkheadAndInFlight() throws Exception {
+        ActionExecutorPoolService pool = services.get(ActionExecutorPoolService.class);
+        final List<Object> completed = Collections.synchronizedList(new ArrayList<Object>());
+
+        // one running, one waiting, the pool is full
+        assertTrue(pool.submit("test", "a#START", new MyTask(500, completed)));
+        Thread.sleep(100);
+        assertTrue(pool.submit("test", "b#START", new MyTask(0, completed)));
+        assertFalse(pool.submit("test", "c#START", new MyTask(0, completed)));
+
+        // an operation in progress is not submitted twice
+        assertTrue(pool.submit("test", "a#START", new MyTask(0, completed)));
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return completed.size() == 2;
+            }
+        });
+        Thread.sleep(200);
+        assertEquals(2, completed.size());
+        assertTrue(pool.submit("test", "c#START", new MyTask(0, completed)));
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return completed.size() == 3;
+            }
+        });
+        assertEquals(3, completed.size());
+    }
+
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Date;
+
+import javax.persistence.EntityManager;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.DagEngine;
+import org.apache.oozie.ErrorCode;
+import org.apache.oozie.ForTestingActionExecutor;
+import org.apache.oozie.WorkflowJobBean;
+import org.apache.oozie.WorkflowsInfo;
+import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.client.WorkflowJob;
+import org.apache.oozie.service.ArchiveService.ArchiveRunnable;
+import org.apache.oozie.service.PurgeService.PurgeRunnable;
+import org.apache.oozie.store.StoreException;
+import org.apache.oozie.store.WorkflowStore;
+import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.IOUtils;
+import org.apache.oozie.util.XConfiguration;
+
+/**
+ * Test cases for checking the correct functionality of the ArchiveService.
+ */
+public class TestArchiveService extends XTestCase {
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setSystemProperty(SchemaService.WF_CONF_EXT_SCHEMAS, "wf-ext-schema.xsd");
+        setSystemProperty(Services.CONF_SERVICE_EXT_CLASSES, ArchiveService.class.getName());
+        setSystemProperty(StoreService.CONF_CREATE_DB_SCHEMA, "true");
+        services = new Services();
+        services.init();
+        services.get(ActionService.class).register(ForTestingActionExecutor.class);
+        cleanUpDBTables();
+        for (String table : new String[]{"WF_JOBS", "WF_ACTIONS", "COORD_JOBS", "COORD_ACTIONS"}) {
+            executeUpdate("DELETE FROM " + table + ArchiveService.HISTORY_SUFFIX);
+        }
+    }
+
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private void setEndTime(String jobId, Date endTime) throws Exception {
+        WorkflowStore store = Services.get().get(WorkflowStoreService.class).create();
+        store.beginTrx();
+        WorkflowJobBean wfBean = store.getWorkflow(jobId, true);
+        wfBean.setEndTime(endTime);
+        store.updateWorkflow(wfBean);
+        store.commitTrx();
+        store.closeTrx();
+    }
+
+    private boolean isInHotTable(String jobId) throws Exception {
+        WorkflowStore store = Services.get().get(WorkflowStoreService.class).create();
+        store.beginTrx();
+        try {
+            store.getWorkflow(jobId, false);
+            return true;
+        }
+        catch (StoreException ex) {
+            assertEquals(ErrorCode.E0604, ex.getErrorCode());
+            return false;
+        }
+        finally {
+            store.commitTrx();
+            store.closeTrx();
+        }
+    }
+
+    /**
+     * Tests the {@link org.apache.oozie.service.ArchiveService}. </p> Creates and runs a new job to completion and
+     * archives it. Verifies the job is read from the history tables by the job info and the job listing, it is moved
+     * back by a restore and it is purged from the history tables.
+     */
+    public void testArchiveService() throws Exception {
+        Reader reader = IOUtils.getResourceAsReader("wf-ext-schema-valid.xml", -1);
+        Writer writer = new FileWriter(getTestCaseDir() + "/workflow.xml");
+        IOUtils.copyCharStream(reader, writer);
+
+        final DagEngine engine = new DagEngine("u", "a");
+        Configuration conf = new XConfiguration();
+        conf.set(OozieClient.APP_PATH, getTestCaseDir() + File.separator + "workflow.xml");
+        conf.setStrings(OozieClient.USER_NAME, getTestUser());
+        conf.setStrings(OozieClient.GROUP_NAME, getTestGroup());
+        injectKerberosInfo(conf);
+        conf.set(OozieClient.LOG_TOKEN, "t");
+        conf.set("external-status", "ok");
+        conf.set("signal-value", "based_on_action_status");
+        final String jobId = engine.submitJob(conf, true);
+
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.SUCCEEDED);
+            }
+        });
+        int actions = engine.getJob(jobId).getActions().size();
+        assertTrue(actions > 0);
+
+        // a recently completed job is not archived
+        new ArchiveRunnable(1, 100, 10).run();
+        assertTrue(isInHotTable(jobId));
+
+        setEndTime(jobId, new Date(System.currentTimeMillis() - 2 * 60 * 60 * 1000));
+        new ArchiveRunnable(1, 100, 10).run();
+        assertFalse(isInHotTable(jobId));
+
+        // job info and job listing read the history tables
+        WorkflowJob job = engine.getJob(jobId);
+        assertEquals(WorkflowJob.Status.SUCCEEDED, job.getStatus());
+        assertEquals(actions, job.getActions().size());
+        assertEquals(WorkflowJob.Status.SUCCEEDED, engine.getJob(jobId, 1, 1).getStatus());
+        assertEquals(1, engine.getJob(jobId, 1, 1).getActions().size());
+        WorkflowsInfo info = engine.getJobs("", 1, 10);
+        assertEquals(1, info.getTotal());
+        assertEquals(jobId, info.getWorkflows().get(0).getId());
+        info = engine.getJobs(OozieClient.FILTER_STATUS + "=" + WorkflowJob.Status.SUCCEEDED, 1, 10);
+        assertEquals(1, info.getTotal());
+        info = engine.getJobs(OozieClient.FILTER_STATUS + "=" + WorkflowJob.Status.KILLED, 1, 10);
+        assertEquals(0, info.getTotal());
+
+        // a restored job is back in the hot tables
+        WorkflowStore store = Services.get().get(WorkflowStoreService.class).create();
+        store.beginTrx();
+        assertTrue(store.restoreWorkflow(jobId));
+        assertFalse(store.restoreWorkflow(jobId));
+        store.commitTrx();
+        store.closeTrx();
+        assertTrue(isInHotTable(jobId));
+        assertEquals(actions, engine.getJob(jobId).getActions().size());
+
+        // archived jobs are purged
+        setEndTime(jobId, new Date(System.currentTimeMillis() - 2 * 24 * 60 * 60 * 1000));
+        new ArchiveRunnable(1, 100, 10).run();
+        assertFalse(isInHotTable(jobId));
+        new PurgeRunnable(1, 1, 100).run();
+        waitFor(10000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return engine.getJobs("", 1, 10).getTotal() == 0;
+            }
+        });
+        assertEquals(0, engine.getJobs("", 1, 10).getTotal());
+    }
+
+    /**
+     * Tests that with security enabled an archived job is authorized for write operations using the history tables,
+     * and that it can then be rerun.
+     */
+    public void testRerunArchivedJobWithSecurity() throws Exception {
+        services.getConf().setBoolean(AuthorizationService.CONF_SECURITY_ENABLED, true);
+        services.get(AuthorizationService.class).init(services);
+
+        Reader reader = IOUtils.getResourceAsReader("wf-ext-schema-valid.xml", -1);
+        Writer writer = new FileWriter(getTestCaseDir() + "/workflow.xml");
+        IOUtils.copyCharStream(reader, writer);
+
+        final DagEngine engine = new DagEngine(getTestUser(), "a");
+        Configuration conf = new XConfiguration();
+        conf.set(OozieClient.APP_PATH, getTestCaseDir() + File.separator + "workflow.xml");
+        conf.setStrings(OozieClient.USER_NAME, getTestUser());
+        conf.setStrings(OozieClient.GROUP_NAME, getTestGroup());
+        injectKerberosInfo(conf);
+        conf.set(OozieClient.LOG_TOKEN, "t");
+        conf.set("external-status", "ok");
+        conf.set("signal-value", "based_on_action_status");
+        final String jobId = engine.submitJob(conf, true);
+
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.SUCCEEDED);
+            }
+        });
+        setEndTime(jobId, new Date(System.currentTimeMillis() - 2 * 60 * 60 * 1000));
+        new ArchiveRunnable(1, 100, 10).run();
+        assertFalse(isInHotTable(jobId));
+
+        AuthorizationService as = services.get(AuthorizationService.class);
+        as.authorizeForJob(getTestUser(), jobId, true);
+        try {
+            as.authorizeForJob(getTestUser(), "0000000-000000000000000-oozie-test-W", true);
+            fail();
+        }
+        catch (AuthorizationException ex) {
+            assertEquals(ErrorCode.E0604, ex.getErrorCode());
+        }
+
+        conf.set(OozieClient.RERUN_SKIP_NODES, "");
+        engine.reRun(jobId, conf);
+        assertTrue(isInHotTable(jobId));
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.SUCCEEDED);
+            }
+        });
+        assertEquals(WorkflowJob.Status.SUCCEEDED, engine.getJob(jobId).getStatus());
+        assertEquals(1, engine.getJob(jobId).getRun());
+    }
+
+    private void executeUpdate(String sql) throws Exception {
+        EntityManager em = services.get(StoreService.class).getEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createNativeQuery(sql).executeUpdate();
+            em.getTransaction().commit();
+        }
+        finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Tests that the service does not start if a history table is missing and the schema is not created, and that the
+     * table is created otherwise.
+     */
+    public void testMissingHistoryTable() throws Exception {
+        executeUpdate("DROP TABLE COORD_ACTIONS" + ArchiveService.HISTORY_SUFFIX);
+        services.destroy();
+        setSystemProperty(StoreService.CONF_CREATE_DB_SCHEMA, "false");
+        services = new Services();
+        try {
+            services.init();
+            fail();
+        }
+        catch (ServiceException ex) {
+            assertEquals(ErrorCode.E0610, ex.getErrorCode());
+        }
+        services.destroy();
+
+        setSystemProperty(StoreService.CONF_CREATE_DB_SCHEMA, "true");
+        services = new Services();
+        services.init();
+        executeUpdate("DELETE FROM COORD_ACTIONS" + ArchiveService.HISTORY_SUFFIX);
+    }
+
+    /**
+     * Tests that jobs are archived and restored when a table has a column its history table does not have, as after
+     * a schema upgrade.
+     */
+    public void testArchiveWithAddedColumn() throws Exception {
+        executeUpdate("ALTER TABLE WF_JOBS ADD COLUMN archive_test_col VARCHAR(10)");
+        try {
+            Reader reader = IOUtils.getResourceAsReader("wf-ext-schema-valid.xml", -1);
+            Writer writer = new FileWriter(getTestCaseDir() + "/workflow.xml");
+            IOUtils.copyCharStream(reader, writer);
+
+            final DagEngine engine = new DagEngine("u", "a");
+            Configuration conf = new XConfiguration();
+            conf.set(OozieClient.APP_PATH, getTestCaseDir() + File.separator + "workflow.xml");
+            conf.setStrings(OozieClient.USER_NAME, getTestUser());
+            conf.setStrings(OozieClient.GROUP_NAME, getTestGroup());
+            injectKerberosInfo(conf);
+            conf.set(OozieClient.LOG_TOKEN, "t");
+            conf.set("external-status", "ok");
+            conf.set("signal-value", "based_on_action_status");
+            final String jobId = engine.submitJob(conf, true);
+
+            waitFor(5000, new Predicate() {
+                public boolean evaluate() throws Exception {
+                    return (engine.getJob(jobId).getStatus() == WorkflowJob.Status.SUCCEEDED);
+                }
+            });
+            setEndTime(jobId, new Date(System.currentTimeMillis() - 2 * 60 * 60 * 1000));
+            new ArchiveRunnable(1, 100, 10).run();
+            assertFalse(isInHotTable(jobId));
+            assertEquals(WorkflowJob.Status.SUCCEEDED, engine.getJob(jobId).getStatus());
+
+            WorkflowStore store = Services.get().get(WorkflowStoreService.class).create();
+            store.beginTrx();
+            assertTrue(store.restoreWorkflow(jobId));
+            store.commitTrx();
+            store.closeTrx();
+            assertTrue(isInHotTable(jobId));
+        }
+        finally {
+            executeUpdate("ALTER TABLE WF_JOBS DROP COLUMN archive_test_col");
+        }
+    }
+
+}
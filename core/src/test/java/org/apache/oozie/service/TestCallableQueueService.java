@@ -14,10 +14,14 @@
  */
 package org.apache.oozie.service;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.oozie.client.OozieClient;
 import org.apache.oozie.test.XTestCase;
 import org.apache.oozie.util.XCallable;
 
@@ -31,6 +35,7 @@ public class TestCallableQueueService extends XTestCase {
         int wait;
         long order;
         long created = System.currentTimeMillis();
+        String key;
 
         public MyCallable() {
             this(0, 0);
@@ -66,6 +71,11 @@ public class TestCallableQueueService extends XTestCase {
             return created;
         }
 
+        @Override
+        public String getKey() {
+            return key;
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
@@ -181,6 +191,225 @@ public class TestCallableQueueService extends XTestCase {
         services.destroy();
     }
 
+    public void testQueueSerialBatches() throws Exception {
+        EXEC_ORDER = new AtomicLong();
+        Services services = new Services();
+        services.init();
+        final MyCallable callable1 = new MyCallable(0, 10);
+        final MyCallable callable2 = new MyCallable(0, 10);
+        final MyCallable callable3 = new MyCallable(0, 10);
+
+        CallableQueueService queueservice = services.get(CallableQueueService.class);
+
+        long scheduled = System.currentTimeMillis();
+        assertTrue(queueservice.queueSerialBatches(Arrays.asList(callable1, callable2, callable3), 2, 500));
+        waitFor(3000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return callable1.executed != 0 && callable2.executed != 0 && callable3.executed != 0;
+            }
+        });
+        assertEquals(0, callable1.order);
+        assertEquals(1, callable2.order);
+        assertEquals(2, callable3.order);
+        assertTrue(callable3.executed >= scheduled + 500);
+
+        services.destroy();
+    }
+
+    public void testQueueSerialBatchesFullQueue() throws Exception {
+        setSystemProperty(CallableQueueService.CONF_QUEUE_SIZE, "1");
+        Services services = new Services();
+        services.init();
+
+        CallableQueueService queueservice = services.get(CallableQueueService.class);
+        assertTrue(queueservice.queue(new MyCallable(), 10000));
+        assertFalse(queueservice.queue(new MyCallable(), 10000));
+
+        // batches are queued even if the queue is full, the callables must not be lost
+        final MyCallable callable1 = new MyCallable(0, 10);
+        final MyCallable callable2 = new MyCallable(0, 10);
+        final MyCallable callable3 = new MyCallable(0, 10);
+        assertTrue(queueservice.queueSerialBatches(Arrays.asList(callable1, callable2, callable3), 1, 100));
+        waitFor(3000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return callable1.executed != 0 && callable2.executed != 0 && callable3.executed != 0;
+            }
+        });
+        assertTrue(callable1.executed != 0 && callable2.executed != 0 && callable3.executed != 0);
+
+        services.destroy();
+    }
+
+    public void testCoalescing() throws Exception {
+        Services services = new Services();
+        services.init();
+        final MyCallable callable1 = new MyCallable();
+        final MyCallable callable2 = new MyCallable();
+        final MyCallable callable3 = new MyCallable();
+        final MyCallable callable4 = new MyCallable();
+        callable1.key = "k1";
+        callable2.key = "k1";
+        callable3.key = "k2";
+        callable4.key = "k2";
+
+        CallableQueueService queueservice = services.get(CallableQueueService.class);
+
+        // a callable due later than the queued one with the same key is coalesced
+        assertTrue(queueservice.queue(callable1, 500));
+        assertTrue(queueservice.queue(callable2, 1000));
+
+        // a callable due earlier than the queued one with the same key replaces it
+        long scheduled = System.currentTimeMillis();
+        assertTrue(queueservice.queue(callable3, 5000));
+        assertTrue(queueservice.queue(callable4, 500));
+
+        waitFor(3000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return callable1.executed != 0 && callable4.executed != 0;
+            }
+        });
+        Thread.sleep(1000);
+        assertTrue(callable1.executed != 0);
+        assertEquals(0, callable2.executed);
+        assertEquals(0, callable3.executed);
+        assertTrue(callable4.executed != 0 && callable4.executed < scheduled + 5000);
+        assertEquals(0, queueservice.queueSize());
+
+        // once executed, a callable with the same key is queued again
+        assertTrue(queueservice.queue(callable2));
+        waitFor(1000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return callable2.executed != 0;
+            }
+        });
+        assertTrue(callable2.executed != 0);
+
+        services.destroy();
+    }
+
+    public static class MyCompactCallable implements XCallable<Void>, CallableQueueService.CompactCallable {
+        static List<String> EXECUTED = Collections.synchronizedList(new ArrayList<String>());
+        private String id;
+
+        public MyCompactCallable(String id) {
+            this.id = id;
+        }
+
+        public String getEntityId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return "compact";
+        }
+
+        @Override
+        public int getPriority() {
+            return 0;
+        }
+
+        @Override
+        public String getType() {
+            return "compact";
+        }
+
+        @Override
+        public long getCreatedTime() {
+            return 0;
+        }
+
+        @Override
+        public String getKey() {
+            return null;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            EXECUTED.add(id);
+            return null;
+        }
+    }
+
+    public void testCompactQueuing() throws Exception {
+        setSystemProperty(CallableQueueService.CONF_COMPACT_DELAY, "1");
+        Services services = new Services();
+        services.init();
+        MyCompactCallable.EXECUTED.clear();
+
+        CallableQueueService queueservice = services.get(CallableQueueService.class);
+
+        // not delayed enough to be compacted
+        assertTrue(queueservice.queue(new MyCompactCallable("a"), 100));
+        // compacted
+        long scheduled = System.currentTimeMillis();
+        assertTrue(queueservice.queue(new MyCompactCallable("b"), 2000));
+        waitFor(1000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return MyCompactCallable.EXECUTED.size() == 1;
+            }
+        });
+        assertEquals(Arrays.asList("a"), MyCompactCallable.EXECUTED);
+        assertEquals(1, queueservice.queueSize());
+
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return MyCompactCallable.EXECUTED.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList("a", "b"), MyCompactCallable.EXECUTED);
+        assertTrue(System.currentTimeMillis() >= scheduled + 2000);
+        assertEquals(0, queueservice.queueSize());
+
+        services.destroy();
+    }
+
+    public static class MyKeyedCompactCallable extends MyCompactCallable {
+
+        public MyKeyedCompactCallable(String id) {
+            super(id);
+        }
+
+        @Override
+        public String getKey() {
+            return "compact_" + getEntityId();
+        }
+    }
+
+    public void testCompactCoalescing() throws Exception {
+        setSystemProperty(CallableQueueService.CONF_COMPACT_DELAY, "1");
+        Services services = new Services();
+        services.init();
+        MyCompactCallable.EXECUTED.clear();
+
+        CallableQueueService queueservice = services.get(CallableQueueService.class);
+
+        // coalesced with the compact callable due earlier
+        assertTrue(queueservice.queue(new MyKeyedCompactCallable("a"), 2000));
+        assertTrue(queueservice.queue(new MyKeyedCompactCallable("a"), 3000));
+        assertEquals(1, queueservice.queueSize());
+
+        // the compact callable due later is superseded by a callable due earlier, compact or not
+        assertTrue(queueservice.queue(new MyKeyedCompactCallable("b"), 3000));
+        assertTrue(queueservice.queue(new MyKeyedCompactCallable("b"), 1500));
+        assertTrue(queueservice.queue(new MyKeyedCompactCallable("c"), 3000));
+        assertTrue(queueservice.queue(new MyKeyedCompactCallable("c"), 100));
+
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return MyCompactCallable.EXECUTED.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList("c", "b", "a"), MyCompactCallable.EXECUTED);
+
+        // the superseded compact entries are discarded when due
+        Thread.sleep(3000);
+        assertEquals(3, MyCompactCallable.EXECUTED.size());
+        assertEquals(0, queueservice.queueSize());
+
+        services.destroy();
+    }
+
     public static class CLCallable implements XCallable<Void> {
 
         @Override
@@ -203,6 +432,11 @@ public class TestCallableQueueService extends XTestCase {
             return 0;
         }
 
+        @Override
+        public String getKey() {
+            return null;
+        }
+
         @Override
         public Void call() throws Exception {
             incr();
@@ -232,6 +466,63 @@ public class TestCallableQueueService extends XTestCase {
         }
     }
 
+    public class MyClassifiedCallable extends MyCallable implements CallableQueueService.ClassifiedCallable {
+        String user;
+        String jobId;
+
+        public MyClassifiedCallable(String user, String jobId) {
+            this.user = user;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public String getUser() {
+            return user;
+        }
+
+        @Override
+        public String getJobId() {
+            return jobId;
+        }
+    }
+
+    public void testSchedulingClasses() throws Exception {
+        setSystemProperty(CallableQueueService.CONF_SCHEDULING_CLASSES, "critical:9, batch:1");
+        setSystemProperty(CallableQueueService.CONF_SCHEDULING_CLASS_QUEUE_SIZE + "batch", "1");
+        setSystemProperty(CallableQueueService.CONF_SCHEDULING_CLASS_USERS, "u1:batch");
+        setSystemProperty(CallableQueueService.CONF_SCHEDULING_CLASS_QUEUES, "q1:batch");
+        Services services = new Services();
+        services.init();
+
+        CallableQueueService queueservice = services.get(CallableQueueService.class);
+        assertEquals("critical", queueservice.getSchedulingClass(null, null));
+        assertEquals("batch", queueservice.getSchedulingClass(null, "u1"));
+        assertEquals("critical", queueservice.getSchedulingClass("job1", "u2"));
+
+        Configuration jobConf = new Configuration(false);
+        jobConf.set(OozieClient.USER_NAME, "u1");
+        jobConf.set(OozieClient.SCHEDULING_CLASS, "critical");
+        assertTrue(queueservice.isJobSchedulingClassNeeded("job1"));
+        assertEquals("critical", queueservice.setJobSchedulingClass("job1", jobConf));
+        assertFalse(queueservice.isJobSchedulingClassNeeded("job1"));
+        assertEquals("critical", queueservice.getSchedulingClass("job1", "u1"));
+
+        jobConf = new Configuration(false);
+        jobConf.set(OozieClient.USER_NAME, "u2");
+        jobConf.set(OozieClient.SCHEDULING_CLASS, "unknown");
+        jobConf.set("mapred.job.queue.name", "q1");
+        assertEquals("batch", queueservice.setJobSchedulingClass("job2", jobConf));
+
+        // a full scheduling class does not prevent queuing callables of other classes
+        assertTrue(queueservice.queue(new MyClassifiedCallable("u2", "job2"), 10000));
+        assertFalse(queueservice.queue(new MyClassifiedCallable("u1", null), 10000));
+        assertTrue(queueservice.queue(new MyClassifiedCallable("u1", "job1"), 10000));
+        assertTrue(queueservice.queue(new MyCallable(), 10000));
+        assertEquals(3, queueservice.queueSize());
+
+        services.destroy();
+    }
+
     public void testConcurrencyLimit() throws Exception {
         Services services = new Services();
         services.init();
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.oozie.test.XFsTestCase;
+import org.apache.oozie.util.Instrumentation;
+import org.jdom.Element;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+public class TestCoordDefinitionCacheService extends XFsTestCase {
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        services = new Services();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private void write(Path path, String content) throws Exception {
+        Writer writer = new OutputStreamWriter(getFileSystem().create(path, true));
+        writer.write(content);
+        writer.close();
+    }
+
+    private long getVariable(String name) {
+        Instrumentation instr = services.get(InstrumentationService.class).get();
+        return (Long) ((Instrumentation.Element) instr.getVariables().get("coord.definitions").get(name)).getValue();
+    }
+
+    public void testCache() throws Exception {
+        CoordDefinitionCacheService cache = services.get(CoordDefinitionCacheService.class);
+        FileSystem fs = getFileSystem();
+        Path path = new Path(getFsTestCaseDir(), "datasets.xml");
+        write(path, "<datasets><dataset name='a'/></datasets>");
+
+        CoordDefinitionCacheService.Definition definition = cache.get(fs, path, getTestUser(), getTestGroup());
+        assertEquals("<datasets><dataset name='a'/></datasets>", definition.getXml());
+        assertFalse(definition.isValidated());
+        definition.setValidated();
+        assertEquals(1, getVariable("misses"));
+        assertEquals(1, cache.size());
+
+        // unchanged file, the cached definition is returned
+        assertSame(definition, cache.get(fs, path, getTestUser(), getTestGroup()));
+        assertTrue(definition.isValidated());
+        assertEquals(1, getVariable("hits"));
+
+        // parsed elements are copies
+        Element element = definition.getElement();
+        element.removeContent();
+        assertEquals(1, definition.getElement().getChildren().size());
+
+        // a changed file is read again
+        write(path, "<datasets><dataset name='a'/><dataset name='b'/></datasets>");
+        CoordDefinitionCacheService.Definition changed = cache.get(fs, path, getTestUser(), getTestGroup());
+        assertNotSame(definition, changed);
+        assertFalse(changed.isValidated());
+        assertEquals(2, changed.getElement().getChildren().size());
+        assertEquals(1, getVariable("stale"));
+        assertEquals(2, getVariable("misses"));
+    }
+
+    public void testPermissions() throws Exception {
+        CoordDefinitionCacheService cache = services.get(CoordDefinitionCacheService.class);
+        FileSystem fs = getFileSystem();
+        Path path = new Path(getFsTestCaseDir(), "coordinator.xml");
+        write(path, "<coordinator-app/>");
+        fs.setPermission(path, new FsPermission((short) 0600));
+
+        CoordDefinitionCacheService.Definition definition = cache.get(fs, path, getTestUser(), getTestGroup());
+        assertSame(definition, cache.get(fs, path, getTestUser(), getTestGroup()));
+
+        // a user not allowed to read the file does not get the cached definition
+        FileSystem fs2 = services.get(HadoopAccessorService.class).createFileSystem(getTestUser2(), getTestGroup(),
+                                                                                  fs.getUri(), fs.getConf());
+        try {
+            cache.get(fs2, path, getTestUser2(), getTestGroup());
+            fail();
+        }
+        catch (Exception ex) {
+            //nop
+        }
+        assertEquals(1, getVariable("hits"));
+    }
+
+    public void testDisabled() throws Exception {
+        services.destroy();
+        setSystemProperty(CoordDefinitionCacheService.CONF_SIZE, "0");
+        services = new Services();
+        services.init();
+        CoordDefinitionCacheService cache = services.get(CoordDefinitionCacheService.class);
+        Path path = new Path(getFsTestCaseDir(), "coordinator.xml");
+        write(path, "<coordinator-app/>");
+        assertNotSame(cache.get(getFileSystem(), path, getTestUser(), getTestGroup()),
+                      cache.get(getFileSystem(), path, getTestUser(), getTestGroup()));
+        assertEquals(0, cache.size());
+    }
+
+}
@@ -24,8 +24,13 @@ import java.util.Date;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.oozie.CoordinatorJobBean;
+import org.apache.oozie.FaultInjection;
 import org.apache.oozie.client.CoordinatorJob;
 import org.apache.oozie.client.CoordinatorJob.Execution;
+import org.apache.oozie.command.CommandException;
+import org.apache.oozie.command.SkipCommitFaultInjection;
+import org.apache.oozie.command.coord.CoordJobMatLookupCommand;
+import org.apache.oozie.command.coord.CoordKillCommand;
 import org.apache.oozie.service.CoordJobMatLookupTriggerService.CoordJobMatLookupTriggerRunnable;
 import org.apache.oozie.store.CoordinatorStore;
 import org.apache.oozie.store.StoreException;
@@ -172,4 +177,123 @@ public class TestCoordJobMatLookupTriggerService extends XFsTestCase {
             fail();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Test the timing wheel. The job is scheduled at its start time minus the look ahead window and it is picked up
+     * for materialization when due.
+     *
+     * @throws Exception
+     */
+    public void testTimingWheel() throws Exception {
+        CoordJobMatLookupTriggerService service = services.get(CoordJobMatLookupTriggerService.class);
+        assertTrue(service.isTimingWheelEnabled());
+
+        Date start = new Date();
+        Date end = new Date(start.getTime() + 3600 * 1000);
+        final String jobId = "0000000-" + start.getTime() + "-testCoordRecoveryService-C";
+        CoordinatorStore store = Services.get().get(StoreService.class).getStore(CoordinatorStore.class);
+        store.beginTrx();
+        addRecordToJobTable(jobId, store, start, end);
+        store.commitTrx();
+        store.closeTrx();
+
+        CoordinatorJobBean job = new CoordinatorJobBean();
+        job.setId(jobId);
+        job.setStatus(CoordinatorJob.Status.PREP);
+        job.setStartTime(start);
+        job.setEndTime(end);
+        assertEquals(start.getTime() - CoordJobMatLookupCommand.LOOKAHEAD_WINDOW * 1000,
+                     CoordJobMatLookupTriggerService.getMaterializationTime(job).getTime());
+        service.schedule(job);
+
+        waitFor(20000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                CoordinatorStore store = Services.get().get(StoreService.class).getStore(CoordinatorStore.class);
+                store.beginTrx();
+                CoordinatorJobBean coordJob = store.getCoordinatorJob(jobId, false);
+                store.commitTrx();
+                store.closeTrx();
+                return coordJob.getStatus() != CoordinatorJob.Status.PREP;
+            }
+        });
+        CoordinatorStore store2 = Services.get().get(StoreService.class).getStore(CoordinatorStore.class);
+        store2.beginTrx();
+        CoordinatorJobBean coordJob = store2.getCoordinatorJob(jobId, false);
+        store2.commitTrx();
+        store2.closeTrx();
+        assertFalse(coordJob.getStatus() == CoordinatorJob.Status.PREP);
+    }
+
+    /**
+     * Test that the timing wheel is updated by a command only after it commits, a rolled back kill leaves the job
+     * scheduled.
+     *
+     * @throws Exception
+     */
+    public void testTimingWheelUpdatedAfterCommit() throws Exception {
+        CoordJobMatLookupTriggerService service = services.get(CoordJobMatLookupTriggerService.class);
+        Date start = new Date(System.currentTimeMillis() + 2 * 24 * 3600 * 1000);
+        Date end = new Date(start.getTime() + 3600 * 1000);
+        String jobId = "0000000-" + System.currentTimeMillis() + "-testCoordRecoveryService-C";
+        CoordinatorStore store = Services.get().get(StoreService.class).getStore(CoordinatorStore.class);
+        store.beginTrx();
+        addRecordToJobTable(jobId, store, start, end);
+        store.commitTrx();
+        store.closeTrx();
+
+        CoordinatorJobBean job = new CoordinatorJobBean();
+        job.setId(jobId);
+        job.setStatus(CoordinatorJob.Status.PREP);
+        job.setStartTime(start);
+        job.setEndTime(end);
+        service.schedule(job);
+        assertNotNull(service.getScheduledTime(jobId));
+
+        setSystemProperty(FaultInjection.FAULT_INJECTION, "true");
+        setSystemProperty(SkipCommitFaultInjection.ACTION_FAILOVER_FAULT_INJECTION, "true");
+        assertTrue(FaultInjection.activate("org.apache.oozie.command.SkipCommitFaultInjection"));
+        try {
+            new CoordKillCommand(jobId).call();
+            fail();
+        }
+        catch (CommandException ex) {
+            // the commit is skipped
+        }
+        assertNotNull(service.getScheduledTime(jobId));
+
+        new CoordKillCommand(jobId).call();
+        assertNull(service.getScheduledTime(jobId));
+    }
+
+    public void testMaterializationTimeAndWindow() throws Exception {
+        CoordJobMatLookupTriggerService service = services.get(CoordJobMatLookupTriggerService.class);
+        Date start = DateUtils.parseDateUTC("2009-02-01T01:00Z");
+        Date next = DateUtils.parseDateUTC("2009-02-02T01:00Z");
+        Date end = DateUtils.parseDateUTC("2009-02-03T01:00Z");
+        CoordinatorJobBean job = new CoordinatorJobBean();
+        job.setId("job");
+        job.setStatus(CoordinatorJob.Status.RUNNING);
+        job.setStartTime(start);
+        job.setEndTime(end);
+        job.setNextMaterializedTime(next);
+        assertEquals(next, CoordJobMatLookupTriggerService.getMaterializationTime(job));
+
+        job.setPauseTime(next);
+        assertNull(CoordJobMatLookupTriggerService.getMaterializationTime(job));
+        job.setPauseTime(null);
+        job.setNextMaterializedTime(end);
+        assertNull(CoordJobMatLookupTriggerService.getMaterializationTime(job));
+        job.setNextMaterializedTime(next);
+        job.setStatus(CoordinatorJob.Status.SUSPENDED);
+        assertNull(CoordJobMatLookupTriggerService.getMaterializationTime(job));
+
+        // 10 periods, capped by the materialization window, never less than one period
+        job.setFrequency(1);
+        job.setTimeUnit(CoordinatorJob.Timeunit.MINUTE);
+        assertEquals(600, service.getMaterializationWindow(job));
+        job.setTimeUnit(CoordinatorJob.Timeunit.HOUR);
+        assertEquals(3600, service.getMaterializationWindow(job));
+        job.setTimeUnit(CoordinatorJob.Timeunit.DAY);
+        assertEquals(24 * 3600, service.getMaterializationWindow(job));
+    }
+}
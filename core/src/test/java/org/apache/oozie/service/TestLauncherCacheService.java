@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.oozie.test.XFsTestCase;
+import org.apache.oozie.util.IOUtils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.Collections;
+
+public class TestLauncherCacheService extends XFsTestCase {
+    private Services services;
+    private Path cacheDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        cacheDir = new Path(getFsTestCaseDir(), "launcher");
+        setSystemProperty(LauncherCacheService.CONF_DIR, cacheDir.toUri().getPath());
+        services = new Services();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        super.tearDown();
+    }
+
+    private File createJar(String name) throws Exception {
+        return IOUtils.createJar(new File(getTestCaseDir()), name, LauncherCacheService.class);
+    }
+
+    public void testUpload() throws Exception {
+        LauncherCacheService cache = services.get(LauncherCacheService.class);
+        assertTrue(cache.isEnabled());
+        File jar = createJar("launcher.jar");
+
+        Path path = cache.getLauncherJarPath(jar);
+        assertEquals(cacheDir.toUri().getPath(), path.getParent().getParent().toString());
+        assertEquals("launcher.jar", path.getName());
+        assertFalse(getFileSystem().exists(path));
+
+        assertEquals(path, cache.uploadLauncherJar(getFileSystem(), jar));
+        assertTrue(getFileSystem().exists(path));
+        assertEquals(jar.length(), getFileSystem().getFileStatus(path).getLen());
+        long modificationTime = getFileSystem().getFileStatus(path).getModificationTime();
+
+        // the second upload reuses the shared JAR
+        assertEquals(path, cache.uploadLauncherJar(getFileSystem(), jar));
+        assertEquals(modificationTime, getFileSystem().getFileStatus(path).getModificationTime());
+        assertEquals(1, getFileSystem().listStatus(cacheDir).length);
+
+        // a JAR with different content goes to a different checksum directory
+        Writer writer = new FileWriter(new File(getTestCaseDir(), "other.jar"));
+        writer.write("other");
+        writer.close();
+        Path otherPath = cache.uploadLauncherJar(getFileSystem(), new File(getTestCaseDir(), "other.jar"));
+        assertFalse(path.getParent().equals(otherPath.getParent()));
+        assertEquals(2, getFileSystem().listStatus(cacheDir).length);
+    }
+
+    public void testGC() throws Exception {
+        LauncherCacheService cache = services.get(LauncherCacheService.class);
+        Path path = cache.uploadLauncherJar(getFileSystem(), createJar("launcher.jar"));
+
+        // the shared directory belongs to the Oozie server user
+        FileSystem oozieFs = services.get(HadoopAccessorService.class).createFileSystem(
+                System.getProperty("user.name"), getTestGroup(), getFileSystem().getUri(), getFileSystem().getConf());
+        Path stale = new Path(cacheDir, "0123456789abcdef0123456789abcdef");
+        oozieFs.mkdirs(stale);
+        oozieFs.create(new Path(stale, "launcher.jar")).close();
+
+        // nothing is old enough
+        cache.gc(oozieFs, Collections.<String>emptySet(), 0);
+        assertEquals(2, getFileSystem().listStatus(cacheDir).length);
+
+        // the checksum directory in use is kept
+        cache.gc(oozieFs, Collections.singleton(path.getParent().getName()), Long.MAX_VALUE);
+        FileStatus[] statuses = getFileSystem().listStatus(cacheDir);
+        assertEquals(1, statuses.length);
+        assertEquals(path.getParent().getName(), statuses[0].getPath().getName());
+    }
+
+    public void testRevalidate() throws Exception {
+        LauncherCacheService cache = services.get(LauncherCacheService.class);
+        File jar = createJar("launcher.jar");
+        Path path = cache.uploadLauncherJar(getFileSystem(), jar);
+
+        // another Oozie server deletes the checksum directory
+        FileSystem oozieFs = services.get(HadoopAccessorService.class).createFileSystem(
+                System.getProperty("user.name"), getTestGroup(), getFileSystem().getUri(), getFileSystem().getConf());
+        oozieFs.delete(path.getParent(), true);
+
+        // recently checked, the file system is not accessed
+        assertEquals(path, cache.uploadLauncherJar(getFileSystem(), jar));
+        assertFalse(getFileSystem().exists(path));
+
+        // checked too long ago, the launcher JAR is uploaded again
+        cache.revalidateInterval = 0;
+        assertEquals(path, cache.uploadLauncherJar(getFileSystem(), jar));
+        assertTrue(getFileSystem().exists(path));
+
+        // and its access time is refreshed on use
+        oozieFs.setTimes(path, -1, 0);
+        assertEquals(path, cache.uploadLauncherJar(getFileSystem(), jar));
+        assertTrue(getFileSystem().getFileStatus(path).getAccessTime() > 0);
+    }
+
+    public void testDisabled() throws Exception {
+        services.destroy();
+        setSystemProperty(LauncherCacheService.CONF_DIR, "");
+        services = new Services();
+        services.init();
+        assertFalse(services.get(LauncherCacheService.class).isEnabled());
+    }
+
+}
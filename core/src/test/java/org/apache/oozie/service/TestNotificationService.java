@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.service;
+
+import org.apache.oozie.test.EmbeddedServletContainer;
+import org.apache.oozie.test.XTestCase;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestNotificationService extends XTestCase {
+
+    static final List<String> RECEIVED = Collections.synchronizedList(new ArrayList<String>());
+    static final AtomicInteger ACTIVE = new AtomicInteger();
+    static final AtomicInteger MAX_ACTIVE = new AtomicInteger();
+
+    public static class NotificationServlet extends HttpServlet {
+
+        protected void doGet(HttpServletRequest request, HttpServletResponse response)
+                throws ServletException, IOException {
+            String status = request.getParameter("status");
+            RECEIVED.add(status);
+            int active = ACTIVE.incrementAndGet();
+            if (active > MAX_ACTIVE.get()) {
+                MAX_ACTIVE.set(active);
+            }
+            try {
+                if (request.getParameter("sleep") != null) {
+                    Thread.sleep(Long.parseLong(request.getParameter("sleep")));
+                }
+            }
+            catch (InterruptedException ex) {
+                throw new ServletException(ex);
+            }
+            finally {
+                ACTIVE.decrementAndGet();
+            }
+            response.setStatus(("fail".equals(status)) ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                                                       : HttpServletResponse.SC_OK);
+        }
+
+    }
+
+    private EmbeddedServletContainer container;
+    private Services services;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        RECEIVED.clear();
+        ACTIVE.set(0);
+        MAX_ACTIVE.set(0);
+        setSystemProperty(NotificationService.CONF_THREADS, "1");
+        setSystemProperty(NotificationService.CONF_RETRY_DELAY, "100");
+        setSystemProperty(NotificationService.CONF_MAX_RETRIES, "2");
+        container = new EmbeddedServletContainer("notification");
+        container.addServletEndpoint("/notify", NotificationServlet.class);
+        container.start();
+        services = new Services();
+        services.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        services.destroy();
+        container.stop();
+        super.tearDown();
+    }
+
+    public void testNotification() throws Exception {
+        NotificationService notificationService = services.get(NotificationService.class);
+        assertTrue(notificationService.queueNotification("job", container.getServletURL("/notify") + "?status=ok"));
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return RECEIVED.size() == 1;
+            }
+        });
+        assertEquals(1, RECEIVED.size());
+        assertEquals("ok", RECEIVED.get(0));
+        assertFalse(notificationService.queueNotification("job", "foo://bar"));
+    }
+
+    public void testCoalescing() throws Exception {
+        NotificationService notificationService = services.get(NotificationService.class);
+        String url = container.getServletURL("/notify");
+
+        // the single notification thread is busy with the first notification while the others are queued
+        assertTrue(notificationService.queueNotification("job1", url + "?status=slow&sleep=1000"));
+        Thread.sleep(200);
+        assertTrue(notificationService.queueNotification("job2", url + "?status=RUNNING"));
+        assertTrue(notificationService.queueNotification("job2", url + "?status=SUSPENDED"));
+        assertTrue(notificationService.queueNotification("job2", url + "?status=SUCCEEDED"));
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return RECEIVED.size() == 2;
+            }
+        });
+        Thread.sleep(500);
+        assertEquals(2, RECEIVED.size());
+        assertEquals("slow", RECEIVED.get(0));
+        assertEquals("SUCCEEDED", RECEIVED.get(1));
+    }
+
+    public void testRetries() throws Exception {
+        NotificationService notificationService = services.get(NotificationService.class);
+        assertTrue(notificationService.queueNotification("job", container.getServletURL("/notify") + "?status=fail"));
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return RECEIVED.size() == 3;
+            }
+        });
+        Thread.sleep(500);
+        assertEquals(3, RECEIVED.size());
+    }
+
+    public void testHostConcurrency() throws Exception {
+        services.destroy();
+        setSystemProperty(NotificationService.CONF_THREADS, "3");
+        setSystemProperty(NotificationService.CONF_HOST_CONCURRENCY, "1");
+        services = new Services();
+        services.init();
+        NotificationService notificationService = services.get(NotificationService.class);
+        String url = container.getServletURL("/notify");
+
+        // the notifications wait for the host slot and are sent one at a time, in queuing order
+        assertTrue(notificationService.queueNotification("job1", url + "?status=1&sleep=300"));
+        Thread.sleep(100);
+        assertTrue(notificationService.queueNotification("job2", url + "?status=2&sleep=300"));
+        Thread.sleep(100);
+        assertTrue(notificationService.queueNotification("job3", url + "?status=3&sleep=300"));
+        waitFor(5000, new Predicate() {
+            public boolean evaluate() throws Exception {
+                return RECEIVED.size() == 3;
+            }
+        });
+        assertEquals(3, RECEIVED.size());
+        assertEquals("1", RECEIVED.get(0));
+        assertEquals("2", RECEIVED.get(1));
+        assertEquals("3", RECEIVED.get(2));
+        assertEquals(1, MAX_ACTIVE.get());
+    }
+
+}
@@ -14,9 +14,14 @@
  */
 package org.apache.oozie.service;
 
+import org.apache.oozie.ErrorCode;
 import org.apache.oozie.test.XTestCase;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class TestServices extends XTestCase {
 
@@ -92,4 +97,128 @@ public class TestServices extends XTestCase {
         assertEquals(S1Ext.class,  services.get(S1.class).getClass());
         assertEquals(S2.class,  services.get(S2.class).getClass());
     }
+
+    private static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<String>());
+
+    public static class D1 implements DependentService {
+
+        public Class[] getDependencies() {
+            return new Class[]{};
+        }
+
+        public void init(Services services) throws ServiceException {
+            try {
+                Thread.sleep(200);
+            }
+            catch (InterruptedException ex) {
+                throw new ServiceException(ErrorCode.E0100, getClass().getName(), ex.getMessage(), ex);
+            }
+            EVENTS.add("init D1");
+        }
+
+        public void destroy() {
+            EVENTS.add("destroy D1");
+        }
+
+        public Class<? extends Service> getInterface() {
+            return D1.class;
+        }
+    }
+
+    public static class D2 implements DependentService {
+
+        public Class[] getDependencies() {
+            return new Class[]{};
+        }
+
+        public void init(Services services) throws ServiceException {
+            EVENTS.add("init D2");
+        }
+
+        public void destroy() {
+            EVENTS.add("destroy D2");
+        }
+
+        public Class<? extends Service> getInterface() {
+            return D2.class;
+        }
+    }
+
+    public static class D3 implements DependentService {
+
+        public Class[] getDependencies() {
+            return new Class[]{D1.class};
+        }
+
+        public void init(Services services) throws ServiceException {
+            assertNotNull(services.get(D1.class));
+            EVENTS.add("init D3");
+        }
+
+        public void destroy() {
+            EVENTS.add("destroy D3");
+        }
+
+        public Class<? extends Service> getInterface() {
+            return D3.class;
+        }
+    }
+
+    public static class D4 implements Service {
+
+        public void init(Services services) throws ServiceException {
+            assertNotNull(services.get(D1.class));
+            assertNotNull(services.get(D2.class));
+            assertNotNull(services.get(D3.class));
+            EVENTS.add("init D4");
+        }
+
+        public void destroy() {
+            EVENTS.add("destroy D4");
+        }
+
+        public Class<? extends Service> getInterface() {
+            return D4.class;
+        }
+    }
+
+    public static class DFail extends D2 {
+
+        public void init(Services services) throws ServiceException {
+            throw new ServiceException(ErrorCode.E0100, getClass().getName(), "fail");
+        }
+    }
+
+    public void testConcurrentInit() throws Exception {
+        EVENTS.clear();
+        setSystemProperty(Services.CONF_SERVICE_INIT_THREADS, "4");
+        setSystemProperty(Services.CONF_SERVICE_CLASSES, D1.class.getName() + "," + D2.class.getName() + ","
+                + D3.class.getName() + "," + D4.class.getName());
+        Services services = new Services();
+        services.init();
+        // D2 does not wait for D1, D3 waits for D1, D4 waits for all
+        assertEquals(Arrays.asList("init D2", "init D1", "init D3", "init D4"), EVENTS);
+        EVENTS.clear();
+        services.destroy();
+        assertEquals(Arrays.asList("destroy D4", "destroy D3", "destroy D2", "destroy D1"), EVENTS);
+    }
+
+    public void testConcurrentInitFailure() throws Exception {
+        EVENTS.clear();
+        setSystemProperty(Services.CONF_SERVICE_INIT_THREADS, "4");
+        setSystemProperty(Services.CONF_SERVICE_CLASSES, D1.class.getName() + "," + DFail.class.getName() + ","
+                + D3.class.getName() + "," + D4.class.getName());
+        Services services = new Services();
+        try {
+            services.init();
+            fail();
+        }
+        catch (ServiceException ex) {
+            assertEquals(ErrorCode.E0100, ex.getErrorCode());
+        }
+        assertNull(Services.get());
+        assertTrue(EVENTS.contains("destroy D1"));
+        assertTrue(EVENTS.contains("destroy D3"));
+        assertFalse(EVENTS.contains("init D4"));
+    }
 }
@@ -14,9 +14,33 @@
  */
 package org.apache.oozie.service;
 
+import org.apache.oozie.CoordinatorActionBean;
+import org.apache.oozie.CoordinatorJobBean;
+import org.apache.oozie.SLAEventBean;
+import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.WorkflowActionStatsBean;
+import org.apache.oozie.WorkflowJobBean;
+import org.apache.oozie.client.rest.JsonCoordinatorAction;
+import org.apache.oozie.client.rest.JsonCoordinatorJob;
+import org.apache.oozie.client.rest.JsonSLAEvent;
+import org.apache.oozie.client.rest.JsonWorkflowAction;
+import org.apache.oozie.client.rest.JsonWorkflowJob;
+import org.apache.oozie.store.SLAStore;
+import org.apache.oozie.store.WorkflowStore;
 import org.apache.oozie.test.XTestCase;
+import org.apache.oozie.util.Instrumentation;
+import org.apache.oozie.util.db.BackgroundInstrumentedBasicDataSource;
+import org.apache.oozie.util.db.InstrumentedBasicDataSource;
+import org.apache.oozie.util.db.ReadInstrumentedBasicDataSource;
+import org.apache.openjpa.enhance.PersistenceCapable;
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
 
 import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class TestStoreService extends XTestCase {
 
@@ -38,4 +62,120 @@ public class TestStoreService extends XTestCase {
         assertNotNull(em);
         em.close();
     }
+
+    public void testBuildTimeEnhancement() throws Exception {
+        Class[] beans = {WorkflowJobBean.class, WorkflowActionBean.class, CoordinatorJobBean.class,
+                CoordinatorActionBean.class, SLAEventBean.class, WorkflowActionStatsBean.class,
+                JsonWorkflowJob.class, JsonWorkflowAction.class, JsonCoordinatorJob.class,
+                JsonCoordinatorAction.class, JsonSLAEvent.class};
+        for (Class bean : beans) {
+            assertTrue(bean.getName(), PersistenceCapable.class.isAssignableFrom(bean));
+        }
+    }
+
+    public void testDBDictionary() throws Exception {
+        EntityManager em = Services.get().get(StoreService.class).getEntityManager();
+        DBDictionary dict = ((JDBCConfiguration) OpenJPAPersistence.cast(em).getEntityManagerFactory()
+                .getConfiguration()).getDBDictionaryInstance();
+        em.close();
+        assertEquals(50, dict.getBatchLimit());
+        assertTrue(dict.useGetBytesForBlobs);
+        assertTrue(dict.useSetBytesForBlobs);
+        assertEquals(500000, dict.blobBufferSize);
+    }
+
+    public void testQueryCacheInstrumentation() throws Exception {
+        EntityManager em = Services.get().get(StoreService.class).getEntityManager();
+        em.createNamedQuery("GET_WORKFLOWS_COUNT").getSingleResult();
+        em.close();
+        Map<String, Instrumentation.Element<Instrumentation.Variable>> variables =
+                Services.get().get(InstrumentationService.class).get().getVariables().get("jpa");
+        assertNotNull(variables.get("query.compilation.cache"));
+        Object compiled = ((Instrumentation.Element) variables.get("query.compilation.cache")).getValue();
+        assertTrue((Long) compiled > 0);
+        assertNotNull(variables.get("query.sql.cache"));
+    }
+
+    public void testReadOnlyStore() throws Exception {
+        StoreService ss = Services.get().get(StoreService.class);
+        assertFalse(ss.hasReadReplica());
+        WorkflowStore store = ss.getReadOnlyStore(WorkflowStore.class);
+        assertTrue(store.isReadOnly());
+        store.beginTrx();
+        assertFalse(store.isActive());
+        assertEquals(0, store.getWorkflowsInfo(new HashMap<String, List<String>>(), 1, 10).getWorkflows().size());
+        store.commitTrx();
+        store.closeTrx();
+    }
+
+    public void testReadReplica() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(StoreService.CONF_READ_URL, "jdbc:hsqldb:mem:oozie-replica-db;create=true");
+        setSystemProperty(StoreService.CONF_READ_CREATE_DB_SCHEMA, "true");
+        new Services().init();
+        StoreService ss = Services.get().get(StoreService.class);
+        assertTrue(ss.hasReadReplica());
+        Map<String, Map<String, Instrumentation.Element<Double>>> samplers =
+                Services.get().get(InstrumentationService.class).get().getSamplers();
+        assertNotNull(samplers.get(InstrumentedBasicDataSource.INSTR_GROUP).get(InstrumentedBasicDataSource.INSTR_NAME));
+        assertNotNull(samplers.get(InstrumentedBasicDataSource.INSTR_GROUP)
+                .get(ReadInstrumentedBasicDataSource.INSTR_NAME));
+
+        SLAStore store = ss.getReadOnlyStore(SLAStore.class);
+        assertTrue(store.isReadOnly());
+        store.beginTrx();
+        assertFalse(store.isActive());
+        store.commitTrx();
+        store.closeTrx();
+    }
+
+    public void testConnectionPools() throws Exception {
+        Services.get().destroy();
+        setSystemProperty(StoreService.CONF_READ_MAX_ACTIVE_CONN, "2");
+        setSystemProperty(StoreService.CONF_BACKGROUND_MAX_ACTIVE_CONN, "2");
+        new Services().init();
+        Instrumentation instr = Services.get().get(InstrumentationService.class).get();
+        Map<String, Instrumentation.Element<Double>> samplers = instr.getSamplers().get(
+                InstrumentedBasicDataSource.INSTR_GROUP);
+        assertNotNull(samplers.get(InstrumentedBasicDataSource.INSTR_NAME));
+        assertNotNull(samplers.get(ReadInstrumentedBasicDataSource.INSTR_NAME));
+        assertNotNull(samplers.get(BackgroundInstrumentedBasicDataSource.INSTR_NAME));
+
+        StoreService ss = Services.get().get(StoreService.class);
+        StoreService.Workload previous = StoreService.setWorkload(new StoreService.Workload("test", true));
+        try {
+            EntityManager em = ss.getEntityManager();
+            em.createNamedQuery("GET_WORKFLOWS_COUNT").getSingleResult();
+            em.close();
+        }
+        finally {
+            StoreService.setWorkload(previous);
+        }
+        assertNull(StoreService.getWorkload());
+
+        Map<String, Instrumentation.Element<Instrumentation.Timer>> timers = instr.getTimers().get(
+                InstrumentedBasicDataSource.INSTR_GROUP);
+        assertNotNull(timers.get(BackgroundInstrumentedBasicDataSource.INSTR_PREFIX
+                + InstrumentedBasicDataSource.INSTR_WAIT));
+        assertNotNull(timers.get(BackgroundInstrumentedBasicDataSource.INSTR_PREFIX
+                + InstrumentedBasicDataSource.INSTR_HOLD + "test"));
+    }
+
+    public void testSharedConnectionPools() throws Exception {
+        // the read and background pools share the default pool by default
+        Services.get().destroy();
+        setSystemProperty(StoreService.CONF_MAX_OPEN_STATEMENTS, "0");
+        new Services().init();
+        Map<String, Instrumentation.Element<Double>> samplers = Services.get().get(InstrumentationService.class).get()
+                .getSamplers().get(InstrumentedBasicDataSource.INSTR_GROUP);
+        assertNotNull(samplers.get(InstrumentedBasicDataSource.INSTR_NAME));
+        assertNull(samplers.get(ReadInstrumentedBasicDataSource.INSTR_NAME));
+        assertNull(samplers.get(BackgroundInstrumentedBasicDataSource.INSTR_NAME));
+
+        WorkflowStore store = Services.get().get(StoreService.class).getReadOnlyStore(WorkflowStore.class);
+        store.beginTrx();
+        assertEquals(0, store.getWorkflowsInfo(new HashMap<String, List<String>>(), 1, 10).getWorkflows().size());
+        store.commitTrx();
+        store.closeTrx();
+    }
 }
@@ -17,6 +17,7 @@ package org.apache.oozie.servlet;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -178,6 +179,18 @@ public class MockCoordinatorEngineService extends CoordinatorEngineService {
             writer.write(LOG);
         }
 
+        @Override
+        public List<CoordinatorActionBean> getCoordActionsInfo(Collection<String> ids, Date since)
+                throws CoordinatorEngineException {
+            did = RestConstants.JOBS_IDS_PARAM;
+            List<CoordinatorActionBean> actions = new ArrayList<CoordinatorActionBean>();
+            for (String id : ids) {
+                actions.add((CoordinatorActionBean) createDummyAction(Integer.parseInt(id.replace(ACTION_ID, "")),
+                                                                      JOB_ID + 0));
+            }
+            return actions;
+        }
+
         private int validateCoordinatorIdx(String jobId) throws CoordinatorEngineException {
             int idx = -1;
             try {
@@ -17,6 +17,7 @@ package org.apache.oozie.servlet;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
@@ -25,6 +26,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.DagEngine;
 import org.apache.oozie.DagEngineException;
 import org.apache.oozie.ErrorCode;
+import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.WorkflowsInfo;
 import org.apache.oozie.client.WorkflowJob;
 import org.apache.oozie.client.rest.JsonWorkflowAction;
@@ -50,6 +52,7 @@ public class MockDagEngineService extends DagEngineService {
     public static Properties properties;
     public static List<WorkflowJob> workflows;
     public static List<Boolean> started;
+    public static int jobsInfoCalls;
     public static final int INIT_WF_COUNT = 4;
 
     static {
@@ -58,6 +61,7 @@ public class MockDagEngineService extends DagEngineService {
 
     public static void reset() {
         did = null;
+        jobsInfoCalls = 0;
         properties = null;
         workflows = new ArrayList<WorkflowJob>();
         started = new ArrayList<Boolean>();
@@ -190,6 +194,19 @@ public class MockDagEngineService extends DagEngineService {
             return (externalId.equals("external-valid")) ? "id-valid" : null;
         }
 
+        @Override
+        public List<WorkflowJobBean> getJobsInfo(Collection<String> ids, Date since) throws DagEngineException {
+            did = RestConstants.JOBS_IDS_PARAM;
+            jobsInfoCalls++;
+            List<WorkflowJob> jobs = new ArrayList<WorkflowJob>();
+            if (since == null) {
+                for (String id : ids) {
+                    jobs.add(workflows.get(validateWorkflowIdx(id)));
+                }
+            }
+            return (List) jobs;
+        }
+
         private int validateWorkflowIdx(String jobId) throws DagEngineException {
             int idx = -1;
             try {
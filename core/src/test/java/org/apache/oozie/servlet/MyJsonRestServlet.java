@@ -101,6 +101,15 @@ public class MyJsonRestServlet extends JsonRestServlet {
                     json.add("array");
                     sendJsonResponse(response, HttpServletResponse.SC_OK, json);
                 }
+                else {
+                    if (request.getParameter("json").equals("large")) {
+                        JSONArray json = new JSONArray();
+                        for (int i = 0; i < 1000; i++) {
+                            json.add("large");
+                        }
+                        sendJsonResponse(response, HttpServletResponse.SC_OK, json);
+                    }
+                }
             }
         }
     }
@@ -24,6 +24,7 @@ import java.net.HttpURLConnection;
 import java.util.concurrent.Callable;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.util.zip.GZIPInputStream;
 
 public class TestJsonRestServlet extends XTestCase {
 
@@ -239,5 +240,62 @@ public class TestJsonRestServlet extends XTestCase {
         });
     }
 
+    private HttpURLConnection openConnection(String queryString) throws Exception {
+        URL url = new URL(container.getServletURL("/dummy") + "?" + queryString);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestProperty("content-type", "application/xml");
+        return conn;
+    }
+
+    public void testConditionalGet() throws Exception {
+        runTest(MyJsonRestServlet.CONTENT_TYPE_JSON_CRON_TEST, new Callable<Void>() {
+            public Void call() throws Exception {
+                HttpURLConnection conn = openConnection("json=object");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                String etag = conn.getHeaderField("ETag");
+                assertNotNull(etag);
+
+                conn = openConnection("json=object");
+                conn.setRequestProperty("If-None-Match", etag);
+                assertEquals(HttpServletResponse.SC_NOT_MODIFIED, conn.getResponseCode());
+
+                conn = openConnection("json=array");
+                conn.setRequestProperty("If-None-Match", etag);
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                assertFalse(etag.equals(conn.getHeaderField("ETag")));
+
+                // only the ETag is used to answer conditional requests
+                conn = openConnection("json=object");
+                conn.setIfModifiedSince(System.currentTimeMillis() + 60 * 60 * 1000);
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                assertNull(conn.getHeaderField("Last-Modified"));
+                return null;
+            }
+        });
+    }
+
+    public void testCompression() throws Exception {
+        runTest(MyJsonRestServlet.CONTENT_TYPE_JSON_CRON_TEST, new Callable<Void>() {
+            public Void call() throws Exception {
+                HttpURLConnection conn = openConnection("json=large");
+                conn.setRequestProperty("Accept-Encoding", "gzip");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                assertEquals("gzip", conn.getContentEncoding());
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(conn.getInputStream())));
+                assertTrue(reader.readLine().startsWith("[\"large\""));
+
+                conn = openConnection("json=object");
+                conn.setRequestProperty("Accept-Encoding", "gzip");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                assertNull(conn.getContentEncoding());
+
+                conn = openConnection("json=large");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                assertNull(conn.getContentEncoding());
+                return null;
+            }
+        });
+    }
 
 }
@@ -173,4 +173,58 @@ public class TestV1JobsServlet extends DagServletTestCase {
         });
     }
 
+    public void testJobsInfo() throws Exception {
+        runTest("/v1/jobs", V1JobsServlet.class, IS_SECURITY_ENABLED, new Callable<Void>() {
+            public Void call() throws Exception {
+                MockDagEngineService.reset();
+                MockCoordinatorEngineService.reset();
+
+                String wfId = MockDagEngineService.JOB_ID + 1 + MockDagEngineService.JOB_ID_END;
+                String actionId = MockCoordinatorEngineService.ACTION_ID + 2;
+                Map<String, String> params = new HashMap<String, String>();
+                params.put(RestConstants.JOBS_IDS_PARAM, wfId + "," + actionId);
+                URL url = createURL("", params);
+                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("GET");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                assertTrue(conn.getHeaderField("content-type").startsWith(RestConstants.JSON_CONTENT_TYPE));
+                JSONObject json = (JSONObject) JSONValue.parse(new InputStreamReader(conn.getInputStream()));
+                JSONArray array = (JSONArray) json.get(JsonTags.WORKFLOWS_JOBS);
+                assertEquals(1, array.size());
+                assertEquals(MockDagEngineService.JOB_ID + 1, ((JSONObject) array.get(0)).get(JsonTags.WORKFLOW_ID));
+                array = (JSONArray) json.get(JsonTags.COORDINATOR_ACTIONS_INFO);
+                assertEquals(1, array.size());
+                assertEquals(actionId, ((JSONObject) array.get(0)).get(JsonTags.COORDINATOR_ACTION_ID));
+                assertEquals(0, ((JSONArray) json.get(JsonTags.WORKFLOW_ACTIONS_INFO)).size());
+                assertEquals(0, ((JSONArray) json.get(JsonTags.COORDINATOR_JOBS)).size());
+                long watchTime = (Long) json.get(JsonTags.JOBS_WATCH_TIME);
+                assertTrue(watchTime <= System.currentTimeMillis());
+                assertEquals(RestConstants.JOBS_IDS_PARAM, MockDagEngineService.did);
+
+                params.put(RestConstants.JOBS_IDS_PARAM, wfId);
+                params.put(RestConstants.JOBS_SINCE_PARAM, Long.toString(watchTime));
+                url = createURL("", params);
+                conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("GET");
+                assertEquals(HttpServletResponse.SC_OK, conn.getResponseCode());
+                json = (JSONObject) JSONValue.parse(new InputStreamReader(conn.getInputStream()));
+                assertEquals(0, ((JSONArray) json.get(JsonTags.WORKFLOWS_JOBS)).size());
+
+                params.put(RestConstants.JOBS_SINCE_PARAM, "x");
+                url = createURL("", params);
+                conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("GET");
+                assertEquals(HttpServletResponse.SC_BAD_REQUEST, conn.getResponseCode());
+
+                params.remove(RestConstants.JOBS_SINCE_PARAM);
+                params.put(RestConstants.JOBS_IDS_PARAM, "invalid-id");
+                url = createURL("", params);
+                conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("GET");
+                assertEquals(HttpServletResponse.SC_BAD_REQUEST, conn.getResponseCode());
+                return null;
+            }
+        });
+    }
+
 }
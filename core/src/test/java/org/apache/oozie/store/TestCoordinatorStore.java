@@ -14,6 +14,7 @@
  */
 package org.apache.oozie.store;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -71,6 +72,140 @@ public class TestCoordinatorStore extends XTestCase {
         }
     }
 
+    public void testCoordStoreActiveActions() throws StoreException {
+        String jobId = "00000-" + new Date().getTime() + "-TestCoordinatorStore-C";
+        String actionId = jobId + "_1";
+        _testInsertJob(jobId);
+        createAction(jobId, actionId);
+        _testGetActiveActionsExternalIds(jobId, actionId + "_E");
+        _testUpdateActiveCoordActionsStatus(jobId, actionId);
+    }
+
+    public void testCoordStoreRerunActions() throws StoreException {
+        String jobId = "00000-" + new Date().getTime() + "-TestCoordinatorStore-C";
+        _testInsertJob(jobId);
+        CoordinatorActionBean action1 = createAction(jobId, jobId + "_1");
+        CoordinatorActionBean action2 = createAction(jobId, jobId + "_2");
+        store.beginTrx();
+        try {
+            List<CoordinatorActionBean> actions = store.getCoordActionsForIds(jobId, Arrays.asList(action2.getId(),
+                                                                                                   action1.getId()));
+            assertEquals(2, actions.size());
+            assertEquals(action2.getId(), actions.get(0).getId());
+            assertEquals(action1.getId(), actions.get(1).getId());
+
+            actions = store.getCoordActionsForNominalTimes(jobId, Arrays.asList(action1.getNominalTime()));
+            assertTrue(actions.size() == 1 && actions.get(0).getJobId().equals(jobId));
+
+            try {
+                store.getCoordActionsForIds(jobId, Arrays.asList(action1.getId(), jobId + "_3"));
+                fail();
+            }
+            catch (StoreException ex) {
+                //nop
+            }
+
+            Date rerunTime = new Date();
+            assertEquals(2, store.updateCoordActionsForRerun(Arrays.asList(action1.getId(), action2.getId()),
+                                                             rerunTime));
+            store.commitTrx();
+        }
+        catch (StoreException ex) {
+            if (store.isActive()) {
+                store.rollbackTrx();
+            }
+            throw ex;
+        }
+        CoordinatorActionBean action = getCoordAction(action1.getId());
+        assertEquals(CoordinatorAction.Status.WAITING, action.getStatus());
+        assertEquals("", action.getExternalId());
+        assertEquals(CoordinatorAction.Status.WAITING, getCoordAction(action2.getId()).getStatus());
+    }
+
+    public void testCoordStoreInfoForIds() throws Exception {
+        cleanUpDBTables();
+        long now = System.currentTimeMillis();
+        String jobId = "00000-" + now + "-TestCoordinatorStore-C";
+        CoordinatorJobBean job = createCoordJob(jobId);
+        job.setStatus(CoordinatorJob.Status.SUCCEEDED);
+        job.setLastModifiedTime(new Date(now - 20 * 60 * 1000));
+        store.beginTrx();
+        store.insertCoordinatorJob(job);
+        store.commitTrx();
+        CoordinatorActionBean action1 = createAction(jobId, jobId + "_1");
+        CoordinatorActionBean action2 = createAction(jobId, jobId + "_2");
+
+        List<String> jobIds = Arrays.asList(jobId, "00000-0-TestCoordinatorStore-C");
+        List<String> actionIds = Arrays.asList(action1.getId(), action2.getId(), jobId + "_3");
+        Date before = new Date(now - 30 * 60 * 1000);
+        Date after = new Date(now - 10 * 60 * 1000);
+        store.beginTrx();
+        List<CoordinatorJobBean> jobs = store.getCoordinatorJobsInfo(jobIds, null);
+        assertEquals(1, jobs.size());
+        assertEquals(jobId, jobs.get(0).getId());
+        assertEquals(1, store.getCoordinatorJobsInfo(jobIds, before).size());
+        assertEquals(0, store.getCoordinatorJobsInfo(jobIds, after).size());
+        assertEquals(2, store.getCoordActionsInfo(actionIds, null).size());
+        assertEquals(2, store.getCoordActionsInfo(actionIds, before).size());
+        assertEquals(0, store.getCoordActionsInfo(actionIds, after).size());
+
+        // archived jobs and actions are read from the history tables by read-only stores, without a modification time
+        assertEquals(1, store.archive(after, 10));
+        assertEquals(0, store.getCoordinatorJobsInfo(jobIds, null).size());
+        store.commitTrx();
+        CoordinatorStore readOnly = Services.get().get(CoordinatorStoreService.class).createReadOnly();
+        try {
+            assertEquals(1, readOnly.getCoordinatorJobsInfo(jobIds, null).size());
+            assertEquals(0, readOnly.getCoordinatorJobsInfo(jobIds, before).size());
+            assertEquals(2, readOnly.getCoordActionsInfo(actionIds, null).size());
+            assertEquals(0, readOnly.getCoordActionsInfo(actionIds, before).size());
+        }
+        finally {
+            readOnly.closeTrx();
+        }
+        store.beginTrx();
+        assertTrue(store.restoreCoordinatorJob(jobId));
+        store.commitTrx();
+    }
+
+    private void _testGetActiveActionsExternalIds(String jobId, String extId) {
+        store.beginTrx();
+        try {
+            List<String> extIds = store.getActiveActionsExternalIdsForCoordinatorJob(jobId);
+            assertEquals(1, extIds.size());
+            assertEquals(extId, extIds.get(0));
+            extIds = store.getRunningActionsExternalIdsForCoordinatorJob(jobId);
+            assertEquals(0, extIds.size());
+            store.commitTrx();
+        }
+        catch (Exception ex) {
+            store.rollbackTrx();
+            ex.printStackTrace();
+            fail("Unable to GET external IDs for COORD Actions. jobId =" + jobId);
+        }
+    }
+
+    private void _testUpdateActiveCoordActionsStatus(String jobId, String actionId) {
+        store.beginTrx();
+        try {
+            assertEquals(1, store.updateActiveCoordinatorActionsStatus(jobId, CoordinatorAction.Status.KILLED));
+            store.commitTrx();
+            CoordinatorActionBean action = getCoordAction(actionId);
+            assertEquals(CoordinatorAction.Status.KILLED, action.getStatus());
+            store.beginTrx();
+            assertEquals(0, store.updateActiveCoordinatorActionsStatus(jobId, CoordinatorAction.Status.KILLED));
+            assertEquals(0, store.getActiveActionsExternalIdsForCoordinatorJob(jobId).size());
+            store.commitTrx();
+        }
+        catch (Exception ex) {
+            if (store.isActive()) {
+                store.rollbackTrx();
+            }
+            ex.printStackTrace();
+            fail("Unable to Update status of COORD Actions. jobId =" + jobId);
+        }
+    }
+
     private void _testUpdateCoordAction(String actionId) {
         store.beginTrx();
         try {
@@ -17,12 +17,15 @@ package org.apache.oozie.store;
 import org.apache.oozie.util.XLog;
 
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Arrays;
 
+import javax.persistence.Query;
+
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.client.WorkflowJob;
@@ -91,6 +94,74 @@ public class TestDBWorkflowStore extends XTestCase {
         _testPurge();
     }
 
+    public void testGetInfoForIds() throws Exception {
+        cleanUpDBTables();
+        _testInsertWF();
+        long now = System.currentTimeMillis();
+        store.beginTrx();
+        setLastModifiedTime(wfBean1.getId(), new Date(now - 20 * 60 * 1000));
+        setLastModifiedTime(wfBean2.getId(), new Date(now - 60 * 60 * 1000));
+        WorkflowActionBean action = new WorkflowActionBean();
+        action.setId(wfBean1.getId() + "@a");
+        action.setJobId(wfBean1.getId());
+        action.setName("a");
+        action.setStatus(WorkflowAction.Status.PREP);
+        store.insertAction(action);
+        store.commitTrx();
+
+        List<String> ids = Arrays.asList(wfBean1.getId(), wfBean2.getId(), "0000000-000000000000000-oozie-test-W");
+        List<String> actionIds = Arrays.asList(action.getId(), wfBean1.getId() + "@b");
+        Date before = new Date(now - 30 * 60 * 1000);
+        Date after = new Date(now - 10 * 60 * 1000);
+        store.beginTrx();
+        assertEquals(2, store.getWorkflowsInfo(ids, null).size());
+        List<WorkflowJobBean> workflows = store.getWorkflowsInfo(ids, before);
+        assertEquals(1, workflows.size());
+        assertEquals(wfBean1.getId(), workflows.get(0).getId());
+        assertEquals(0, store.getWorkflowsInfo(ids, after).size());
+
+        assertEquals(1, store.getActionsInfo(actionIds, null).size());
+        // the action has no timestamps, it is returned if its workflow was modified after the given time
+        assertEquals(1, store.getActionsInfo(actionIds, before).size());
+        assertEquals(0, store.getActionsInfo(actionIds, after).size());
+        store.commitTrx();
+
+        // archived workflows and actions are read from the history tables by read-only stores, without a
+        // modification time
+        store.beginTrx();
+        WorkflowJobBean wf = store.getWorkflow(wfBean1.getId(), false);
+        wf.setStatus(WorkflowJob.Status.SUCCEEDED);
+        wf.setEndTime(new Date(now - 20 * 60 * 1000));
+        store.updateWorkflow(wf);
+        store.commitTrx();
+        store.beginTrx();
+        assertEquals(1, store.archive(after, 10));
+        assertEquals(1, store.getWorkflowsInfo(ids, null).size());
+        store.commitTrx();
+        WorkflowStore readOnly = Services.get().get(WorkflowStoreService.class).createReadOnly();
+        try {
+            assertEquals(2, readOnly.getWorkflowsInfo(ids, null).size());
+            assertEquals(0, readOnly.getWorkflowsInfo(ids, before).size());
+            assertEquals(1, readOnly.getActionsInfo(actionIds, null).size());
+            assertEquals(0, readOnly.getActionsInfo(actionIds, before).size());
+        }
+        finally {
+            readOnly.closeTrx();
+        }
+        store.beginTrx();
+        assertTrue(store.restoreWorkflow(wfBean1.getId()));
+        store.commitTrx();
+    }
+
+    // the store sets the modification time on updates, it is set with a query to test the modification time filters
+    private void setLastModifiedTime(String id, Date time) {
+        Query q = store.getEntityManager().createQuery(
+                "update WorkflowJobBean w set w.lastModifiedTimestamp = :time where w.id = :id");
+        q.setParameter("time", new Timestamp(time.getTime()));
+        q.setParameter("id", id);
+        q.executeUpdate();
+    }
+
     private WorkflowJobBean createWorkflow(WorkflowApp app, Configuration conf, String authToken) throws Exception {
         WorkflowAppService wps = Services.get().get(WorkflowAppService.class);
         Configuration protoActionConf = wps.createProtoActionConf(conf, authToken, true);
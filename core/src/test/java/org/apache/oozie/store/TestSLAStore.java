@@ -52,6 +52,33 @@ public class TestSLAStore extends XTestCase {
         }
     }
 
+    public void testCommittedEventsBuffered() throws Exception {
+        SLAStoreService slaService = Services.get().get(SLAStoreService.class);
+        SLAEventBean first = createSLAEvent("a");
+        store.beginTrx();
+        store.insertSLAEvent(first);
+        store.insertSLAEvent(createSLAEvent("b"));
+        store.commitTrx();
+
+        // events of a rolled back transaction are not buffered
+        store.beginTrx();
+        store.insertSLAEvent(createSLAEvent("c"));
+        store.rollbackTrx();
+
+        // committing again with the same store does not buffer earlier events twice
+        store.beginTrx();
+        store.insertSLAEvent(createSLAEvent("d"));
+        store.commitTrx();
+
+        List<SLAEventBean> events = slaService.getBufferedEvents(first.getEvent_id() - 1, 100, 0, new long[1]);
+        assertNotNull(events);
+        StringBuilder ids = new StringBuilder();
+        for (SLAEventBean event : events) {
+            ids.append(event.getSlaId());
+        }
+        assertEquals("abd", ids.toString());
+    }
+
     private void _testGetSlaEventSeqNewerLimited(long seqId, int limitLen) {
         // store.beginTrx();
         try {
@@ -41,6 +41,7 @@ import org.apache.hadoop.mapred.MiniMRCluster;
 import org.apache.oozie.CoordinatorActionBean;
 import org.apache.oozie.CoordinatorJobBean;
 import org.apache.oozie.WorkflowActionBean;
+import org.apache.oozie.WorkflowActionStatsBean;
 import org.apache.oozie.WorkflowJobBean;
 import org.apache.oozie.service.Services;
 import org.apache.oozie.service.WorkflowAppService;
@@ -613,12 +614,20 @@ public abstract class XTestCase extends TestCase {
             entityManager.remove(w);
         }
 
+        q = entityManager.createNamedQuery("GET_ACTION_STATS");
+        List<WorkflowActionStatsBean> wfsBeans = q.getResultList();
+        int wfsSize = wfsBeans.size();
+        for (WorkflowActionStatsBean w : wfsBeans) {
+            entityManager.remove(w);
+        }
+
         store.commitTrx();
         store.closeTrx();
         log.info(wfjSize + " entries in WF_JOBS removed from DB!");
         log.info(wfaSize + " entries in WF_ACTIONS removed from DB!");
         log.info(cojSize + " entries in COORD_JOBS removed from DB!");
         log.info(coaSize + " entries in COORD_ACTIONS removed from DB!");
+        log.info(wfsSize + " entries in WF_ACTION_STATS removed from DB!");
     }
 
     private static MiniDFSCluster dfsCluster = null;
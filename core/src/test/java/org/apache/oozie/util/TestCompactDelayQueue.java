@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class TestCompactDelayQueue extends TestCase {
+
+    public void testPollDue() {
+        CompactDelayQueue queue = new CompactDelayQueue(2);
+        queue.add(1, "c", 0, 300);
+        queue.add(2, "a", 1, 100);
+        queue.add(1, "d", 0, 400);
+        queue.add(1, "b", 2, 200);
+        assertEquals(4, queue.size());
+        assertEquals(100, queue.peekDueTime());
+
+        assertTrue(queue.pollDue(50).isEmpty());
+        List<CompactDelayQueue.Entry> due = queue.pollDue(250);
+        assertEquals(2, due.size());
+        assertEquals("a", due.get(0).getEntityId());
+        assertEquals(2, due.get(0).getTypeId());
+        assertEquals(1, due.get(0).getPriority());
+        assertEquals(100, due.get(0).getDueTime());
+        assertEquals("b", due.get(1).getEntityId());
+        assertEquals(2, queue.size());
+
+        due = queue.pollDue(1000);
+        assertEquals(2, due.size());
+        assertEquals("c", due.get(0).getEntityId());
+        assertEquals("d", due.get(1).getEntityId());
+        assertEquals(0, queue.size());
+        assertEquals(-1, queue.peekDueTime());
+    }
+
+    public void testHeapSizeAndClear() {
+        CompactDelayQueue queue = new CompactDelayQueue(10);
+        long empty = queue.getHeapSize();
+        queue.add(1, "0000001-100101000000000-oozie-C@1", 0, 100);
+        assertTrue(queue.getHeapSize() > empty);
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertEquals(empty, queue.getHeapSize());
+
+        try {
+            queue.add(1, "a", 128, 100);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            //nop
+        }
+    }
+
+}
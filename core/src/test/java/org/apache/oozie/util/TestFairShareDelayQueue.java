@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+
+public class TestFairShareDelayQueue extends TestCase {
+
+    // the scheduling class of an element is its first character
+    private static class ClassQueue extends FairShareDelayQueue<String> {
+
+        public ClassQueue(int[] weights, int[] classMaxSizes, int maxSize) {
+            super(new String[]{"a", "b"}, weights, classMaxSizes, 3, 1000, TimeUnit.MILLISECONDS, maxSize);
+        }
+
+        @Override
+        protected String getQueueClass(PriorityDelayQueue.QueueElement<String> queueElement) {
+            return queueElement.getElement().substring(0, 1);
+        }
+    }
+
+    private static PriorityDelayQueue.QueueElement<String> element(String s) {
+        return new PriorityDelayQueue.QueueElement<String>(s);
+    }
+
+    private static int pollClass(FairShareDelayQueue<String> queue, String queueClass, int polls) {
+        int count = 0;
+        for (int i = 0; i < polls; i++) {
+            if (queue.poll().getElement().startsWith(queueClass)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void testInvalidConstructor() {
+        try {
+            new FairShareDelayQueue<String>(new String[0], new int[0], new int[0], 3, 1000, TimeUnit.MILLISECONDS, -1);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            //nop
+        }
+        try {
+            new FairShareDelayQueue<String>(new String[]{"a"}, new int[]{0}, new int[]{-1}, 3, 1000,
+                                            TimeUnit.MILLISECONDS, -1);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            //nop
+        }
+        try {
+            new FairShareDelayQueue<String>(new String[]{"a", "a"}, new int[]{1, 1}, new int[]{-1, -1}, 3, 1000,
+                                            TimeUnit.MILLISECONDS, -1);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            //nop
+        }
+    }
+
+    public void testWeightedSharing() {
+        FairShareDelayQueue<String> queue = new ClassQueue(new int[]{3, 1}, new int[]{-1, -1}, -1);
+        for (int i = 0; i < 8; i++) {
+            queue.offer(element("a" + i));
+            queue.offer(element("b" + i));
+        }
+        assertEquals(16, queue.size());
+        assertEquals(8, queue.size("a"));
+        assertEquals(6, pollClass(queue, "a", 8));
+
+        assertEquals(2, queue.size("a"));
+        assertEquals(6, queue.size("b"));
+
+        // when a class has nothing available the other class gets all
+        assertEquals(8, pollClass(queue, "", 8));
+        assertNull(queue.poll());
+    }
+
+    public void testNoCreditWhenIdle() {
+        FairShareDelayQueue<String> queue = new ClassQueue(new int[]{3, 1}, new int[]{-1, -1}, -1);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(element("a" + i));
+        }
+        assertEquals(10, pollClass(queue, "a", 10));
+
+        // the idle class did not accumulate credit to starve the other class
+        for (int i = 0; i < 4; i++) {
+            queue.offer(element("a" + i));
+            queue.offer(element("b" + i));
+        }
+        assertEquals(1, pollClass(queue, "b", 4));
+    }
+
+    public void testDelayedAndPriority() {
+        FairShareDelayQueue<String> queue = new ClassQueue(new int[]{1, 1}, new int[]{-1, -1}, -1);
+        queue.offer(new PriorityDelayQueue.QueueElement<String>("a1", 0, 1, TimeUnit.HOURS));
+        queue.offer(element("b1"));
+        queue.offer(new PriorityDelayQueue.QueueElement<String>("b2", 2, 0, TimeUnit.MILLISECONDS));
+        assertEquals("b2", queue.poll().getElement());
+        assertEquals("b1", queue.poll().getElement());
+        assertNull(queue.poll());
+        assertEquals("a1", queue.peek().getElement());
+        assertEquals(1, queue.size());
+    }
+
+    public void testMaxSizes() {
+        FairShareDelayQueue<String> queue = new ClassQueue(new int[]{1, 1}, new int[]{2, 1}, 3);
+        assertTrue(queue.offer(element("b1")));
+        assertFalse(queue.hasCapacity(element("b2")));
+        assertFalse(queue.offer(element("b2")));
+        assertTrue(queue.hasCapacity(element("a1")));
+        assertTrue(queue.offer(element("a1")));
+
+        // unknown classes go to the default class
+        assertTrue(queue.offer(element("c1")));
+        assertEquals(2, queue.size("a"));
+        assertEquals(0, queue.size("c"));
+        assertFalse(queue.offer(element("a2")));
+
+        // ignoring sizes
+        assertTrue(queue.offer(element("b2"), true));
+        assertEquals(4, queue.size());
+
+        PriorityDelayQueue.QueueElement<String> e = element("a3");
+        queue.offer(e, true);
+        assertTrue(queue.remove(e));
+        assertFalse(queue.remove(e));
+        queue.clear();
+        assertEquals(0, queue.size());
+    }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import java.util.List;
+
+import org.apache.oozie.SLAEventBean;
+import org.apache.oozie.test.XTestCase;
+
+public class TestSLAEventBuffer extends XTestCase {
+
+    private SLAEventBean createEvent(long seqId) {
+        SLAEventBean event = new SLAEventBean();
+        event.setEvent_id(seqId);
+        event.setSlaId("sla-" + seqId);
+        return event;
+    }
+
+    public void testEmptyBuffer() {
+        SLAEventBuffer buffer = new SLAEventBuffer(3);
+        assertEquals(0, buffer.size());
+        assertEquals(-1, buffer.getFloorSeqId());
+        assertNull(buffer.getEventsNewerThan(0, 10, new long[1]));
+    }
+
+    public void testGetEvents() {
+        SLAEventBuffer buffer = new SLAEventBuffer(3);
+        buffer.add(createEvent(10));
+        buffer.add(createEvent(12));
+        buffer.add(createEvent(11));
+        assertEquals(3, buffer.size());
+        assertEquals(9, buffer.getFloorSeqId());
+
+        long[] lastSeqId = new long[1];
+        List<SLAEventBean> events = buffer.getEventsNewerThan(9, 10, lastSeqId);
+        assertEquals(3, events.size());
+        assertEquals(10, events.get(0).getEvent_id());
+        assertEquals(11, events.get(1).getEvent_id());
+        assertEquals(12, events.get(2).getEvent_id());
+        assertEquals(12, lastSeqId[0]);
+
+        events = buffer.getEventsNewerThan(10, 1, lastSeqId);
+        assertEquals(1, events.size());
+        assertEquals(11, lastSeqId[0]);
+
+        events = buffer.getEventsNewerThan(12, 10, lastSeqId);
+        assertEquals(0, events.size());
+        assertEquals(12, lastSeqId[0]);
+
+        assertNull(buffer.getEventsNewerThan(5, 10, lastSeqId));
+    }
+
+    public void testEviction() {
+        SLAEventBuffer buffer = new SLAEventBuffer(2);
+        buffer.add(createEvent(1));
+        buffer.add(createEvent(2));
+        buffer.add(createEvent(3));
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.getFloorSeqId());
+        assertNull(buffer.getEventsNewerThan(0, 10, new long[1]));
+        List<SLAEventBean> events = buffer.getEventsNewerThan(1, 10, new long[1]);
+        assertEquals(2, events.size());
+        assertEquals(2, events.get(0).getEvent_id());
+        assertEquals(3, events.get(1).getEvent_id());
+
+        // older than the floor, only in the database
+        buffer.add(createEvent(1));
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.getEventsNewerThan(1, 10, new long[1]).size());
+    }
+
+    public void testWaitForEvents() throws Exception {
+        final SLAEventBuffer buffer = new SLAEventBuffer(10);
+        buffer.add(createEvent(1));
+        assertFalse(buffer.waitForEventsNewerThan(1, 100));
+        assertTrue(buffer.waitForEventsNewerThan(0, 100));
+
+        Thread t = new Thread() {
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                    buffer.add(createEvent(2));
+                }
+                catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        };
+        long start = System.currentTimeMillis();
+        t.start();
+        assertTrue(buffer.waitForEventsNewerThan(1, 10000));
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertEquals(1, buffer.getEventsNewerThan(1, 10, new long[1]).size());
+    }
+
+}
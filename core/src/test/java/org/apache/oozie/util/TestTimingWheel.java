@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010 Yahoo! Inc. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License. See accompanying LICENSE file.
+ */
+package org.apache.oozie.util;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class TestTimingWheel extends TestCase {
+
+    public void testAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 8, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 30);
+        wheel.schedule("c", 1000);
+        assertEquals(3, wheel.size());
+        assertEquals(new Long(25), wheel.getDueTime("a"));
+
+        assertEquals(Collections.<String>emptyList(), wheel.advance(19));
+        assertEquals(Arrays.asList("a"), wheel.advance(29));
+        assertEquals(Arrays.asList("b"), wheel.advance(30));
+        assertNull(wheel.getDueTime("a"));
+
+        // "c" is several revolutions ahead
+        assertEquals(Collections.<String>emptyList(), wheel.advance(500));
+        assertEquals(Arrays.asList("c"), wheel.advance(1005));
+        assertEquals(0, wheel.size());
+    }
+
+    public void testRescheduleAndCancel() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 8, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("a", 55);
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.<String>emptyList(), wheel.advance(30));
+        assertEquals(Arrays.asList("a"), wheel.advance(60));
+
+        wheel.schedule("b", 100);
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("b"));
+        assertEquals(Collections.<String>emptyList(), wheel.advance(200));
+    }
+
+    public void testPastDueAndLongGap() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 8, 100);
+
+        // a key due in the past is returned at the next tick
+        wheel.schedule("a", 0);
+        assertEquals(Collections.<String>emptyList(), wheel.advance(105));
+        assertEquals(Arrays.asList("a"), wheel.advance(110));
+
+        // advancing more than a revolution returns all the keys due
+        wheel.schedule("b", 150);
+        wheel.schedule("c", 400);
+        wheel.schedule("d", 5000);
+        List<String> due = wheel.advance(1000);
+        assertEquals(new HashSet<String>(Arrays.asList("b", "c")), new HashSet<String>(due));
+        assertEquals(1, wheel.size());
+    }
+
+}
@@ -17,6 +17,8 @@ package org.apache.oozie.util;
 import org.apache.commons.logging.impl.SimpleLog;
 import org.apache.oozie.test.XTestCase;
 
+import java.text.MessageFormat;
+
 public class TestXLog extends XTestCase {
 
     protected void setUp() throws Exception {
@@ -233,4 +235,58 @@ public class TestXLog extends XTestCase {
         assertNotNull(XLog.getCause("a", "b", new Exception()));
     }
 
+    public void testInfoPrefixCache() {
+        XLog.Info.defineParameter("A");
+        XLog.Info logInfo = new XLog.Info();
+        logInfo.setParameter("A", "a");
+        assertEquals("A[a]", logInfo.createPrefix());
+        assertSame(logInfo.createPrefix(), logInfo.createPrefix());
+        logInfo.clearParameter("A");
+        assertEquals("A[-]", logInfo.createPrefix());
+        logInfo.setParameter("A", "a");
+        XLog.Info.defineParameter("B");
+        assertEquals("A[a] B[-]", logInfo.createPrefix());
+        logInfo.clear();
+        assertEquals("A[-] B[-]", logInfo.createPrefix());
+    }
+
+    public void testFormat() {
+        Object[][] cases = {{"a {0} b", "x"}, {"{0}{1}", "x", null}, {"{0} {1}", 1234567, 1.5d},
+                {"{0} {2}", "x", "y"}, {"a '{0}' b", "x"}, {"{0,number,#} {1}", 1234, "x"}, {"a } {0}", "x"},
+                {"{0}", new Exception("e")}};
+        for (Object[] c : cases) {
+            Object[] params = new Object[c.length - 1];
+            System.arraycopy(c, 1, params, 0, params.length);
+            assertEquals(MessageFormat.format((String) c[0], params), XLog.format((String) c[0], params));
+        }
+        assertEquals("a" + System.getProperty("line.separator") + "x", XLog.format("a{E}{0}", "x"));
+    }
+
+    public void testAsync() throws Exception {
+        final TestLog log = new TestLog();
+        XLog xLog = new XLog(log);
+        xLog.loggers[1] = new TestLog();
+        log.setLevel(SimpleLog.LOG_LEVEL_ALL);
+        XLog.startAsync(10);
+        try {
+            assertNotNull(XLog.getAsyncDispatcher());
+            xLog.info("async {0}", "info");
+            waitFor(5000, new Predicate() {
+                public boolean evaluate() throws Exception {
+                    return log.getMessage() != null;
+                }
+            });
+            assertTrue(log.getMessage().endsWith("async info"));
+        }
+        finally {
+            XLog.stopAsync();
+        }
+        assertNull(XLog.getAsyncDispatcher());
+
+        // a full dispatcher makes the caller write the message
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(1);
+        dispatcher.stop();
+        assertFalse(dispatcher.dispatch(log, XLog.Level.INFO, "msg", null));
+    }
+
 }
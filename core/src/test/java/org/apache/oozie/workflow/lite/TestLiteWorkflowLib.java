@@ -478,6 +478,42 @@ public class TestLiteWorkflowLib extends XTestCase {
     }
 
 
+    public void testWideFork() throws Exception {
+        List<String> branches = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            branches.add("a" + i);
+        }
+        LiteWorkflowApp def = new LiteWorkflowApp("wf", "<worklfow-app/>", new StartNodeDef("f"))
+                .addNode(new ForkNodeDef("f", branches))
+                .addNode(new JoinNodeDef("j", "end"))
+                .addNode(new EndNodeDef("end"));
+        for (String branch : branches) {
+            def.addNode(new NodeDef(branch, null, AsynchNodeHandler.class, Arrays.asList(new String[]{"j"})));
+        }
+
+        LiteWorkflowInstance job = new LiteWorkflowInstance(def, new XConfiguration(), "1");
+        job.start();
+        assertEquals(WorkflowInstance.Status.RUNNING, job.getStatus());
+        assertEquals(1000, enters.size());
+        assertEquals(0, enters.get("a0").intValue());
+        assertEquals(999, enters.get("a999").intValue());
+
+        for (int i = 0; i < 500; i++) {
+            assertFalse(job.signal("/a" + i + "/", ""));
+        }
+
+        // the pending branch count of the fork survives persistence
+        job = WritableUtils.fromByteArray(WritableUtils.toByteArray(job), LiteWorkflowInstance.class);
+        assertNull(job.getVar(ForkNodeDef.FORK_COUNT_PREFIX + "/"));
+        for (int i = 500; i < 999; i++) {
+            assertFalse(job.signal("/a" + i + "/", ""));
+        }
+        assertEquals(WorkflowInstance.Status.RUNNING, job.getStatus());
+        assertTrue(job.signal("/a999/", ""));
+        assertEquals(WorkflowInstance.Status.SUCCEEDED, job.getStatus());
+        assertEquals(1000, exits.size());
+    }
+
     public void testKillWithRunningNodes() throws WorkflowException {
 
         LiteWorkflowApp def = new LiteWorkflowApp("wf", "<worklfow-app/>", new StartNodeDef("f"))
@@ -46,6 +46,7 @@ catalina_opts="${catalina_opts} -Doozie.config.file=${OOZIE_CONFIG_FILE}";
 
 catalina_opts="${catalina_opts} -Doozie.log4j.file=${OOZIE_LOG4J_FILE}";
 catalina_opts="${catalina_opts} -Doozie.log4j.reload=${OOZIE_LOG4J_RELOAD}";
+catalina_opts="${catalina_opts} -Doozie.log4j.async=${OOZIE_LOG4J_ASYNC}";
 
 catalina_opts="${catalina_opts} -Doozie.http.hostname=${OOZIE_HTTP_HOSTNAME}";
 catalina_opts="${catalina_opts} -Doozie.http.port=${OOZIE_HTTP_PORT}";
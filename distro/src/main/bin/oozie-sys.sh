@@ -157,6 +157,13 @@ else
   print "Using   OOZIE_LOG4J_RELOAD:  ${OOZIE_LOG4J_RELOAD}"
 fi
 
+if [ "${OOZIE_LOG4J_ASYNC}" = "" ]; then
+  export OOZIE_LOG4J_ASYNC="false"
+  print "Setting OOZIE_LOG4J_ASYNC:   ${OOZIE_LOG4J_ASYNC}"
+else
+  print "Using   OOZIE_LOG4J_ASYNC:   ${OOZIE_LOG4J_ASYNC}"
+fi
+
 if [ "${OOZIE_HTTP_HOSTNAME}" = "" ]; then
   export OOZIE_HTTP_HOSTNAME=`hostname -f`
   print "Setting OOZIE_HTTP_HOSTNAME: ${OOZIE_HTTP_HOSTNAME}"